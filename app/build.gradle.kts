@@ -284,6 +284,9 @@ dependencies {
     implementation(libs.tensorflow.lite.task.vision) {
         exclude(group = "org.tensorflow", module = "tensorflow-lite-api")
     }
+    implementation(libs.tensorflow.lite.metadata) {
+        exclude(group = "org.tensorflow", module = "tensorflow-lite-api")
+    }
     implementation(libs.opencv.android)
     implementation(libs.osmdroid.android)
     implementation(libs.osmdroid.wms)
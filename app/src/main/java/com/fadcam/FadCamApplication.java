@@ -51,6 +51,28 @@ public class FadCamApplication extends Application implements LifecycleObserver
         }
     }
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        // Decoded Records thumbnails are the largest evictable heap user; the disk pack stays
+        if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            trimThumbnailMemory();
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+        trimThumbnailMemory();
+    }
+
+    private static void trimThumbnailMemory() {
+        com.fadcam.utils.ThumbnailStore thumbnails = com.fadcam.utils.ThumbnailStore.peekInstance();
+        if (thumbnails != null) {
+            thumbnails.trimMemory();
+        }
+    }
+
     @OnLifecycleEvent(Lifecycle.Event.ON_STOP)
     public void onAppBackgrounded() {
         // App is in background, reset AppLock session
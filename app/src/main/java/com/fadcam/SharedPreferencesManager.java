@@ -1052,6 +1052,16 @@ public class SharedPreferencesManager {
         return getSavedPlaybackPositionMsByFilename(filename);
     }
 
+    /**
+     * Remove the saved playback position for a URI and its filename fallback key.
+     */
+    public void removeSavedPlaybackPosition(String uriString, String filename) {
+        SharedPreferences.Editor editor = sharedPreferences.edit();
+        if (uriString != null) editor.remove(PREF_KEY_VIDEO_POS_PREFIX + uriString);
+        if (filename != null) editor.remove(PREF_KEY_VIDEO_POS_FILENAME_PREFIX + filename);
+        editor.apply();
+    }
+
     // --- End Camera / Video settings ---
 
     // --- STORAGE METHODS ---
@@ -0,0 +1,359 @@
+package com.fadcam.data;
+
+import com.fadcam.FLog;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.fadcam.data.VideoIndexRepository.EnrichmentCallback;
+import com.fadcam.data.dao.VideoIndexDao;
+import com.fadcam.data.entity.VideoIndexEntity;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded, prioritised duration enrichment for the video index.
+ * <p>
+ * Architecture:
+ * <ul>
+ *   <li>Two queues: <b>priority</b> (URIs bound on screen, most recently requested first) and
+ *   <b>backlog</b> (unresolved rows, paged from the DB newest-first with a keyset cursor).
+ *   Workers always drain the priority queue before touching the backlog. One worker at a
+ *   time fetches the next page, outside the lock, so requests and other workers never wait
+ *   on the query.</li>
+ *   <li>At most {@link #parallelism} workers run at once; a worker exits when both queues are
+ *   empty, so an idle scheduler holds no threads busy.</li>
+ *   <li>Results are delivered to per-URI callbacks immediately, but written to the DB in
+ *   batches inside one transaction ({@link VideoIndexDao#updateDurations}).</li>
+ *   <li>Scrolling away cancels a request ({@link #cancel}); {@link #cancelAll} drops
+ *   everything queued, e.g. when the Records tab goes away.</li>
+ * </ul>
+ */
+final class EnrichmentScheduler {
+
+    private static final String TAG = "EnrichmentScheduler";
+
+    private static final int PAGE_SIZE = 64;
+    private static final int FLUSH_BATCH_SIZE = 32;
+    private static final long FLUSH_INTERVAL_MS = 500;
+
+    /** Resolves a duration in ms; 0 for images, <= 0 when unknown. */
+    interface Resolver {
+        long resolve(@NonNull String uriString, boolean isImage);
+    }
+
+    private final VideoIndexDao dao;
+    private final Resolver resolver;
+    private final int parallelism;
+    private final ExecutorService workers;
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+
+    // ── Guarded by lock ──
+    private final Object lock = new Object();
+    private final ArrayDeque<String> priorityOrder = new ArrayDeque<>();
+    private final Map<String, List<EnrichmentCallback>> priorityCallbacks = new HashMap<>();
+    private final Set<String> priorityImages = new HashSet<>();
+    private final ArrayDeque<VideoIndexEntity> backlog = new ArrayDeque<>();
+    private final Set<String> inFlight = new HashSet<>();
+    private final Set<String> attempted = new HashSet<>();
+    private boolean backgroundActive;
+    private boolean backlogExhausted;
+    private boolean pageLoading;
+    /** Bumped whenever the backlog cursor is reset, so a page fetched before is discarded. */
+    private int backlogGeneration;
+    private long cursorLastModified = Long.MAX_VALUE;
+    private long cursorId = Long.MAX_VALUE;
+    private int epoch;
+    @Nullable
+    private EnrichmentCallback backgroundCallback;
+
+    // ── Guarded by pendingWrites ──
+    private final List<String> pendingWrites = new ArrayList<>();
+    private final List<Long> pendingDurations = new ArrayList<>();
+    private long lastFlushMs = System.currentTimeMillis();
+
+    EnrichmentScheduler(@NonNull VideoIndexDao dao, @NonNull Resolver resolver) {
+        this.dao = dao;
+        this.resolver = resolver;
+        this.parallelism = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "IndexEnrich-" + threadIndex.incrementAndGet());
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts resolving every unresolved row in the background. No-op while already running.
+     *
+     * @return false if a background pass was already active
+     */
+    boolean startBackground(@Nullable EnrichmentCallback callback) {
+        synchronized (lock) {
+            if (backgroundActive) return false;
+            backgroundActive = true;
+            backlogExhausted = false;
+            backlogGeneration++;
+            backlog.clear();
+            attempted.clear();
+            cursorLastModified = Long.MAX_VALUE;
+            cursorId = Long.MAX_VALUE;
+            backgroundCallback = callback;
+        }
+        ensureWorkers();
+        return true;
+    }
+
+    /**
+     * Moves {@code uriString} to the front of the queue (an on-screen row needs it).
+     * The callback runs once, on a worker thread.
+     */
+    void request(@NonNull String uriString, boolean isImage, @NonNull EnrichmentCallback callback) {
+        synchronized (lock) {
+            if (isImage) {
+                priorityImages.add(uriString);
+            }
+            List<EnrichmentCallback> callbacks = priorityCallbacks.get(uriString);
+            if (callbacks == null) {
+                callbacks = new ArrayList<>(1);
+                priorityCallbacks.put(uriString, callbacks);
+            }
+            callbacks.add(callback);
+            // Re-requesting bumps it ahead of rows that scrolled past earlier
+            priorityOrder.remove(uriString);
+            priorityOrder.addLast(uriString);
+        }
+        ensureWorkers();
+    }
+
+    /** The row scrolled off screen: drop its pending request (no-op if already running). */
+    void cancel(@NonNull String uriString) {
+        synchronized (lock) {
+            if (priorityCallbacks.remove(uriString) != null) {
+                priorityOrder.remove(uriString);
+                priorityImages.remove(uriString);
+            }
+        }
+    }
+
+    /** Drops all queued work, including the background pass. In-flight items still finish. */
+    void cancelAll() {
+        synchronized (lock) {
+            epoch++;
+            priorityOrder.clear();
+            priorityCallbacks.clear();
+            priorityImages.clear();
+            backlogGeneration++;
+            backlog.clear();
+            backgroundActive = false;
+            backgroundCallback = null;
+        }
+    }
+
+    private void ensureWorkers() {
+        while (true) {
+            int active = activeWorkers.get();
+            if (active >= parallelism) return;
+            synchronized (lock) {
+                if (!hasRunnableWorkLocked()) return;
+            }
+            if (activeWorkers.compareAndSet(active, active + 1)) {
+                workers.execute(this::drain);
+            }
+        }
+    }
+
+    private boolean hasRunnableWorkLocked() {
+        if (backgroundActive && (!backlog.isEmpty() || (!backlogExhausted && !pageLoading))) return true;
+        for (String uri : priorityOrder) {
+            if (!inFlight.contains(uri)) return true;
+        }
+        return false;
+    }
+
+    /** One work item: a URI, its callbacks (priority) or its entity (backlog). */
+    private static final class Job {
+        final String uriString;
+        final boolean isImage;
+        @Nullable final List<EnrichmentCallback> callbacks;
+        final int epoch;
+
+        Job(String uriString, boolean isImage, @Nullable List<EnrichmentCallback> callbacks, int epoch) {
+            this.uriString = uriString;
+            this.isImage = isImage;
+            this.callbacks = callbacks;
+            this.epoch = epoch;
+        }
+    }
+
+    private void drain() {
+        try {
+            Job job;
+            while ((job = nextJob()) != null) {
+                long durationMs;
+                try {
+                    durationMs = resolver.resolve(job.uriString, job.isImage);
+                } catch (Exception e) {
+                    FLog.w(TAG, "Failed to enrich " + job.uriString + ": " + e.getMessage());
+                    durationMs = -1;
+                }
+                boolean resolved = job.isImage ? durationMs >= 0 : durationMs > 0;
+                if (resolved) {
+                    enqueueWrite(job.uriString, Math.max(0, durationMs));
+                }
+                EnrichmentCallback background;
+                List<EnrichmentCallback> lateCallbacks;
+                synchronized (lock) {
+                    inFlight.remove(job.uriString);
+                    background = job.epoch == epoch ? backgroundCallback : null;
+                    // Rows that requested this URI while it was in flight share the result
+                    lateCallbacks = priorityCallbacks.remove(job.uriString);
+                    if (lateCallbacks != null) {
+                        priorityOrder.remove(job.uriString);
+                        priorityImages.remove(job.uriString);
+                    }
+                }
+                long delivered = resolved ? Math.max(0, durationMs) : -1;
+                if (job.callbacks != null) {
+                    for (EnrichmentCallback callback : job.callbacks) {
+                        callback.onItemEnriched(job.uriString, delivered);
+                    }
+                }
+                if (lateCallbacks != null) {
+                    for (EnrichmentCallback callback : lateCallbacks) {
+                        callback.onItemEnriched(job.uriString, delivered);
+                    }
+                }
+                if (background != null) background.onItemEnriched(job.uriString, delivered);
+            }
+        } finally {
+            activeWorkers.decrementAndGet();
+            flushWrites(true);
+            // Work may have arrived between our last poll and the decrement
+            ensureWorkers();
+        }
+    }
+
+    @Nullable
+    private Job nextJob() {
+        while (true) {
+            long afterLastModified;
+            long afterId;
+            int generation;
+            synchronized (lock) {
+                Job job = pollJobLocked();
+                if (job != null) return job;
+                // Nothing queued; another worker may already be fetching the next page
+                if (!backgroundActive || pageLoading) return null;
+                if (backlogExhausted) {
+                    backgroundActive = false;
+                    FLog.i(TAG, "Background enrichment complete (" + attempted.size() + " attempted)");
+                    return null;
+                }
+                pageLoading = true;
+                afterLastModified = cursorLastModified;
+                afterId = cursorId;
+                generation = backlogGeneration;
+            }
+            List<VideoIndexEntity> page = queryPage(afterLastModified, afterId);
+            synchronized (lock) {
+                pageLoading = false;
+                if (generation == backlogGeneration) {
+                    mergePageLocked(page);
+                }
+            }
+            // Workers that found nothing while the page loaded have exited
+            ensureWorkers();
+        }
+    }
+
+    @Nullable
+    private Job pollJobLocked() {
+        // Newest request first; skip URIs another worker is already resolving (they
+        // stay queued and are picked up once that worker finishes)
+        Iterator<String> newestFirst = priorityOrder.descendingIterator();
+        while (newestFirst.hasNext()) {
+            String uri = newestFirst.next();
+            if (inFlight.contains(uri)) continue;
+            newestFirst.remove();
+            List<EnrichmentCallback> callbacks = priorityCallbacks.remove(uri);
+            boolean isImage = priorityImages.remove(uri);
+            inFlight.add(uri);
+            attempted.add(uri);
+            return new Job(uri, isImage, callbacks, epoch);
+        }
+        while (backgroundActive && !backlog.isEmpty()) {
+            VideoIndexEntity entity = backlog.poll();
+            if (attempted.add(entity.uriString) && inFlight.add(entity.uriString)) {
+                return new Job(entity.uriString, "IMAGE".equals(entity.mediaType), null, epoch);
+            }
+        }
+        return null;
+    }
+
+    /** Fetch the keyset page after the given cursor; null if the query failed. */
+    @Nullable
+    private List<VideoIndexEntity> queryPage(long afterLastModified, long afterId) {
+        try {
+            return dao.getUnresolvedDurationPage(afterLastModified, afterId, PAGE_SIZE);
+        } catch (Exception e) {
+            FLog.w(TAG, "Unresolved page query failed", e);
+            return null;
+        }
+    }
+
+    /** Appends a fetched page to the backlog and advances the cursor past it. */
+    private void mergePageLocked(@Nullable List<VideoIndexEntity> page) {
+        if (page == null || page.isEmpty()) {
+            backlogExhausted = true;
+            return;
+        }
+        VideoIndexEntity last = page.get(page.size() - 1);
+        cursorLastModified = last.lastModified;
+        cursorId = last.id;
+        if (page.size() < PAGE_SIZE) backlogExhausted = true;
+        backlog.addAll(page);
+    }
+
+    private void enqueueWrite(@NonNull String uriString, long durationMs) {
+        synchronized (pendingWrites) {
+            pendingWrites.add(uriString);
+            pendingDurations.add(durationMs);
+        }
+        flushWrites(false);
+    }
+
+    /** Writes pending durations in one transaction when the batch is big or old enough. */
+    private void flushWrites(boolean force) {
+        List<String> uris;
+        long[] durations;
+        synchronized (pendingWrites) {
+            long now = System.currentTimeMillis();
+            if (pendingWrites.isEmpty()
+                    || (!force && pendingWrites.size() < FLUSH_BATCH_SIZE && now - lastFlushMs < FLUSH_INTERVAL_MS)) {
+                return;
+            }
+            uris = new ArrayList<>(pendingWrites);
+            durations = new long[pendingDurations.size()];
+            for (int i = 0; i < durations.length; i++) durations[i] = pendingDurations.get(i);
+            pendingWrites.clear();
+            pendingDurations.clear();
+            lastFlushMs = now;
+        }
+        try {
+            dao.updateDurations(uris, durations);
+        } catch (Exception e) {
+            FLog.w(TAG, "Batch duration write failed (" + uris.size() + " rows)", e);
+        }
+    }
+}
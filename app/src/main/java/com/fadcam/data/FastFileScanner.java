@@ -20,12 +20,14 @@ import com.fadcam.ui.VideoItem;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * High-performance file scanner that replaces the slow DocumentFile.listFiles() approach.
@@ -37,15 +39,35 @@ import java.util.concurrent.TimeUnit;
  * <p>
  * Returns lightweight {@link VideoIndexEntity} objects ready for DB insertion —
  * no duration or thumbnail computed yet (those are done lazily in background).
+ * <p>
+ * Streaming: every directory is its own task, and each one emits its files as a batch the
+ * moment its listing (cursor or listFiles) completes. Batches reach a {@link BatchListener}
+ * on the calling thread while deeper directories are still being listed. Tasks run on a
+ * pool kept for the scanner's lifetime and sized per backend — SAF listings are binder
+ * round trips that overlap well; app-specific storage is a local listing that gains little
+ * past two threads.
  */
 public class FastFileScanner {
 
     private static final String TAG = "FastFileScanner";
 
-    /** Number of parallel threads for scanning subdirectories. */
-    private static final int SCAN_PARALLELISM = 4;
+    /** Parallel directory listings for SAF trees (IPC-bound). */
+    private static final int SAF_PARALLELISM = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    /** Parallel directory listings for app-specific storage (local, cheap per call). */
+    private static final int FILE_PARALLELISM = 2;
+    /** Idle scan threads exit after this long; the pools themselves are reused. */
+    private static final long POOL_KEEP_ALIVE_SECONDS = 30;
+
+    /** Receives the files of each finished directory listing, on the thread that called scanAll. */
+    public interface BatchListener {
+        void onBatch(@NonNull List<VideoIndexEntity> batch);
+    }
 
     private final Context context;
+    @Nullable
+    private ThreadPoolExecutor safPool;
+    @Nullable
+    private ThreadPoolExecutor filePool;
 
     public FastFileScanner(@NonNull Context context) {
         this.context = context.getApplicationContext();
@@ -64,6 +86,19 @@ public class FastFileScanner {
      */
     @NonNull
     public List<VideoIndexEntity> scanAll(@NonNull SharedPreferencesManager prefs) {
+        return scanAll(prefs, null);
+    }
+
+    /**
+     * Like {@link #scanAll(SharedPreferencesManager)}, additionally handing each directory's
+     * files to {@code listener} as soon as that directory has been listed.
+     *
+     * @throws CancellationException if the calling thread is interrupted mid-scan (the
+     *                               partial result would look like deleted files)
+     */
+    @NonNull
+    public List<VideoIndexEntity> scanAll(@NonNull SharedPreferencesManager prefs,
+                                          @Nullable BatchListener listener) {
         long start = System.currentTimeMillis();
 
         String safUriString = prefs.getCustomStorageUri();
@@ -78,146 +113,239 @@ public class FastFileScanner {
                 }
             }
             if (hasPermission) {
-                List<VideoIndexEntity> safResults = scanSaf(safUri);
+                ScanSession session = new ScanSession(safPool());
+                session.submit(() -> scanSaf(session, safUri));
+                List<VideoIndexEntity> safResults = session.await(listener);
                 long elapsed = System.currentTimeMillis() - start;
+                FLog.i(TAG, "SAF scan complete: " + safResults.size() + " files in " + elapsed + "ms");
                 return safResults;
             }
             FLog.w(TAG, "SAF URI set but no read permission, falling back to internal");
         }
 
-        List<VideoIndexEntity> internalResults = scanInternal();
+        ScanSession session = new ScanSession(filePool());
+        session.submit(() -> scanInternal(session));
+        List<VideoIndexEntity> internalResults = session.await(listener);
         long elapsed = System.currentTimeMillis() - start;
         FLog.i(TAG, "Internal scan complete: " + internalResults.size() + " files in " + elapsed + "ms");
         return internalResults;
     }
 
-    // ════════════════════════════════════════════════════════════════
-    // Internal Storage Scanning
-    // ════════════════════════════════════════════════════════════════
-
-    @NonNull
-    private List<VideoIndexEntity> scanInternal() {
+    /**
+     * Build the index entity for a single file in internal storage, resolving category and
+     * subtypes from its location exactly like a full scan would. Used by the incremental
+     * sync so a file event costs one stat instead of a directory walk.
+     *
+     * @param file Absolute file under the FadCam recordings directory
+     * @return The entity, or null if the file is gone, not media, or outside the recordings tree
+     */
+    @Nullable
+    public VideoIndexEntity scanInternalFile(@NonNull File file) {
         File recordsDir = context.getExternalFilesDir(null);
-        if (recordsDir == null) {
-            FLog.e(TAG, "ExternalFilesDir is null");
-            return new ArrayList<>();
-        }
-
+        if (recordsDir == null || !file.isFile()) return null;
         File baseDir = new File(recordsDir, Constants.RECORDING_DIRECTORY);
-        if (!baseDir.exists() || !baseDir.isDirectory()) {
-            FLog.i(TAG, "Base directory does not exist: " + baseDir.getAbsolutePath());
-            return new ArrayList<>();
+
+        // Walk up to the direct child of baseDir (the category folder)
+        File parent = file.getParentFile();
+        if (parent == null) return null;
+        if (parent.equals(baseDir)) {
+            return buildLegacyEntity(file);
+        }
+        File categoryDir = parent;
+        while (categoryDir.getParentFile() != null && !categoryDir.getParentFile().equals(baseDir)) {
+            categoryDir = categoryDir.getParentFile();
         }
+        if (categoryDir.getParentFile() == null) return null;
 
-        // Parallel scan of all category directories
-        CopyOnWriteArrayList<VideoIndexEntity> results = new CopyOnWriteArrayList<>();
-        ExecutorService scanner = Executors.newFixedThreadPool(SCAN_PARALLELISM);
-        CountDownLatch latch = new CountDownLatch(7); // 6 category submits + 1 extra countDown
+        VideoItem.Category category = categoryForDirectory(categoryDir.getName());
+        if (category == null) return null;
 
-        // Camera
-        scanner.submit(() -> {
-            try {
-                scanInternalDirectory(results, new File(baseDir, Constants.RECORDING_SUBDIR_CAMERA),
-                        VideoItem.Category.CAMERA);
-                // Legacy dual folder mapped to CAMERA
-                scanInternalDirectory(results, new File(baseDir, Constants.RECORDING_SUBDIR_DUAL),
-                        VideoItem.Category.CAMERA);
-            } finally {
-                latch.countDown();
+        VideoItem.ShotSubtype shotSubtype = VideoItem.ShotSubtype.UNKNOWN;
+        VideoItem.CameraSubtype cameraSubtype = VideoItem.CameraSubtype.UNKNOWN;
+        VideoItem.FaditorSubtype faditorSubtype = VideoItem.FaditorSubtype.UNKNOWN;
+        if (!parent.equals(categoryDir)) {
+            // Same rule as scanInternalSubdirectory: the nearest folder decides the subtype
+            String folderName = parent.getName();
+            if (category == VideoItem.Category.SHOT) {
+                shotSubtype = inferShotSubtypeFromFolder(folderName);
+            } else if (category == VideoItem.Category.CAMERA) {
+                cameraSubtype = inferCameraSubtypeFromFolder(folderName);
+            } else if (category == VideoItem.Category.FADITOR) {
+                faditorSubtype = inferFaditorSubtypeFromFolder(folderName);
             }
-        });
+        }
+        return buildEntityFromFile(file, category, shotSubtype, cameraSubtype, faditorSubtype);
+    }
 
-        // Screen
-        scanner.submit(() -> {
-            try {
-                scanInternalDirectory(results, new File(baseDir, Constants.RECORDING_SUBDIR_SCREEN),
-                        VideoItem.Category.SCREEN);
-            } finally {
-                latch.countDown();
-            }
-        });
+    /** Category folder name → category, mirroring the directories {@link #scanInternal} visits. */
+    @Nullable
+    private VideoItem.Category categoryForDirectory(@NonNull String name) {
+        if (name.equals(Constants.RECORDING_SUBDIR_CAMERA) || name.equals(Constants.RECORDING_SUBDIR_DUAL)) {
+            return VideoItem.Category.CAMERA;
+        }
+        if (name.equals(Constants.RECORDING_SUBDIR_SCREEN)) return VideoItem.Category.SCREEN;
+        if (name.equals(Constants.RECORDING_SUBDIR_FADITOR)) return VideoItem.Category.FADITOR;
+        if (name.equals(Constants.RECORDING_SUBDIR_STREAM)) return VideoItem.Category.STREAM;
+        if (name.equals(Constants.RECORDING_SUBDIR_SHOT)) return VideoItem.Category.SHOT;
+        if (name.equals(Constants.RECORDING_SUBDIR_MINIAPPS)) return VideoItem.Category.MINIAPPS;
+        return null;
+    }
 
-        // Faditor
-        scanner.submit(() -> {
-            try {
-                scanInternalDirectory(results, new File(baseDir, Constants.RECORDING_SUBDIR_FADITOR),
-                        VideoItem.Category.FADITOR);
-            } finally {
-                latch.countDown();
-            }
-        });
+    // ════════════════════════════════════════════════════════════════
+    // Scan Session & Pools
+    // ════════════════════════════════════════════════════════════════
 
-        // Stream
-        scanner.submit(() -> {
-            try {
-                scanInternalDirectory(results, new File(baseDir, Constants.RECORDING_SUBDIR_STREAM),
-                        VideoItem.Category.STREAM);
-            } finally {
-                latch.countDown();
-            }
-        });
+    @NonNull
+    private synchronized ThreadPoolExecutor safPool() {
+        if (safPool == null) safPool = newScanPool("FileScan-saf-", SAF_PARALLELISM);
+        return safPool;
+    }
 
-        // Shot
-        scanner.submit(() -> {
-            try {
-                scanInternalDirectory(results, new File(baseDir, Constants.RECORDING_SUBDIR_SHOT),
-                        VideoItem.Category.SHOT);
-                scanInternalDirectory(results, new File(baseDir, Constants.RECORDING_SUBDIR_MINIAPPS),
-                        VideoItem.Category.MINIAPPS);
-            } finally {
-                latch.countDown();
-            }
-        });
+    @NonNull
+    private synchronized ThreadPoolExecutor filePool() {
+        if (filePool == null) filePool = newScanPool("FileScan-file-", FILE_PARALLELISM);
+        return filePool;
+    }
+
+    @NonNull
+    private static ThreadPoolExecutor newScanPool(@NonNull String namePrefix, int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads,
+                POOL_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                r -> new Thread(r, namePrefix + threadNumber.incrementAndGet()));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * One scan: directory tasks fan out on the pool, finished listings queue up as batches,
+     * and the caller drains them until the last task completes.
+     */
+    private static final class ScanSession {
+        /** Queued once the last outstanding task finishes; compared by identity. */
+        private final List<VideoIndexEntity> end = new ArrayList<>(0);
+        private final ThreadPoolExecutor pool;
+        private final BlockingQueue<List<VideoIndexEntity>> batches = new LinkedBlockingQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean cancelled;
+
+        ScanSession(@NonNull ThreadPoolExecutor pool) {
+            this.pool = pool;
+        }
 
-        // Legacy root-level files
-        scanner.submit(() -> {
+        /**
+         * Runs {@code task} on the pool. Tasks submit their subdirectories before returning,
+         * so the pending count only reaches zero once the whole tree has been listed.
+         */
+        void submit(@NonNull Runnable task) {
+            if (cancelled) return;
+            pending.incrementAndGet();
+            pool.execute(() -> {
+                try {
+                    if (!cancelled) task.run();
+                } catch (Exception e) {
+                    FLog.e(TAG, "Scan task failed", e);
+                } finally {
+                    if (pending.decrementAndGet() == 0) batches.add(end);
+                }
+            });
+        }
+
+        void emit(@NonNull List<VideoIndexEntity> batch) {
+            if (!batch.isEmpty() && !cancelled) batches.add(batch);
+        }
+
+        /** Drains batches on the calling thread until the scan completes. */
+        @NonNull
+        List<VideoIndexEntity> await(@Nullable BatchListener listener) {
+            List<VideoIndexEntity> all = new ArrayList<>();
+            boolean completed = false;
             try {
-                scanLegacyRoot(results, baseDir);
+                while (true) {
+                    List<VideoIndexEntity> batch = batches.take();
+                    if (batch == end) break;
+                    all.addAll(batch);
+                    if (listener != null) listener.onBatch(Collections.unmodifiableList(batch));
+                }
+                completed = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("File scan interrupted");
             } finally {
-                latch.countDown();
+                // Stop queued directory tasks if the caller gave up (interrupt or listener failure)
+                if (!completed) cancelled = true;
             }
-        });
+            return all;
+        }
+    }
 
-        // Extra latch count for the combined Camera+Dual task
-        latch.countDown(); // Adjust — we used 7 but only 6 submits (Camera+Dual share one)
+    // ════════════════════════════════════════════════════════════════
+    // Internal Storage Scanning
+    // ════════════════════════════════════════════════════════════════
 
-        try {
-            latch.await(30, TimeUnit.SECONDS);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            FLog.w(TAG, "Scan interrupted");
+    private void scanInternal(@NonNull ScanSession session) {
+        File recordsDir = context.getExternalFilesDir(null);
+        if (recordsDir == null) {
+            FLog.e(TAG, "ExternalFilesDir is null");
+            return;
+        }
+
+        File baseDir = new File(recordsDir, Constants.RECORDING_DIRECTORY);
+        if (!baseDir.exists() || !baseDir.isDirectory()) {
+            FLog.i(TAG, "Base directory does not exist: " + baseDir.getAbsolutePath());
+            return;
         }
-        scanner.shutdown();
 
-        return new ArrayList<>(results);
+        // One task per category directory; each fans out further per subdirectory
+        submitInternalDirectory(session, new File(baseDir, Constants.RECORDING_SUBDIR_CAMERA), VideoItem.Category.CAMERA);
+        // Legacy dual folder mapped to CAMERA
+        submitInternalDirectory(session, new File(baseDir, Constants.RECORDING_SUBDIR_DUAL), VideoItem.Category.CAMERA);
+        submitInternalDirectory(session, new File(baseDir, Constants.RECORDING_SUBDIR_SCREEN), VideoItem.Category.SCREEN);
+        submitInternalDirectory(session, new File(baseDir, Constants.RECORDING_SUBDIR_FADITOR), VideoItem.Category.FADITOR);
+        submitInternalDirectory(session, new File(baseDir, Constants.RECORDING_SUBDIR_STREAM), VideoItem.Category.STREAM);
+        submitInternalDirectory(session, new File(baseDir, Constants.RECORDING_SUBDIR_SHOT), VideoItem.Category.SHOT);
+        submitInternalDirectory(session, new File(baseDir, Constants.RECORDING_SUBDIR_MINIAPPS), VideoItem.Category.MINIAPPS);
+
+        // Legacy root-level files, listed on this task
+        scanLegacyRoot(session, baseDir);
+    }
+
+    private void submitInternalDirectory(@NonNull ScanSession session, @NonNull File directory,
+                                         @NonNull VideoItem.Category category) {
+        session.submit(() -> scanInternalDirectory(session, directory, category));
     }
 
     /**
-     * Recursively scan a category directory (handles subdirectories like Camera/Back, Shot/Selfie, etc.)
+     * Scan a category directory; its subdirectories (Camera/Back, Shot/Selfie, etc.) are
+     * submitted as separate tasks.
      */
-    private void scanInternalDirectory(List<VideoIndexEntity> out, File directory, VideoItem.Category category) {
+    private void scanInternalDirectory(@NonNull ScanSession session, @NonNull File directory,
+                                       @NonNull VideoItem.Category category) {
         if (!directory.exists() || !directory.isDirectory()) return;
 
         File[] children = directory.listFiles();
         if (children == null) return;
 
+        List<VideoIndexEntity> batch = new ArrayList<>(children.length);
         for (File child : children) {
             if (child == null) continue;
 
             if (child.isDirectory()) {
                 // Handle known subdirectories for category-specific subtypes
-                scanInternalSubdirectory(out, child, category);
+                session.submit(() -> scanInternalSubdirectory(session, child, category));
             } else if (child.isFile()) {
                 VideoIndexEntity entity = buildEntityFromFile(child, category,
                         VideoItem.ShotSubtype.UNKNOWN,
                         VideoItem.CameraSubtype.UNKNOWN,
                         VideoItem.FaditorSubtype.UNKNOWN);
-                if (entity != null) out.add(entity);
+                if (entity != null) batch.add(entity);
             }
         }
+        session.emit(batch);
     }
 
-    private void scanInternalSubdirectory(List<VideoIndexEntity> out, File subdir, VideoItem.Category category) {
+    private void scanInternalSubdirectory(@NonNull ScanSession session, @NonNull File subdir,
+                                          @NonNull VideoItem.Category category) {
         String folderName = subdir.getName();
 
         VideoItem.ShotSubtype shotSubtype = VideoItem.ShotSubtype.UNKNOWN;
@@ -235,53 +363,63 @@ public class FastFileScanner {
         File[] files = subdir.listFiles();
         if (files == null) return;
 
+        List<VideoIndexEntity> batch = new ArrayList<>(files.length);
         for (File file : files) {
             if (file == null) continue;
             if (file.isDirectory()) {
-                scanInternalSubdirectory(out, file, category);
+                session.submit(() -> scanInternalSubdirectory(session, file, category));
             } else if (file.isFile()) {
                 VideoIndexEntity entity = buildEntityFromFile(file, category, shotSubtype, cameraSubtype, faditorSubtype);
-                if (entity != null) out.add(entity);
+                if (entity != null) batch.add(entity);
             }
         }
+        session.emit(batch);
     }
 
-    private void scanLegacyRoot(List<VideoIndexEntity> out, File baseDir) {
+    private void scanLegacyRoot(@NonNull ScanSession session, @NonNull File baseDir) {
         File[] files = baseDir.listFiles();
         if (files == null) return;
 
+        List<VideoIndexEntity> batch = new ArrayList<>();
         for (File file : files) {
             if (file == null || !file.isFile()) continue;
-            String name = file.getName();
-
-            String mediaType = inferMediaType(name);
-            if (mediaType == null || name.startsWith("temp_")) continue;
-
-            VideoItem.Category category = inferCategoryFromLegacyName(name);
-
-            VideoIndexEntity entity = new VideoIndexEntity();
-            entity.uriString = Uri.fromFile(file).toString();
-            entity.displayName = name;
-            entity.fileSize = file.length();
-
-            long lastMod = file.lastModified();
-            long fromName = Utils.parseTimestampFromFilename(name);
-            entity.lastModified = lastMod > 0 ? lastMod : (fromName > 0 ? fromName : System.currentTimeMillis());
-
-            entity.category = category.name();
-            entity.mediaType = mediaType;
-            entity.shotSubtype = (category == VideoItem.Category.SHOT
-                    ? resolveShotSubtype(name) : VideoItem.ShotSubtype.UNKNOWN).name();
-            entity.cameraSubtype = (category == VideoItem.Category.CAMERA
-                    ? resolveCameraSubtype(name) : VideoItem.CameraSubtype.UNKNOWN).name();
-            entity.faditorSubtype = (category == VideoItem.Category.FADITOR
-                    ? resolveFaditorSubtype(name) : VideoItem.FaditorSubtype.UNKNOWN).name();
-            entity.isTemporary = false;
-            entity.durationResolved = false;
-            entity.indexedAt = System.currentTimeMillis();
-
-            out.add(entity);
+            VideoIndexEntity entity = buildLegacyEntity(file);
+            if (entity != null) batch.add(entity);
         }
+        session.emit(batch);
+    }
+
+    @Nullable
+    private VideoIndexEntity buildLegacyEntity(@NonNull File file) {
+        String name = file.getName();
+
+        String mediaType = inferMediaType(name);
+        if (mediaType == null || name.startsWith("temp_")) return null;
+
+        VideoItem.Category category = inferCategoryFromLegacyName(name);
+
+        VideoIndexEntity entity = new VideoIndexEntity();
+        entity.uriString = Uri.fromFile(file).toString();
+        entity.displayName = name;
+        entity.fileSize = file.length();
+
+        long lastMod = file.lastModified();
+        long fromName = Utils.parseTimestampFromFilename(name);
+        entity.lastModified = lastMod > 0 ? lastMod : (fromName > 0 ? fromName : System.currentTimeMillis());
+
+        entity.category = category.name();
+        entity.mediaType = mediaType;
+        entity.shotSubtype = (category == VideoItem.Category.SHOT
+                ? resolveShotSubtype(name) : VideoItem.ShotSubtype.UNKNOWN).name();
+        entity.cameraSubtype = (category == VideoItem.Category.CAMERA
+                ? resolveCameraSubtype(name) : VideoItem.CameraSubtype.UNKNOWN).name();
+        entity.faditorSubtype = (category == VideoItem.Category.FADITOR
+                ? resolveFaditorSubtype(name) : VideoItem.FaditorSubtype.UNKNOWN).name();
+        entity.isTemporary = false;
+        entity.durationResolved = false;
+        entity.indexedAt = System.currentTimeMillis();
+
+        return entity;
     }
 
     @Nullable
@@ -330,10 +468,7 @@ public class FastFileScanner {
     // SAF Scanning (ContentResolver — fast path)
     // ════════════════════════════════════════════════════════════════
 
-    @NonNull
-    private List<VideoIndexEntity> scanSaf(@NonNull Uri treeUri) {
-        List<VideoIndexEntity> results = new ArrayList<>();
-
+    private void scanSaf(@NonNull ScanSession session, @NonNull Uri treeUri) {
         try {
             // The SAF tree URI points directly to the recording directory
             // (the user selected this folder via the SAF picker, and the app
@@ -341,7 +476,7 @@ public class FastFileScanner {
             DocumentFile treeDoc = DocumentFile.fromTreeUri(context, treeUri);
             if (treeDoc == null) {
                 FLog.e(TAG, "Failed to open tree URI");
-                return results;
+                return;
             }
 
             // Use the tree root directly as the recording root.
@@ -352,31 +487,33 @@ public class FastFileScanner {
             if (fadCamChild != null && fadCamChild.isDirectory()) {
                 FLog.d(TAG, "Found FadCam subdirectory under tree, using it as root");
                 recordingRoot = fadCamChild;
-            } else {
             }
 
-            // Scan each known subdirectory
-            scanSafCategory(results, recordingRoot, Constants.RECORDING_SUBDIR_CAMERA, VideoItem.Category.CAMERA);
-            scanSafCategory(results, recordingRoot, Constants.RECORDING_SUBDIR_DUAL, VideoItem.Category.CAMERA);
-            scanSafCategory(results, recordingRoot, Constants.RECORDING_SUBDIR_SCREEN, VideoItem.Category.SCREEN);
-            scanSafCategory(results, recordingRoot, Constants.RECORDING_SUBDIR_FADITOR, VideoItem.Category.FADITOR);
-            scanSafCategory(results, recordingRoot, Constants.RECORDING_SUBDIR_STREAM, VideoItem.Category.STREAM);
-            scanSafCategory(results, recordingRoot, Constants.RECORDING_SUBDIR_SHOT, VideoItem.Category.SHOT);
-            scanSafCategory(results, recordingRoot, Constants.RECORDING_SUBDIR_MINIAPPS, VideoItem.Category.MINIAPPS);
+            // Scan each known subdirectory, one task each
+            submitSafCategory(session, recordingRoot, Constants.RECORDING_SUBDIR_CAMERA, VideoItem.Category.CAMERA);
+            submitSafCategory(session, recordingRoot, Constants.RECORDING_SUBDIR_DUAL, VideoItem.Category.CAMERA);
+            submitSafCategory(session, recordingRoot, Constants.RECORDING_SUBDIR_SCREEN, VideoItem.Category.SCREEN);
+            submitSafCategory(session, recordingRoot, Constants.RECORDING_SUBDIR_FADITOR, VideoItem.Category.FADITOR);
+            submitSafCategory(session, recordingRoot, Constants.RECORDING_SUBDIR_STREAM, VideoItem.Category.STREAM);
+            submitSafCategory(session, recordingRoot, Constants.RECORDING_SUBDIR_SHOT, VideoItem.Category.SHOT);
+            submitSafCategory(session, recordingRoot, Constants.RECORDING_SUBDIR_MINIAPPS, VideoItem.Category.MINIAPPS);
 
             // Root-level legacy files
-            scanSafDirectoryFiles(results, recordingRoot.getUri(), VideoItem.Category.UNKNOWN,
+            scanSafDirectoryFiles(session, recordingRoot.getUri(), VideoItem.Category.UNKNOWN,
                     VideoItem.ShotSubtype.UNKNOWN, VideoItem.CameraSubtype.UNKNOWN, VideoItem.FaditorSubtype.UNKNOWN,
                     true);
 
         } catch (Exception e) {
             FLog.e(TAG, "SAF scan error", e);
         }
+    }
 
-        return results;
+    private void submitSafCategory(@NonNull ScanSession session, @NonNull DocumentFile fadCamRoot,
+                                   @NonNull String subdirName, @NonNull VideoItem.Category category) {
+        session.submit(() -> scanSafCategory(session, fadCamRoot, subdirName, category));
     }
 
-    private void scanSafCategory(List<VideoIndexEntity> out, DocumentFile fadCamRoot,
+    private void scanSafCategory(ScanSession session, DocumentFile fadCamRoot,
                                  String subdirName, VideoItem.Category category) {
         DocumentFile subdir = fadCamRoot.findFile(subdirName);
         if (subdir == null || !subdir.isDirectory()) return;
@@ -384,15 +521,15 @@ public class FastFileScanner {
         if (category == VideoItem.Category.SHOT || category == VideoItem.Category.CAMERA
                 || category == VideoItem.Category.FADITOR) {
             // These have sub-subdirectories (Back, Front, Selfie, etc.)
-            scanSafWithSubdirectories(out, subdir, category);
+            scanSafWithSubdirectories(session, subdir, category);
         } else {
-            scanSafDirectoryFiles(out, subdir.getUri(), category,
+            scanSafDirectoryFiles(session, subdir.getUri(), category,
                     VideoItem.ShotSubtype.UNKNOWN, VideoItem.CameraSubtype.UNKNOWN,
                     VideoItem.FaditorSubtype.UNKNOWN, false);
         }
     }
 
-    private void scanSafWithSubdirectories(List<VideoIndexEntity> out, DocumentFile categoryDir,
+    private void scanSafWithSubdirectories(ScanSession session, DocumentFile categoryDir,
                                            VideoItem.Category category) {
         // Use ContentResolver to list children (both files and dirs)
         ContentResolver cr = context.getContentResolver();
@@ -412,6 +549,7 @@ public class FastFileScanner {
 
             if (cursor == null) return;
 
+            List<VideoIndexEntity> batch = new ArrayList<>(cursor.getCount());
             while (cursor.moveToNext()) {
                 String docId = cursor.getString(0);
                 String name = cursor.getString(1);
@@ -434,16 +572,21 @@ public class FastFileScanner {
                     }
 
                     Uri subdirUri = DocumentsContract.buildDocumentUriUsingTree(categoryDir.getUri(), docId);
-                    scanSafDirectoryFiles(out, subdirUri, category, shotSub, camSub, fadSub, false);
+                    final VideoItem.ShotSubtype fShotSub = shotSub;
+                    final VideoItem.CameraSubtype fCamSub = camSub;
+                    final VideoItem.FaditorSubtype fFadSub = fadSub;
+                    session.submit(() -> scanSafDirectoryFiles(session, subdirUri, category,
+                            fShotSub, fCamSub, fFadSub, false));
                 } else {
                     // It's a file at category root level
                     VideoIndexEntity entity = buildEntityFromSafCursor(
                             categoryDir.getUri(), docId, name, mimeType, size, lastMod,
                             category, VideoItem.ShotSubtype.UNKNOWN,
                             VideoItem.CameraSubtype.UNKNOWN, VideoItem.FaditorSubtype.UNKNOWN);
-                    if (entity != null) out.add(entity);
+                    if (entity != null) batch.add(entity);
                 }
             }
+            session.emit(batch);
         } catch (Exception e) {
             FLog.e(TAG, "Error scanning SAF subdirectories for " + category, e);
         }
@@ -455,7 +598,7 @@ public class FastFileScanner {
      *
      * @param legacyInfer If true, infer category from filename (for root-level legacy files)
      */
-    private void scanSafDirectoryFiles(List<VideoIndexEntity> out, Uri directoryUri,
+    private void scanSafDirectoryFiles(ScanSession session, Uri directoryUri,
                                        VideoItem.Category category,
                                        VideoItem.ShotSubtype shotSubtype,
                                        VideoItem.CameraSubtype cameraSubtype,
@@ -477,6 +620,7 @@ public class FastFileScanner {
 
             if (cursor == null) return;
 
+            List<VideoIndexEntity> batch = new ArrayList<>(cursor.getCount());
             while (cursor.moveToNext()) {
                 String childDocId = cursor.getString(0);
                 String name = cursor.getString(1);
@@ -509,8 +653,9 @@ public class FastFileScanner {
                 VideoIndexEntity entity = buildEntityFromSafCursor(
                         directoryUri, childDocId, name, mimeType, size, lastMod,
                         effectiveCategory, effectiveShot, effectiveCam, effectiveFad);
-                if (entity != null) out.add(entity);
+                if (entity != null) batch.add(entity);
             }
+            session.emit(batch);
         } catch (Exception e) {
             FLog.e(TAG, "Error listing SAF directory files", e);
         }
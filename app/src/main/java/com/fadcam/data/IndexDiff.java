@@ -0,0 +1,68 @@
+package com.fadcam.data;
+
+import androidx.annotation.NonNull;
+
+import com.fadcam.data.dao.VideoIndexDao;
+import com.fadcam.data.entity.VideoIndexEntity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Difference between a disk scan and the rows already in the video index — the pure
+ * in-memory half of {@link VideoIndexRepository#deltaScan}.
+ * <p>
+ * A disk entry is upserted when its URI is missing from the index or its size or mtime
+ * changed; an indexed URI that is no longer on disk is deleted.
+ */
+public final class IndexDiff {
+
+    /** New or changed entries, to be written with REPLACE. */
+    @NonNull
+    public final List<VideoIndexEntity> toInsert;
+    /** URIs in the index that are gone from disk. */
+    @NonNull
+    public final List<String> toDelete;
+
+    private IndexDiff(@NonNull List<VideoIndexEntity> toInsert, @NonNull List<String> toDelete) {
+        this.toInsert = toInsert;
+        this.toDelete = toDelete;
+    }
+
+    public boolean isEmpty() {
+        return toInsert.isEmpty() && toDelete.isEmpty();
+    }
+
+    @NonNull
+    public static IndexDiff compute(@NonNull List<VideoIndexEntity> disk,
+                                    @NonNull List<VideoIndexDao.DeltaCheckRow> indexed) {
+        Map<String, VideoIndexDao.DeltaCheckRow> dbMap = new HashMap<>(indexed.size() * 4 / 3 + 1);
+        for (VideoIndexDao.DeltaCheckRow row : indexed) {
+            dbMap.put(row.uri_string, row);
+        }
+
+        List<VideoIndexEntity> toInsert = new ArrayList<>();
+        Set<String> onDisk = new HashSet<>(disk.size() * 4 / 3 + 1);
+        for (VideoIndexEntity diskEntity : disk) {
+            onDisk.add(diskEntity.uriString);
+            VideoIndexDao.DeltaCheckRow dbRow = dbMap.get(diskEntity.uriString);
+            if (dbRow == null
+                    || diskEntity.lastModified != dbRow.last_modified
+                    || diskEntity.fileSize != dbRow.file_size) {
+                toInsert.add(diskEntity);
+            }
+        }
+
+        List<String> toDelete = new ArrayList<>();
+        for (VideoIndexDao.DeltaCheckRow row : indexed) {
+            if (!onDisk.contains(row.uri_string)) {
+                toDelete.add(row.uri_string);
+            }
+        }
+        return new IndexDiff(toInsert, toDelete);
+    }
+}
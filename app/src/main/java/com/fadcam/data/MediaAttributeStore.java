@@ -0,0 +1,506 @@
+package com.fadcam.data;
+
+import com.fadcam.FLog;
+import com.fadcam.SharedPreferencesManager;
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * App-wide store of per-file numeric attributes — video duration and resume position —
+ * shared by the Records adapter, the player and {@link VideoIndexRepository}.
+ * <p>
+ * Architecture:
+ * <ul>
+ *   <li>One open-addressing {@code long → long} table per attribute, keyed by a 64-bit
+ *   hash of the URI string. Reads never lock, box or allocate: the table is an
+ *   {@link AtomicLongArray} of interleaved key/value slots published through a volatile
+ *   field. Writes are serialised by one lock.</li>
+ *   <li>Slots only move EMPTY → key → TOMBSTONE and are never reused before a rehash, so a
+ *   lock-free reader can never see one key's slot holding another key's value.</li>
+ *   <li>Persistence is an append-only journal of fixed 17-byte records
+ *   ({@code [op][keyHash][value]}) written by a single background thread without fsync.
+ *   Opening replays it; it is compacted (rewrite + rename) once mostly superseded.</li>
+ *   <li>The journal loads in the background; until it has, lookups simply miss and
+ *   callers fall back to the DB / preferences. Writes made meanwhile win over replay.</li>
+ * </ul>
+ * Collisions between 64-bit URI hashes are ignored — at worst one file shows another's
+ * duration until it is re-probed.
+ */
+public final class MediaAttributeStore {
+
+    private static final String TAG = "MediaAttributeStore";
+
+    private static final String JOURNAL_FILE_NAME = "media_attributes.journal";
+    private static final String LEGACY_DURATION_CACHE = "duration_cache.json"; // RecordsAdapter's old JSON cache
+
+    /** Returned by lookups with no stored value. */
+    public static final long MISSING = -1L;
+
+    private static final int ATTR_DURATION = 0;
+    private static final int ATTR_RESUME_POSITION = 1;
+    private static final int ATTR_COUNT = 2;
+
+    // Journal ops: low bits = attribute, high bits = action
+    private static final int OP_PUT = 0x00;
+    private static final int OP_REMOVE = 0x40;
+    private static final int OP_CLEAR = 0x80;
+    private static final int OP_ACTION_MASK = 0xC0;
+    private static final int OP_ATTR_MASK = 0x3F;
+    private static final int RECORD_BYTES = 1 + 8 + 8;
+    private static final int MIN_COMPACT_RECORDS = 4096;
+
+    private static volatile MediaAttributeStore instance;
+
+    private final Context appContext;
+    private final File journalFile;
+    private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "MediaAttributeStore");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private final LongLongMap[] tables = new LongLongMap[ATTR_COUNT];
+
+    // ── Guarded by writeLock ──
+    private final Object writeLock = new Object();
+    private ByteBuffer pending = ByteBuffer.allocate(RECORD_BYTES * 256);
+    private boolean flushQueued;
+    private long journalRecords;
+    private boolean loaded;
+    // Keys written before the journal finished loading: replay must not overwrite them
+    private final Set<Long>[] touchedBeforeLoad;
+    private final boolean[] clearedBeforeLoad = new boolean[ATTR_COUNT];
+
+    @SuppressWarnings("unchecked")
+    private MediaAttributeStore(@NonNull Context context) {
+        this.appContext = context.getApplicationContext();
+        this.journalFile = new File(appContext.getFilesDir(), JOURNAL_FILE_NAME);
+        this.touchedBeforeLoad = new Set[ATTR_COUNT];
+        for (int i = 0; i < ATTR_COUNT; i++) {
+            tables[i] = new LongLongMap();
+            touchedBeforeLoad[i] = new HashSet<>();
+        }
+        ioExecutor.execute(this::loadJournal);
+    }
+
+    public static MediaAttributeStore getInstance(@NonNull Context context) {
+        if (instance == null) {
+            synchronized (MediaAttributeStore.class) {
+                if (instance == null) {
+                    instance = new MediaAttributeStore(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    // Public API
+    // ════════════════════════════════════════════════════════════════
+
+    /** Duration in ms, or {@link #MISSING}. Lock-free; safe on the main thread. */
+    public long getDuration(@NonNull String uriString) {
+        return tables[ATTR_DURATION].get(hash64(uriString));
+    }
+
+    /** Records a resolved duration; non-positive values are ignored. */
+    public void putDuration(@NonNull String uriString, long durationMs) {
+        if (durationMs <= 0) return;
+        put(ATTR_DURATION, hash64(uriString), durationMs);
+    }
+
+    /** Forgets every duration so files are re-probed (e.g. after stale MMR values). */
+    public void clearDurations() {
+        clear(ATTR_DURATION);
+    }
+
+    /**
+     * Resume position in ms for this exact URI, or {@link #MISSING}. Lock-free; safe on the
+     * main thread. See {@link #getResumePosition(String, String)} for the full lookup.
+     */
+    public long getResumePosition(@NonNull String uriString) {
+        return tables[ATTR_RESUME_POSITION].get(hash64(uriString));
+    }
+
+    /**
+     * Resume position by URI, then by filename (the same file reached through another
+     * URI), then from the pre-store SharedPreferences keys. Once the journal has loaded,
+     * legacy hits are adopted into the store and their preference keys removed; before
+     * that they are only returned, so a newer journaled position can't be shadowed.
+     * Returns 0 when nothing was saved.
+     */
+    public long getResumePosition(@Nullable String uriString, @Nullable String filename) {
+        LongLongMap positions = tables[ATTR_RESUME_POSITION];
+        if (uriString != null) {
+            long value = positions.get(hash64(uriString));
+            if (value != MISSING) return value;
+        }
+        if (filename != null && !filename.isEmpty()) {
+            long value = positions.get(filenameKey(filename));
+            if (value != MISSING) return value;
+        }
+        SharedPreferencesManager prefs = SharedPreferencesManager.getInstance(appContext);
+        long legacy = prefs.getSavedPlaybackPositionMsWithFilenameFallback(uriString, filename);
+        if (legacy > 0 && isLoaded()) {
+            putResumePosition(uriString, filename, legacy);
+            prefs.removeSavedPlaybackPosition(uriString, filename);
+        }
+        return legacy;
+    }
+
+    private boolean isLoaded() {
+        synchronized (writeLock) {
+            return loaded;
+        }
+    }
+
+    /** Saves a resume position under the URI and, when given, the filename fallback key. */
+    public void putResumePosition(@Nullable String uriString, @Nullable String filename, long positionMs) {
+        long value = Math.max(0, positionMs);
+        if (uriString != null) put(ATTR_RESUME_POSITION, hash64(uriString), value);
+        if (filename != null && !filename.isEmpty()) put(ATTR_RESUME_POSITION, filenameKey(filename), value);
+    }
+
+    /** Drops every attribute of a deleted or replaced file. */
+    public void remove(@NonNull String uriString) {
+        long key = hash64(uriString);
+        for (int attr = 0; attr < ATTR_COUNT; attr++) {
+            removeKey(attr, key);
+        }
+    }
+
+    /** Drops only the duration (the file changed and must be re-probed). */
+    public void removeDuration(@NonNull String uriString) {
+        removeKey(ATTR_DURATION, hash64(uriString));
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    // Writes + journal
+    // ════════════════════════════════════════════════════════════════
+
+    private void put(int attr, long key, long value) {
+        synchronized (writeLock) {
+            if (!loaded) touchedBeforeLoad[attr].add(key);
+            if (!tables[attr].put(key, value)) return; // unchanged: nothing to journal
+            appendLocked(OP_PUT | attr, key, value);
+        }
+    }
+
+    private void removeKey(int attr, long key) {
+        synchronized (writeLock) {
+            if (!loaded) touchedBeforeLoad[attr].add(key);
+            if (!tables[attr].remove(key)) return;
+            appendLocked(OP_REMOVE | attr, key, 0);
+        }
+    }
+
+    private void clear(int attr) {
+        synchronized (writeLock) {
+            if (!loaded) {
+                clearedBeforeLoad[attr] = true;
+                touchedBeforeLoad[attr].clear();
+            }
+            tables[attr].clear();
+            appendLocked(OP_CLEAR | attr, 0, 0);
+        }
+    }
+
+    private void appendLocked(int op, long key, long value) {
+        if (pending.remaining() < RECORD_BYTES) {
+            ByteBuffer grown = ByteBuffer.allocate(pending.capacity() * 2);
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+        pending.put((byte) op).putLong(key).putLong(value);
+        if (!flushQueued) {
+            flushQueued = true;
+            ioExecutor.execute(this::flushJournal);
+        }
+    }
+
+    /** Appends pending records; compacts instead when the journal is mostly dead records. */
+    private void flushJournal() {
+        byte[] batch;
+        boolean compact;
+        synchronized (writeLock) {
+            flushQueued = false;
+            if (pending.position() == 0) return;
+            journalRecords += pending.position() / RECORD_BYTES;
+            long live = 0;
+            for (LongLongMap table : tables) live += table.size();
+            compact = journalRecords > MIN_COMPACT_RECORDS && journalRecords > live * 3;
+            if (compact) {
+                // Snapshot of the tables already includes every pending record
+                batch = snapshotLocked();
+                journalRecords = batch.length / RECORD_BYTES;
+            } else {
+                batch = new byte[pending.position()];
+                pending.flip();
+                pending.get(batch);
+            }
+            pending.clear();
+        }
+        try {
+            if (compact) {
+                rewriteJournal(batch);
+            } else {
+                try (FileOutputStream out = new FileOutputStream(journalFile, true)) {
+                    out.write(batch);
+                }
+            }
+        } catch (IOException e) {
+            FLog.w(TAG, "Journal write failed: " + e.getMessage());
+        }
+    }
+
+    @NonNull
+    private byte[] snapshotLocked() {
+        int live = 0;
+        for (LongLongMap table : tables) live += table.size();
+        ByteBuffer out = ByteBuffer.allocate(live * RECORD_BYTES);
+        for (int attr = 0; attr < ATTR_COUNT; attr++) {
+            AtomicLongArray slots = tables[attr].slots;
+            for (int i = 0; i < slots.length(); i += 2) {
+                long key = slots.get(i);
+                if (key == LongLongMap.EMPTY || key == LongLongMap.TOMBSTONE) continue;
+                out.put((byte) (OP_PUT | attr)).putLong(key).putLong(slots.get(i + 1));
+            }
+        }
+        return out.array();
+    }
+
+    private void rewriteJournal(@NonNull byte[] records) throws IOException {
+        File tmp = new File(journalFile.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(records);
+            out.getFD().sync();
+        }
+        if (!tmp.renameTo(journalFile)) {
+            //noinspection ResultOfMethodCallIgnored
+            tmp.delete();
+            throw new IOException("rename failed");
+        }
+        FLog.d(TAG, "Compacted journal to " + records.length / RECORD_BYTES + " records");
+    }
+
+    private void loadJournal() {
+        File legacy = new File(appContext.getCacheDir(), LEGACY_DURATION_CACHE);
+        if (legacy.exists()) {
+            //noinspection ResultOfMethodCallIgnored
+            legacy.delete();
+        }
+        long start = System.nanoTime();
+        long records = 0;
+        try {
+            if (journalFile.exists()) {
+                records = replayJournal();
+            }
+        } catch (IOException e) {
+            FLog.w(TAG, "Journal replay failed, starting empty: " + e.getMessage());
+        } finally {
+            synchronized (writeLock) {
+                journalRecords += records;
+                loaded = true;
+                for (Set<Long> touched : touchedBeforeLoad) touched.clear();
+            }
+        }
+        FLog.i(TAG, "Loaded " + tables[ATTR_DURATION].size() + " durations, "
+                + tables[ATTR_RESUME_POSITION].size() + " positions from " + records
+                + " journal records in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /** Applies every complete record; cuts a torn tail so later appends stay aligned. */
+    private long replayJournal() throws IOException {
+        byte[] data;
+        long validLength;
+        try (RandomAccessFile raf = new RandomAccessFile(journalFile, "rw")) {
+            long length = raf.length();
+            validLength = length - length % RECORD_BYTES;
+            if (validLength != length) {
+                FLog.w(TAG, "Truncating torn journal tail (" + length + " → " + validLength + ")");
+                raf.getChannel().truncate(validLength);
+            }
+            data = new byte[(int) validLength];
+            raf.seek(0);
+            raf.readFully(data);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        synchronized (writeLock) {
+            while (buffer.remaining() >= RECORD_BYTES) {
+                int op = buffer.get() & 0xFF;
+                long key = buffer.getLong();
+                long value = buffer.getLong();
+                int attr = op & OP_ATTR_MASK;
+                if (attr >= ATTR_COUNT || clearedBeforeLoad[attr]) continue;
+                LongLongMap table = tables[attr];
+                switch (op & OP_ACTION_MASK) {
+                    case OP_PUT:
+                        if (!touchedBeforeLoad[attr].contains(key)) table.put(key, value);
+                        break;
+                    case OP_REMOVE:
+                        if (!touchedBeforeLoad[attr].contains(key)) table.remove(key);
+                        break;
+                    case OP_CLEAR:
+                        table.clearExcept(touchedBeforeLoad[attr]);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        return validLength / RECORD_BYTES;
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    // Hashing
+    // ════════════════════════════════════════════════════════════════
+
+    /** FNV-1a 64 over UTF-16 code units — no encoding step, no allocation. */
+    private static long hash64(@NonNull String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            h ^= c & 0xFF;
+            h *= 0x100000001b3L;
+            h ^= c >>> 8;
+            h *= 0x100000001b3L;
+        }
+        // EMPTY and TOMBSTONE are reserved slot markers
+        return h == LongLongMap.EMPTY || h == LongLongMap.TOMBSTONE ? 1L : h;
+    }
+
+    private static long filenameKey(@NonNull String filename) {
+        return hash64("fn:" + filename);
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    // Open-addressing long → long table
+    // ════════════════════════════════════════════════════════════════
+
+    /**
+     * Linear-probing table with interleaved {@code [key, value]} slots. Lock-free reads;
+     * writes must hold the store's write lock. Resizing builds a new array and publishes it.
+     */
+    private static final class LongLongMap {
+        static final long EMPTY = 0L;
+        static final long TOMBSTONE = Long.MIN_VALUE;
+        private static final int MIN_CAPACITY = 256;
+
+        volatile AtomicLongArray slots = new AtomicLongArray(MIN_CAPACITY * 2);
+        private int size;     // live keys
+        private int occupied; // live keys + tombstones
+
+        long get(long key) {
+            AtomicLongArray table = slots;
+            int mask = (table.length() >> 1) - 1;
+            int index = spread(key) & mask;
+            while (true) {
+                long k = table.get(index << 1);
+                if (k == key) return table.get((index << 1) + 1);
+                if (k == EMPTY) return MISSING;
+                index = (index + 1) & mask;
+            }
+        }
+
+        /** @return false when the key already held this value */
+        boolean put(long key, long value) {
+            AtomicLongArray table = slots;
+            int mask = (table.length() >> 1) - 1;
+            int index = spread(key) & mask;
+            while (true) {
+                long k = table.get(index << 1);
+                if (k == key) {
+                    if (table.get((index << 1) + 1) == value) return false;
+                    table.set((index << 1) + 1, value);
+                    return true;
+                }
+                if (k == EMPTY) break;
+                index = (index + 1) & mask;
+            }
+            if ((occupied + 1) * 2 > (mask + 1)) {
+                rehash(size + 1);
+                put(key, value);
+                return true;
+            }
+            // Value before key: a reader that sees the key also sees its value
+            table.set((index << 1) + 1, value);
+            table.set(index << 1, key);
+            size++;
+            occupied++;
+            return true;
+        }
+
+        boolean remove(long key) {
+            AtomicLongArray table = slots;
+            int mask = (table.length() >> 1) - 1;
+            int index = spread(key) & mask;
+            while (true) {
+                long k = table.get(index << 1);
+                if (k == key) {
+                    table.set(index << 1, TOMBSTONE);
+                    size--;
+                    return true;
+                }
+                if (k == EMPTY) return false;
+                index = (index + 1) & mask;
+            }
+        }
+
+        void clear() {
+            slots = new AtomicLongArray(MIN_CAPACITY * 2);
+            size = 0;
+            occupied = 0;
+        }
+
+        /** Journal replay of a clear: keeps keys written since the store opened. */
+        void clearExcept(@NonNull Set<Long> keep) {
+            AtomicLongArray old = slots;
+            clear();
+            for (int i = 0; i < old.length(); i += 2) {
+                long k = old.get(i);
+                if (k != EMPTY && k != TOMBSTONE && keep.contains(k)) put(k, old.get(i + 1));
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void rehash(int minLive) {
+            int capacity = MIN_CAPACITY;
+            while (capacity < minLive * 4) capacity <<= 1;
+            AtomicLongArray old = slots;
+            AtomicLongArray table = new AtomicLongArray(capacity * 2);
+            int mask = capacity - 1;
+            for (int i = 0; i < old.length(); i += 2) {
+                long k = old.get(i);
+                if (k == EMPTY || k == TOMBSTONE) continue;
+                int index = spread(k) & mask;
+                while (table.get(index << 1) != EMPTY) index = (index + 1) & mask;
+                table.set((index << 1) + 1, old.get(i + 1));
+                table.set(index << 1, k);
+            }
+            occupied = size;
+            slots = table; // publish
+        }
+
+        private static int spread(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.fadcam.data;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-path log of file events under the recordings tree, coalesced so each path keeps
+ * only the change that still matters. {@link VideoIndexRepository#syncPendingChanges} turns
+ * it into targeted upserts and deletes instead of a full delta scan.
+ * <p>
+ * Coalescing rules (per path, in arrival order):
+ * <ul>
+ *   <li>{@link Change#DELETED} replaces anything before it — no stat is needed to apply it.</li>
+ *   <li>Any other change after a delete means the path exists again and replaces the delete.</li>
+ *   <li>{@link Change#CREATED} never downgrades {@link Change#WRITTEN} or {@link Change#MOVED_IN}:
+ *   the file was already complete when its creation was reported late.</li>
+ * </ul>
+ * Not thread-safe; owners synchronize.
+ */
+public final class MediaChangeLog {
+
+    /** What happened to a path; mirrors the FileObserver events the coordinator listens to. */
+    public enum Change {
+        /** Created and possibly still open for writing (e.g. a segment being recorded). */
+        CREATED,
+        /** Closed after writing: size and mtime are final. */
+        WRITTEN,
+        /** Moved or renamed into the tree; may be a whole directory. */
+        MOVED_IN,
+        /** Gone. */
+        DELETED
+    }
+
+    private final LinkedHashMap<File, Change> changes = new LinkedHashMap<>();
+
+    public MediaChangeLog() {
+    }
+
+    public MediaChangeLog(@NonNull MediaChangeLog other) {
+        changes.putAll(other.changes);
+    }
+
+    /** Records {@code change} for {@code file}, folding it into any earlier change for the same path. */
+    public void record(@NonNull File file, @NonNull Change change) {
+        Change previous = changes.get(file);
+        if (previous != null && change == Change.CREATED
+                && (previous == Change.WRITTEN || previous == Change.MOVED_IN)) {
+            return;
+        }
+        // Re-insert so iteration follows the latest event per path
+        changes.remove(file);
+        changes.put(file, change);
+    }
+
+    /** Folds every entry of {@code other} into this log, in its order. */
+    public void addAll(@NonNull MediaChangeLog other) {
+        for (Map.Entry<File, Change> entry : other.changes.entrySet()) {
+            record(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public int size() {
+        return changes.size();
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    public void clear() {
+        changes.clear();
+    }
+
+    /** Read-only view, oldest path first. */
+    @NonNull
+    public Map<File, Change> entries() {
+        return Collections.unmodifiableMap(changes);
+    }
+}
@@ -0,0 +1,283 @@
+package com.fadcam.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+
+import com.fadcam.data.entity.VideoIndexEntity;
+import com.fadcam.ui.VideoItem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Records tab view spec — category/subtype chips, sort order and name search —
+ * compiled to SQL over video_index so filtering and sorting run in SQLite
+ * instead of over the in-memory list.
+ * <p>
+ * Architecture:
+ * <ul>
+ *   <li>Immutable; the fragment builds a new one whenever a chip, the sort or the
+ *   search text changes.</li>
+ *   <li>Pages use keyset pagination on (sort column, id): each {@link Page} carries a
+ *   {@link Cursor} for the row after its last item, so deep pages cost the same as
+ *   the first and concurrent inserts never shift or duplicate rows.</li>
+ *   <li>A page can be re-read as the rows between its start cursor and the next page's
+ *   ({@link #toRangeQuery}), so a window that dropped it can load exactly the same span again.</li>
+ *   <li>Subtype predicates mirror the in-memory legacy fallbacks (UNKNOWN camera/shot
+ *   rows count as BACK, UNKNOWN faditor rows as OTHER).</li>
+ *   <li>Name search goes through the video_index_fts FTS4 table (prefix match per word).</li>
+ * </ul>
+ */
+public final class RecordsQuery {
+
+    /** Sort orders offered by the Records tab. */
+    public enum Sort {
+        LATEST_FIRST("last_modified", false),
+        OLDEST_FIRST("last_modified", true),
+        SMALLEST_FILES("file_size", true),
+        LARGEST_FILES("file_size", false);
+
+        final String column;
+        final boolean ascending;
+
+        Sort(String column, boolean ascending) {
+            this.column = column;
+            this.ascending = ascending;
+        }
+    }
+
+    /** Position after the last row of a page: (sort column value, id). */
+    public static final class Cursor {
+        final long sortValue;
+        final long id;
+
+        Cursor(long sortValue, long id) {
+            this.sortValue = sortValue;
+            this.id = id;
+        }
+    }
+
+    /** One window of results; {@link #next} is null on the last page. */
+    public static final class Page {
+        @NonNull public final List<VideoItem> items;
+        @Nullable public final Cursor next;
+
+        Page(@NonNull List<VideoItem> items, @Nullable Cursor next) {
+            this.items = items;
+            this.next = next;
+        }
+    }
+
+    /**
+     * Row count and total size of one combination of classification values. The whole index
+     * reduces to a handful of these, which is all the chips and header stats need.
+     */
+    public static final class Facet {
+        @NonNull public final VideoItem.Category category;
+        @NonNull public final VideoItem.MediaType mediaType;
+        @NonNull public final VideoItem.CameraSubtype cameraSubtype;
+        @NonNull public final VideoItem.ShotSubtype shotSubtype;
+        @NonNull public final VideoItem.FaditorSubtype faditorSubtype;
+        /** Whether the rows live under the QR scanner's folder (MiniApps QR chip). */
+        public final boolean qrScanner;
+        public final int count;
+        public final long totalSize;
+
+        Facet(@NonNull VideoItem.Category category, @NonNull VideoItem.MediaType mediaType,
+              @NonNull VideoItem.CameraSubtype cameraSubtype, @NonNull VideoItem.ShotSubtype shotSubtype,
+              @NonNull VideoItem.FaditorSubtype faditorSubtype, boolean qrScanner, int count, long totalSize) {
+            this.category = category;
+            this.mediaType = mediaType;
+            this.cameraSubtype = cameraSubtype;
+            this.shotSubtype = shotSubtype;
+            this.faditorSubtype = faditorSubtype;
+            this.qrScanner = qrScanner;
+            this.count = count;
+            this.totalSize = totalSize;
+        }
+    }
+
+    @NonNull private final VideoItem.Category category;
+    @NonNull private final VideoItem.CameraSubtype cameraSubtype;
+    @NonNull private final VideoItem.ShotSubtype shotSubtype;
+    @NonNull private final VideoItem.FaditorSubtype faditorSubtype;
+    @Nullable private final String miniAppsSubtype;
+    @Nullable private final String nameQuery;
+    @NonNull private final Sort sort;
+
+    public RecordsQuery(@NonNull VideoItem.Category category,
+                        @NonNull VideoItem.CameraSubtype cameraSubtype,
+                        @NonNull VideoItem.ShotSubtype shotSubtype,
+                        @NonNull VideoItem.FaditorSubtype faditorSubtype,
+                        @Nullable String miniAppsSubtype,
+                        @Nullable String nameQuery,
+                        @NonNull Sort sort) {
+        this.category = category;
+        this.cameraSubtype = cameraSubtype;
+        this.shotSubtype = shotSubtype;
+        this.faditorSubtype = faditorSubtype;
+        this.miniAppsSubtype = miniAppsSubtype;
+        this.nameQuery = nameQuery;
+        this.sort = sort;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RecordsQuery)) return false;
+        RecordsQuery other = (RecordsQuery) o;
+        return category == other.category
+                && cameraSubtype == other.cameraSubtype
+                && shotSubtype == other.shotSubtype
+                && faditorSubtype == other.faditorSubtype
+                && Objects.equals(miniAppsSubtype, other.miniAppsSubtype)
+                && Objects.equals(toFtsMatch(nameQuery), toFtsMatch(other.nameQuery))
+                && sort == other.sort;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(category, cameraSubtype, shotSubtype, faditorSubtype, miniAppsSubtype,
+                toFtsMatch(nameQuery), sort);
+    }
+
+    /** SELECT for the page starting after {@code after} (null = first page). */
+    @NonNull
+    SimpleSQLiteQuery toPageQuery(@Nullable Cursor after, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM video_index");
+        List<Object> args = new ArrayList<>();
+        appendWhere(sql, args, after, null);
+        appendOrder(sql);
+        sql.append(" LIMIT ").append(limit);
+        return new SimpleSQLiteQuery(sql.toString(), args.toArray());
+    }
+
+    /**
+     * SELECT for the rows after {@code after} (null = from the start) up to and including the
+     * row {@code until} was taken from: one page as it reads now, grown or shrunk by rows
+     * inserted or removed since.
+     */
+    @NonNull
+    SimpleSQLiteQuery toRangeQuery(@Nullable Cursor after, @NonNull Cursor until) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM video_index");
+        List<Object> args = new ArrayList<>();
+        appendWhere(sql, args, after, until);
+        appendOrder(sql);
+        return new SimpleSQLiteQuery(sql.toString(), args.toArray());
+    }
+
+    /** SELECT COUNT(*) over the whole filtered set. */
+    @NonNull
+    SimpleSQLiteQuery toCountQuery() {
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM video_index");
+        List<Object> args = new ArrayList<>();
+        appendWhere(sql, args, null, null);
+        return new SimpleSQLiteQuery(sql.toString(), args.toArray());
+    }
+
+    /** Cursor positioned after {@code last}, the final row of a page. */
+    @NonNull
+    Cursor cursorAfter(@NonNull VideoIndexEntity last) {
+        long sortValue = "file_size".equals(sort.column) ? last.fileSize : last.lastModified;
+        return new Cursor(sortValue, last.id);
+    }
+
+    private void appendOrder(@NonNull StringBuilder sql) {
+        String direction = sort.ascending ? " ASC" : " DESC";
+        sql.append(" ORDER BY ").append(sort.column).append(direction).append(", id").append(direction);
+    }
+
+    private void appendWhere(@NonNull StringBuilder sql, @NonNull List<Object> args,
+                             @Nullable Cursor after, @Nullable Cursor until) {
+        List<String> clauses = new ArrayList<>();
+        switch (category) {
+            case ALL:
+                break;
+            case CAMERA:
+                clauses.add("category IN ('CAMERA', 'DUAL')");
+                if (cameraSubtype != VideoItem.CameraSubtype.ALL) {
+                    clauses.add(subtypeClause("camera_subtype", cameraSubtype.name(),
+                            cameraSubtype == VideoItem.CameraSubtype.BACK, args));
+                }
+                break;
+            case SHOT:
+                clauses.add("category = 'SHOT'");
+                if (shotSubtype != VideoItem.ShotSubtype.ALL) {
+                    clauses.add(subtypeClause("shot_subtype", shotSubtype.name(),
+                            shotSubtype == VideoItem.ShotSubtype.BACK, args));
+                }
+                break;
+            case FADITOR:
+                clauses.add("category = 'FADITOR'");
+                if (faditorSubtype != VideoItem.FaditorSubtype.ALL) {
+                    clauses.add(subtypeClause("faditor_subtype", faditorSubtype.name(),
+                            faditorSubtype == VideoItem.FaditorSubtype.OTHER, args));
+                }
+                break;
+            case MINIAPPS:
+                clauses.add("category = 'MINIAPPS'");
+                if ("QR".equals(miniAppsSubtype)) {
+                    clauses.add("uri_string LIKE '%QRScanner%'");
+                }
+                break;
+            default:
+                clauses.add("category = ?");
+                args.add(category.name());
+                break;
+        }
+        String match = toFtsMatch(nameQuery);
+        if (match != null) {
+            clauses.add("id IN (SELECT docid FROM video_index_fts WHERE video_index_fts MATCH ?)");
+            args.add(match);
+        }
+        if (after != null) {
+            String op = sort.ascending ? " > " : " < ";
+            clauses.add("(" + sort.column + op + "? OR (" + sort.column + " = ? AND id" + op + "?))");
+            args.add(after.sortValue);
+            args.add(after.sortValue);
+            args.add(after.id);
+        }
+        if (until != null) {
+            String op = sort.ascending ? "<" : ">";
+            clauses.add("(" + sort.column + " " + op + " ? OR (" + sort.column + " = ? AND id " + op + "= ?))");
+            args.add(until.sortValue);
+            args.add(until.sortValue);
+            args.add(until.id);
+        }
+        for (int i = 0; i < clauses.size(); i++) {
+            sql.append(i == 0 ? " WHERE " : " AND ").append(clauses.get(i));
+        }
+    }
+
+    /** Exact subtype match; the legacy default subtype also matches UNKNOWN and NULL rows. */
+    @NonNull
+    private static String subtypeClause(@NonNull String column, @NonNull String value,
+                                        boolean isLegacyDefault, @NonNull List<Object> args) {
+        args.add(value);
+        if (isLegacyDefault) {
+            return "(" + column + " = ? OR " + column + " = 'UNKNOWN' OR " + column + " IS NULL)";
+        }
+        return column + " = ?";
+    }
+
+    /**
+     * Turns free text into an FTS4 MATCH expression: every word becomes a prefix term,
+     * all terms must match. Punctuation is dropped since the default tokenizer splits on
+     * it anyway (so "FadCam_2024" finds "FadCam_20240101_1200.mp4").
+     */
+    @Nullable
+    static String toFtsMatch(@Nullable String text) {
+        if (text == null) return null;
+        String[] words = text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{Nd}]+");
+        StringBuilder match = new StringBuilder();
+        for (String word : words) {
+            if (word.isEmpty()) continue;
+            if (match.length() > 0) match.append(' ');
+            match.append(word).append('*');
+        }
+        return match.length() == 0 ? null : match.toString();
+    }
+}
@@ -8,6 +8,7 @@ import androidx.room.RoomDatabase;
 
 import com.fadcam.data.dao.VideoIndexDao;
 import com.fadcam.data.entity.VideoIndexEntity;
+import com.fadcam.data.entity.VideoIndexFtsEntity;
 
 /**
  * Room database for the video file index.
@@ -19,8 +20,8 @@ import com.fadcam.data.entity.VideoIndexEntity;
  * instead of re-scanning the file system.
  */
 @Database(
-    entities = {VideoIndexEntity.class},
-    version = 3,
+    entities = {VideoIndexEntity.class, VideoIndexFtsEntity.class},
+    version = 4,
     exportSchema = false
 )
 public abstract class VideoIndexDatabase extends RoomDatabase {
@@ -44,6 +45,35 @@ public abstract class VideoIndexDatabase extends RoomDatabase {
         }
     };
 
+    /**
+     * Migration 3→4: Records tab filter/sort indices and the display-name FTS4 table.
+     * The FTS table and its sync triggers mirror what Room generates for
+     * {@link VideoIndexFtsEntity}; the final 'rebuild' indexes existing rows.
+     */
+    public static final androidx.room.migration.Migration MIGRATION_3_4 = new androidx.room.migration.Migration(3, 4) {
+        @Override
+        public void migrate(androidx.sqlite.db.SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_video_index_category_last_modified` "
+                    + "ON `video_index` (`category`, `last_modified`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_video_index_file_size` ON `video_index` (`file_size`)");
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `video_index_fts` "
+                    + "USING FTS4(`display_name` TEXT, content=`video_index`)");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_video_index_fts_BEFORE_UPDATE "
+                    + "BEFORE UPDATE ON `video_index` BEGIN DELETE FROM `video_index_fts` "
+                    + "WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_video_index_fts_BEFORE_DELETE "
+                    + "BEFORE DELETE ON `video_index` BEGIN DELETE FROM `video_index_fts` "
+                    + "WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_video_index_fts_AFTER_UPDATE "
+                    + "AFTER UPDATE ON `video_index` BEGIN INSERT INTO `video_index_fts`(`docid`, `display_name`) "
+                    + "VALUES (NEW.`rowid`, NEW.`display_name`); END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_video_index_fts_AFTER_INSERT "
+                    + "AFTER INSERT ON `video_index` BEGIN INSERT INTO `video_index_fts`(`docid`, `display_name`) "
+                    + "VALUES (NEW.`rowid`, NEW.`display_name`); END");
+            db.execSQL("INSERT INTO `video_index_fts`(`video_index_fts`) VALUES ('rebuild')");
+        }
+    };
+
     public abstract VideoIndexDao videoIndexDao();
 
     /**
@@ -61,7 +91,7 @@ public abstract class VideoIndexDatabase extends RoomDatabase {
                             VideoIndexDatabase.class,
                             DB_NAME
                         )
-                        .addMigrations(MIGRATION_1_2, MIGRATION_2_3)
+                        .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4)
                         .fallbackToDestructiveMigration()
                         .build();
                 }
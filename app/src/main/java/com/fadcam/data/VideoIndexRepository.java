@@ -12,29 +12,43 @@ import com.fadcam.SharedPreferencesManager;
 import com.fadcam.Utils;
 import com.fadcam.data.dao.VideoIndexDao;
 import com.fadcam.data.entity.VideoIndexEntity;
+import com.fadcam.playback.Mp4MetadataProbe;
 import com.fadcam.ui.VideoItem;
 
 import java.io.File;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Repository that orchestrates the video index lifecycle:
  * <ol>
- *   <li>On first call: read DB → if non-empty, return instantly → delta scan in background</li>
- *   <li>On cold start (empty DB): full scan → bulk insert → return</li>
+ *   <li>On first call: DB non-empty → apply logged file events and return → delta scan in background</li>
+ *   <li>On cold start (empty DB): full scan → bulk insert per directory → return</li>
  *   <li>Background enrichment: compute duration + thumbnail for un-resolved items</li>
+ *   <li>Incremental sync: file events are logged per path ({@link #logChanges}) and applied as
+ *   targeted upserts and deletes ({@link #syncPendingChanges}); every read drains the log first</li>
+ *   <li>Records tab view: filter, sort and name search run as paged SQL ({@link #queryRecords});
+ *   chip counts and header stats come from grouped counts ({@link #queryFacets}). Callers never
+ *   hold the whole index in memory.</li>
  * </ol>
  * <p>
+ * Every sync that changes the index bumps a monotonically increasing generation. Callers
+ * remember the generation their list was built from and ask {@link #getChangesSince(long)}
+ * for a diff instead of reloading everything.
+ * <p>
  * All public methods are designed to be called from a background thread.
  * The fragment should call these from its own executor and post results to UI.
  */
@@ -49,14 +63,25 @@ public class VideoIndexRepository {
     private final VideoIndexDao dao;
     private final FastFileScanner scanner;
     private final ExecutorService enrichmentExecutor;
-    private final AtomicBoolean isEnriching = new AtomicBoolean(false);
+    private final EnrichmentScheduler enrichmentScheduler;
+
+    /** Serial thread for Records tab queries and the classification write-backs they depend on. */
+    private final ExecutorService recordsQueryExecutor = Executors.newSingleThreadExecutor();
 
     /**
-     * Flag-based invalidation: set from any thread, consumed by next getVideos() call.
+     * Flag-based invalidation: set from any thread, consumed by next syncIndex() call.
      * Avoids calling dao.deleteAll() from the main thread.
      */
     private final AtomicBoolean indexInvalidated = new AtomicBoolean(false);
 
+    /**
+     * Write-ahead log of file events not yet applied to the index. Guarded by itself;
+     * {@link #syncLock} keeps two drains from applying one path's changes out of order, and a
+     * delta scan from interleaving with a drain.
+     */
+    private final MediaChangeLog pendingMediaChanges = new MediaChangeLog();
+    private final Object syncLock = new Object();
+
     /**
      * In-memory count cache, updated after each DB-modifying operation.
      * Safe to read from any thread (main thread included).
@@ -64,11 +89,11 @@ public class VideoIndexRepository {
     private final AtomicInteger cachedCount = new AtomicInteger(0);
 
     /**
-     * In-memory duration cache: URI → durationMs.
-     * Populated after getVideos/deltaScan/enrichment so that the adapter can call
+     * Duration cache: URI → durationMs, shared app-wide and persisted by {@link MediaAttributeStore}.
+     * Populated from queried pages and by enrichment so that the adapter can call
      * getCachedDuration() from the main thread without touching the DB.
      */
-    private final ConcurrentHashMap<String, Long> durationCache = new ConcurrentHashMap<>();
+    private final MediaAttributeStore durationCache;
 
     /**
      * One-time flag: set to true after stale MMR-based durations have been cleared.
@@ -78,6 +103,56 @@ public class VideoIndexRepository {
      */
     private static volatile boolean staleMMRDurationsClearedOnce = false;
 
+    /** SQLite's default bound-variable limit is 999; stay well below it per IN (...) batch. */
+    private static final int SQL_BATCH_SIZE = 500;
+
+    /** Number of recent generations kept for {@link #getChangesSince(long)}. */
+    private static final int MAX_CHANGE_LOG = 64;
+
+    /** Current index generation; bumped by every sync that changes at least one row. */
+    private final AtomicLong generation = new AtomicLong(0);
+
+    /** Recent changes, oldest first. Guarded by itself. */
+    private final ArrayDeque<IndexChange> changeLog = new ArrayDeque<>();
+
+    /** Rows written and URIs removed by one generation. */
+    private static final class IndexChange {
+        final long generation;
+        final boolean full;
+        final List<VideoIndexEntity> upserts;
+        final List<String> removedUris;
+
+        IndexChange(long generation, boolean full, List<VideoIndexEntity> upserts, List<String> removedUris) {
+            this.generation = generation;
+            this.full = full;
+            this.upserts = upserts;
+            this.removedUris = removedUris;
+        }
+    }
+
+    /**
+     * Changes between two generations, already converted for the adapter.
+     * When {@link #fullReload} is set the lists are empty and the caller must reload.
+     */
+    public static final class IndexDelta {
+        public final long toGeneration;
+        public final boolean fullReload;
+        @NonNull public final List<VideoItem> upserted;
+        @NonNull public final List<String> removedUris;
+
+        IndexDelta(long toGeneration, boolean fullReload,
+                   @NonNull List<VideoItem> upserted, @NonNull List<String> removedUris) {
+            this.toGeneration = toGeneration;
+            this.fullReload = fullReload;
+            this.upserted = upserted;
+            this.removedUris = removedUris;
+        }
+
+        public boolean isEmpty() {
+            return !fullReload && upserted.isEmpty() && removedUris.isEmpty();
+        }
+    }
+
     /** Callback for metadata enrichment progress (duration resolved for an item). */
     public interface EnrichmentCallback {
         /**
@@ -89,11 +164,45 @@ public class VideoIndexRepository {
         void onItemEnriched(String uriString, long durationMs);
     }
 
+    /** Progress while a cold-start scan is still walking the storage tree. */
+    public interface ScanProgressListener {
+        /**
+         * Called on the thread that called {@link #syncIndex(SharedPreferencesManager, ScanProgressListener)}
+         * once more rows have been written to the index; they can be queried right away.
+         *
+         * @param indexedSoFar Rows indexed so far
+         */
+        void onScanProgress(int indexedSoFar);
+    }
+
+    /** Receives the Records tab facets (called on the records query thread). */
+    public interface RecordsFacetsCallback {
+        void onFacets(@NonNull List<RecordsQuery.Facet> facets);
+    }
+
+    /** Receives items loaded for the Records tab (called on the records query thread). */
+    public interface RecordsItemsCallback {
+        void onItems(@NonNull List<VideoItem> items);
+    }
+
+    /** Visits the index one page at a time (called on the caller's thread). */
+    public interface PageVisitor {
+        void onPage(@NonNull List<VideoItem> items);
+    }
+
+    /** Page size for passes that visit every row. */
+    private static final int VISIT_PAGE_SIZE = 500;
+
+    /** Minimum gap between two {@link ScanProgressListener} deliveries. */
+    private static final long SCAN_PROGRESS_INTERVAL_MS = 250;
+
     private VideoIndexRepository(@NonNull Context context) {
         this.appContext = context.getApplicationContext();
         this.dao = VideoIndexDatabase.getInstance(appContext).videoIndexDao();
         this.scanner = new FastFileScanner(appContext);
         this.enrichmentExecutor = Executors.newFixedThreadPool(2);
+        this.enrichmentScheduler = new EnrichmentScheduler(dao, this::resolveDuration);
+        this.durationCache = MediaAttributeStore.getInstance(appContext);
     }
 
     /**
@@ -115,16 +224,27 @@ public class VideoIndexRepository {
     // ════════════════════════════════════════════════════════════════
 
     /**
-     * Get all indexed videos. If the DB has data, returns instantly from DB.
-     * If DB is empty (first launch or after wipe), performs a full scan.
+     * Bring the index up to date before the Records tab queries it. If the DB has data, only
+     * the logged file events are applied; if it is empty (first launch or after wipe), a full
+     * scan fills it. Rows are not read back: the caller pages them with {@link #queryRecords}.
      * <p>
      * Must be called from a background thread.
      *
      * @param prefs SharedPreferencesManager for storage config
-     * @return List of VideoItem ready for the adapter
+     * @return Number of indexed items
      */
-    @NonNull
-    public List<VideoItem> getVideos(@NonNull SharedPreferencesManager prefs) {
+    public int syncIndex(@NonNull SharedPreferencesManager prefs) {
+        return syncIndex(prefs, null);
+    }
+
+    /**
+     * Like {@link #syncIndex(SharedPreferencesManager)}; on a cold start, each directory the
+     * scanner finishes is written to the index right away and reported to {@code progress}
+     * (first batch immediately, then at most every {@value #SCAN_PROGRESS_INTERVAL_MS} ms).
+     * The DB and delta-scan paths never call it.
+     */
+    public int syncIndex(@NonNull SharedPreferencesManager prefs,
+                         @Nullable ScanProgressListener progress) {
         long start = System.currentTimeMillis();
 
         // If index was invalidated (from main thread), force a delta scan to sync
@@ -137,28 +257,43 @@ public class VideoIndexRepository {
 
         int dbCount = dao.getCount();
         if (dbCount > 0) {
-            // Fast path: read from DB
-            List<VideoIndexEntity> entities = dao.getAllNewestFirst();
-            List<VideoItem> items = entitiesToVideoItems(entities);
-            updateInMemoryCaches(entities, items.size());
+            // Logged file events first, so later queries already reflect them
+            if (!syncPendingChanges(prefs)) {
+                // SAF: the dropped log cannot be mapped to rows, so rescan instead
+                return deltaScan(prefs);
+            }
+            int count = dao.getCount();
+            cachedCount.set(count);
             long elapsed = System.currentTimeMillis() - start;
-            FLog.i(TAG, "DB fast path: " + items.size() + " items in " + elapsed + "ms");
-            return items;
+            FLog.i(TAG, "DB fast path: " + count + " items in " + elapsed + "ms");
+            return count;
         }
 
         // Cold start: full scan + insert
         FLog.i(TAG, "Cold start: no DB data, performing full scan");
-        List<VideoIndexEntity> scanned = scanner.scanAll(prefs);
+        discardPendingChanges(); // the scan sees every logged path anyway
+        int[] indexed = {0};
+        long[] lastDelivery = {0};
+        List<VideoIndexEntity> scanned = scanner.scanAll(prefs, batch -> {
+            // Upsert per directory so a scan cut short still leaves its findings in the index
+            dao.upsertAll(batch);
+            indexed[0] += batch.size();
+            cachedCount.set(indexed[0]);
+            long now = System.currentTimeMillis();
+            if (progress != null && now - lastDelivery[0] >= SCAN_PROGRESS_INTERVAL_MS) {
+                lastDelivery[0] = now;
+                progress.onScanProgress(indexed[0]);
+            }
+        });
         if (!scanned.isEmpty()) {
-            dao.insertOrReplaceAll(scanned);
+            recordChange(true, Collections.emptyList(), Collections.emptyList());
             FLog.i(TAG, "Inserted " + scanned.size() + " items into DB");
         }
 
-        List<VideoItem> items = entitiesToVideoItems(scanned);
-        updateInMemoryCaches(scanned, items.size());
+        cachedCount.set(scanned.size());
         long elapsed = System.currentTimeMillis() - start;
-        FLog.i(TAG, "Cold start complete: " + items.size() + " items in " + elapsed + "ms");
-        return items;
+        FLog.i(TAG, "Cold start complete: " + scanned.size() + " items in " + elapsed + "ms");
+        return scanned.size();
     }
 
     /**
@@ -198,72 +333,38 @@ public class VideoIndexRepository {
      * Must be called from a background thread.
      *
      * @param prefs SharedPreferencesManager for storage config
-     * @return Updated list of VideoItem after delta sync
+     * @return Number of indexed items after the sync
      */
-    @NonNull
-    public List<VideoItem> deltaScan(@NonNull SharedPreferencesManager prefs) {
-        long start = System.currentTimeMillis();
-
-        // Scan current files on disk
-        List<VideoIndexEntity> currentFiles = scanner.scanAll(prefs);
-
-        // Build lookup maps
-        Map<String, VideoIndexEntity> diskMap = new HashMap<>(currentFiles.size());
-        for (VideoIndexEntity entity : currentFiles) {
-            diskMap.put(entity.uriString, entity);
-        }
-
-        // Get existing DB state (lightweight)
-        List<VideoIndexDao.DeltaCheckRow> dbRows = dao.getDeltaCheckRows();
-        Set<String> dbUris = new HashSet<>(dbRows.size());
-        Map<String, VideoIndexDao.DeltaCheckRow> dbMap = new HashMap<>(dbRows.size());
-        for (VideoIndexDao.DeltaCheckRow row : dbRows) {
-            dbUris.add(row.uri_string);
-            dbMap.put(row.uri_string, row);
-        }
-
-        // Determine what changed
-        List<VideoIndexEntity> toInsert = new ArrayList<>();
-        List<String> toDelete = new ArrayList<>();
-
-        // New or changed files
-        for (VideoIndexEntity diskEntity : currentFiles) {
-            VideoIndexDao.DeltaCheckRow dbRow = dbMap.get(diskEntity.uriString);
-            if (dbRow == null) {
-                // New file — not in DB
-                toInsert.add(diskEntity);
-            } else if (diskEntity.lastModified != dbRow.last_modified || diskEntity.fileSize != dbRow.file_size) {
-                // Changed file — re-index (will replace via REPLACE strategy)
-                toInsert.add(diskEntity);
+    public int deltaScan(@NonNull SharedPreferencesManager prefs) {
+        synchronized (syncLock) {
+            long start = System.currentTimeMillis();
+            discardPendingChanges(); // logged before the walk starts, so the walk covers them
+
+            // Scan current files on disk
+            List<VideoIndexEntity> currentFiles = scanner.scanAll(prefs);
+
+            // Compare with the existing DB state (lightweight rows)
+            IndexDiff diff = IndexDiff.compute(currentFiles, dao.getDeltaCheckRows());
+            List<VideoIndexEntity> toInsert = diff.toInsert;
+            List<String> toDelete = diff.toDelete;
+
+            // Apply changes in one transaction
+            if (!diff.isEmpty()) {
+                dao.applyDelta(toInsert, toDelete, SQL_BATCH_SIZE);
+                for (VideoIndexEntity entity : toInsert) durationCache.removeDuration(entity.uriString);
+                for (String uri : toDelete) durationCache.remove(uri);
+                recordChange(false, toInsert, toDelete);
             }
-            // Else: unchanged — skip
-        }
-
-        // Deleted files — in DB but not on disk
-        for (String dbUri : dbUris) {
-            if (!diskMap.containsKey(dbUri)) {
-                toDelete.add(dbUri);
-            }
-        }
 
-        // Apply changes
-        if (!toDelete.isEmpty()) {
-            dao.deleteByUris(toDelete);
-        }
-        if (!toInsert.isEmpty()) {
-            dao.insertOrReplaceAll(toInsert);
-        }
-
-        // Return fresh list from DB
-        List<VideoIndexEntity> allEntities = dao.getAllNewestFirst();
-        List<VideoItem> items = entitiesToVideoItems(allEntities);
-        updateInMemoryCaches(allEntities, items.size());
+            int count = dao.getCount();
+            cachedCount.set(count);
 
-        long elapsed = System.currentTimeMillis() - start;
-        FLog.i(TAG, "Delta scan complete: " + items.size() + " items, " +
-                toInsert.size() + " added, " + toDelete.size() + " removed, " + elapsed + "ms");
+            long elapsed = System.currentTimeMillis() - start;
+            FLog.i(TAG, "Delta scan complete: " + count + " items, " +
+                    toInsert.size() + " added, " + toDelete.size() + " removed, " + elapsed + "ms");
 
-        return items;
+            return count;
+        }
     }
 
     /**
@@ -273,21 +374,25 @@ public class VideoIndexRepository {
      * This is equivalent to a delta scan but starts from a full disk scan.
      *
      * @param prefs SharedPreferencesManager for storage config
-     * @return Fresh list of VideoItem
+     * @return Number of indexed items
      */
-    @NonNull
-    public List<VideoItem> forceFullReindex(@NonNull SharedPreferencesManager prefs) {
+    public int forceFullReindex(@NonNull SharedPreferencesManager prefs) {
         long start = System.currentTimeMillis();
 
         // Save existing enrichment data before modifying the DB
         Map<String, long[]> enrichmentData = new HashMap<>();
         try {
-            List<VideoIndexEntity> existing = dao.getAllNewestFirst();
-            for (VideoIndexEntity e : existing) {
-                if (e.durationResolved) {
-                    enrichmentData.put(e.uriString, new long[]{e.durationMs, 1});
+            long afterId = 0;
+            List<VideoIndexEntity> page;
+            do {
+                page = dao.getPageAfterId(afterId, VISIT_PAGE_SIZE);
+                for (VideoIndexEntity e : page) {
+                    if (e.durationResolved) {
+                        enrichmentData.put(e.uriString, new long[]{e.durationMs, 1});
+                    }
+                    afterId = e.id;
                 }
-            }
+            } while (page.size() == VISIT_PAGE_SIZE);
             FLog.d(TAG, "Preserved enrichment data for " + enrichmentData.size() + " items");
         } catch (Exception e) {
             FLog.w(TAG, "Failed to read existing enrichment data (non-fatal)", e);
@@ -309,14 +414,200 @@ public class VideoIndexRepository {
         }
 
         if (!scanned.isEmpty()) {
-            dao.insertOrReplaceAll(scanned);
+            dao.upsertAll(scanned);
         }
-        List<VideoItem> items = entitiesToVideoItems(scanned);
-        updateInMemoryCaches(scanned, items.size());
+        recordChange(true, Collections.emptyList(), Collections.emptyList());
+        cachedCount.set(scanned.size());
+        cacheDurations(scanned);
         long elapsed = System.currentTimeMillis() - start;
-        FLog.i(TAG, "Full reindex: " + items.size() + " items in " + elapsed + "ms"
+        FLog.i(TAG, "Full reindex: " + scanned.size() + " items in " + elapsed + "ms"
                 + " (preserved " + enrichmentData.size() + " durations)");
-        return items;
+        return scanned.size();
+    }
+
+    /**
+     * Appends file events to the write-ahead log. Nothing touches the DB here — the log is
+     * applied by {@link #syncPendingChanges} or, implicitly, by the next {@link #syncIndex}.
+     * Safe to call from any thread, including main.
+     */
+    public void logChanges(@NonNull MediaChangeLog changes) {
+        if (changes.isEmpty()) return;
+        synchronized (pendingMediaChanges) {
+            pendingMediaChanges.addAll(changes);
+        }
+    }
+
+    /**
+     * Incremental sync: applies the logged file events as targeted upserts and deletes instead
+     * of walking the whole storage tree. Deletes need no stat; other paths are stat'ed once
+     * (directories that were created or moved in are walked). Existing rows are fetched in
+     * batches, and all writes go through one transaction.
+     * <p>
+     * Must be called from a background thread.
+     *
+     * @param prefs SharedPreferencesManager for storage config
+     * @return false if the log cannot be applied (SAF storage: its rows are keyed by document
+     *         URIs, which file paths cannot be mapped to) — the log is dropped and the caller
+     *         should fall back to a reload
+     */
+    public boolean syncPendingChanges(@NonNull SharedPreferencesManager prefs) {
+        synchronized (syncLock) {
+            MediaChangeLog changes;
+            synchronized (pendingMediaChanges) {
+                if (pendingMediaChanges.isEmpty()) return true;
+                changes = new MediaChangeLog(pendingMediaChanges);
+                pendingMediaChanges.clear();
+            }
+            String safUriString = prefs.getCustomStorageUri();
+            if (safUriString != null && !safUriString.isEmpty()) {
+                return false;
+            }
+            applyChanges(changes);
+            return true;
+        }
+    }
+
+    private void discardPendingChanges() {
+        synchronized (pendingMediaChanges) {
+            pendingMediaChanges.clear();
+        }
+    }
+
+    private void applyChanges(@NonNull MediaChangeLog changes) {
+        long start = System.currentTimeMillis();
+
+        Map<String, VideoIndexEntity> onDisk = new LinkedHashMap<>();
+        for (Map.Entry<File, MediaChangeLog.Change> change : changes.entries().entrySet()) {
+            File file = change.getKey();
+            if (change.getValue() == MediaChangeLog.Change.DELETED) {
+                onDisk.put(Uri.fromFile(file).toString(), null);
+            } else if (file.isDirectory()) {
+                // New or moved-in folder: its files were never reported individually
+                collectDirectory(file, onDisk);
+            } else {
+                onDisk.put(Uri.fromFile(file).toString(), scanner.scanInternalFile(file)); // null = gone or not media
+            }
+        }
+        if (onDisk.isEmpty()) return;
+
+        List<String> uris = new ArrayList<>(onDisk.keySet());
+        Map<String, VideoIndexDao.DeltaCheckRow> dbMap = new HashMap<>(uris.size());
+        for (int i = 0; i < uris.size(); i += SQL_BATCH_SIZE) {
+            for (VideoIndexDao.DeltaCheckRow row
+                    : dao.getDeltaCheckRowsByUris(uris.subList(i, Math.min(uris.size(), i + SQL_BATCH_SIZE)))) {
+                dbMap.put(row.uri_string, row);
+            }
+        }
+
+        List<VideoIndexEntity> toInsert = new ArrayList<>();
+        List<String> toDelete = new ArrayList<>();
+        int added = 0;
+        for (Map.Entry<String, VideoIndexEntity> entry : onDisk.entrySet()) {
+            VideoIndexEntity disk = entry.getValue();
+            VideoIndexDao.DeltaCheckRow dbRow = dbMap.get(entry.getKey());
+            if (disk == null) {
+                if (dbRow != null) toDelete.add(entry.getKey());
+            } else if (dbRow == null) {
+                toInsert.add(disk);
+                added++;
+            } else if (disk.lastModified != dbRow.last_modified || disk.fileSize != dbRow.file_size) {
+                toInsert.add(disk);
+            }
+        }
+        // A path that is gone without a row of its own may have been a folder: its files were
+        // never reported one by one, so drop every row below it
+        for (Map.Entry<String, VideoIndexEntity> entry : onDisk.entrySet()) {
+            if (entry.getValue() != null || dbMap.containsKey(entry.getKey())) continue;
+            for (String uri : dao.getUrisInRange(entry.getKey() + '/', entry.getKey() + '0')) {
+                if (!onDisk.containsKey(uri)) toDelete.add(uri);
+            }
+        }
+        if (toInsert.isEmpty() && toDelete.isEmpty()) return;
+
+        dao.applyDelta(toInsert, toDelete, SQL_BATCH_SIZE);
+        for (VideoIndexEntity entity : toInsert) durationCache.removeDuration(entity.uriString);
+        for (String uri : toDelete) durationCache.remove(uri);
+        int delta = added - toDelete.size();
+        cachedCount.updateAndGet(c -> Math.max(0, c + delta));
+        long gen = recordChange(false, toInsert, toDelete);
+
+        FLog.i(TAG, "Incremental sync → gen " + gen + ": " + toInsert.size() + " upserted, "
+                + toDelete.size() + " removed from " + changes.size() + " logged paths in "
+                + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    private void collectDirectory(@NonNull File dir, @NonNull Map<String, VideoIndexEntity> out) {
+        File[] children = dir.listFiles();
+        if (children == null) return;
+        for (File child : children) {
+            if (child.isDirectory()) {
+                collectDirectory(child, out);
+            } else {
+                VideoIndexEntity entity = scanner.scanInternalFile(child);
+                if (entity != null) out.put(entity.uriString, entity);
+            }
+        }
+    }
+
+    /**
+     * Current index generation. Read it BEFORE loading a list from this repository, then pass
+     * it to {@link #getChangesSince(long)} later: changes are idempotent (upsert/remove by URI),
+     * so re-applying one that the list already contains is harmless.
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Changes made after generation {@code sinceGeneration}, merged (latest wins per URI).
+     * Returns a {@link IndexDelta#fullReload} delta if that generation is unknown, older than
+     * the retained history, or a full rescan happened in between.
+     * Safe to call from any thread (no DB access).
+     */
+    @NonNull
+    public IndexDelta getChangesSince(long sinceGeneration) {
+        synchronized (changeLog) {
+            long current = generation.get();
+            if (sinceGeneration == current) {
+                return new IndexDelta(current, false, Collections.emptyList(), Collections.emptyList());
+            }
+            IndexChange oldest = changeLog.peekFirst();
+            if (sinceGeneration < 0 || sinceGeneration > current
+                    || oldest == null || oldest.generation > sinceGeneration + 1) {
+                return new IndexDelta(current, true, Collections.emptyList(), Collections.emptyList());
+            }
+            Map<String, VideoIndexEntity> upserts = new LinkedHashMap<>();
+            Set<String> removed = new LinkedHashSet<>();
+            for (IndexChange change : changeLog) {
+                if (change.generation <= sinceGeneration) continue;
+                if (change.full) {
+                    return new IndexDelta(current, true, Collections.emptyList(), Collections.emptyList());
+                }
+                for (VideoIndexEntity entity : change.upserts) {
+                    upserts.put(entity.uriString, entity);
+                    removed.remove(entity.uriString);
+                }
+                for (String uri : change.removedUris) {
+                    upserts.remove(uri);
+                    removed.add(uri);
+                }
+            }
+            return new IndexDelta(current, false,
+                    entitiesToVideoItems(new ArrayList<>(upserts.values())), new ArrayList<>(removed));
+        }
+    }
+
+    /** Bump the generation and remember what changed; returns the new generation. */
+    private long recordChange(boolean full, @NonNull List<VideoIndexEntity> upserts,
+                              @NonNull List<String> removedUris) {
+        synchronized (changeLog) {
+            long gen = generation.incrementAndGet();
+            changeLog.addLast(new IndexChange(gen, full, upserts, removedUris));
+            while (changeLog.size() > MAX_CHANGE_LOG) {
+                changeLog.removeFirst();
+            }
+            return gen;
+        }
     }
 
     // ════════════════════════════════════════════════════════════════
@@ -325,55 +616,60 @@ public class VideoIndexRepository {
 
     /**
      * Start background enrichment of un-resolved durations.
-     * Processes items that have durationResolved=false, computes duration,
-     * and updates the DB. Calls back for each item resolved.
+     * Walks rows with durationResolved=false newest-first in pages, resolves them on
+     * {@link EnrichmentScheduler}'s bounded pool and writes results in batched transactions.
+     * Calls back for each item resolved.
      * <p>
      * Safe to call multiple times — will no-op if already running.
      *
      * @param callback Optional callback for per-item updates (called on background thread)
      */
     public void startBackgroundEnrichment(@Nullable EnrichmentCallback callback) {
-        if (!isEnriching.compareAndSet(false, true)) {
-            return;
+        if (enrichmentScheduler.startBackground(callback)) {
+            FLog.i(TAG, "Enrichment started");
         }
+    }
 
-        enrichmentExecutor.submit(() -> {
-            try {
-                List<VideoIndexEntity> unresolved = getUnresolvedDurationItems();
-                FLog.i(TAG, "Enrichment: " + unresolved.size() + " items need duration resolution");
-
-                for (VideoIndexEntity entity : unresolved) {
-                    try {
-                        if ("IMAGE".equals(entity.mediaType)) {
-                            // Images don't have duration — mark resolved with 0.
-                            dao.updateDuration(entity.uriString, 0);
-                            if (callback != null) callback.onItemEnriched(entity.uriString, 0);
-                            continue;
-                        }
-
-                        // IMPORTANT: Do NOT use MediaMetadataRetriever (MMR) for video duration here.
-                        // FadCam records in fragmented MP4 (fMP4) format via FragmentedMp4MuxerWrapper.
-                        // MMR reads the `mvhd` duration box, which is often wrong or zero for fMP4
-                        // (e.g., returns 26s for a 4s clip). FFprobe, on the other hand, reads actual
-                        // frame PTS timestamps and returns the correct "real" duration.
-                        //
-                        // Leaving items as `durationResolved=false` here causes the adapter to fall
-                        // through to its FFprobe path (getVideoDuration) which correctly probes the file
-                        // and persists the result via persistDurationToDb().
-                        if (callback != null) callback.onItemEnriched(entity.uriString, -1);
-
-                    } catch (Exception e) {
-                        FLog.w(TAG, "Failed to enrich: " + entity.displayName);
-                    }
-                }
+    /**
+     * Resolve one item's duration ahead of the background pass (its row is on screen).
+     * The callback runs on a worker thread with the duration in ms, or -1 if unresolved.
+     */
+    public void requestDuration(@NonNull String uriString, boolean isImage,
+                                @NonNull EnrichmentCallback callback) {
+        enrichmentScheduler.request(uriString, isImage, callback);
+    }
 
-                FLog.i(TAG, "Enrichment complete");
-            } catch (Exception e) {
-                FLog.e(TAG, "Enrichment error", e);
-            } finally {
-                isEnriching.set(false);
-            }
-        });
+    /** The row bound to {@code uriString} was recycled: drop its pending duration request. */
+    public void cancelDurationRequest(@NonNull String uriString) {
+        enrichmentScheduler.cancel(uriString);
+    }
+
+    /**
+     * The Records list went away: drop queued duration requests and stop the background pass.
+     * Rows still unresolved are picked up by the next {@link #startBackgroundEnrichment}.
+     */
+    public void cancelEnrichment() {
+        enrichmentScheduler.cancelAll();
+    }
+
+    /**
+     * Resolver for {@link EnrichmentScheduler}: images have no duration (0); videos use the
+     * header probe, then MMR for files it does not understand. Resolved values land in
+     * {@link #durationCache} immediately; the DB write is batched by the scheduler.
+     */
+    private long resolveDuration(@NonNull String uriString, boolean isImage) {
+        if (isImage) return 0;
+        // FadCam records fragmented MP4 (fMP4) via FragmentedMp4MuxerWrapper, whose
+        // mvhd duration MMR misreports (e.g. 26s for a 4s clip). The header probe
+        // reads fragment decode times instead, from a few small reads per file.
+        // MMR is only used for foreign files the probe does not understand.
+        Uri uri = Uri.parse(uriString);
+        Mp4MetadataProbe.Result probed = Mp4MetadataProbe.probe(appContext, uri);
+        long durationMs = probed != null ? probed.durationMs : computeDuration(uri);
+        // Unresolved (e.g. no complete fragment yet): the adapter's FFprobe
+        // path probes it on bind and persists via persistDurationToDb()
+        durationCache.putDuration(uriString, durationMs);
+        return durationMs;
     }
 
     /**
@@ -382,8 +678,7 @@ public class VideoIndexRepository {
      * Safe to call from the main thread (no DB access).
      */
     public long getCachedDuration(@NonNull String uriString) {
-        Long duration = durationCache.get(uriString);
-        return duration != null ? duration : -1;
+        return durationCache.getDuration(uriString);
     }
 
     /**
@@ -393,7 +688,7 @@ public class VideoIndexRepository {
      */
     public void persistDurationToDb(@NonNull String uriString, long durationMs) {
         if (durationMs <= 0) return;
-        durationCache.put(uriString, durationMs);
+        durationCache.putDuration(uriString, durationMs);
         enrichmentExecutor.submit(() -> {
             try {
                 dao.updateDuration(uriString, durationMs);
@@ -404,18 +699,229 @@ public class VideoIndexRepository {
         });
     }
 
+    // ════════════════════════════════════════════════════════════════
+    // Records tab queries (filter / sort / search in SQLite)
+    // ════════════════════════════════════════════════════════════════
+
+    /** Receives one page of Records tab results (called on the records query thread). */
+    public interface RecordsPageCallback {
+        void onPage(@NonNull RecordsQuery.Page page, int totalCount);
+    }
+
+    /**
+     * Load one page of the Records tab for {@code query}, starting after {@code after}
+     * (null = first page). {@code totalCount} is only computed for the first page and is
+     * -1 for later ones.
+     * <p>
+     * Runs on the serial records query thread, so classification write-backs queued by
+     * {@link #persistClassifications} are always visible to it.
+     */
+    public void queryRecords(@NonNull RecordsQuery query, @Nullable RecordsQuery.Cursor after, int limit,
+                             @NonNull RecordsPageCallback callback) {
+        recordsQueryExecutor.execute(() -> {
+            RecordsQuery.Page page;
+            int total = -1;
+            try {
+                List<VideoIndexEntity> rows = dao.queryRecordsPage(query.toPageQuery(after, limit));
+                cacheDurations(rows);
+                RecordsQuery.Cursor next = rows.size() < limit ? null : query.cursorAfter(rows.get(rows.size() - 1));
+                page = new RecordsQuery.Page(entitiesToVideoItems(rows), next);
+                if (after == null) total = dao.countRecords(query.toCountQuery());
+            } catch (Exception e) {
+                FLog.e(TAG, "Records query failed", e);
+                page = new RecordsQuery.Page(new ArrayList<>(), null);
+                total = after == null ? 0 : -1;
+            }
+            callback.onPage(page, total);
+        });
+    }
+
+    /** Receives a run of Records tab pages on the records query thread. */
+    public interface RecordsPagesCallback {
+        void onPages(@NonNull List<RecordsQuery.Page> pages, int totalCount);
+    }
+
+    /**
+     * Load a run of consecutive Records tab pages for {@code query}. {@code bounds} holds the
+     * start cursor of each page (null = first page) followed by the cursor that ends the run:
+     * page i is the rows after {@code bounds[i]} up to and including the row
+     * {@code bounds[i + 1]} was taken from, so rows inserted or removed since the pages were
+     * first read show up in place instead of shifting the pages. A null final bound leaves the
+     * last page open: it takes at most {@code limit} rows, like {@link #queryRecords}.
+     * {@code totalCount} is recounted when {@code count} is set and is -1 otherwise.
+     * <p>
+     * Runs on the serial records query thread, like {@link #queryRecords}.
+     */
+    public void queryRecordsPages(@NonNull RecordsQuery query, @NonNull List<RecordsQuery.Cursor> bounds,
+                                  int limit, boolean count, @NonNull RecordsPagesCallback callback) {
+        recordsQueryExecutor.execute(() -> {
+            List<RecordsQuery.Page> pages = new ArrayList<>(bounds.size() - 1);
+            int total = -1;
+            try {
+                for (int i = 0; i < bounds.size() - 1; i++) {
+                    RecordsQuery.Cursor after = bounds.get(i);
+                    RecordsQuery.Cursor until = bounds.get(i + 1);
+                    List<VideoIndexEntity> rows = dao.queryRecordsPage(until != null
+                            ? query.toRangeQuery(after, until) : query.toPageQuery(after, limit));
+                    cacheDurations(rows);
+                    RecordsQuery.Cursor next = until != null ? until
+                            : rows.size() < limit ? null : query.cursorAfter(rows.get(rows.size() - 1));
+                    pages.add(new RecordsQuery.Page(entitiesToVideoItems(rows), next));
+                }
+                if (count) total = dao.countRecords(query.toCountQuery());
+            } catch (Exception e) {
+                FLog.e(TAG, "Records query failed", e);
+                pages.clear();
+                pages.add(new RecordsQuery.Page(new ArrayList<>(), null));
+                total = count ? 0 : -1;
+            }
+            callback.onPages(pages, total);
+        });
+    }
+
+    /**
+     * Every row matching {@code query}, in its sort order (select all, delete all). Loaded in
+     * pages on the records query thread; only the matching rows are held.
+     */
+    public void queryAllRecords(@NonNull RecordsQuery query, @NonNull RecordsItemsCallback callback) {
+        recordsQueryExecutor.execute(() -> {
+            List<VideoItem> items = new ArrayList<>();
+            try {
+                RecordsQuery.Cursor after = null;
+                do {
+                    List<VideoIndexEntity> rows = dao.queryRecordsPage(query.toPageQuery(after, VISIT_PAGE_SIZE));
+                    items.addAll(entitiesToVideoItems(rows));
+                    after = rows.size() < VISIT_PAGE_SIZE ? null : query.cursorAfter(rows.get(rows.size() - 1));
+                } while (after != null);
+            } catch (Exception e) {
+                FLog.e(TAG, "Records query failed", e);
+            }
+            callback.onItems(items);
+        });
+    }
+
+    /**
+     * Indexed items for {@code uriStrings}, in no particular order; URIs that are not
+     * indexed are skipped. Runs on the records query thread.
+     */
+    public void getItemsByUris(@NonNull Collection<String> uriStrings, @NonNull RecordsItemsCallback callback) {
+        List<String> uris = new ArrayList<>(uriStrings);
+        recordsQueryExecutor.execute(() -> {
+            List<VideoItem> items = new ArrayList<>(uris.size());
+            try {
+                for (int i = 0; i < uris.size(); i += SQL_BATCH_SIZE) {
+                    items.addAll(entitiesToVideoItems(
+                            dao.findByUris(uris.subList(i, Math.min(uris.size(), i + SQL_BATCH_SIZE)))));
+                }
+            } catch (Exception e) {
+                FLog.e(TAG, "Failed to load items by URI", e);
+            }
+            callback.onItems(items);
+        });
+    }
+
+    /**
+     * Row count and size per classification for the chips and header stats. Runs on the
+     * records query thread, after any classification write-back queued before it.
+     */
+    public void queryFacets(@NonNull RecordsFacetsCallback callback) {
+        recordsQueryExecutor.execute(() -> {
+            List<RecordsQuery.Facet> facets = new ArrayList<>();
+            try {
+                for (VideoIndexDao.FacetRow row : dao.getFacetRows()) {
+                    facets.add(new RecordsQuery.Facet(
+                            safeParseEnum(VideoItem.Category.class, row.category, VideoItem.Category.UNKNOWN),
+                            safeParseEnum(VideoItem.MediaType.class, row.media_type, VideoItem.MediaType.VIDEO),
+                            safeParseEnum(VideoItem.CameraSubtype.class, row.camera_subtype, VideoItem.CameraSubtype.UNKNOWN),
+                            safeParseEnum(VideoItem.ShotSubtype.class, row.shot_subtype, VideoItem.ShotSubtype.UNKNOWN),
+                            safeParseEnum(VideoItem.FaditorSubtype.class, row.faditor_subtype, VideoItem.FaditorSubtype.UNKNOWN),
+                            row.qr_scanner, row.row_count, row.total_size));
+                }
+            } catch (Exception e) {
+                FLog.e(TAG, "Facet query failed", e);
+            }
+            callback.onFacets(facets);
+        });
+    }
+
+    /**
+     * Visit rows whose classification is not normalised yet (see
+     * {@link VideoIndexDao#getUnclassifiedPageAfterId}), one page at a time. Pages are keyed
+     * by id, so rows the visitor persists are never revisited.
+     * <p>
+     * Must be called from a background thread.
+     */
+    public void forEachUnclassifiedPage(@NonNull PageVisitor visitor) {
+        long afterId = 0;
+        List<VideoIndexEntity> rows;
+        do {
+            rows = dao.getUnclassifiedPageAfterId(afterId, VISIT_PAGE_SIZE);
+            if (rows.isEmpty()) return;
+            afterId = rows.get(rows.size() - 1).id;
+            visitor.onPage(entitiesToVideoItems(rows));
+        } while (rows.size() == VISIT_PAGE_SIZE);
+    }
+
+    /**
+     * Visit every indexed row, one page at a time.
+     * <p>
+     * Must be called from a background thread.
+     */
+    public void forEachIndexedPage(@NonNull PageVisitor visitor) {
+        long afterId = 0;
+        List<VideoIndexEntity> rows;
+        do {
+            rows = dao.getPageAfterId(afterId, VISIT_PAGE_SIZE);
+            if (rows.isEmpty()) return;
+            afterId = rows.get(rows.size() - 1).id;
+            visitor.onPage(entitiesToVideoItems(rows));
+        } while (rows.size() == VISIT_PAGE_SIZE);
+    }
+
+    /**
+     * Persist classifications the Records tab normalised in memory (inferred category,
+     * DUAL folded into CAMERA, resolved subtypes) so SQL filters agree with the chips.
+     * Callers pass only items whose values changed. Async, ordered before later
+     * {@link #queryRecords} calls.
+     */
+    public void persistClassifications(@NonNull List<VideoItem> items) {
+        if (items.isEmpty()) return;
+        List<String[]> rows = new ArrayList<>(items.size());
+        for (VideoItem item : items) {
+            if (item.uri == null) continue;
+            rows.add(new String[]{
+                    item.uri.toString(),
+                    item.category != null ? item.category.name() : null,
+                    item.mediaType != null ? item.mediaType.name() : null,
+                    item.shotSubtype != null ? item.shotSubtype.name() : null,
+                    item.cameraSubtype != null ? item.cameraSubtype.name() : null,
+                    item.faditorSubtype != null ? item.faditorSubtype.name() : null
+            });
+        }
+        recordsQueryExecutor.execute(() -> {
+            try {
+                dao.updateClassifications(rows);
+                FLog.d(TAG, "Persisted " + rows.size() + " normalised classifications");
+            } catch (Exception e) {
+                FLog.w(TAG, "Failed to persist classifications: " + e.getMessage());
+            }
+        });
+    }
+
     // ════════════════════════════════════════════════════════════════
     // Single-item operations
     // ════════════════════════════════════════════════════════════════
 
     /**
      * Remove a single video from the index (after delete/move).
-     * Runs DB deletion async; updates in-memory caches immediately.
+     * Runs DB deletion async, ordered before later Records tab queries; updates in-memory
+     * caches immediately.
      */
     public void removeFromIndex(@NonNull String uriString) {
         durationCache.remove(uriString);
         cachedCount.updateAndGet(c -> Math.max(0, c - 1));
-        enrichmentExecutor.submit(() -> {
+        recordChange(false, Collections.emptyList(), Collections.singletonList(uriString));
+        recordsQueryExecutor.execute(() -> {
             try {
                 dao.deleteByUri(uriString);
             } catch (Exception e) {
@@ -426,16 +932,19 @@ public class VideoIndexRepository {
 
     /**
      * Remove multiple videos from the index.
-     * Runs DB deletion async; updates in-memory caches immediately.
+     * Runs DB deletion async, ordered before later Records tab queries; updates in-memory
+     * caches immediately.
      */
     public void removeFromIndex(@NonNull List<String> uriStrings) {
         for (String uri : uriStrings) {
             durationCache.remove(uri);
         }
         cachedCount.updateAndGet(c -> Math.max(0, c - uriStrings.size()));
-        enrichmentExecutor.submit(() -> {
+        List<String> removed = new ArrayList<>(uriStrings);
+        recordChange(false, Collections.emptyList(), removed);
+        recordsQueryExecutor.execute(() -> {
             try {
-                dao.deleteByUris(uriStrings);
+                dao.applyDelta(Collections.emptyList(), removed, SQL_BATCH_SIZE);
             } catch (Exception e) {
                 FLog.w(TAG, "Failed to remove from index", e);
             }
@@ -443,13 +952,14 @@ public class VideoIndexRepository {
     }
 
     /**
-     * Invalidate the entire index. Next getVideos() call will do a full re-scan.
+     * Invalidate the entire index. Next syncIndex() call will do a full re-scan.
      * Safe to call from the main thread (no DB access — uses a flag).
      */
     public void invalidateIndex() {
         indexInvalidated.set(true);
+        recordChange(true, Collections.emptyList(), Collections.emptyList());
         cachedCount.set(0);
-        durationCache.clear();
+        // Durations stay: the delta scan evicts those of changed or deleted files
         FLog.i(TAG, "Index marked for invalidation (flag set)");
     }
 
@@ -472,14 +982,9 @@ public class VideoIndexRepository {
         enrichmentExecutor.submit(() -> {
             try {
                 dao.clearAllVideoDurations();
-                durationCache.clear();
-                // Also wipe the adapter's disk-based duration cache so stale MMR values
-                // already persisted to duration_cache.json are not reloaded on next bind.
-                java.io.File adapterDiskCache = new java.io.File(appContext.getCacheDir(), "duration_cache.json");
-                if (adapterDiskCache.exists()) {
-                    boolean deleted = adapterDiskCache.delete();
-                    FLog.i(TAG, "clearStaleMMRDurationsOnce: duration_cache.json " + (deleted ? "deleted" : "delete failed"));
-                }
+                // The shared store is persistent: clear it too so stale MMR values are
+                // not served on the next bind.
+                durationCache.clearDurations();
                 FLog.i(TAG, "clearStaleMMRDurationsOnce: reset video durations — will be re-probed via FFprobe");
             } catch (Exception e) {
                 FLog.w(TAG, "clearStaleMMRDurationsOnce failed (non-fatal)", e);
@@ -490,7 +995,7 @@ public class VideoIndexRepository {
 
     /**
      * Check whether the index has been marked for invalidation.
-     * Does NOT consume the flag — use getVideos() for that.
+     * Does NOT consume the flag — use syncIndex() for that.
      * Safe to call from any thread.
      */
     public boolean isIndexInvalidated() {
@@ -563,15 +1068,15 @@ public class VideoIndexRepository {
     // ════════════════════════════════════════════════════════════════
 
     /**
-     * Populate the in-memory caches (count + duration map) from a set of entities.
-     * Called after every DB operation that returns a fresh list of entities.
+     * Populate the duration cache from entities just read or written, so the adapter never
+     * has to ask the DB for a duration the row already carried.
      */
-    private void updateInMemoryCaches(@NonNull List<VideoIndexEntity> entities, int itemCount) {
-        cachedCount.set(itemCount);
-        durationCache.clear();
+    private void cacheDurations(@NonNull List<VideoIndexEntity> entities) {
+        // No clear: the store is persistent and unchanged values are not re-journaled;
+        // changed and deleted files were already evicted by the sync that found them
         for (VideoIndexEntity entity : entities) {
             if (entity.durationResolved && entity.durationMs > 0) {
-                durationCache.put(entity.uriString, entity.durationMs);
+                durationCache.putDuration(entity.uriString, entity.durationMs);
             }
         }
     }
@@ -580,28 +1085,9 @@ public class VideoIndexRepository {
     // Duration computation
     // ════════════════════════════════════════════════════════════════
 
-    @NonNull
-    private List<VideoIndexEntity> getUnresolvedDurationItems() {
-        // Query unresolved items directly
-        try {
-            // Use a raw query approach via the DAO
-            List<VideoIndexEntity> all = dao.getAllNewestFirst();
-            List<VideoIndexEntity> unresolved = new ArrayList<>();
-            for (VideoIndexEntity e : all) {
-                if (!e.durationResolved) {
-                    unresolved.add(e);
-                }
-            }
-            return unresolved;
-        } catch (Exception e) {
-            FLog.w(TAG, "Failed to get unresolved items", e);
-            return new ArrayList<>();
-        }
-    }
-
     /**
      * Compute video duration using MediaMetadataRetriever.
-     * This is the safest cross-device method (no FFprobe dependency).
+     * Fallback for files {@link Mp4MetadataProbe} does not understand (not FadCam's fMP4).
      */
     private long computeDuration(@NonNull Uri videoUri) {
         MediaMetadataRetriever retriever = new MediaMetadataRetriever();
@@ -4,10 +4,14 @@ import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.RawQuery;
+import androidx.room.Transaction;
 import androidx.room.Update;
+import androidx.sqlite.db.SupportSQLiteQuery;
 
 import com.fadcam.data.entity.VideoIndexEntity;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -22,37 +26,6 @@ public interface VideoIndexDao {
     // Bulk operations
     // ──────────────────────────────────────────────
 
-    /**
-     * Get all indexed videos, ordered by last_modified descending (newest first).
-     * This is the primary query for the Records tab.
-     */
-    @Query("SELECT * FROM video_index ORDER BY last_modified DESC")
-    List<VideoIndexEntity> getAllNewestFirst();
-
-    /**
-     * Get all indexed videos ordered by last_modified ascending (oldest first).
-     */
-    @Query("SELECT * FROM video_index ORDER BY last_modified ASC")
-    List<VideoIndexEntity> getAllOldestFirst();
-
-    /**
-     * Get all indexed videos ordered by file_size descending.
-     */
-    @Query("SELECT * FROM video_index ORDER BY file_size DESC")
-    List<VideoIndexEntity> getAllLargestFirst();
-
-    /**
-     * Get all indexed videos ordered by file_size ascending.
-     */
-    @Query("SELECT * FROM video_index ORDER BY file_size ASC")
-    List<VideoIndexEntity> getAllSmallestFirst();
-
-    /**
-     * Get all indexed videos ordered by display_name ascending.
-     */
-    @Query("SELECT * FROM video_index ORDER BY display_name ASC")
-    List<VideoIndexEntity> getAllByNameAsc();
-
     /**
      * Get count of all indexed videos.
      */
@@ -106,6 +79,76 @@ public interface VideoIndexDao {
     @Query("SELECT uri_string, last_modified, file_size FROM video_index")
     List<DeltaCheckRow> getDeltaCheckRows();
 
+    /**
+     * Delta-check rows for a batch of URIs (incremental sync). Callers keep batches under
+     * SQLite's bound-variable limit.
+     */
+    @Query("SELECT uri_string, last_modified, file_size FROM video_index WHERE uri_string IN (:uriStrings)")
+    List<DeltaCheckRow> getDeltaCheckRowsByUris(List<String> uriStrings);
+
+    /**
+     * URIs of rows under a folder: {@code [fromInclusive, toExclusive)} is the folder URI plus
+     * "/" and plus "0" (the next character), a range the uri_string index answers directly.
+     */
+    @Query("SELECT uri_string FROM video_index WHERE uri_string >= :fromInclusive AND uri_string < :toExclusive")
+    List<String> getUrisInRange(String fromInclusive, String toExclusive);
+
+    /**
+     * One page of all rows in id order, for passes that must visit every row without holding
+     * the whole index in memory. Start with {@code afterId = 0}.
+     */
+    @Query("SELECT * FROM video_index WHERE id > :afterId ORDER BY id LIMIT :limit")
+    List<VideoIndexEntity> getPageAfterId(long afterId, int limit);
+
+    /**
+     * One page of rows whose classification the Records tab still has to normalise: no or
+     * UNKNOWN category, legacy DUAL, or a category whose subtype is not resolved yet.
+     */
+    @Query("SELECT * FROM video_index WHERE id > :afterId AND (category IS NULL "
+            + "OR category IN ('UNKNOWN', 'DUAL') "
+            + "OR (category = 'CAMERA' AND (camera_subtype IS NULL OR camera_subtype = 'UNKNOWN')) "
+            + "OR (category = 'SHOT' AND (shot_subtype IS NULL OR shot_subtype = 'UNKNOWN')) "
+            + "OR (category = 'FADITOR' AND (faditor_subtype IS NULL OR faditor_subtype = 'UNKNOWN'))) "
+            + "ORDER BY id LIMIT :limit")
+    List<VideoIndexEntity> getUnclassifiedPageAfterId(long afterId, int limit);
+
+    /**
+     * Row count and total size per classification, for the Records tab chips and header
+     * stats. A few dozen groups at most, however large the library.
+     */
+    @Query("SELECT category, media_type, camera_subtype, shot_subtype, faditor_subtype, "
+            + "uri_string LIKE '%QRScanner%' AS qr_scanner, COUNT(*) AS row_count, "
+            + "COALESCE(SUM(file_size), 0) AS total_size FROM video_index "
+            + "GROUP BY category, media_type, camera_subtype, shot_subtype, faditor_subtype, qr_scanner")
+    List<FacetRow> getFacetRows();
+
+    /**
+     * One page of rows whose duration is not resolved yet, newest first. Keyset-paged on
+     * (last_modified, id) so rows resolved while paging never shift later pages.
+     * Start with {@code beforeLastModified = Long.MAX_VALUE}.
+     */
+    @Query("SELECT * FROM video_index WHERE duration_resolved = 0 AND is_temporary = 0 "
+            + "AND (last_modified < :beforeLastModified OR (last_modified = :beforeLastModified AND id < :beforeId)) "
+            + "ORDER BY last_modified DESC, id DESC LIMIT :limit")
+    List<VideoIndexEntity> getUnresolvedDurationPage(long beforeLastModified, long beforeId, int limit);
+
+    // ──────────────────────────────────────────────
+    // Records tab queries (built by RecordsQuery)
+    // ──────────────────────────────────────────────
+
+    /**
+     * One filtered, sorted page of the Records tab. The SQL comes from
+     * {@link com.fadcam.data.RecordsQuery#toPageQuery}.
+     */
+    @RawQuery
+    List<VideoIndexEntity> queryRecordsPage(SupportSQLiteQuery query);
+
+    /**
+     * Row count for a Records tab filter ({@link com.fadcam.data.RecordsQuery#toCountQuery}).
+     */
+    @RawQuery
+    int countRecords(SupportSQLiteQuery query);
+
     /**
      * Lightweight projection for delta scanning.
      */
@@ -115,6 +158,20 @@ public interface VideoIndexDao {
         public long file_size;
     }
 
+    /**
+     * One group of {@link #getFacetRows()}.
+     */
+    class FacetRow {
+        public String category;
+        public String media_type;
+        public String camera_subtype;
+        public String shot_subtype;
+        public String faditor_subtype;
+        public boolean qr_scanner;
+        public int row_count;
+        public long total_size;
+    }
+
     // ──────────────────────────────────────────────
     // Single-item operations
     // ──────────────────────────────────────────────
@@ -125,6 +182,18 @@ public interface VideoIndexDao {
     @Query("SELECT * FROM video_index WHERE uri_string = :uriString LIMIT 1")
     VideoIndexEntity findByUri(String uriString);
 
+    /**
+     * Find videos by URI. Callers keep batches under SQLite's bound-variable limit.
+     */
+    @Query("SELECT * FROM video_index WHERE uri_string IN (:uriStrings)")
+    List<VideoIndexEntity> findByUris(List<String> uriStrings);
+
+    /**
+     * Row id for a URI, or null if it is not indexed.
+     */
+    @Query("SELECT id FROM video_index WHERE uri_string = :uriString LIMIT 1")
+    Long findIdByUri(String uriString);
+
     /**
      * Get the cached duration for a specific URI. Returns null if not found.
      */
@@ -142,17 +211,41 @@ public interface VideoIndexDao {
     // ──────────────────────────────────────────────
 
     /**
-     * Insert or replace a video index entry.
-     * REPLACE strategy: if URI already exists, overwrite with new data.
+     * Insert rows whose URI is not indexed yet. Returns the new row id per entity, or -1
+     * where the URI already exists and the row was left untouched.
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    List<Long> insertIgnoringExisting(List<VideoIndexEntity> entities);
+
+    /**
+     * Update existing rows by id.
      */
-    @Insert(onConflict = OnConflictStrategy.REPLACE)
-    void insertOrReplace(VideoIndexEntity entity);
+    @Update
+    void updateAll(List<VideoIndexEntity> entities);
 
     /**
-     * Bulk insert or replace. Used during initial full scan.
+     * Insert new URIs and overwrite existing ones in one transaction.
+     * <p>
+     * Not {@code REPLACE}: SQLite deletes the conflicting row without firing DELETE triggers
+     * (recursive triggers are off), which would leave its video_index_fts row behind. Existing
+     * rows are updated in place instead, so the FTS sync triggers see every change.
      */
-    @Insert(onConflict = OnConflictStrategy.REPLACE)
-    void insertOrReplaceAll(List<VideoIndexEntity> entities);
+    @Transaction
+    default void upsertAll(List<VideoIndexEntity> entities) {
+        List<Long> ids = insertIgnoringExisting(entities);
+        List<VideoIndexEntity> existing = new ArrayList<>();
+        for (int i = 0; i < entities.size(); i++) {
+            if (ids.get(i) != -1L) continue;
+            VideoIndexEntity entity = entities.get(i);
+            Long id = findIdByUri(entity.uriString);
+            if (id == null) continue;
+            entity.id = id;
+            existing.add(entity);
+        }
+        if (!existing.isEmpty()) {
+            updateAll(existing);
+        }
+    }
 
     /**
      * Update an existing entity (e.g., after computing duration or thumbnail).
@@ -167,6 +260,37 @@ public interface VideoIndexDao {
     @Query("UPDATE video_index SET duration_ms = :durationMs, duration_resolved = 1 WHERE uri_string = :uriString")
     void updateDuration(String uriString, long durationMs);
 
+    /**
+     * Persist a batch of resolved durations in one transaction (one journal commit).
+     */
+    @Transaction
+    default void updateDurations(List<String> uriStrings, long[] durationsMs) {
+        for (int i = 0; i < uriStrings.size(); i++) {
+            updateDuration(uriStrings.get(i), durationsMs[i]);
+        }
+    }
+
+    /**
+     * Persist the Records tab's normalised classification (category inferred from the
+     * path, DUAL folded into CAMERA, subtypes resolved) so DB filters match the UI.
+     */
+    @Query("UPDATE video_index SET category = :category, media_type = :mediaType, "
+            + "shot_subtype = :shotSubtype, camera_subtype = :cameraSubtype, faditor_subtype = :faditorSubtype "
+            + "WHERE uri_string = :uriString")
+    void updateClassification(String uriString, String category, String mediaType,
+                              String shotSubtype, String cameraSubtype, String faditorSubtype);
+
+    /**
+     * Apply a batch of classification updates in one transaction.
+     * Each row is {uri, category, mediaType, shotSubtype, cameraSubtype, faditorSubtype}.
+     */
+    @Transaction
+    default void updateClassifications(List<String[]> rows) {
+        for (String[] row : rows) {
+            updateClassification(row[0], row[1], row[2], row[3], row[4], row[5]);
+        }
+    }
+
     /**
      * Update only the thumbnail path for a specific URI.
      * Called after background thumbnail extraction finishes.
@@ -190,6 +314,21 @@ public interface VideoIndexDao {
     @Query("DELETE FROM video_index WHERE uri_string IN (:uriStrings)")
     void deleteByUris(List<String> uriStrings);
 
+    /**
+     * Apply one sync's changes in a single transaction: one journal commit instead of one
+     * per statement, and readers never see a half-applied delta. Deletes are issued in
+     * batches of {@code deleteBatchSize} to stay under SQLite's bound-variable limit.
+     */
+    @Transaction
+    default void applyDelta(List<VideoIndexEntity> upserts, List<String> deletes, int deleteBatchSize) {
+        for (int i = 0; i < deletes.size(); i += deleteBatchSize) {
+            deleteByUris(deletes.subList(i, Math.min(deletes.size(), i + deleteBatchSize)));
+        }
+        if (!upserts.isEmpty()) {
+            upsertAll(upserts);
+        }
+    }
+
     /**
      * Delete all entries. Used for full re-index.
      */
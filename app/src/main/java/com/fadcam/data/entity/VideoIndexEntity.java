@@ -17,7 +17,10 @@ import androidx.room.PrimaryKey;
     indices = {
         @Index(value = "uri_string", unique = true),
         @Index(value = "category"),
-        @Index(value = "last_modified")
+        @Index(value = "last_modified"),
+        // Records tab filter + sort: category chip with newest/oldest order, and size sorts
+        @Index(value = {"category", "last_modified"}),
+        @Index(value = "file_size")
     }
 )
 public class VideoIndexEntity {
@@ -0,0 +1,18 @@
+package com.fadcam.data.entity;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+
+/**
+ * FTS4 index over {@link VideoIndexEntity#displayName} for Records tab name search.
+ * External-content table: Room keeps it in sync with video_index through triggers,
+ * and each row's docid is the matching video_index id.
+ */
+@Fts4(contentEntity = VideoIndexEntity.class)
+@Entity(tableName = "video_index_fts")
+public class VideoIndexFtsEntity {
+
+    @ColumnInfo(name = "display_name")
+    public String displayName;
+}
@@ -25,7 +25,7 @@ import com.fadcam.forensics.data.local.entity.SyncQueueEntity;
         IntegrityLinkLogEntity.class,
         SyncQueueEntity.class
     },
-    version = 5,
+    version = 6,
     exportSchema = false
 )
 public abstract class ForensicsDatabase extends RoomDatabase {
@@ -33,6 +33,16 @@ public abstract class ForensicsDatabase extends RoomDatabase {
     private static final String DB_NAME = "digital_forensics.db";
     private static volatile ForensicsDatabase instance;
 
+    /** Migration 5→6: source mtime for skipping unchanged files, and the candidate-match index. */
+    public static final androidx.room.migration.Migration MIGRATION_5_6 = new androidx.room.migration.Migration(5, 6) {
+        @Override
+        public void migrate(androidx.sqlite.db.SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE media_asset ADD COLUMN source_last_modified INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_media_asset_size_bytes_duration_ms` "
+                    + "ON `media_asset` (`size_bytes`, `duration_ms`)");
+        }
+    };
+
     public abstract MediaAssetDao mediaAssetDao();
 
     public abstract AiEventDao aiEventDao();
@@ -52,6 +62,7 @@ public abstract class ForensicsDatabase extends RoomDatabase {
                             ForensicsDatabase.class,
                             DB_NAME
                         )
+                        .addMigrations(MIGRATION_5_6)
                         .fallbackToDestructiveMigration()
                         .build();
                 }
@@ -6,9 +6,14 @@ import androidx.room.OnConflictStrategy;
 
 import com.fadcam.forensics.data.local.entity.IntegrityLinkLogEntity;
 
+import java.util.List;
+
 @Dao
 public interface IntegrityLinkLogDao {
 
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     void upsert(IntegrityLinkLogEntity entity);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertAll(List<IntegrityLinkLogEntity> entities);
 }
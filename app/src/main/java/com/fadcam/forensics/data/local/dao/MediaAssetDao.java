@@ -25,18 +25,19 @@ public interface MediaAssetDao {
     @Query("SELECT * FROM media_asset WHERE media_uid = :mediaUid LIMIT 1")
     MediaAssetEntity findByMediaUid(String mediaUid);
 
-    @Query("SELECT * FROM media_asset WHERE size_bytes BETWEEN :minSize AND :maxSize AND duration_ms BETWEEN :minDurationMs AND :maxDurationMs ORDER BY last_seen_at DESC LIMIT 200")
-    List<MediaAssetEntity> findProbableCandidates(long minSize, long maxSize, long minDurationMs, long maxDurationMs);
-
-    @Query("UPDATE media_asset SET current_uri = :currentUri, display_name = :displayName, size_bytes = :sizeBytes, duration_ms = :durationMs, codec_info = :codecInfo, last_seen_at = :lastSeenAt, link_status = :linkStatus WHERE media_uid = :mediaUid")
-    void updateLinkAndMetadata(
-        String mediaUid,
-        String currentUri,
-        String displayName,
-        long sizeBytes,
-        long durationMs,
-        String codecInfo,
-        long lastSeenAt,
-        String linkStatus
-    );
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertIgnoreAll(List<MediaAssetEntity> entities);
+
+    @Update
+    int updateAll(List<MediaAssetEntity> entities);
+
+    @Query("SELECT * FROM media_asset WHERE current_uri IN (:currentUris)")
+    List<MediaAssetEntity> findByCurrentUris(List<String> currentUris);
+
+    /** Probable-match candidates for a whole batch of videos; served by the (size_bytes, duration_ms) index. */
+    @Query("SELECT * FROM media_asset WHERE size_bytes BETWEEN :minSize AND :maxSize AND duration_ms BETWEEN :minDurationMs AND :maxDurationMs ORDER BY last_seen_at DESC")
+    List<MediaAssetEntity> findCandidatesInRange(long minSize, long maxSize, long minDurationMs, long maxDurationMs);
+
+    @Query("UPDATE media_asset SET last_seen_at = :lastSeenAt WHERE media_uid IN (:mediaUids)")
+    void touchLastSeen(List<String> mediaUids, long lastSeenAt);
 }
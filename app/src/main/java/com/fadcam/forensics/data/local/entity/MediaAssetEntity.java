@@ -11,7 +11,9 @@ import androidx.room.PrimaryKey;
     indices = {
         @Index(value = {"current_uri"}),
         @Index(value = {"exact_fingerprint"}),
-        @Index(value = {"visual_fingerprint"})
+        @Index(value = {"visual_fingerprint"}),
+        // Probable-match candidate lookup: range on size, then on duration
+        @Index(value = {"size_bytes", "duration_ms"})
     }
 )
 public class MediaAssetEntity {
@@ -54,4 +56,8 @@ public class MediaAssetEntity {
 
     @ColumnInfo(name = "link_status")
     public String linkStatus;
+
+    /** lastModified of the file at {@link #currentUri} when last indexed; with size, detects unchanged files. */
+    @ColumnInfo(name = "source_last_modified", defaultValue = "0")
+    public long sourceLastModified;
 }
@@ -4,37 +4,44 @@ import android.content.Context;
 import android.media.MediaMetadataRetriever;
 import android.net.Uri;
 
+import com.fadcam.playback.Mp4MetadataProbe;
+
 public final class ForensicsMetadataUtils {
 
     private ForensicsMetadataUtils() {
     }
 
-    public static long extractDurationMs(Context context, Uri uri) {
-        String durationRaw = extractMetadata(context, uri, MediaMetadataRetriever.METADATA_KEY_DURATION);
-        if (durationRaw == null) {
-            return 0L;
-        }
-        try {
-            return Long.parseLong(durationRaw);
-        } catch (NumberFormatException ignored) {
-            return 0L;
-        }
-    }
+    /** Duration + container MIME of one media file, read in a single pass. */
+    public static final class MediaMetadata {
+        public final long durationMs;
+        public final String codecInfo;
 
-    public static String extractCodecInfo(Context context, Uri uri) {
-        return extractMetadata(context, uri, MediaMetadataRetriever.METADATA_KEY_MIMETYPE);
+        MediaMetadata(long durationMs, String codecInfo) {
+            this.durationMs = durationMs;
+            this.codecInfo = codecInfo;
+        }
     }
 
-    private static String extractMetadata(Context context, Uri uri, int key) {
+    /**
+     * Reads duration and MIME type together: header-only MP4 probe first, one
+     * MediaMetadataRetriever session only for files the probe does not understand.
+     */
+    public static MediaMetadata extract(Context context, Uri uri) {
         if (context == null || uri == null) {
-            return null;
+            return new MediaMetadata(0L, null);
+        }
+        Mp4MetadataProbe.Result probed = Mp4MetadataProbe.probe(context, uri);
+        if (probed != null && probed.durationMs > 0L) {
+            return new MediaMetadata(probed.durationMs, probed.mimeType);
         }
         MediaMetadataRetriever retriever = new MediaMetadataRetriever();
         try {
             retriever.setDataSource(context, uri);
-            return retriever.extractMetadata(key);
+            return new MediaMetadata(
+                    parseLong(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_DURATION)),
+                    retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_MIMETYPE));
         } catch (Exception ignored) {
-            return null;
+            return new MediaMetadata(0L, null);
         } finally {
             try {
                 retriever.release();
@@ -42,4 +49,23 @@ public final class ForensicsMetadataUtils {
             }
         }
     }
+
+    public static long extractDurationMs(Context context, Uri uri) {
+        return extract(context, uri).durationMs;
+    }
+
+    public static String extractCodecInfo(Context context, Uri uri) {
+        return extract(context, uri).codecInfo;
+    }
+
+    private static long parseLong(String raw) {
+        if (raw == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(raw);
+        } catch (NumberFormatException ignored) {
+            return 0L;
+        }
+    }
 }
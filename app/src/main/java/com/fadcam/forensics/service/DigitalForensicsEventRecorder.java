@@ -765,11 +765,15 @@ public class DigitalForensicsEventRecorder {
     private void enrichAssetMetadata(MediaAssetEntity asset, String mediaUri) {
         try {
             Uri uri = Uri.parse(mediaUri);
-            if (asset.durationMs <= 0L) {
-                asset.durationMs = ForensicsMetadataUtils.extractDurationMs(appContext, uri);
-            }
-            if (asset.codecInfo == null || asset.codecInfo.isEmpty()) {
-                asset.codecInfo = ForensicsMetadataUtils.extractCodecInfo(appContext, uri);
+            boolean needsCodec = asset.codecInfo == null || asset.codecInfo.isEmpty();
+            if (asset.durationMs <= 0L || needsCodec) {
+                ForensicsMetadataUtils.MediaMetadata metadata = ForensicsMetadataUtils.extract(appContext, uri);
+                if (asset.durationMs <= 0L) {
+                    asset.durationMs = metadata.durationMs;
+                }
+                if (needsCodec) {
+                    asset.codecInfo = metadata.codecInfo;
+                }
             }
             if (asset.sizeBytes <= 0L) {
                 long size = extractSizeBytes(uri);
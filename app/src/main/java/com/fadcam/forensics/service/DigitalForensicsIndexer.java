@@ -13,24 +13,54 @@ import com.fadcam.forensics.data.local.entity.MediaAssetEntity;
 import com.fadcam.forensics.domain.fingerprint.ForensicsMetadataUtils;
 import com.fadcam.ui.VideoItem;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
+/**
+ * Links Records videos to their forensic media assets, following files across moves and
+ * renames.
+ * <p>
+ * Architecture (per batch of {@value #BATCH_SIZE} videos):
+ * <ul>
+ *   <li>One IN query loads the assets already at the batch's URIs. An asset whose size and
+ *   source mtime still match is unchanged: it only has last_seen_at bumped, and its file is
+ *   never opened.</li>
+ *   <li>Changed and new videos get their metadata read once each.</li>
+ *   <li>A new URI may be a moved file: probable candidates for the whole batch are fetched
+ *   up front (overlapping size windows merged, one range query each on the
+ *   (size_bytes, duration_ms) index) and scored in memory.</li>
+ *   <li>Inserts, updates, link logs and last-seen bumps commit in one transaction.</li>
+ * </ul>
+ */
 public class DigitalForensicsIndexer {
 
     private static final String TAG = "DigitalForensicsIndexer";
 
+    // Bounded by SQLite's 999 bound-variable limit for the IN queries
+    private static final int BATCH_SIZE = 200;
+    private static final long SIZE_TOLERANCE_BYTES = 1_500_000L;
+    private static final long DURATION_TOLERANCE_MS = 2_500L;
+    private static final float PROBABLE_MATCH_SCORE = 0.92f;
+
     private final Context appContext;
     private final SharedPreferencesManager prefs;
+    private final ForensicsDatabase database;
     private final MediaAssetDao mediaAssetDao;
     private final IntegrityLinkLogDao linkLogDao;
 
     public DigitalForensicsIndexer(Context context) {
         this.appContext = context.getApplicationContext();
         this.prefs = SharedPreferencesManager.getInstance(appContext);
-        ForensicsDatabase db = ForensicsDatabase.getInstance(appContext);
-        this.mediaAssetDao = db.mediaAssetDao();
-        this.linkLogDao = db.integrityLinkLogDao();
+        this.database = ForensicsDatabase.getInstance(appContext);
+        this.mediaAssetDao = database.mediaAssetDao();
+        this.linkLogDao = database.integrityLinkLogDao();
     }
 
     public void index(List<VideoItem> videoItems) {
@@ -38,93 +68,188 @@ public class DigitalForensicsIndexer {
             return;
         }
 
-        long now = System.currentTimeMillis();
+        List<VideoItem> videos = new ArrayList<>(videoItems.size());
+        Set<String> seenUris = new HashSet<>();
         for (VideoItem item : videoItems) {
             if (item == null || item.uri == null || item.mediaType != VideoItem.MediaType.VIDEO) {
                 continue;
             }
+            if (seenUris.add(item.uri.toString())) {
+                videos.add(item);
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        for (int start = 0; start < videos.size(); start += BATCH_SIZE) {
+            List<VideoItem> batch = videos.subList(start, Math.min(videos.size(), start + BATCH_SIZE));
             try {
-                processVideoItem(item, now);
+                indexBatch(batch, now);
             } catch (Exception e) {
-                FLog.w(TAG, "Skipping item after index failure: " + item.uri, e);
+                FLog.w(TAG, "Skipping batch of " + batch.size() + " after index failure", e);
             }
         }
     }
 
-    private void processVideoItem(VideoItem item, long now) {
-        String uriString = item.uri.toString();
-        MediaAssetEntity existingByUri = mediaAssetDao.findByCurrentUri(uriString);
-
-        long durationMs = ForensicsMetadataUtils.extractDurationMs(appContext, item.uri);
-        String codecInfo = ForensicsMetadataUtils.extractCodecInfo(appContext, item.uri);
-
-        if (existingByUri != null) {
-            mediaAssetDao.updateLinkAndMetadata(
-                existingByUri.mediaUid,
-                uriString,
-                item.displayName,
-                item.size,
-                durationMs,
-                codecInfo,
-                now,
-                existingByUri.linkStatus == null ? "EXACT" : existingByUri.linkStatus
-            );
-            return;
+    /** A video with no asset at its URI yet, waiting to be matched or inserted. */
+    private static final class UnlinkedVideo {
+        final VideoItem item;
+        final ForensicsMetadataUtils.MediaMetadata metadata;
+
+        UnlinkedVideo(VideoItem item, ForensicsMetadataUtils.MediaMetadata metadata) {
+            this.item = item;
+            this.metadata = metadata;
         }
+    }
 
-        MediaAssetEntity match = findProbableMatch(item, durationMs);
-        if (match != null) {
-            mediaAssetDao.updateLinkAndMetadata(
-                match.mediaUid,
-                uriString,
-                item.displayName,
-                item.size,
-                durationMs,
-                codecInfo,
-                now,
-                "PROBABLE"
-            );
-            logLink(match.mediaUid, "LINKED_PROBABLE", 0.90f, now);
-            return;
+    private void indexBatch(List<VideoItem> batch, long now) {
+        List<String> uris = new ArrayList<>(batch.size());
+        for (VideoItem item : batch) {
+            uris.add(item.uri.toString());
+        }
+        Map<String, MediaAssetEntity> assetsByUri = new HashMap<>();
+        for (MediaAssetEntity asset : mediaAssetDao.findByCurrentUris(uris)) {
+            assetsByUri.putIfAbsent(asset.currentUri, asset);
+        }
+
+        List<String> unchanged = new ArrayList<>();
+        List<MediaAssetEntity> updates = new ArrayList<>();
+        List<MediaAssetEntity> inserts = new ArrayList<>();
+        List<IntegrityLinkLogEntity> linkLogs = new ArrayList<>();
+        List<UnlinkedVideo> unlinked = new ArrayList<>();
+        // Assets already spoken for in this batch; a candidate is never linked twice
+        Set<String> claimed = new HashSet<>();
+
+        for (VideoItem item : batch) {
+            MediaAssetEntity existing = assetsByUri.get(item.uri.toString());
+            if (existing != null) {
+                claimed.add(existing.mediaUid);
+                if (existing.sizeBytes == item.size && existing.sourceLastModified == item.lastModified) {
+                    unchanged.add(existing.mediaUid);
+                    continue;
+                }
+            }
+            ForensicsMetadataUtils.MediaMetadata metadata = ForensicsMetadataUtils.extract(appContext, item.uri);
+            if (existing != null) {
+                applyVideo(existing, item, metadata, now, existing.linkStatus == null ? "EXACT" : existing.linkStatus);
+                updates.add(existing);
+            } else {
+                unlinked.add(new UnlinkedVideo(item, metadata));
+            }
+        }
+
+        if (!unlinked.isEmpty()) {
+            List<MediaAssetEntity> candidates = prefetchCandidates(unlinked);
+            for (UnlinkedVideo video : unlinked) {
+                MediaAssetEntity match = findProbableMatch(video, candidates, claimed);
+                if (match != null) {
+                    claimed.add(match.mediaUid);
+                    applyVideo(match, video.item, video.metadata, now, "PROBABLE");
+                    updates.add(match);
+                    linkLogs.add(linkLog(match.mediaUid, "LINKED_PROBABLE", 0.90f, now));
+                } else {
+                    inserts.add(newAsset(video, now));
+                }
+            }
         }
 
+        database.runInTransaction(() -> {
+            if (!unchanged.isEmpty()) mediaAssetDao.touchLastSeen(unchanged, now);
+            if (!updates.isEmpty()) mediaAssetDao.updateAll(updates);
+            if (!inserts.isEmpty()) mediaAssetDao.insertIgnoreAll(inserts);
+            if (!linkLogs.isEmpty()) linkLogDao.upsertAll(linkLogs);
+        });
+        FLog.d(TAG, "Indexed batch: " + unchanged.size() + " unchanged, " + (updates.size() - linkLogs.size())
+                + " updated, " + linkLogs.size() + " relinked, " + inserts.size() + " new");
+    }
+
+    private void applyVideo(MediaAssetEntity asset, VideoItem item, ForensicsMetadataUtils.MediaMetadata metadata,
+                            long now, String linkStatus) {
+        asset.currentUri = item.uri.toString();
+        asset.displayName = item.displayName;
+        asset.sizeBytes = item.size;
+        asset.durationMs = metadata.durationMs;
+        asset.codecInfo = metadata.codecInfo;
+        asset.lastSeenAt = now;
+        asset.linkStatus = linkStatus;
+        asset.sourceLastModified = item.lastModified;
+    }
+
+    private MediaAssetEntity newAsset(UnlinkedVideo video, long now) {
+        VideoItem item = video.item;
         MediaAssetEntity fresh = new MediaAssetEntity();
         fresh.mediaUid = UUID.randomUUID().toString();
-        fresh.currentUri = uriString;
+        fresh.currentUri = item.uri.toString();
         fresh.displayName = item.displayName;
         fresh.categorySubtype = item.category + "/" + item.cameraSubtype;
         fresh.sizeBytes = item.size;
-        fresh.durationMs = durationMs;
-        fresh.codecInfo = codecInfo;
+        fresh.durationMs = video.metadata.durationMs;
+        fresh.codecInfo = video.metadata.codecInfo;
         fresh.exactFingerprint = null;
         fresh.visualFingerprint = null;
         fresh.firstSeenAt = now;
         fresh.lastSeenAt = now;
         fresh.linkStatus = "NEW";
-        mediaAssetDao.insertIgnore(fresh);
+        fresh.sourceLastModified = item.lastModified;
+        return fresh;
     }
 
-    private MediaAssetEntity findProbableMatch(VideoItem item, long durationMs) {
-        long sizeTolerance = 1_500_000L;
-        long durationToleranceMs = 2_500L;
-        long minSize = Math.max(0L, item.size - sizeTolerance);
-        long maxSize = item.size + sizeTolerance;
-        long minDuration = Math.max(0L, durationMs - durationToleranceMs);
-        long maxDuration = durationMs + durationToleranceMs;
-        List<MediaAssetEntity> candidates = mediaAssetDao.findProbableCandidates(minSize, maxSize, minDuration, maxDuration);
+    /**
+     * Candidates for every unlinked video in one pass: videos sorted by size, overlapping
+     * size windows merged, one range query per merged window. Newest last_seen_at first,
+     * so ties go to the most recently seen asset.
+     */
+    private List<MediaAssetEntity> prefetchCandidates(List<UnlinkedVideo> unlinked) {
+        List<UnlinkedVideo> bySize = new ArrayList<>(unlinked);
+        bySize.sort(Comparator.comparingLong(video -> video.item.size));
+        Map<String, MediaAssetEntity> candidates = new LinkedHashMap<>();
+        int i = 0;
+        while (i < bySize.size()) {
+            UnlinkedVideo first = bySize.get(i++);
+            long minSize = Math.max(0L, first.item.size - SIZE_TOLERANCE_BYTES);
+            long maxSize = first.item.size + SIZE_TOLERANCE_BYTES;
+            long minDuration = Math.max(0L, first.metadata.durationMs - DURATION_TOLERANCE_MS);
+            long maxDuration = first.metadata.durationMs + DURATION_TOLERANCE_MS;
+            while (i < bySize.size() && bySize.get(i).item.size - SIZE_TOLERANCE_BYTES <= maxSize) {
+                UnlinkedVideo next = bySize.get(i++);
+                maxSize = next.item.size + SIZE_TOLERANCE_BYTES;
+                minDuration = Math.min(minDuration, Math.max(0L, next.metadata.durationMs - DURATION_TOLERANCE_MS));
+                maxDuration = Math.max(maxDuration, next.metadata.durationMs + DURATION_TOLERANCE_MS);
+            }
+            for (MediaAssetEntity candidate : mediaAssetDao.findCandidatesInRange(minSize, maxSize, minDuration, maxDuration)) {
+                candidates.putIfAbsent(candidate.mediaUid, candidate);
+            }
+        }
+        List<MediaAssetEntity> ordered = new ArrayList<>(candidates.values());
+        ordered.sort((a, b) -> Long.compare(b.lastSeenAt, a.lastSeenAt));
+        return ordered;
+    }
+
+    private MediaAssetEntity findProbableMatch(UnlinkedVideo video, List<MediaAssetEntity> candidates,
+                                               Set<String> claimed) {
+        long size = video.item.size;
+        long durationMs = video.metadata.durationMs;
+        long minSize = Math.max(0L, size - SIZE_TOLERANCE_BYTES);
+        long maxSize = size + SIZE_TOLERANCE_BYTES;
+        long minDuration = Math.max(0L, durationMs - DURATION_TOLERANCE_MS);
+        long maxDuration = durationMs + DURATION_TOLERANCE_MS;
         MediaAssetEntity best = null;
         float bestScore = 0f;
         for (MediaAssetEntity candidate : candidates) {
-            float sizeScore = ratioScore(item.size, candidate.sizeBytes);
+            if (candidate.sizeBytes < minSize || candidate.sizeBytes > maxSize
+                    || candidate.durationMs < minDuration || candidate.durationMs > maxDuration
+                    || claimed.contains(candidate.mediaUid)) {
+                continue;
+            }
+            float sizeScore = ratioScore(size, candidate.sizeBytes);
             float durationScore = ratioScore(durationMs, candidate.durationMs);
-            float nameScore = displayNameScore(item.displayName, candidate.displayName);
+            float nameScore = displayNameScore(video.item.displayName, candidate.displayName);
             float score = (sizeScore * 0.45f) + (durationScore * 0.45f) + (nameScore * 0.10f);
             if (score > bestScore) {
                 bestScore = score;
                 best = candidate;
             }
         }
-        return bestScore >= 0.92f ? best : null;
+        return bestScore >= PROBABLE_MATCH_SCORE ? best : null;
     }
 
     private float ratioScore(long a, long b) {
@@ -139,13 +264,13 @@ public class DigitalForensicsIndexer {
         return current.equalsIgnoreCase(candidate) ? 1f : 0f;
     }
 
-    private void logLink(String mediaUid, String action, float score, long now) {
+    private IntegrityLinkLogEntity linkLog(String mediaUid, String action, float score, long now) {
         IntegrityLinkLogEntity log = new IntegrityLinkLogEntity();
         log.logUid = UUID.randomUUID().toString();
         log.mediaUid = mediaUid;
         log.action = action;
         log.score = score;
         log.timestamp = now;
-        linkLogDao.upsert(log);
+        return log;
     }
 }
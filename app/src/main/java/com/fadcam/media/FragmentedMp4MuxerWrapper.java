@@ -16,6 +16,7 @@ import androidx.media3.muxer.FragmentedMp4Muxer;
 import androidx.media3.muxer.MuxerException;
 import androidx.media3.muxer.ProcessedSegment;
 
+import com.fadcam.playback.FragmentIndexSidecar;
 import com.fadcam.streaming.RemoteStreamManager;
 
 import java.io.FileDescriptor;
@@ -34,6 +35,7 @@ import java.util.List;
 public class FragmentedMp4MuxerWrapper {
 
     private static final String TAG = "FragmentedMp4MuxerWrap";
+    private static final long FRAGMENT_DURATION_MS = 2000;
 
     private final FragmentedMp4Muxer muxer;
     // Non-final: hot-swapped to a fresh stream if the FUSE fd dies mid-recording (#332).
@@ -94,6 +96,12 @@ public class FragmentedMp4MuxerWrapper {
     private final java.util.List<Integer> fragmentVideoCounts = new java.util.ArrayList<>();
     private final java.util.List<Integer> fragmentAudioOffsets = new java.util.ArrayList<>();
     private final java.util.List<Integer> fragmentVideoOffsets = new java.util.ArrayList<>();
+    private final int[] finalizationRuns = new int[4]; // scratch for MoofRunParser.parse
+
+    // Seek index sidecar, appended per fragment so playback never has to scan the file.
+    // Writer thread only (under ioLock); dropped for good after the first failure.
+    private FragmentIndexSidecar.Writer seekIndexWriter;
+    private boolean seekIndexDisabled = false;
 
     /** Last hybrid-finalization outcome (also reported via ungated critical log). */
     private String lastFinalizeOutcome = "never ran";
@@ -101,6 +109,16 @@ public class FragmentedMp4MuxerWrapper {
     /** Bounded AVC corruption tracing (first fragment only, non-flooding). */
     private boolean firstMediaFragmentLogged = false;
 
+    // Reused for every media fragment written to disk (writer thread only, under ioLock).
+    // A fresh multi-hundred-KB byte[] per fragment was the main GC source while recording.
+    private byte[] segmentScratch = new byte[0];
+
+    // LL-HLS: parts cut from the same samples, only while low-latency streaming is on.
+    // Created on the encoder thread, read by the writer thread (builder methods are synchronized).
+    private volatile FragmentedMp4PartBuilder partBuilder;
+    private volatile byte[] liveInitSegment;
+    private boolean anySampleWritten = false;
+
     /**
      * Creates a FragmentedMp4MuxerWrapper with a file path.
      *
@@ -123,7 +141,7 @@ public class FragmentedMp4MuxerWrapper {
         // 4. NEW: Callback-based architecture for real-time streaming
         // 5. 2-second segments reduce upload frequency by 50%, improving stability on slow networks
         this.muxer = new FragmentedMp4Muxer.Builder(segmentConsumer)
-                .setFragmentDurationMs(2000) // 2 seconds per fragment for stable streaming
+                .setFragmentDurationMs(FRAGMENT_DURATION_MS) // 2 seconds per fragment for stable streaming
                 .build();
     }
 
@@ -150,7 +168,7 @@ public class FragmentedMp4MuxerWrapper {
         // NEW: Callback-based architecture for real-time streaming
         // 2-second segments reduce upload frequency by 50%, improving stability on slow networks
         this.muxer = new FragmentedMp4Muxer.Builder(segmentConsumer)
-                .setFragmentDurationMs(2000) // 2 seconds per fragment for stable streaming
+                .setFragmentDurationMs(FRAGMENT_DURATION_MS) // 2 seconds per fragment for stable streaming
                 .build();
     }
 
@@ -349,6 +367,10 @@ public class FragmentedMp4MuxerWrapper {
             }
             // Else: buffer is already correctly positioned by caller, use as-is
 
+            // LL-HLS parts copy the sample first; the muxer input is untouched
+            feedPartBuilder(trackIndex, data, normalizedPresentationTimeUs, isKeyFrame);
+            anySampleWritten = true;
+
             muxer.writeSampleData(trackIndex, data, media3BufferInfo);
             } catch (MuxerException e) {
                 FLog.e(TAG, "Failed to write sample data", e);
@@ -357,6 +379,39 @@ public class FragmentedMp4MuxerWrapper {
         }
     }
 
+    /**
+     * Feeds LL-HLS part builder (encoder thread, under muxerLock). The builder only exists while
+     * low-latency streaming is on; dropping it loses sync, so a new one re-syncs at the next
+     * segment boundary.
+     */
+    private void feedPartBuilder(int trackIndex, ByteBuffer data, long ptsUs, boolean isKeyFrame) {
+        if (!streamManagerChecked && cachedStreamManager == null) {
+            cachedStreamManager = RemoteStreamManager.getInstance();
+            streamManagerChecked = true;
+        }
+        RemoteStreamManager manager = cachedStreamManager;
+        boolean wanted = manager != null && videoTrackIndex >= 0
+            && manager.isStreamingEnabled() && manager.isLowLatencyHlsEnabled();
+        FragmentedMp4PartBuilder builder = partBuilder;
+        if (!wanted) {
+            partBuilder = null;
+            return;
+        }
+        if (builder == null) {
+            builder = new FragmentedMp4PartBuilder(trackCount, videoTrackIndex, FRAGMENT_DURATION_MS,
+                RemoteStreamManager.PART_TARGET_MS, !anySampleWritten);
+            byte[] init = liveInitSegment;
+            if (init != null) {
+                builder.configure(init);
+            }
+            partBuilder = builder;
+        }
+        FragmentedMp4PartBuilder.Part part = builder.addSample(trackIndex, data, ptsUs, isKeyFrame);
+        if (part != null) {
+            manager.onPartComplete(part.msn, part.index, part.payload, part.durationUs, part.independent);
+        }
+    }
+
     /**
      * Stops the muxer and finalizes the output file.
      * Writes end-of-stream samples to ensure proper duration calculation.
@@ -383,6 +438,7 @@ public class FragmentedMp4MuxerWrapper {
                     FLog.e(TAG, "Error closing media3 muxer — proceeding with hybrid finalization attempt", e);
                 }
                 performHybridFinalization();
+                finishSeekIndex(lastFinalizeOutcome.startsWith("OK"));
                 started = false;
                 FLog.d(TAG, "Muxer stopped successfully");
                 FLog.d(TAG, "Recording telemetry: fragments=" + fragmentPositions.size()
@@ -422,6 +478,7 @@ public class FragmentedMp4MuxerWrapper {
                 // Under ioLock: waits for any in-flight writer-thread callback to finish its write,
                 // then closes — no write can ever hit an invalid fd.
                 synchronized (ioLock) {
+                    finishSeekIndex(false);
                     try {
                         fileOutputStream.flush();
                         FLog.d(TAG, "FileOutputStream flushed successfully");
@@ -729,56 +786,19 @@ public class FragmentedMp4MuxerWrapper {
      * moof box, needed to build stco/stsc entries in the final moov.
      */
     private void parseFragmentForFinalization(byte[] data) {
-        try {
-            int moofSize = readIntBE(data, 0);
-            int audioCnt = 0, videoCnt = 0, audioOff = 0, videoOff = 0;
-            int pos = 8;
-            int mfhdSz = readIntBE(data, pos);
-            if (mfhdSz < 12) return;
-            pos += mfhdSz;
-            while (pos + 8 <= moofSize) {
-                int s = readIntBE(data, pos), t = readIntBE(data, pos + 4);
-                if (s < 8 || pos + s > moofSize) break;
-                if (t == 0x74726166) { // 'traf'
-                    int[] r = findTrun(data, pos + 8, s - 8);
-                    if (r != null) {
-                        int mp4TrackId = r[0];
-                        int videoMp4Id = videoTrackIndex >= 0 ? videoTrackIndex + 1 : -1;
-                        int audioMp4Id = audioTrackIndex >= 0 ? audioTrackIndex + 1 : -1;
-                        if (mp4TrackId == videoMp4Id) {
-                            videoCnt = r[1]; videoOff = r[2];
-                        } else if (mp4TrackId == audioMp4Id) {
-                            audioCnt = r[1]; audioOff = r[2];
-                        }
-                    }
-                }
-                pos += s;
-            }
-            fragmentAudioCounts.add(audioCnt);
-            fragmentVideoCounts.add(videoCnt);
-            fragmentAudioOffsets.add(audioOff);
-            fragmentVideoOffsets.add(videoOff);
-        } catch (Exception ignore) {}
+        int videoMp4Id = videoTrackIndex >= 0 ? videoTrackIndex + 1 : -1;
+        int audioMp4Id = audioTrackIndex >= 0 ? audioTrackIndex + 1 : -1;
+        if (!MoofRunParser.parse(data, videoMp4Id, audioMp4Id, finalizationRuns)) return;
+        fragmentAudioCounts.add(finalizationRuns[MoofRunParser.AUDIO_COUNT]);
+        fragmentVideoCounts.add(finalizationRuns[MoofRunParser.VIDEO_COUNT]);
+        fragmentAudioOffsets.add(finalizationRuns[MoofRunParser.AUDIO_OFFSET]);
+        fragmentVideoOffsets.add(finalizationRuns[MoofRunParser.VIDEO_OFFSET]);
     }
 
     private static int readIntBE(byte[] d, int off) {
         return ((d[off]&0xFF)<<24)|((d[off+1]&0xFF)<<16)|((d[off+2]&0xFF)<<8)|(d[off+3]&0xFF);
     }
 
-    private static int[] findTrun(byte[] d, int start, int len) {
-        int pos = start, tid = 0;
-        while (pos + 8 <= start + len) {
-            int s = readIntBE(d, pos), t = readIntBE(d, pos + 4);
-            if (s < 8 || pos + s > start + len) break;
-            if (t == 0x74666864) tid = readIntBE(d, pos + 12);      // 'tfhd' → track_ID (after version/flags)
-            else if (t == 0x7472756E)                                 // 'trun'
-                return new int[]{tid, readIntBE(d, pos + 12),         // sample_count
-                                       readIntBE(d, pos + 16)};      // data_offset
-            pos += s;
-        }
-        return null;
-    }
-
     /**
      * Hybrid MP4 finalization: appends a complete moov box with sample
      * tables at the end of the file and overwrites the free placeholder
@@ -1115,9 +1135,7 @@ public class FragmentedMp4MuxerWrapper {
             if (payload.limit() == payload.capacity() && payload.position() != 0) {
                 payload.flip();
             }
-
-            byte[] data = new byte[payload.remaining()];
-            payload.get(data);
+            int length = payload.remaining();
             
             // Lazy-init cached streaming state.  Callback runs on the library's
             // writer thread — never block it with heavy init.
@@ -1136,15 +1154,24 @@ public class FragmentedMp4MuxerWrapper {
                 // Initialization segment (ftyp + moov)
                 // SEGMENT init log removed
                 
+                // Init segment is tiny and retained for the mvhd patch — keep its own array
+                byte[] data = new byte[length];
+                payload.duplicate().get(data);
+
                 // Send to RemoteStreamManager for HLS streaming ONLY when active
                 if (serverActive && cachedStreamManager != null) {
                     cachedStreamManager.onInitializationSegment(data);
                 }
                 initSegmentSent = true;
+                liveInitSegment = data;
+                FragmentedMp4PartBuilder builder = partBuilder;
+                if (builder != null) {
+                    builder.configure(data);
+                }
                 
                 // Write to file — no per-fragment fsync; periodic flush handles durability.
                 if (shouldSaveToDisk && fileOutputStream != null) {
-                    writeSegmentWithRecovery(data, true);
+                    writeSegmentWithRecovery(data, data.length, true, 0);
                 }
             } else {
                 // Media fragment (moof + mdat)
@@ -1154,7 +1181,13 @@ public class FragmentedMp4MuxerWrapper {
                 // Send to RemoteStreamManager for HLS streaming ONLY when active
                 if (serverActive && cachedStreamManager != null) {
                     if (initSegmentSent) {
-                        cachedStreamManager.onFragmentComplete(segment.segmentNr, data, segment.durationMs);
+                        // Stream manager copies straight from Media3's buffer into its slab pool
+                        cachedStreamManager.onFragmentComplete(segment.segmentNr, payload.duplicate(), segment.durationMs);
+                        // Check the LL-HLS part prediction against what Media3 actually emitted
+                        FragmentedMp4PartBuilder builder = partBuilder;
+                        if (builder != null && builder.onSegmentComplete(segment.segmentNr, payload.duplicate())) {
+                            cachedStreamManager.discardPartsFrom(segment.segmentNr + 1);
+                        }
                     } else {
                         FLog.w(TAG, "⚠️ Fragment #" + segment.segmentNr + 
                             " received before init segment - skipping stream upload");
@@ -1163,7 +1196,12 @@ public class FragmentedMp4MuxerWrapper {
                 
                 // Write to file — per-fragment flush for SAF visibility.
                 if (shouldSaveToDisk && fileOutputStream != null) {
-                    writeSegmentWithRecovery(data, false);
+                    if (segmentScratch.length < length) {
+                        // Grow with headroom so bitrate jitter doesn't reallocate every fragment
+                        segmentScratch = new byte[length + (length >> 2)];
+                    }
+                    payload.duplicate().get(segmentScratch, 0, length);
+                    writeSegmentWithRecovery(segmentScratch, length, false, segment.durationMs);
                 }
                 
                 nextFragmentNumber++;
@@ -1188,9 +1226,9 @@ public class FragmentedMp4MuxerWrapper {
      * instead of silently dropping fragments, which is what previously left
      * files "fragmented-only" or lost the tail of recordings.
      */
-    private void writeSegmentWithRecovery(byte[] data, boolean isInit) {
+    private void writeSegmentWithRecovery(byte[] data, int length, boolean isInit, long durationMs) {
         try {
-            writeSegmentBytes(data, isInit);
+            writeSegmentBytes(data, length, isInit, durationMs);
         } catch (IOException e) {
             segmentWriteFailures++;
             FLog.e(TAG, "Segment write failed (" + e.getMessage()
@@ -1208,7 +1246,7 @@ public class FragmentedMp4MuxerWrapper {
             FLog.w(TAG, "HOT-SWAP: output stream re-opened mid-recording (failures="
                     + segmentWriteFailures + ", reopens=" + streamReopenCount + ")");
             try {
-                writeSegmentBytes(data, isInit);
+                writeSegmentBytes(data, length, isInit, durationMs);
             } catch (IOException e2) {
                 FLog.e(TAG, "Segment write failed AGAIN after re-open — segment lost", e2);
             }
@@ -1216,19 +1254,24 @@ public class FragmentedMp4MuxerWrapper {
     }
 
 
-    private void writeSegmentBytes(byte[] data, boolean isInit) throws IOException {        if (isInit) {
+    /**
+     * Writes {@code length} bytes of {@code data}. For media fragments {@code data} is the
+     * reused scratch array, so nothing here may hold on to it past the call.
+     */
+    private void writeSegmentBytes(byte[] data, int length, boolean isInit, long durationMs) throws IOException {
+        if (isInit) {
             initSegmentData = data;
             long pos = fileOutputStream.getChannel().position();
             initSegmentFilePosition = pos;
-            fileOutputStream.write(data);
+            fileOutputStream.write(data, 0, length);
             fileOutputStream.flush();
         } else {
             long pos = fileOutputStream.getChannel().position();
             fragmentPositions.add(pos);
             parseFragmentForFinalization(data);
-            logFirstVideoSampleInFragment(data);
+            logFirstVideoSampleInFragment(data, length);
             try {
-                fileOutputStream.write(data);
+                fileOutputStream.write(data, 0, length);
                 fileOutputStream.flush();
             } catch (IOException e) {
                 // Roll back tracking for this fragment — it never landed on disk.
@@ -1239,6 +1282,53 @@ public class FragmentedMp4MuxerWrapper {
                 if (!fragmentVideoOffsets.isEmpty()) fragmentVideoOffsets.remove(fragmentVideoOffsets.size() - 1);
                 throw e;
             }
+            appendSeekIndex(pos, length, durationMs);
+        }
+    }
+
+    /**
+     * Records a fragment that just landed on disk in the seek index sidecar.
+     * Only for path-based outputs; SAF documents have no directory to put a sidecar in.
+     */
+    private void appendSeekIndex(long position, int length, long durationMs) {
+        if (seekIndexDisabled) {
+            return;
+        }
+        if (seekIndexWriter == null) {
+            java.io.File video = outputPath != null ? new java.io.File(outputPath) : null;
+            seekIndexWriter = video != null && video.isFile() ? FragmentIndexSidecar.Writer.open(video) : null;
+            if (seekIndexWriter == null) {
+                seekIndexDisabled = true;
+                return;
+            }
+        }
+        try {
+            seekIndexWriter.append(position, length, durationMs);
+        } catch (IOException e) {
+            // A sidecar with a hole would be rejected anyway - drop it, playback will scan
+            FLog.w(TAG, "Seek index append failed, discarding sidecar: " + e.getMessage());
+            seekIndexWriter.discard();
+            seekIndexWriter = null;
+            seekIndexDisabled = true;
+        }
+    }
+
+    /**
+     * Closes the seek index. After a successful hybrid finalization the file is a regular
+     * MP4 (moov sample tables), so the fragment sidecar is deleted instead.
+     */
+    private void finishSeekIndex(boolean becameRegularMp4) {
+        synchronized (ioLock) {
+            if (seekIndexWriter == null) {
+                return;
+            }
+            if (becameRegularMp4) {
+                seekIndexWriter.discard();
+            } else {
+                seekIndexWriter.close();
+            }
+            seekIndexWriter = null;
+            seekIndexDisabled = true;
         }
     }
 
@@ -1247,16 +1337,16 @@ public class FragmentedMp4MuxerWrapper {
      * FIRST fragment only (first 3 fragments max). Valid AVCC starts with a 4-byte
      * NAL length (e.g. 00 00 00 16 67...); Annex-B leakage shows 00 00 00 01.
      */
-    private void logFirstVideoSampleInFragment(byte[] data) {
+    private void logFirstVideoSampleInFragment(byte[] data, int length) {
         try {
-            if (firstMediaFragmentLogged || data.length < 16) return;
+            if (firstMediaFragmentLogged || length < 16) return;
             int p = 8;
-            while (p + 8 <= data.length) {
+            while (p + 8 <= length) {
                 int s = ((data[p] & 0xFF) << 24) | ((data[p + 1] & 0xFF) << 16)
                         | ((data[p + 2] & 0xFF) << 8) | (data[p + 3] & 0xFF);
                 int t = ((data[p + 4] & 0xFF) << 24) | ((data[p + 5] & 0xFF) << 16)
                         | ((data[p + 6] & 0xFF) << 8) | (data[p + 7] & 0xFF);
-                if (s < 8 || p + s > data.length) return;
+                if (s < 8 || p + s > length) return;
                 if (t == 0x6D6F6F66) { // 'moof'
                     int moofSize = s;
                     int q = p + 8;
@@ -1279,7 +1369,7 @@ public class FragmentedMp4MuxerWrapper {
                                 int dataOffset = ((data[q + 16] & 0xFF) << 24)
                                         | ((data[q + 17] & 0xFF) << 16)
                                         | ((data[q + 18] & 0xFF) << 8) | (data[q + 19] & 0xFF);
-                                if (dataOffset > 0 && p + moofSize + dataOffset + 8 <= data.length) {
+                                if (dataOffset > 0 && p + moofSize + dataOffset + 8 <= length) {
                                     sampleStart = p + moofSize + dataOffset;
                                     cnt = sampleCount;
                                 }
@@ -1289,7 +1379,7 @@ public class FragmentedMp4MuxerWrapper {
                     }
                     if (sampleStart > 0) {
                         StringBuilder hex = new StringBuilder();
-                        int shown = Math.min(16, data.length - sampleStart);
+                        int shown = Math.min(16, length - sampleStart);
                         for (int i = 0; i < shown; i++) {
                             hex.append(String.format("%02X ", data[sampleStart + i]));
                         }
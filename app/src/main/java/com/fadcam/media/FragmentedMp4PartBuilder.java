@@ -0,0 +1,449 @@
+package com.fadcam.media;
+
+import com.fadcam.FLog;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Builds LL-HLS partial segments ("parts") from the same samples that go into Media3's muxer.
+ *
+ * Architecture:
+ * - Fed from {@link FragmentedMp4MuxerWrapper#writeSampleData} (encoder thread). Each part is
+ *   a self-contained moof+mdat (mfhd, traf[tfhd default-base-is-moof, tfdt v1, trun]) that
+ *   plays with the regular init segment.
+ * - Segment boundaries MIRROR Media3's FragmentedMp4Muxer rule (next video keyframe once the
+ *   pending video span reaches the fragment duration), so parts of segment N always cover
+ *   exactly what Media3 later emits as fragment N.
+ * - {@link #onSegmentComplete} (writer thread) cross-checks every Media3 fragment against the
+ *   prediction (first video tfdt). On any mismatch the builder goes unsynced, learns the tfdt
+ *   correction and only resumes emitting parts at the next segment boundary.
+ * - Never touches the muxer or the output file: the recording stays byte-identical.
+ *
+ * Track ids and timescales are read from the init segment ({@link #configure}); parts built
+ * before that are dropped.
+ */
+final class FragmentedMp4PartBuilder {
+    private static final String TAG = "FragmentedMp4PartBuilder";
+
+    private static final int TFHD_DEFAULT_BASE_IS_MOOF = 0x020000;
+    // data-offset | sample-duration | sample-size | sample-flags
+    private static final int TRUN_FLAGS = 0x000001 | 0x000100 | 0x000200 | 0x000400;
+    private static final int SAMPLE_FLAGS_SYNC = 0x02000000;      // depends_on=2 (I-frame)
+    private static final int SAMPLE_FLAGS_NON_SYNC = 0x01010000;  // depends_on=1, is_non_sync
+    private static final int MAX_SEGMENT_RECORDS = 8;
+
+    /**
+     * A finished part. {@link #payload} is only valid until the next {@link #addSample} call.
+     */
+    static final class Part {
+        final int msn;
+        final int index;
+        final long durationUs;
+        final boolean independent;
+        final ByteBuffer payload;
+
+        Part(int msn, int index, long durationUs, boolean independent, ByteBuffer payload) {
+            this.msn = msn;
+            this.index = index;
+            this.durationUs = durationUs;
+            this.independent = independent;
+            this.payload = payload;
+        }
+    }
+
+    private static final class TrackState {
+        int trackId = -1;
+        long timescale = 0;
+        ByteBuffer data = ByteBuffer.allocate(64 * 1024);
+        long[] ptsUs = new long[64];
+        int[] sizes = new int[64];
+        boolean[] keyFrames = new boolean[64];
+        int count = 0;
+        long lastDeltaUs = 0;
+        long lastPtsUs = -1;
+        long correction = 0; // timescale units, learned from Media3 fragments
+
+        void append(ByteBuffer sample, long pts, boolean keyFrame) {
+            int size = sample.remaining();
+            if (data.remaining() < size) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(data.capacity() * 2, data.position() + size));
+                data.flip();
+                grown.put(data);
+                data = grown;
+            }
+            if (count == ptsUs.length) {
+                ptsUs = java.util.Arrays.copyOf(ptsUs, count * 2);
+                sizes = java.util.Arrays.copyOf(sizes, count * 2);
+                keyFrames = java.util.Arrays.copyOf(keyFrames, count * 2);
+            }
+            data.put(sample.duplicate());
+            ptsUs[count] = pts;
+            sizes[count] = size;
+            keyFrames[count] = keyFrame;
+            count++;
+            if (lastPtsUs >= 0 && pts > lastPtsUs) {
+                lastDeltaUs = pts - lastPtsUs;
+            }
+            lastPtsUs = pts;
+        }
+
+        void clearSamples() {
+            data.clear();
+            count = 0;
+        }
+
+        long toTimescale(long us) {
+            return us * timescale / 1_000_000L;
+        }
+    }
+
+    private final TrackState[] tracks;
+    private final int videoTrack;
+    private final long segmentDurationUs;
+    private final long partCloseUs;
+
+    private boolean configured = false;
+    private boolean synced;
+    private boolean resyncAtNextSegment = false;
+
+    // Current segment / part
+    private int currentMsn = 1;
+    private int partIndex = 0;
+    private boolean segmentStarted = false;
+    private boolean hadVideoKeyframe = false;
+    private long segmentFirstVideoPts = -1;
+    private long segmentLastVideoPts = -1;
+    private long partStartVideoPts = -1;
+    private boolean partIndependent = false;
+    private int partSequence = 0; // mfhd sequence number, unique per part
+
+    // Predicted (uncorrected) first-sample decode time per track, per segment, for cross-checks
+    private final int[] recordMsn = new int[MAX_SEGMENT_RECORDS];
+    private final long[][] recordRawStart;
+
+    private ByteBuffer out = ByteBuffer.allocate(256 * 1024);
+
+    /**
+     * @param trackCount        Number of muxer tracks
+     * @param videoTrack        Muxer index of the video track (parts are cut on video timing)
+     * @param segmentDurationMs Media3 fragment duration
+     * @param partTargetMs      Advertised PART-TARGET; parts close a little before it
+     * @param fromFirstSample   True if the builder sees the recording from its first sample
+     *                          (numbering starts at 1), false if attached mid-recording
+     */
+    FragmentedMp4PartBuilder(int trackCount, int videoTrack, long segmentDurationMs, long partTargetMs,
+                             boolean fromFirstSample) {
+        this.tracks = new TrackState[trackCount];
+        for (int i = 0; i < trackCount; i++) {
+            tracks[i] = new TrackState();
+        }
+        this.videoTrack = videoTrack;
+        this.segmentDurationUs = segmentDurationMs * 1000L;
+        // 80% of the target leaves room for the frame that ends the part
+        this.partCloseUs = partTargetMs * 800L;
+        this.synced = fromFirstSample;
+        this.resyncAtNextSegment = !fromFirstSample;
+        this.recordRawStart = new long[MAX_SEGMENT_RECORDS][trackCount];
+        java.util.Arrays.fill(recordMsn, -1);
+    }
+
+    /**
+     * Reads track ids and media timescales from the init segment (moov/trak/tkhd + mdhd).
+     * Traks are in muxer track order.
+     */
+    synchronized void configure(@NonNull byte[] init) {
+        int moov = findBox(init, 0, init.length, "moov");
+        if (moov < 0) return;
+        int end = moov + readInt(init, moov);
+        int trackIndex = 0;
+        for (int pos = moov + 8; pos + 8 <= end && trackIndex < tracks.length; ) {
+            int size = readInt(init, pos);
+            if (size < 8) break;
+            if (isType(init, pos, "trak")) {
+                int tkhd = findBox(init, pos + 8, pos + size, "tkhd");
+                int mdia = findBox(init, pos + 8, pos + size, "mdia");
+                int mdhd = mdia < 0 ? -1 : findBox(init, mdia + 8, mdia + readInt(init, mdia), "mdhd");
+                if (tkhd >= 0 && mdhd >= 0) {
+                    tracks[trackIndex].trackId = readInt(init, tkhd + (init[tkhd + 8] == 1 ? 28 : 20));
+                    tracks[trackIndex].timescale = readInt(init, mdhd + (init[mdhd + 8] == 1 ? 28 : 20)) & 0xFFFFFFFFL;
+                }
+                trackIndex++;
+            }
+            pos += size;
+        }
+        configured = trackIndex == tracks.length;
+        for (TrackState t : tracks) {
+            configured &= t.trackId > 0 && t.timescale > 0;
+        }
+        if (!configured) {
+            FLog.w(TAG, "LL-HLS: could not read track timescales from init segment - parts disabled");
+        }
+    }
+
+    /**
+     * Feeds one sample (normalized PTS) in muxer order.
+     *
+     * @return The part this sample closed, or null.
+     */
+    @Nullable
+    synchronized Part addSample(int trackIndex, @NonNull ByteBuffer sample, long ptsUs, boolean keyFrame) {
+        if (trackIndex < 0 || trackIndex >= tracks.length) {
+            return null;
+        }
+        Part closed = null;
+        if (!segmentStarted) {
+            startSegment(ptsUs, false);
+        }
+        if (trackIndex == videoTrack) {
+            // Media3: flush pending samples when a keyframe arrives and the pending video span
+            // (first..last pending sample, excluding this one) reached the fragment duration
+            boolean segmentBoundary = keyFrame && hadVideoKeyframe && segmentFirstVideoPts >= 0
+                && segmentLastVideoPts - segmentFirstVideoPts >= segmentDurationUs;
+            boolean partBoundary = partStartVideoPts >= 0 && ptsUs - partStartVideoPts >= partCloseUs;
+            if (segmentBoundary || partBoundary) {
+                closed = closePart(ptsUs);
+            }
+            if (segmentBoundary) {
+                startSegment(ptsUs, true);
+            }
+            if (keyFrame) {
+                hadVideoKeyframe = true;
+            }
+            if (segmentFirstVideoPts < 0) {
+                segmentFirstVideoPts = ptsUs;
+            }
+            segmentLastVideoPts = ptsUs;
+            if (partStartVideoPts < 0) {
+                partStartVideoPts = ptsUs;
+                partIndependent = keyFrame;
+            }
+        }
+        TrackState track = tracks[trackIndex];
+        int slot = recordSlot(currentMsn);
+        if (slot >= 0 && recordRawStart[slot][trackIndex] < 0) {
+            recordRawStart[slot][trackIndex] = ptsUs;
+        }
+        track.append(sample, ptsUs, keyFrame);
+        return closed;
+    }
+
+    /**
+     * Cross-checks a fragment emitted by Media3 against the prediction.
+     *
+     * @return true if the builder had to resync (parts from {@code segmentNr + 1} on are invalid).
+     */
+    synchronized boolean onSegmentComplete(int segmentNr, @NonNull ByteBuffer fragment) {
+        if (!configured || videoTrack < 0) {
+            return false;
+        }
+        long[] media3Tfdt = readTfdts(fragment);
+        int slot = recordSlot(segmentNr);
+        boolean matches = slot >= 0;
+        for (int i = 0; matches && i < tracks.length; i++) {
+            long rawUs = recordRawStart[slot][i];
+            if (media3Tfdt[i] < 0 || rawUs < 0) continue;
+            // Allow one tick of rounding difference
+            matches = Math.abs(tracks[i].toTimescale(rawUs) + tracks[i].correction - media3Tfdt[i]) <= 1;
+        }
+        if (matches) {
+            return false;
+        }
+
+        if (synced && slot >= 0) {
+            // Same boundary, different timeline origin: learn the offset for future parts
+            for (int i = 0; i < tracks.length; i++) {
+                long rawUs = recordRawStart[slot][i];
+                if (media3Tfdt[i] >= 0 && rawUs >= 0) {
+                    tracks[i].correction = media3Tfdt[i] - tracks[i].toTimescale(rawUs);
+                }
+            }
+        }
+        boolean wasSynced = synced;
+        if (wasSynced) {
+            FLog.w(TAG, "LL-HLS: fragment #" + segmentNr + " differs from prediction - resyncing parts");
+        }
+        // Adopt Media3's numbering; parts resume at the next segment boundary
+        resync(segmentNr);
+        return wasSynced;
+    }
+
+    /**
+     * Drops the in-progress part and stops emitting until the next segment boundary.
+     */
+    private void resync(int completedSegmentNr) {
+        synced = false;
+        resyncAtNextSegment = true;
+        currentMsn = completedSegmentNr + 1;
+        for (TrackState t : tracks) {
+            t.clearSamples();
+        }
+        partStartVideoPts = -1;
+    }
+
+    private void startSegment(long firstPtsUs, boolean boundary) {
+        if (boundary) {
+            currentMsn++;
+            if (resyncAtNextSegment) {
+                resyncAtNextSegment = false;
+                synced = true;
+            }
+        }
+        segmentStarted = true;
+        partIndex = 0;
+        segmentFirstVideoPts = -1;
+        segmentLastVideoPts = -1;
+        int slot = currentMsn % MAX_SEGMENT_RECORDS;
+        recordMsn[slot] = currentMsn;
+        java.util.Arrays.fill(recordRawStart[slot], -1L);
+    }
+
+    private int recordSlot(int msn) {
+        int slot = msn % MAX_SEGMENT_RECORDS;
+        return slot >= 0 && recordMsn[slot] == msn ? slot : -1;
+    }
+
+    @Nullable
+    private Part closePart(long endPtsUs) {
+        int msn = currentMsn;
+        int index = partIndex++;
+        long durationUs = partStartVideoPts >= 0 ? endPtsUs - partStartVideoPts : -1;
+        boolean independent = partIndependent;
+        partStartVideoPts = -1;
+
+        if (!synced || !configured || durationUs < 0 || durationUs > segmentDurationUs * 2) {
+            for (TrackState t : tracks) {
+                t.clearSamples();
+            }
+            return null;
+        }
+        ByteBuffer payload = buildMoofMdat(endPtsUs);
+        return new Part(msn, index, durationUs, independent, payload);
+    }
+
+    private ByteBuffer buildMoofMdat(long videoEndPtsUs) {
+        int moofSize = 8 + 16; // moof header + mfhd
+        int mdatPayload = 0;
+        for (TrackState t : tracks) {
+            if (t.count == 0) continue;
+            moofSize += trafSize(t.count);
+            mdatPayload += t.data.position();
+        }
+        int total = moofSize + 8 + mdatPayload;
+        if (out.capacity() < total) {
+            out = ByteBuffer.allocate(total + (total >> 2));
+        }
+        out.clear();
+
+        // moof
+        out.putInt(moofSize).put((byte) 'm').put((byte) 'o').put((byte) 'o').put((byte) 'f');
+        out.putInt(16).put((byte) 'm').put((byte) 'f').put((byte) 'h').put((byte) 'd');
+        out.putInt(0).putInt(++partSequence);
+
+        int dataOffset = moofSize + 8;
+        for (int ti = 0; ti < tracks.length; ti++) {
+            TrackState t = tracks[ti];
+            if (t.count == 0) continue;
+            int trafSize = trafSize(t.count);
+            out.putInt(trafSize).put((byte) 't').put((byte) 'r').put((byte) 'a').put((byte) 'f');
+            // tfhd: default-base-is-moof, track id only
+            out.putInt(16).put((byte) 't').put((byte) 'f').put((byte) 'h').put((byte) 'd');
+            out.putInt(TFHD_DEFAULT_BASE_IS_MOOF).putInt(t.trackId);
+            // tfdt v1
+            long baseDecodeTime = t.toTimescale(t.ptsUs[0]) + t.correction;
+            out.putInt(20).put((byte) 't').put((byte) 'f').put((byte) 'd').put((byte) 't');
+            out.putInt(0x01000000).putLong(Math.max(0, baseDecodeTime));
+            // trun
+            out.putInt(20 + 12 * t.count).put((byte) 't').put((byte) 'r').put((byte) 'u').put((byte) 'n');
+            out.putInt(TRUN_FLAGS).putInt(t.count).putInt(dataOffset);
+            long endPts = ti == videoTrack ? videoEndPtsUs : t.ptsUs[t.count - 1] + t.lastDeltaUs;
+            long previous = t.toTimescale(t.ptsUs[0]);
+            for (int i = 0; i < t.count; i++) {
+                long next = t.toTimescale(i + 1 < t.count ? t.ptsUs[i + 1] : endPts);
+                out.putInt((int) Math.max(0, next - previous));
+                out.putInt(t.sizes[i]);
+                out.putInt(ti != videoTrack || t.keyFrames[i] ? SAMPLE_FLAGS_SYNC : SAMPLE_FLAGS_NON_SYNC);
+                previous = Math.max(previous, next);
+            }
+            dataOffset += t.data.position();
+        }
+
+        // mdat
+        out.putInt(8 + mdatPayload).put((byte) 'm').put((byte) 'd').put((byte) 'a').put((byte) 't');
+        for (TrackState t : tracks) {
+            if (t.count == 0) continue;
+            ByteBuffer samples = t.data.duplicate();
+            samples.flip();
+            out.put(samples);
+            t.clearSamples();
+        }
+        out.flip();
+        return out.duplicate();
+    }
+
+    private static int trafSize(int sampleCount) {
+        return 8 + 16 + 20 + 20 + 12 * sampleCount;
+    }
+
+    /**
+     * First tfdt per muxer track in a Media3 moof (-1 if the track has no traf).
+     */
+    private long[] readTfdts(ByteBuffer fragment) {
+        long[] result = new long[tracks.length];
+        java.util.Arrays.fill(result, -1L);
+        ByteBuffer buf = fragment.duplicate();
+        int base = buf.position();
+        int limit = buf.limit();
+        if (limit - base < 8 || buf.getInt(base + 4) != 0x6D6F6F66) { // 'moof'
+            return result;
+        }
+        int moofEnd = Math.min(limit, base + buf.getInt(base));
+        for (int pos = base + 8; pos + 8 <= moofEnd; ) {
+            int size = buf.getInt(pos);
+            if (size < 8) break;
+            if (buf.getInt(pos + 4) == 0x74726166) { // 'traf'
+                int trackId = -1;
+                long tfdt = -1;
+                for (int p = pos + 8; p + 8 <= pos + size; ) {
+                    int childSize = buf.getInt(p);
+                    if (childSize < 8) break;
+                    int type = buf.getInt(p + 4);
+                    if (type == 0x74666864) { // 'tfhd'
+                        trackId = buf.getInt(p + 12);
+                    } else if (type == 0x74666474) { // 'tfdt'
+                        tfdt = buf.get(p + 8) == 1 ? buf.getLong(p + 12) : (buf.getInt(p + 12) & 0xFFFFFFFFL);
+                    }
+                    p += childSize;
+                }
+                for (int i = 0; i < tracks.length; i++) {
+                    if (tracks[i].trackId == trackId) {
+                        result[i] = tfdt;
+                    }
+                }
+            }
+            pos += size;
+        }
+        return result;
+    }
+
+    private static int findBox(byte[] d, int start, int end, String type) {
+        for (int pos = start; pos + 8 <= end; ) {
+            int size = readInt(d, pos);
+            if (size < 8) return -1;
+            if (isType(d, pos, type)) return pos;
+            pos += size;
+        }
+        return -1;
+    }
+
+    private static boolean isType(byte[] d, int pos, String type) {
+        return d[pos + 4] == type.charAt(0) && d[pos + 5] == type.charAt(1)
+            && d[pos + 6] == type.charAt(2) && d[pos + 7] == type.charAt(3);
+    }
+
+    private static int readInt(byte[] d, int off) {
+        return ((d[off] & 0xFF) << 24) | ((d[off + 1] & 0xFF) << 16) | ((d[off + 2] & 0xFF) << 8) | (d[off + 3] & 0xFF);
+    }
+}
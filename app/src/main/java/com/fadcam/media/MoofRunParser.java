@@ -0,0 +1,84 @@
+package com.fadcam.media;
+
+/**
+ * Reads per-track sample counts and trun data offsets out of a serialized moof box —
+ * what the hybrid finalization in {@link FragmentedMp4MuxerWrapper} needs to build
+ * stco/stsc entries for the final moov. Plain byte-array parsing, no Android types.
+ */
+public final class MoofRunParser {
+
+    /** Slots of the {@code out} array filled by {@link #parse}. */
+    public static final int AUDIO_COUNT = 0;
+    public static final int VIDEO_COUNT = 1;
+    public static final int AUDIO_OFFSET = 2;
+    public static final int VIDEO_OFFSET = 3;
+
+    private MoofRunParser() {
+    }
+
+    /**
+     * Parses the moof at the start of {@code data}.
+     *
+     * @param videoTrackId mp4 track_ID of the video track, or -1 if there is none
+     * @param audioTrackId mp4 track_ID of the audio track, or -1 if there is none
+     * @param out          receives count/offset per track at the slot constants; 0 for a track
+     *                     without a trun in this fragment
+     * @return false if the moof is malformed, in which case {@code out} must be ignored
+     */
+    public static boolean parse(byte[] data, int videoTrackId, int audioTrackId, int[] out) {
+        try {
+            out[AUDIO_COUNT] = 0;
+            out[VIDEO_COUNT] = 0;
+            out[AUDIO_OFFSET] = 0;
+            out[VIDEO_OFFSET] = 0;
+            int moofSize = readIntBE(data, 0);
+            int pos = 8;
+            int mfhdSz = readIntBE(data, pos);
+            if (mfhdSz < 12) return false;
+            pos += mfhdSz;
+            while (pos + 8 <= moofSize) {
+                int s = readIntBE(data, pos), t = readIntBE(data, pos + 4);
+                if (s < 8 || pos + s > moofSize) break;
+                if (t == 0x74726166) { // 'traf'
+                    int[] r = findTrun(data, pos + 8, s - 8);
+                    if (r != null) {
+                        if (r[0] == videoTrackId) {
+                            out[VIDEO_COUNT] = r[1];
+                            out[VIDEO_OFFSET] = r[2];
+                        } else if (r[0] == audioTrackId) {
+                            out[AUDIO_COUNT] = r[1];
+                            out[AUDIO_OFFSET] = r[2];
+                        }
+                    }
+                }
+                pos += s;
+            }
+            return true;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Scans a traf's children for tfhd and trun.
+     *
+     * @return {track_ID, sample_count, data_offset} of the first trun, or null if there is none
+     */
+    public static int[] findTrun(byte[] d, int start, int len) {
+        int pos = start, tid = 0;
+        while (pos + 8 <= start + len) {
+            int s = readIntBE(d, pos), t = readIntBE(d, pos + 4);
+            if (s < 8 || pos + s > start + len) break;
+            if (t == 0x74666864) tid = readIntBE(d, pos + 12);      // 'tfhd' → track_ID (after version/flags)
+            else if (t == 0x7472756E)                                 // 'trun'
+                return new int[]{tid, readIntBE(d, pos + 12),         // sample_count
+                                       readIntBE(d, pos + 16)};      // data_offset
+            pos += s;
+        }
+        return null;
+    }
+
+    private static int readIntBE(byte[] d, int off) {
+        return ((d[off]&0xFF)<<24)|((d[off+1]&0xFF)<<16)|((d[off+2]&0xFF)<<8)|(d[off+3]&0xFF);
+    }
+}
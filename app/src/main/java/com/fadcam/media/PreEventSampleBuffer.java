@@ -0,0 +1,271 @@
+package com.fadcam.media;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Bounded ring of encoded audio/video samples kept while a motion-triggered recording is
+ * paused, so the clip can start a few seconds before the trigger.
+ *
+ * Architecture:
+ * <ul>
+ *   <li>Sample bytes live in one direct arena allocated once and reused across pauses; samples
+ *       are laid out back to back and wrap to the start when the tail is too short, so each
+ *       sample stays contiguous and can be handed to the muxer without another copy.</li>
+ *   <li>Memory is capped by the arena size, not by time. When a sample does not fit, the
+ *       oldest whole GOP (and the audio interleaved with it) is evicted.</li>
+ *   <li>The ring always starts at a video keyframe: leading non-key video and audio are
+ *       refused, and eviction stops at the next keyframe.</li>
+ *   <li>GOPs older than the time window are evicted as long as the remainder still covers it.</li>
+ * </ul>
+ *
+ * Not thread-safe; callers serialize access.
+ */
+public final class PreEventSampleBuffer {
+
+    public static final int TRACK_VIDEO = 0;
+    public static final int TRACK_AUDIO = 1;
+
+    private static final int INITIAL_SAMPLE_SLOTS = 256;
+
+    /** Receives buffered samples in arrival order from {@link #drainTo(SampleSink)}. */
+    public interface SampleSink {
+        /**
+         * @param data  Read-only view positioned on the sample; only valid during the call
+         * @param flags The codec flags passed to {@link #add}
+         */
+        void onSample(int track, @NonNull ByteBuffer data, long ptsUs, int flags);
+    }
+
+    private final ByteBuffer arena;
+    private final ByteBuffer view;
+    private final int capacityBytes;
+    private long windowUs;
+
+    // Sample metadata, circular in slot order
+    private int[] offsets = new int[INITIAL_SAMPLE_SLOTS];
+    private int[] sizes = new int[INITIAL_SAMPLE_SLOTS];
+    private long[] ptsUs = new long[INITIAL_SAMPLE_SLOTS];
+    private byte[] tracks = new byte[INITIAL_SAMPLE_SLOTS];
+    private int[] flags = new int[INITIAL_SAMPLE_SLOTS];
+    private boolean[] keyframes = new boolean[INITIAL_SAMPLE_SLOTS];
+    private int first = 0;
+    private int count = 0;
+
+    private int writeOffset = 0;
+    private long bufferedBytes = 0;
+    private int keyframeCount = 0;
+    private long lastVideoPtsUs = -1;
+    private long evictedGops = 0;
+
+    /**
+     * @param capacityBytes Hard memory cap for buffered sample bytes
+     * @param windowUs      How much media before the trigger to keep
+     */
+    public PreEventSampleBuffer(int capacityBytes, long windowUs) {
+        if (capacityBytes <= 0) throw new IllegalArgumentException("capacityBytes must be > 0");
+        this.capacityBytes = capacityBytes;
+        this.windowUs = Math.max(0, windowUs);
+        this.arena = ByteBuffer.allocateDirect(capacityBytes);
+        this.view = arena.asReadOnlyBuffer();
+    }
+
+    public int getCapacityBytes() {
+        return capacityBytes;
+    }
+
+    public void setWindowUs(long windowUs) {
+        this.windowUs = Math.max(0, windowUs);
+    }
+
+    /**
+     * Copies {@code size} bytes of {@code data} starting at {@code offset} into the ring.
+     * The position and limit of {@code data} are not modified.
+     *
+     * @param flags    Codec flags, stored as-is and handed back on drain
+     * @param keyframe Whether this is a video sync sample (ignored for audio)
+     * @return false if the sample was refused (leading non-key video, audio before the first
+     *         keyframe, or larger than the whole arena)
+     */
+    public boolean add(int track, @NonNull ByteBuffer data, int offset, int size, long pts, int flags, boolean keyframe) {
+        boolean video = track == TRACK_VIDEO;
+        if (size <= 0 || (count == 0 && !(video && keyframe))) {
+            return false;
+        }
+        if (size > capacityBytes) {
+            clear();
+            return false;
+        }
+        int at = reserve(size);
+        while (at < 0) {
+            if (keyframeCount < 2) {
+                // Only the GOP being built is left and it still does not fit: start over
+                clear();
+                if (!(video && keyframe)) {
+                    return false;
+                }
+            } else {
+                evictOldestGop();
+            }
+            at = reserve(size);
+        }
+
+        ByteBuffer src = data.duplicate();
+        src.limit(offset + size).position(offset);
+        ByteBuffer dst = arena.duplicate();
+        dst.position(at);
+        dst.put(src);
+
+        ensureSlots();
+        int slot = (first + count) % offsets.length;
+        offsets[slot] = at;
+        sizes[slot] = size;
+        ptsUs[slot] = pts;
+        tracks[slot] = (byte) track;
+        this.flags[slot] = flags;
+        keyframes[slot] = video && keyframe;
+        count++;
+        writeOffset = at + size;
+        bufferedBytes += size;
+        if (video) {
+            lastVideoPtsUs = pts;
+            if (keyframe) {
+                keyframeCount++;
+            }
+            trimToWindow();
+        }
+        return true;
+    }
+
+    /**
+     * Hands every buffered sample to {@code sink} in arrival order, then empties the ring.
+     * The arena is kept for the next pause.
+     */
+    public void drainTo(@NonNull SampleSink sink) {
+        for (int i = 0; i < count; i++) {
+            int slot = (first + i) % offsets.length;
+            view.limit(offsets[slot] + sizes[slot]).position(offsets[slot]);
+            sink.onSample(tracks[slot], view, ptsUs[slot], flags[slot]);
+        }
+        clear();
+    }
+
+    public void clear() {
+        first = 0;
+        count = 0;
+        writeOffset = 0;
+        bufferedBytes = 0;
+        keyframeCount = 0;
+        lastVideoPtsUs = -1;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /** Payload bytes currently buffered (excluding wrap-around slack). */
+    public long getBufferedBytes() {
+        return bufferedBytes;
+    }
+
+    /** PTS of the keyframe the ring starts with, or -1 when empty. */
+    public long getFirstPtsUs() {
+        return count == 0 ? -1 : ptsUs[first];
+    }
+
+    /** Video span from the first keyframe to the newest video sample. */
+    public long getBufferedDurationUs() {
+        return count == 0 ? 0 : Math.max(0, lastVideoPtsUs - ptsUs[first]);
+    }
+
+    /** Number of GOPs dropped to honour the byte cap or time window (diagnostics). */
+    public long getEvictedGopCount() {
+        return evictedGops;
+    }
+
+    /** Arena offset where {@code size} contiguous bytes fit without overwriting live samples, or -1. */
+    private int reserve(int size) {
+        if (count == 0) {
+            return 0;
+        }
+        int head = offsets[first];
+        if (writeOffset > head) {
+            if (capacityBytes - writeOffset >= size) {
+                return writeOffset;
+            }
+            return head >= size ? 0 : -1;
+        }
+        // Wrapped (or exactly full when equal): free space is between the tail and the head
+        return head - writeOffset >= size ? writeOffset : -1;
+    }
+
+    /** Drops samples from the head up to (not including) the second keyframe. */
+    private void evictOldestGop() {
+        keyframeCount--;
+        removeHead();
+        while (count > 0 && !keyframes[first]) {
+            removeHead();
+        }
+        evictedGops++;
+    }
+
+    private void trimToWindow() {
+        while (keyframeCount >= 2) {
+            long nextKeyframePts = -1;
+            for (int i = 1; i < count; i++) {
+                int slot = (first + i) % offsets.length;
+                if (keyframes[slot]) {
+                    nextKeyframePts = ptsUs[slot];
+                    break;
+                }
+            }
+            if (nextKeyframePts < 0 || lastVideoPtsUs - nextKeyframePts < windowUs) {
+                return;
+            }
+            evictOldestGop();
+        }
+    }
+
+    private void removeHead() {
+        bufferedBytes -= sizes[first];
+        first = (first + 1) % offsets.length;
+        count--;
+        if (count == 0) {
+            clear();
+        }
+    }
+
+    private void ensureSlots() {
+        if (count < offsets.length) {
+            return;
+        }
+        int grown = offsets.length * 2;
+        int[] newOffsets = new int[grown];
+        int[] newSizes = new int[grown];
+        long[] newPts = new long[grown];
+        byte[] newTracks = new byte[grown];
+        int[] newFlags = new int[grown];
+        boolean[] newKeyframes = new boolean[grown];
+        for (int i = 0; i < count; i++) {
+            int slot = (first + i) % offsets.length;
+            newOffsets[i] = offsets[slot];
+            newSizes[i] = sizes[slot];
+            newPts[i] = ptsUs[slot];
+            newTracks[i] = tracks[slot];
+            newFlags[i] = flags[slot];
+            newKeyframes[i] = keyframes[slot];
+        }
+        offsets = newOffsets;
+        sizes = newSizes;
+        ptsUs = newPts;
+        tracks = newTracks;
+        flags = newFlags;
+        keyframes = newKeyframes;
+        first = 0;
+    }
+}
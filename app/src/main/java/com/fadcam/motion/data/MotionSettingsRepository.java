@@ -2,6 +2,9 @@ package com.fadcam.motion.data;
 
 import com.fadcam.motion.domain.model.MotionSettings;
 import com.fadcam.motion.domain.model.MotionTriggerMode;
+import com.fadcam.motion.domain.model.MotionZone;
+
+import java.util.List;
 
 public interface MotionSettingsRepository {
     MotionSettings getSettings();
@@ -13,4 +16,5 @@ public interface MotionSettingsRepository {
     void setPostRollMs(int postRollMs);
     void setPreRollSeconds(int seconds);
     void setAutoTorchEnabled(boolean enabled);
+    void setZones(List<MotionZone> zones);
 }
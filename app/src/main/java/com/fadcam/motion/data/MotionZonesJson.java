@@ -0,0 +1,84 @@
+package com.fadcam.motion.data;
+
+import com.fadcam.FLog;
+import com.fadcam.motion.domain.model.MotionZone;
+import com.fadcam.motion.domain.model.MotionZoneSet;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * (De)serializes motion zones stored in {@code PREF_MOTION_ZONES_JSON}:
+ * <pre>
+ * {"zones":[
+ *   {"name":"door","left":0.1,"top":0.0,"right":0.4,"bottom":0.7,"threshold":0.2},
+ *   {"name":"parking","left":0.5,"top":0.5,"right":1.0,"bottom":1.0,"ignore":true}
+ * ]}
+ * </pre>
+ * Bounds are normalized to the frame; {@code threshold} is the fraction of the zone that has
+ * to change. The default {@code "{}"} (or anything unparsable) means no zones.
+ */
+public final class MotionZonesJson {
+
+    private static final String TAG = "MotionZonesJson";
+    private static final float DEFAULT_THRESHOLD = 0.2f;
+
+    private MotionZonesJson() {
+    }
+
+    public static MotionZoneSet parse(String json) {
+        if (json == null || json.trim().isEmpty()) {
+            return MotionZoneSet.EMPTY;
+        }
+        try {
+            JSONArray array = new JSONObject(json).optJSONArray("zones");
+            if (array == null || array.length() == 0) {
+                return MotionZoneSet.EMPTY;
+            }
+            List<MotionZone> zones = new ArrayList<>(array.length());
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject zone = array.getJSONObject(i);
+                zones.add(new MotionZone(
+                        zone.optString("name", "zone" + (i + 1)),
+                        (float) zone.optDouble("left", 0d),
+                        (float) zone.optDouble("top", 0d),
+                        (float) zone.optDouble("right", 1d),
+                        (float) zone.optDouble("bottom", 1d),
+                        (float) zone.optDouble("threshold", DEFAULT_THRESHOLD),
+                        zone.optBoolean("ignore", false)));
+            }
+            return new MotionZoneSet(zones);
+        } catch (JSONException e) {
+            FLog.w(TAG, "Ignoring malformed motion zones: " + e.getMessage());
+            return MotionZoneSet.EMPTY;
+        }
+    }
+
+    public static String toJson(List<MotionZone> zones) {
+        JSONArray array = new JSONArray();
+        try {
+            for (MotionZone zone : zones) {
+                JSONObject object = new JSONObject();
+                object.put("name", zone.getName());
+                object.put("left", zone.getLeft());
+                object.put("top", zone.getTop());
+                object.put("right", zone.getRight());
+                object.put("bottom", zone.getBottom());
+                if (zone.isIgnored()) {
+                    object.put("ignore", true);
+                } else {
+                    object.put("threshold", zone.getThreshold());
+                }
+                array.put(object);
+            }
+            return new JSONObject().put("zones", array).toString();
+        } catch (JSONException e) {
+            FLog.w(TAG, "Failed to encode motion zones: " + e.getMessage());
+            return "{}";
+        }
+    }
+}
@@ -3,6 +3,9 @@ package com.fadcam.motion.data;
 import com.fadcam.SharedPreferencesManager;
 import com.fadcam.motion.domain.model.MotionSettings;
 import com.fadcam.motion.domain.model.MotionTriggerMode;
+import com.fadcam.motion.domain.model.MotionZone;
+
+import java.util.List;
 
 public class SharedPrefsMotionSettingsRepository implements MotionSettingsRepository {
 
@@ -22,7 +25,8 @@ public class SharedPrefsMotionSettingsRepository implements MotionSettingsReposi
             prefs.getMotionDebounceMs(),
             prefs.getMotionPostRollMs(),
             prefs.getMotionPreRollSeconds(),
-            prefs.isMotionAutoTorchEnabled()
+            prefs.isMotionAutoTorchEnabled(),
+            MotionZonesJson.parse(prefs.getMotionZonesJson())
         );
     }
 
@@ -65,4 +69,9 @@ public class SharedPrefsMotionSettingsRepository implements MotionSettingsReposi
     public void setAutoTorchEnabled(boolean enabled) {
         prefs.setMotionAutoTorchEnabled(enabled);
     }
+
+    @Override
+    public void setZones(List<MotionZone> zones) {
+        prefs.setMotionZonesJson(MotionZonesJson.toJson(zones));
+    }
 }
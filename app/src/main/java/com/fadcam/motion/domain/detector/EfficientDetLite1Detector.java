@@ -6,19 +6,42 @@ import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.RectF;
 import android.media.Image;
+import org.tensorflow.lite.DataType;
+import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.Tensor;
+import org.tensorflow.lite.support.common.FileUtil;
 import org.tensorflow.lite.support.image.TensorImage;
 import org.tensorflow.lite.support.label.Category;
+import org.tensorflow.lite.support.metadata.MetadataExtractor;
+import org.tensorflow.lite.support.metadata.schema.AssociatedFile;
+import org.tensorflow.lite.support.metadata.schema.AssociatedFileType;
+import org.tensorflow.lite.support.metadata.schema.TensorMetadata;
 import org.tensorflow.lite.task.core.BaseOptions;
 import org.tensorflow.lite.task.vision.detector.Detection;
 import org.tensorflow.lite.task.vision.detector.ObjectDetector;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * Single-source detector for person/vehicle/pet/object using EfficientDet-Lite1 metadata.
+ *
+ * Architecture:
+ * <ul>
+ *   <li>Direct path (default): {@link YuvModelInputConverter} resamples the YUV planes into a
+ *       reused, letterboxed uint8 input buffer and a raw {@link Interpreter} writes into reused
+ *       output arrays, so steady-state inference allocates nothing per frame.</li>
+ *   <li>Fallback: if the model's tensors do not have the expected layout, or its metadata does
+ *       not name every output tensor, the Task Vision {@link ObjectDetector} is fed a scaled
+ *       ARGB bitmap as before.</li>
+ * </ul>
+ * {@link #detect(FramePacket)} is synchronized because that input/output storage is shared.
  */
 public class EfficientDetLite1Detector {
     private static final String TAG = "EfficientDetLite1";
@@ -29,10 +52,29 @@ public class EfficientDetLite1Detector {
     private static final float MIN_PERSON_CONFIDENCE = 0.24f;
     private static final float MIN_BOX_SIDE = 0.003f;
     private static final int MAX_RESULTS = 40;
+    public static final int DEFAULT_NUM_THREADS = 4;
+
+    // Output tensor names in the detection metadata, as resolved by the Task library.
+    private static final String OUTPUT_LOCATION = "location";
+    private static final String OUTPUT_CATEGORY = "category";
+    private static final String OUTPUT_SCORE = "score";
+    private static final String OUTPUT_COUNT = "number of detections";
 
     private final ObjectDetector detector;
     private long lastInferenceWarnMs = 0L;
 
+    // Direct path: interpreter plus input/output storage reused for every inference
+    private final Interpreter interpreter;
+    private final YuvModelInputConverter inputConverter;
+    private final Object[] inputs = new Object[1];
+    private final Map<Integer, Object> outputs = new HashMap<>();
+    private float[][][] outputBoxes;
+    private float[][] outputClasses;
+    private float[][] outputScores;
+    private float[] outputCount;
+    // Label map embedded in the model metadata (0-based, "???" for unused ids)
+    private List<String> labels;
+
     public static final class FramePacket {
         public final int width;
         public final int height;
@@ -67,6 +109,17 @@ public class EfficientDetLite1Detector {
         }
 
         public static FramePacket copyFrom(Image image) {
+            return copyFrom(image, null);
+        }
+
+        /**
+         * Copies {@code image}'s planes, writing into {@code reuse}'s arrays when it has the same
+         * geometry (the analysis reader's frames always do) so steady-state frames allocate nothing.
+         *
+         * @return {@code reuse} refilled, a new packet if the geometry changed, or null if the
+         * image has no usable YUV planes.
+         */
+        public static FramePacket copyFrom(Image image, FramePacket reuse) {
             if (image == null || image.getPlanes() == null || image.getPlanes().length < 3) {
                 return null;
             }
@@ -85,24 +138,33 @@ public class EfficientDetLite1Detector {
             uDup.rewind();
             vDup.rewind();
 
-            byte[] y = new byte[yDup.remaining()];
-            byte[] u = new byte[uDup.remaining()];
-            byte[] v = new byte[vDup.remaining()];
-            yDup.get(y);
-            uDup.get(u);
-            vDup.get(v);
-
-            return new FramePacket(
-                    image.getWidth(),
-                    image.getHeight(),
-                    planes[0].getRowStride(),
-                    planes[0].getPixelStride(),
-                    planes[1].getRowStride(),
-                    planes[1].getPixelStride(),
-                    y,
-                    u,
-                    v
-            );
+            FramePacket packet = reuse;
+            if (packet == null
+                    || packet.width != image.getWidth()
+                    || packet.height != image.getHeight()
+                    || packet.yRowStride != planes[0].getRowStride()
+                    || packet.yPixelStride != planes[0].getPixelStride()
+                    || packet.uvRowStride != planes[1].getRowStride()
+                    || packet.uvPixelStride != planes[1].getPixelStride()
+                    || packet.y.length != yDup.remaining()
+                    || packet.u.length != uDup.remaining()
+                    || packet.v.length != vDup.remaining()) {
+                packet = new FramePacket(
+                        image.getWidth(),
+                        image.getHeight(),
+                        planes[0].getRowStride(),
+                        planes[0].getPixelStride(),
+                        planes[1].getRowStride(),
+                        planes[1].getPixelStride(),
+                        new byte[yDup.remaining()],
+                        new byte[uDup.remaining()],
+                        new byte[vDup.remaining()]
+                );
+            }
+            yDup.get(packet.y);
+            uDup.get(packet.u);
+            vDup.get(packet.v);
+            return packet;
         }
     }
 
@@ -138,10 +200,50 @@ public class EfficientDetLite1Detector {
     }
 
     public EfficientDetLite1Detector(Context context) {
+        this(context, DEFAULT_NUM_THREADS, true);
+    }
+
+    /**
+     * @param numThreads CPU threads for the interpreter
+     * @param useXnnpack Route float/quantized kernels through the XNNPACK delegate
+     */
+    public EfficientDetLite1Detector(Context context, int numThreads, boolean useXnnpack) {
+        Interpreter directInterpreter = null;
+        YuvModelInputConverter converter = null;
+        try {
+            Interpreter.Options interpreterOptions = new Interpreter.Options()
+                    .setNumThreads(Math.max(1, numThreads))
+                    .setUseXNNPACK(useXnnpack);
+            ByteBuffer model = FileUtil.loadMappedFile(context, MODEL_PATH);
+            directInterpreter = new Interpreter(model, interpreterOptions);
+            converter = bindTensors(directInterpreter, new MetadataExtractor(model.duplicate()));
+            if (converter == null) {
+                directInterpreter.close();
+                directInterpreter = null;
+            } else {
+                FLog.i(TAG, "Loaded model via Interpreter: " + MODEL_PATH
+                        + " input=" + converter.getInputWidth() + "x" + converter.getInputHeight()
+                        + " threads=" + Math.max(1, numThreads) + " xnnpack=" + useXnnpack);
+            }
+        } catch (Throwable t) {
+            FLog.w(TAG, "Direct interpreter unavailable, using Task Vision API: " + t.getMessage());
+            if (directInterpreter != null) {
+                directInterpreter.close();
+                directInterpreter = null;
+            }
+            converter = null;
+        }
+        this.interpreter = directInterpreter;
+        this.inputConverter = converter;
+        if (directInterpreter != null) {
+            this.detector = null;
+            return;
+        }
+
         ObjectDetector local = null;
         try {
             BaseOptions baseOptions = BaseOptions.builder()
-                    .setNumThreads(4)
+                    .setNumThreads(Math.max(1, numThreads))
                     .build();
             ObjectDetector.ObjectDetectorOptions options =
                     ObjectDetector.ObjectDetectorOptions.builder()
@@ -158,7 +260,110 @@ public class EfficientDetLite1Detector {
     }
 
     public boolean isAvailable() {
-        return detector != null;
+        return interpreter != null || detector != null;
+    }
+
+    /**
+     * Checks the model is the expected uint8 [1,H,W,3] input with the detection post-process
+     * outputs (boxes [1,N,4], classes [1,N], scores [1,N], count [1]), maps those outputs by
+     * their metadata names, loads the label map and allocates the reused output arrays.
+     * Returns null if the layout is different or the metadata does not identify every output,
+     * since exports disagree on output order and the classes/scores shapes are identical.
+     */
+    private YuvModelInputConverter bindTensors(Interpreter model, MetadataExtractor metadata)
+            throws IOException {
+        if (model.getInputTensorCount() != 1 || model.getOutputTensorCount() != 4) {
+            return null;
+        }
+        Tensor inputTensor = model.getInputTensor(0);
+        int[] inputShape = inputTensor.shape();
+        if (inputTensor.dataType() != DataType.UINT8 || inputShape.length != 4
+                || inputShape[0] != 1 || inputShape[3] != 3) {
+            return null;
+        }
+        if (!metadata.hasMetadata() || metadata.getOutputTensorCount() != 4) {
+            return null;
+        }
+        int boxesIndex = -1;
+        int countIndex = -1;
+        int classesIndex = -1;
+        int scoresIndex = -1;
+        int maxDetections = -1;
+        TensorMetadata classesMetadata = null;
+        for (int i = 0; i < 4; i++) {
+            Tensor tensor = model.getOutputTensor(i);
+            int[] shape = tensor.shape();
+            if (tensor.dataType() != DataType.FLOAT32) {
+                return null;
+            }
+            TensorMetadata tensorMetadata = metadata.getOutputTensorMetadata(i);
+            String name = tensorMetadata == null || tensorMetadata.name() == null
+                    ? "" : tensorMetadata.name().toLowerCase(Locale.US);
+            switch (name) {
+                case OUTPUT_LOCATION:
+                    if (boxesIndex >= 0 || shape.length != 3 || shape[2] != 4) {
+                        return null;
+                    }
+                    boxesIndex = i;
+                    maxDetections = shape[1];
+                    break;
+                case OUTPUT_CATEGORY:
+                    if (classesIndex >= 0 || shape.length != 2) {
+                        return null;
+                    }
+                    classesIndex = i;
+                    classesMetadata = tensorMetadata;
+                    break;
+                case OUTPUT_SCORE:
+                    if (scoresIndex >= 0 || shape.length != 2) {
+                        return null;
+                    }
+                    scoresIndex = i;
+                    break;
+                case OUTPUT_COUNT:
+                    if (countIndex >= 0 || shape.length != 1) {
+                        return null;
+                    }
+                    countIndex = i;
+                    break;
+                default:
+                    return null;
+            }
+        }
+        if (boxesIndex < 0 || countIndex < 0 || classesIndex < 0 || scoresIndex < 0 || maxDetections <= 0) {
+            return null;
+        }
+        List<String> labelMap = loadLabels(metadata, classesMetadata);
+        if (labelMap == null) {
+            return null;
+        }
+        labels = labelMap;
+        outputBoxes = new float[1][maxDetections][4];
+        outputClasses = new float[1][maxDetections];
+        outputScores = new float[1][maxDetections];
+        outputCount = new float[1];
+        outputs.put(boxesIndex, outputBoxes);
+        outputs.put(classesIndex, outputClasses);
+        outputs.put(scoresIndex, outputScores);
+        outputs.put(countIndex, outputCount);
+        return new YuvModelInputConverter(inputShape[2], inputShape[1]);
+    }
+
+    /** Reads the label file the metadata attaches to the classes output, or null if it has none. */
+    private static List<String> loadLabels(MetadataExtractor metadata, TensorMetadata classesMetadata)
+            throws IOException {
+        for (int i = 0; i < classesMetadata.associatedFilesLength(); i++) {
+            AssociatedFile file = classesMetadata.associatedFiles(i);
+            if (file == null || file.name() == null
+                    || file.type() != AssociatedFileType.TENSOR_VALUE_LABELS) {
+                continue;
+            }
+            try (InputStream stream = metadata.getAssociatedFile(file.name())) {
+                List<String> loaded = FileUtil.loadLabels(stream);
+                return loaded.isEmpty() ? null : loaded;
+            }
+        }
+        return null;
     }
 
     public List<DetectionResult> detect(Image image) {
@@ -169,9 +374,16 @@ public class EfficientDetLite1Detector {
         return detect(packet);
     }
 
-    public List<DetectionResult> detect(FramePacket packet) {
+    public synchronized List<DetectionResult> detect(FramePacket packet) {
         List<DetectionResult> out = new ArrayList<>();
-        if (detector == null || packet == null || packet.width <= 0 || packet.height <= 0) {
+        if (packet == null || packet.width <= 0 || packet.height <= 0) {
+            return out;
+        }
+        if (interpreter != null) {
+            detectDirect(packet, out);
+            return out;
+        }
+        if (detector == null) {
             return out;
         }
         try {
@@ -199,38 +411,80 @@ public class EfficientDetLite1Detector {
                 if (box == null) {
                     continue;
                 }
-                float left = clamp01(box.left / Math.max(1f, frameWidth));
-                float top = clamp01(box.top / Math.max(1f, frameHeight));
-                float right = clamp01(box.right / Math.max(1f, frameWidth));
-                float bottom = clamp01(box.bottom / Math.max(1f, frameHeight));
-                float width = Math.max(0f, right - left);
-                float height = Math.max(0f, bottom - top);
-                if (width <= MIN_BOX_SIDE || height <= MIN_BOX_SIDE) {
+                addResult(out, best.getIndex(), normalizeLabel(best), score,
+                        box.left / Math.max(1f, frameWidth),
+                        box.top / Math.max(1f, frameHeight),
+                        box.right / Math.max(1f, frameWidth),
+                        box.bottom / Math.max(1f, frameHeight));
+            }
+        } catch (Throwable t) {
+            warnInferenceSkipped(t);
+        }
+        return out;
+    }
+
+    private void detectDirect(FramePacket packet, List<DetectionResult> out) {
+        try {
+            inputs[0] = inputConverter.convert(packet.y, packet.u, packet.v,
+                    packet.width, packet.height,
+                    packet.yRowStride, packet.yPixelStride,
+                    packet.uvRowStride, packet.uvPixelStride);
+            interpreter.runForMultipleInputsOutputs(inputs, outputs);
+            int count = Math.min(Math.min((int) outputCount[0], outputScores[0].length), MAX_RESULTS);
+            for (int i = 0; i < count; i++) {
+                float score = outputScores[0][i];
+                if (score < MIN_CONFIDENCE) {
                     continue;
                 }
-                float centerX = clamp01((left + right) * 0.5f);
-                float centerY = clamp01((top + bottom) * 0.5f);
-                String label = normalizeLabel(best);
-                String coarse = mapCoarseType(label);
-                out.add(new DetectionResult(
-                        best.getIndex(),
-                        label,
-                        coarse,
-                        score,
-                        centerX,
-                        centerY,
-                        width,
-                        height
-                ));
+                int classId = Math.round(outputClasses[0][i]);
+                String label = classId >= 0 && classId < labels.size() && !"???".equals(labels.get(classId))
+                        ? labels.get(classId)
+                        : "object";
+                // Boxes are [ymin, xmin, ymax, xmax], normalized to the letterboxed input
+                float[] box = outputBoxes[0][i];
+                addResult(out, classId, label, score,
+                        inputConverter.toFrameX(box[1]),
+                        inputConverter.toFrameY(box[0]),
+                        inputConverter.toFrameX(box[3]),
+                        inputConverter.toFrameY(box[2]));
             }
         } catch (Throwable t) {
-            long now = android.os.SystemClock.elapsedRealtime();
-            if ((now - lastInferenceWarnMs) > 5000L) {
-                lastInferenceWarnMs = now;
-                FLog.w(TAG, "EfficientDet inference skipped for one frame: " + t.getClass().getSimpleName());
-            }
+            warnInferenceSkipped(t);
+        }
+    }
+
+    /** Clamps a frame-normalized box, drops slivers and appends the result. */
+    private void addResult(List<DetectionResult> out, int classId, String label, float score,
+                           float rawLeft, float rawTop, float rawRight, float rawBottom) {
+        float left = clamp01(rawLeft);
+        float top = clamp01(rawTop);
+        float right = clamp01(rawRight);
+        float bottom = clamp01(rawBottom);
+        float width = Math.max(0f, right - left);
+        float height = Math.max(0f, bottom - top);
+        if (width <= MIN_BOX_SIDE || height <= MIN_BOX_SIDE) {
+            return;
+        }
+        float centerX = clamp01((left + right) * 0.5f);
+        float centerY = clamp01((top + bottom) * 0.5f);
+        out.add(new DetectionResult(
+                classId,
+                label,
+                mapCoarseType(label),
+                score,
+                centerX,
+                centerY,
+                width,
+                height
+        ));
+    }
+
+    private void warnInferenceSkipped(Throwable t) {
+        long now = android.os.SystemClock.elapsedRealtime();
+        if ((now - lastInferenceWarnMs) > 5000L) {
+            lastInferenceWarnMs = now;
+            FLog.w(TAG, "EfficientDet inference skipped for one frame: " + t.getClass().getSimpleName());
         }
-        return out;
     }
 
     public float bestPersonConfidence(List<DetectionResult> detections) {
@@ -2,9 +2,37 @@ package com.fadcam.motion.domain.detector;
 
 import android.media.Image;
 
+import androidx.annotation.Nullable;
+
+import com.fadcam.motion.domain.model.MotionTileGrid;
+
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
-public class FrameDiffMotionDetector implements MotionDetector, MotionDebugInfoProvider {
+/**
+ * Frame-difference motion score over a fixed luma sample grid (at most 160x90).
+ * <p>
+ * Architecture:
+ * <ul>
+ *   <li>Allocation-free per frame: the sample grid is double-buffered (current / previous swap),
+ *   grid row and column offsets are computed once per geometry, and each sampled luma row is
+ *   read with one bulk {@link ByteBuffer#get(byte[], int, int)} into a reused scratch row.</li>
+ *   <li>The background model is fixed-point (8 fractional bits) and updated with integer
+ *   multiply-shift blending; the per-frame global brightness shifts are fixed-point too, so
+ *   the scoring pass has no float math per sample.</li>
+ *   <li>One fused pass computes frame/background deltas, counters, the motion centroid and
+ *   the background update. Frame means come from running sums (current from sampling,
+ *   previous and background from the last pass).</li>
+ *   <li>Optional region-of-interest mask ({@link #setRegionOfInterest}) excludes grid cells
+ *   from every sum, ratio and background update.</li>
+ *   <li>The same pass bins changed cells into a {@link MotionTileGrid} heatmap (one counter
+ *   increment per changed cell) for per-zone triggering.</li>
+ * </ul>
+ * {@link #detectScore} runs on a single analysis thread; getters and the ROI setter may be
+ * called from others.
+ */
+public class FrameDiffMotionDetector implements MotionDetector, MotionDebugInfoProvider, MotionTileActivityProvider,
+        MotionRegionOfInterestFilter {
 
     private static final int SAMPLE_GRID_W = 160;
     private static final int SAMPLE_GRID_H = 90;
@@ -22,8 +50,51 @@ public class FrameDiffMotionDetector implements MotionDetector, MotionDebugInfoP
     private static final float GLOBAL_MOTION_HARD_AREA_THRESHOLD = 0.85f;
     private static final float GLOBAL_MOTION_STRONG_AREA_THRESHOLD = 0.45f;
     private static final float GLOBAL_ADAPT_LEARNING_RATE = 0.22f;
+
+    // Background values carry 8 fractional bits; blend rates are 16-bit fractions
+    private static final int BG_SHIFT = 8;
+    private static final int BG_HALF = 1 << (BG_SHIFT - 1);
+    private static final int RATE_SHIFT = 16;
+    private static final int RATE_HALF = 1 << (RATE_SHIFT - 1);
+    private static final int BACKGROUND_RATE_FX = Math.round(BACKGROUND_LEARNING_RATE * (1 << RATE_SHIFT));
+    private static final int GLOBAL_ADAPT_RATE_FX = Math.round(GLOBAL_ADAPT_LEARNING_RATE * (1 << RATE_SHIFT));
+
+    // ── Model (analysis thread only) ────────────────────────────────────
+    private byte[] current;
     private byte[] previous;
-    private float[] background;
+    private int[] background;
+    private boolean seeded;
+    private long previousSum;
+    private long backgroundSum;
+
+    // ── Sampling geometry, rebuilt when the frame layout changes ────────
+    private int gridW;
+    private int gridH;
+    private int frameWidth;
+    private int frameHeight;
+    private int frameRowStride;
+    private int framePixelStride;
+    private int[] rowOffsets;
+    private int[] columnOffsets;
+    private byte[] rowScratch;
+
+    // ── Tile heatmap ────────────────────────────────────────────────────
+    private final MotionTileGrid tiles = new MotionTileGrid();
+    private final int[] tileChanged = new int[tiles.getTileCount()];
+    private final int[] tileCells = new int[tiles.getTileCount()];
+    private int[] tileOfColumn;
+    private int[] tileRowBase;
+    private boolean hasTileActivity;
+
+    // ── Region of interest ──────────────────────────────────────────────
+    private volatile RoiMask pendingRoi;
+    private volatile boolean roiChanged;
+    @Nullable
+    private RoiMask roi;
+    // roi resampled onto the grid (1 = analysed), or null to analyse every cell
+    @Nullable
+    private byte[] gridMask;
+    private int activeCells;
 
     private volatile float lastChangedAreaRatio = 0f;
     private volatile float lastMeanDelta = 0f;
@@ -34,6 +105,18 @@ public class FrameDiffMotionDetector implements MotionDetector, MotionDebugInfoP
     private volatile float lastMotionCenterY = 0.5f;
     private volatile boolean lastGlobalMotionSuppressed = false;
 
+    private static final class RoiMask {
+        final byte[] cells;
+        final int width;
+        final int height;
+
+        RoiMask(byte[] cells, int width, int height) {
+            this.cells = cells;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
     public float getLastChangedAreaRatio() {
         return lastChangedAreaRatio;
     }
@@ -68,121 +151,141 @@ public class FrameDiffMotionDetector implements MotionDetector, MotionDebugInfoP
         return lastMotionCenterY;
     }
 
+    /**
+     * Restricts analysis to part of the frame (e.g. to ignore trees or a TV). The mask is a
+     * row-major {@code width x height} grid over the whole frame at any resolution; non-zero
+     * cells are analysed. Pass null to analyse everything. The model re-seeds on the next frame.
+     */
+    @Override
+    public void setRegionOfInterest(@Nullable byte[] mask, int width, int height) {
+        if (mask != null && (width <= 0 || height <= 0 || mask.length < width * height)) {
+            throw new IllegalArgumentException("ROI mask smaller than " + width + "x" + height);
+        }
+        pendingRoi = mask != null ? new RoiMask(mask.clone(), width, height) : null;
+        roiChanged = true;
+    }
+
+    @Override
+    public boolean copyLastTileActivity(MotionTileGrid out) {
+        if (!hasTileActivity) {
+            return false;
+        }
+        out.copyFrom(tiles);
+        return true;
+    }
+
     @Override
     public float detectScore(Image image) {
         if (image == null || image.getPlanes() == null || image.getPlanes().length == 0) {
             return 0f;
         }
         Image.Plane yPlane = image.getPlanes()[0];
-        ByteBuffer buffer = yPlane.getBuffer();
+        return detectScore(yPlane.getBuffer(), image.getWidth(), image.getHeight(),
+                yPlane.getRowStride(), yPlane.getPixelStride());
+    }
+
+    /**
+     * Scores one luma plane. Samples are read by absolute offset from index 0 up to the
+     * buffer's limit; the buffer's position is restored before returning.
+     */
+    public float detectScore(@Nullable ByteBuffer buffer, int width, int height, int rowStride, int pixelStride) {
         if (buffer == null || !buffer.hasRemaining()) {
             return 0f;
         }
-
-        int width = image.getWidth();
-        int height = image.getHeight();
-        int rowStride = yPlane.getRowStride();
-        int pixelStride = yPlane.getPixelStride();
-
-        int gridW = Math.min(SAMPLE_GRID_W, Math.max(8, width));
-        int gridH = Math.min(SAMPLE_GRID_H, Math.max(8, height));
-        int sampleCount = gridW * gridH;
-        byte[] current = new byte[sampleCount];
-
-        int index = 0;
-        for (int gy = 0; gy < gridH; gy++) {
-            int y = gy * (height - 1) / Math.max(1, gridH - 1);
-            int rowStart = y * rowStride;
-            for (int gx = 0; gx < gridW; gx++) {
-                int x = gx * (width - 1) / Math.max(1, gridW - 1);
-                int offset = rowStart + x * pixelStride;
-                if (offset >= 0 && offset < buffer.limit()) {
-                    current[index++] = buffer.get(offset);
-                } else {
-                    current[index++] = 0;
-                }
-            }
+        prepareGeometry(width, height, rowStride, pixelStride);
+        if (roiChanged) {
+            roiChanged = false;
+            roi = pendingRoi;
+            gridMask = null;
+            activeCells = gridW * gridH;
+            seeded = false;
+            countTileCells();
+        }
+        if (roi != null && gridMask == null) {
+            buildGridMask(roi);
+            countTileCells();
+        }
+        if (activeCells == 0) {
+            tiles.clear();
+            resetDebugInfo();
+            return 0f;
         }
 
-        if (previous == null || previous.length != current.length) {
-            previous = current;
-            background = new float[current.length];
-            for (int i = 0; i < current.length; i++) {
-                background[i] = current[i] & 0xFF;
-            }
-            lastChangedAreaRatio = 0f;
-            lastMeanDelta = 0f;
-            lastBackgroundDelta = 0f;
-            lastMaxDelta = 0f;
-            lastStrongAreaRatio = 0f;
-            lastGlobalMotionSuppressed = false;
+        long sumCur = sampleGrid(buffer);
+
+        if (!seeded) {
+            seedModel(sumCur);
             return 0f;
         }
 
+        final byte[] cur = current;
+        final byte[] prev = previous;
+        final int[] bg = background;
+        final byte[] mask = gridMask;
+        final int[] changedByTile = tileChanged;
+        final int[] tileColumns = tileOfColumn;
+        final int n = activeCells;
+        // Global brightness shifts in 1/256 units: (meanCur - meanPrev) and (meanCur - meanBg)
+        final int shiftPrevFx = (int) Math.round(((sumCur - previousSum) << BG_SHIFT) / (double) n);
+        final int shiftBgFx = (int) Math.round(((sumCur - backgroundSum) << BG_SHIFT) / (double) n);
+
         long sum = 0L;
         long sumBg = 0L;
-        long sumCur = 0L;
-        long sumPrev = 0L;
-        long sumBgLevel = 0L;
-        for (int i = 0; i < current.length; i++) {
-            int cur = current[i] & 0xFF;
-            int prev = previous[i] & 0xFF;
-            int bg = Math.round(background[i]);
-            sumCur += cur;
-            sumPrev += prev;
-            sumBgLevel += bg;
-        }
-        float meanCur = sumCur / (float) current.length;
-        float meanPrev = sumPrev / (float) current.length;
-        float meanBg = sumBgLevel / (float) current.length;
-        float globalShiftPrev = meanCur - meanPrev;
-        float globalShiftBg = meanCur - meanBg;
-
+        long nextBackgroundSum = 0L;
         int changedPixels = 0;
         int strongPixels = 0;
         int maxDelta = 0;
         long weightedX = 0L;
         long weightedY = 0L;
         long weightSum = 0L;
-        for (int i = 0; i < current.length; i++) {
-            int cur = current[i] & 0xFF;
-            int prev = previous[i] & 0xFF;
-            int bg = Math.round(background[i]);
-
-            int frameDelta = Math.abs(Math.round((cur - prev) - globalShiftPrev));
-            int bgDelta = Math.abs(Math.round((cur - bg) - globalShiftBg));
-            frameDelta = Math.min(255, frameDelta);
-            bgDelta = Math.min(255, bgDelta);
-            int delta = Math.max(frameDelta, bgDelta);
-            sum += delta;
-            sumBg += bgDelta;
-            if (delta > maxDelta) {
-                maxDelta = delta;
-            }
-            if (delta >= PIXEL_DELTA_THRESHOLD) {
-                changedPixels++;
-                int gx = i % gridW;
-                int gy = i / gridW;
-                int w = Math.max(1, delta);
-                weightedX += (long) gx * w;
-                weightedY += (long) gy * w;
-                weightSum += w;
-            }
-            if (delta >= STRONG_PIXEL_DELTA_THRESHOLD) {
-                strongPixels++;
-            }
+        Arrays.fill(changedByTile, 0);
+        int i = 0;
+        for (int gy = 0; gy < gridH; gy++) {
+            final int tileRow = tileRowBase[gy];
+            for (int gx = 0; gx < gridW; gx++, i++) {
+                if (mask != null && mask[i] == 0) {
+                    continue;
+                }
+                int c = cur[i] & 0xFF;
+                int p = prev[i] & 0xFF;
+                int bgFx = bg[i];
+                int b = (bgFx + BG_HALF) >> BG_SHIFT;
+
+                int frameDelta = Math.min(255, Math.abs((((c - p) << BG_SHIFT) - shiftPrevFx + BG_HALF) >> BG_SHIFT));
+                int bgDelta = Math.min(255, Math.abs((((c - b) << BG_SHIFT) - shiftBgFx + BG_HALF) >> BG_SHIFT));
+                int delta = Math.max(frameDelta, bgDelta);
+                sum += delta;
+                sumBg += bgDelta;
+                maxDelta = Math.max(maxDelta, delta);
+                if (delta >= PIXEL_DELTA_THRESHOLD) {
+                    changedPixels++;
+                    changedByTile[tileRow + tileColumns[gx]]++;
+                    weightedX += (long) gx * delta;
+                    weightedY += (long) gy * delta;
+                    weightSum += delta;
+                    if (delta >= STRONG_PIXEL_DELTA_THRESHOLD) {
+                        strongPixels++;
+                    }
+                }
 
-            if (bgDelta <= BACKGROUND_FREEZE_DELTA) {
-                background[i] = (background[i] * (1f - BACKGROUND_LEARNING_RATE))
-                    + (cur * BACKGROUND_LEARNING_RATE);
+                if (bgDelta <= BACKGROUND_FREEZE_DELTA) {
+                    bgFx += ((((c << BG_SHIFT) - bgFx) * BACKGROUND_RATE_FX) + RATE_HALF) >> RATE_SHIFT;
+                    bg[i] = bgFx;
+                }
+                nextBackgroundSum += (bgFx + BG_HALF) >> BG_SHIFT;
             }
         }
-        previous = current;
+        swapSampleBuffers(sumCur);
+        backgroundSum = nextBackgroundSum;
+        for (int t = 0; t < changedByTile.length; t++) {
+            tiles.setActivity(t, tileCells[t] > 0 ? changedByTile[t] / (float) tileCells[t] : 0f);
+        }
+        hasTileActivity = true;
 
-        float changedAreaRatio = changedPixels / (float) current.length;
-        float strongAreaRatio = strongPixels / (float) current.length;
-        float meanDelta = (sum / (float) current.length) / 255f;
-        float meanBgDelta = (sumBg / (float) current.length) / 255f;
+        float changedAreaRatio = changedPixels / (float) n;
+        float strongAreaRatio = strongPixels / (float) n;
+        float meanDelta = (sum / (float) n) / 255f;
+        float meanBgDelta = (sumBg / (float) n) / 255f;
         float maxDeltaNorm = maxDelta / 255f;
         if (weightSum > 0L) {
             lastMotionCenterX = Math.max(0f, Math.min(1f, (weightedX / (float) weightSum) / Math.max(1f, gridW - 1f)));
@@ -227,11 +330,9 @@ public class FrameDiffMotionDetector implements MotionDetector, MotionDebugInfoP
         if (globalMotionLikely) {
             // Fast background convergence on global-frame disturbances so detector
             // recovers instead of staying "active" for long periods.
-            for (int i = 0; i < current.length; i++) {
-                int cur = current[i] & 0xFF;
-                background[i] = (background[i] * (1f - GLOBAL_ADAPT_LEARNING_RATE))
-                    + (cur * GLOBAL_ADAPT_LEARNING_RATE);
-            }
+            adaptBackgroundToCurrent();
+            // Whole-frame disturbance must not trip individual zones either
+            tiles.clear();
             lastGlobalMotionSuppressed = true;
             // Treat near-full-frame motion (camera shake/tilt) as non-event motion signal.
             return 0f;
@@ -239,4 +340,168 @@ public class FrameDiffMotionDetector implements MotionDetector, MotionDebugInfoP
         lastGlobalMotionSuppressed = false;
         return Math.min(1f, Math.max(0f, score));
     }
+
+    // ── Sampling ────────────────────────────────────────────────────────
+
+    private void prepareGeometry(int width, int height, int rowStride, int pixelStride) {
+        if (width == frameWidth && height == frameHeight
+                && rowStride == frameRowStride && pixelStride == framePixelStride
+                && rowOffsets != null) {
+            return;
+        }
+        frameWidth = width;
+        frameHeight = height;
+        frameRowStride = rowStride;
+        framePixelStride = pixelStride;
+        int newGridW = Math.min(SAMPLE_GRID_W, Math.max(8, width));
+        int newGridH = Math.min(SAMPLE_GRID_H, Math.max(8, height));
+        if (newGridW != gridW || newGridH != gridH || current == null) {
+            gridW = newGridW;
+            gridH = newGridH;
+            int cells = gridW * gridH;
+            current = new byte[cells];
+            previous = new byte[cells];
+            background = new int[cells];
+            gridMask = null;
+            seeded = false;
+        }
+        rowOffsets = new int[gridH];
+        for (int gy = 0; gy < gridH; gy++) {
+            rowOffsets[gy] = (gy * (height - 1) / Math.max(1, gridH - 1)) * rowStride;
+        }
+        columnOffsets = new int[gridW];
+        for (int gx = 0; gx < gridW; gx++) {
+            columnOffsets[gx] = (gx * (width - 1) / Math.max(1, gridW - 1)) * pixelStride;
+        }
+        rowScratch = new byte[Math.max(1, columnOffsets[gridW - 1] + 1)];
+        if (roi == null) {
+            activeCells = gridW * gridH;
+        }
+        tileOfColumn = new int[gridW];
+        for (int gx = 0; gx < gridW; gx++) {
+            tileOfColumn[gx] = gx * tiles.getColumns() / gridW;
+        }
+        tileRowBase = new int[gridH];
+        for (int gy = 0; gy < gridH; gy++) {
+            tileRowBase[gy] = (gy * tiles.getRows() / gridH) * tiles.getColumns();
+        }
+        countTileCells();
+    }
+
+    /** Analysed cells per tile (the activity denominator); depends on grid and ROI. */
+    private void countTileCells() {
+        Arrays.fill(tileCells, 0);
+        int i = 0;
+        for (int gy = 0; gy < gridH; gy++) {
+            for (int gx = 0; gx < gridW; gx++, i++) {
+                if (gridMask == null || gridMask[i] != 0) {
+                    tileCells[tileRowBase[gy] + tileOfColumn[gx]]++;
+                }
+            }
+        }
+    }
+
+    /** Fills {@link #current} from {@code buffer}; returns the sum of analysed samples. */
+    private long sampleGrid(ByteBuffer buffer) {
+        final byte[] cur = current;
+        final byte[] row = rowScratch;
+        final int[] columns = columnOffsets;
+        final byte[] mask = gridMask;
+        final int limit = buffer.limit();
+        final int savedPosition = buffer.position();
+        long sumCur = 0L;
+        try {
+            int i = 0;
+            for (int gy = 0; gy < gridH; gy++) {
+                int rowStart = rowOffsets[gy];
+                // Offsets past the limit (or a negative start) read as 0, like the absolute get they replace
+                int available = rowStart >= 0 && rowStart < limit ? Math.min(row.length, limit - rowStart) : 0;
+                if (available > 0) {
+                    buffer.position(rowStart);
+                    buffer.get(row, 0, available);
+                }
+                for (int gx = 0; gx < gridW; gx++, i++) {
+                    int offset = columns[gx];
+                    byte sample = offset < available ? row[offset] : 0;
+                    cur[i] = sample;
+                    if (mask == null || mask[i] != 0) {
+                        sumCur += sample & 0xFF;
+                    }
+                }
+            }
+        } finally {
+            buffer.position(savedPosition);
+        }
+        return sumCur;
+    }
+
+    private void buildGridMask(RoiMask mask) {
+        byte[] cells = new byte[gridW * gridH];
+        int active = 0;
+        int i = 0;
+        for (int gy = 0; gy < gridH; gy++) {
+            int my = gy * mask.height / gridH;
+            for (int gx = 0; gx < gridW; gx++, i++) {
+                int mx = gx * mask.width / gridW;
+                if (mask.cells[my * mask.width + mx] != 0) {
+                    cells[i] = 1;
+                    active++;
+                }
+            }
+        }
+        gridMask = cells;
+        activeCells = active;
+    }
+
+    // ── Model ───────────────────────────────────────────────────────────
+
+    private void seedModel(long sumCur) {
+        long bgSum = 0L;
+        for (int i = 0; i < current.length; i++) {
+            int c = current[i] & 0xFF;
+            background[i] = c << BG_SHIFT;
+            if (gridMask == null || gridMask[i] != 0) {
+                bgSum += c;
+            }
+        }
+        backgroundSum = bgSum;
+        swapSampleBuffers(sumCur);
+        seeded = true;
+        tiles.clear();
+        resetDebugInfo();
+    }
+
+    private void adaptBackgroundToCurrent() {
+        // Buffers were already swapped: the frame just scored is now "previous"
+        final byte[] frame = previous;
+        final int[] bg = background;
+        final byte[] mask = gridMask;
+        long bgSum = 0L;
+        for (int i = 0; i < bg.length; i++) {
+            if (mask != null && mask[i] == 0) {
+                continue;
+            }
+            int bgFx = bg[i];
+            bgFx += (((((frame[i] & 0xFF) << BG_SHIFT) - bgFx) * GLOBAL_ADAPT_RATE_FX) + RATE_HALF) >> RATE_SHIFT;
+            bg[i] = bgFx;
+            bgSum += (bgFx + BG_HALF) >> BG_SHIFT;
+        }
+        backgroundSum = bgSum;
+    }
+
+    private void swapSampleBuffers(long sumCur) {
+        byte[] swap = previous;
+        previous = current;
+        current = swap;
+        previousSum = sumCur;
+    }
+
+    private void resetDebugInfo() {
+        lastChangedAreaRatio = 0f;
+        lastMeanDelta = 0f;
+        lastBackgroundDelta = 0f;
+        lastMaxDelta = 0f;
+        lastStrongAreaRatio = 0f;
+        lastGlobalMotionSuppressed = false;
+    }
 }
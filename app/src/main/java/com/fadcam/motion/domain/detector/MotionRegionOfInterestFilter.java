@@ -0,0 +1,16 @@
+package com.fadcam.motion.domain.detector;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Detectors that can leave part of the frame out of scoring (e.g. ignored motion zones), so
+ * motion there never reaches the whole-frame score, the tile heatmap or the background model.
+ */
+public interface MotionRegionOfInterestFilter {
+    /**
+     * Restricts analysis to part of the frame. The mask is a row-major {@code width x height}
+     * grid over the whole frame at any resolution; non-zero cells are analysed. Pass null to
+     * analyse everything. Takes effect on the next frame; may be called from any thread.
+     */
+    void setRegionOfInterest(@Nullable byte[] mask, int width, int height);
+}
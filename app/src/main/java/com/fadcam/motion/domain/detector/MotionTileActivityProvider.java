@@ -0,0 +1,17 @@
+package com.fadcam.motion.domain.detector;
+
+import com.fadcam.motion.domain.model.MotionTileGrid;
+
+/**
+ * Detectors that build a {@link MotionTileGrid} heatmap while scoring. Called on the
+ * detector's thread right after {@link MotionDetector#detectScore}.
+ */
+public interface MotionTileActivityProvider {
+    /**
+     * Copies the last frame's tile activity into {@code out} (which must be
+     * {@link MotionTileGrid#DEFAULT_COLUMNS} x {@link MotionTileGrid#DEFAULT_ROWS}).
+     *
+     * @return false if no frame has been scored yet; {@code out} is then left untouched.
+     */
+    boolean copyLastTileActivity(MotionTileGrid out);
+}
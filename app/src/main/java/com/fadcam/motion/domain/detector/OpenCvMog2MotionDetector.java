@@ -2,22 +2,32 @@ package com.fadcam.motion.domain.detector;
 
 import android.media.Image;
 
+import androidx.annotation.Nullable;
+
+import com.fadcam.motion.domain.model.MotionTileGrid;
+
 import org.opencv.android.OpenCVLoader;
 import org.opencv.core.CvType;
 import org.opencv.core.Mat;
 import org.opencv.core.Scalar;
+import org.opencv.core.Size;
 import org.opencv.imgproc.Imgproc;
 import org.opencv.imgproc.Moments;
 import org.opencv.video.BackgroundSubtractorMOG2;
 import org.opencv.video.Video;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
  * OpenCV-backed motion detector using MOG2 foreground segmentation.
- * Optimized for low-resolution grayscale analysis frames.
+ * Optimized for low-resolution grayscale analysis frames. The tile heatmap is the foreground
+ * mask area-averaged down to the tile grid in native code. An optional region-of-interest mask
+ * ({@link #setRegionOfInterest}) is cleared from the foreground and left out of every sum and
+ * ratio, so ignored zones never reach the score or the heatmap.
  */
-public class OpenCvMog2MotionDetector implements MotionDetector, MotionDebugInfoProvider {
+public class OpenCvMog2MotionDetector implements MotionDetector, MotionDebugInfoProvider, MotionTileActivityProvider,
+        MotionRegionOfInterestFilter {
     private static final int SAMPLE_W = 320;
     private static final int SAMPLE_H = 180;
     private static final int STRONG_DELTA_THRESHOLD = 14;
@@ -34,6 +44,22 @@ public class OpenCvMog2MotionDetector implements MotionDetector, MotionDebugInfo
     private final Mat fgMask;
     private final byte[] current;
     private byte[] previous;
+    private final MotionTileGrid tiles = new MotionTileGrid();
+    private final Mat tileMat;
+    private final Size tileSize;
+    private final byte[] tileBytes;
+    private boolean hasTileActivity;
+
+    // Region of interest, resampled to the sample grid (0 = ignored, 255 = analysed)
+    private volatile byte[] pendingRoi;
+    private volatile boolean roiChanged;
+    @Nullable
+    private byte[] roiSamples;
+    @Nullable
+    private Mat roiMat;
+    private int activeSamples = SAMPLE_W * SAMPLE_H;
+    // Analysed fraction of each tile, so a partly ignored tile still reads 0..1
+    private final float[] tileCoverage;
 
     private float lastChangedAreaRatio = 0f;
     private float lastStrongAreaRatio = 0f;
@@ -53,6 +79,34 @@ public class OpenCvMog2MotionDetector implements MotionDetector, MotionDebugInfo
         grayMat = new Mat(SAMPLE_H, SAMPLE_W, CvType.CV_8UC1);
         fgMask = new Mat(SAMPLE_H, SAMPLE_W, CvType.CV_8UC1);
         current = new byte[SAMPLE_W * SAMPLE_H];
+        tileMat = new Mat(tiles.getRows(), tiles.getColumns(), CvType.CV_8UC1);
+        tileSize = new Size(tiles.getColumns(), tiles.getRows());
+        tileBytes = new byte[tiles.getTileCount()];
+        tileCoverage = new float[tiles.getTileCount()];
+        Arrays.fill(tileCoverage, 1f);
+    }
+
+    @Override
+    public void setRegionOfInterest(@Nullable byte[] mask, int width, int height) {
+        if (mask == null) {
+            pendingRoi = null;
+            roiChanged = true;
+            return;
+        }
+        if (width <= 0 || height <= 0 || mask.length < width * height) {
+            throw new IllegalArgumentException("ROI mask smaller than " + width + "x" + height);
+        }
+        byte[] samples = new byte[SAMPLE_W * SAMPLE_H];
+        int i = 0;
+        for (int y = 0; y < SAMPLE_H; y++) {
+            int my = y * height / SAMPLE_H;
+            for (int x = 0; x < SAMPLE_W; x++, i++) {
+                int mx = x * width / SAMPLE_W;
+                samples[i] = mask[my * width + mx] != 0 ? (byte) 255 : 0;
+            }
+        }
+        pendingRoi = samples;
+        roiChanged = true;
     }
 
     @Override
@@ -71,20 +125,36 @@ public class OpenCvMog2MotionDetector implements MotionDetector, MotionDebugInfo
         int rowStride = yPlane.getRowStride();
         int pixelStride = yPlane.getPixelStride();
 
+        if (roiChanged) {
+            roiChanged = false;
+            applyRegionOfInterest(pendingRoi);
+            previous = null; // re-seed the frame delta on the new region
+        }
+        if (activeSamples == 0) {
+            tiles.clear();
+            resetDebug();
+            return 0f;
+        }
+
         sampleLuma(yBuffer, width, height, rowStride, pixelStride, current);
 
         if (previous == null || previous.length != current.length) {
             previous = current.clone();
             grayMat.put(0, 0, current);
             mog2.apply(grayMat, fgMask, 1.0);
+            tiles.clear();
             resetDebug();
             return 0f;
         }
 
+        final byte[] roi = roiSamples;
         long deltaSum = 0L;
         int strongPixels = 0;
         int maxDelta = 0;
         for (int i = 0; i < current.length; i++) {
+            if (roi != null && roi[i] == 0) {
+                continue;
+            }
             int cur = current[i] & 0xFF;
             int prev = previous[i] & 0xFF;
             int delta = Math.abs(cur - prev);
@@ -98,16 +168,29 @@ public class OpenCvMog2MotionDetector implements MotionDetector, MotionDebugInfo
         }
         previous = current.clone();
 
-        lastMeanDelta = (deltaSum / (float) current.length) / 255f;
-        lastStrongAreaRatio = strongPixels / (float) current.length;
+        lastMeanDelta = (deltaSum / (float) activeSamples) / 255f;
+        lastStrongAreaRatio = strongPixels / (float) activeSamples;
         lastMaxDelta = maxDelta / 255f;
 
         grayMat.put(0, 0, current);
         mog2.apply(grayMat, fgMask, 0.01);
         Imgproc.threshold(fgMask, fgMask, 160.0, 255.0, Imgproc.THRESH_BINARY);
+        if (roiMat != null) {
+            org.opencv.core.Core.bitwise_and(fgMask, roiMat, fgMask);
+        }
         int changedPixels = org.opencv.core.Core.countNonZero(fgMask);
-        lastChangedAreaRatio = changedPixels / (float) current.length;
-        lastBackgroundDelta = (float) org.opencv.core.Core.mean(fgMask).val[0] / 255f;
+        lastChangedAreaRatio = changedPixels / (float) activeSamples;
+        // Mean over the whole mask, rescaled to the analysed area
+        lastBackgroundDelta = (float) org.opencv.core.Core.mean(fgMask).val[0] / 255f
+                * current.length / activeSamples;
+        // INTER_AREA averages each tile's 0/255 mask pixels: value / 255 = changed fraction
+        Imgproc.resize(fgMask, tileMat, tileSize, 0, 0, Imgproc.INTER_AREA);
+        tileMat.get(0, 0, tileBytes);
+        for (int t = 0; t < tileBytes.length; t++) {
+            float coverage = tileCoverage[t];
+            tiles.setActivity(t, coverage > 0f ? Math.min(1f, (tileBytes[t] & 0xFF) / 255f / coverage) : 0f);
+        }
+        hasTileActivity = true;
         if (changedPixels > 0) {
             Moments m = Imgproc.moments(fgMask, true);
             if (m.m00 > 0d) {
@@ -146,6 +229,7 @@ public class OpenCvMog2MotionDetector implements MotionDetector, MotionDebugInfo
             }
             // Fast background adaptation when global disturbance happens.
             mog2.apply(grayMat, fgMask, 0.25);
+            tiles.clear();
             lastGlobalMotionSuppressed = true;
             return 0f;
         }
@@ -158,6 +242,15 @@ public class OpenCvMog2MotionDetector implements MotionDetector, MotionDebugInfo
         return Math.max(0f, Math.min(1f, score));
     }
 
+    @Override
+    public boolean copyLastTileActivity(MotionTileGrid out) {
+        if (!hasTileActivity) {
+            return false;
+        }
+        out.copyFrom(tiles);
+        return true;
+    }
+
     @Override
     public float getLastChangedAreaRatio() {
         return lastChangedAreaRatio;
@@ -198,6 +291,36 @@ public class OpenCvMog2MotionDetector implements MotionDetector, MotionDebugInfo
         return lastMotionCenterY;
     }
 
+    /** Analysis thread: installs {@code samples} (or the whole frame when null). */
+    private void applyRegionOfInterest(@Nullable byte[] samples) {
+        roiSamples = samples;
+        if (samples == null) {
+            if (roiMat != null) {
+                roiMat.release();
+                roiMat = null;
+            }
+            activeSamples = SAMPLE_W * SAMPLE_H;
+            Arrays.fill(tileCoverage, 1f);
+            return;
+        }
+        if (roiMat == null) {
+            roiMat = new Mat(SAMPLE_H, SAMPLE_W, CvType.CV_8UC1);
+        }
+        roiMat.put(0, 0, samples);
+        int active = 0;
+        for (byte sample : samples) {
+            if (sample != 0) {
+                active++;
+            }
+        }
+        activeSamples = active;
+        Imgproc.resize(roiMat, tileMat, tileSize, 0, 0, Imgproc.INTER_AREA);
+        tileMat.get(0, 0, tileBytes);
+        for (int t = 0; t < tileBytes.length; t++) {
+            tileCoverage[t] = (tileBytes[t] & 0xFF) / 255f;
+        }
+    }
+
     private void resetDebug() {
         lastChangedAreaRatio = 0f;
         lastStrongAreaRatio = 0f;
@@ -0,0 +1,180 @@
+package com.fadcam.motion.domain.detector;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Resamples YUV_420_888 planes straight into a detector's uint8 RGB (HWC) input tensor,
+ * letterboxed to the model size, without an intermediate ARGB {@code int[]} or Bitmap.
+ *
+ * Architecture:
+ * <ul>
+ *   <li>Nearest-neighbour sampling, like the former bitmap path: per-column Y/UV offsets and
+ *       per-row source rows are precomputed once per frame geometry.</li>
+ *   <li>YUV→RGB uses the same BT.601 full-range coefficients in 16-bit fixed point.</li>
+ *   <li>The frame keeps its aspect ratio; padding is black and only written when the
+ *       geometry changes.</li>
+ *   <li>Pixels are written with absolute puts straight into one reused direct buffer, which
+ *       is what the interpreter reads; there is no intermediate copy.</li>
+ * </ul>
+ *
+ * Not thread-safe.
+ */
+public final class YuvModelInputConverter {
+
+    private static final int CHANNELS = 3;
+
+    private final int inputWidth;
+    private final int inputHeight;
+    private final ByteBuffer input;
+
+    // Geometry the tables below were built for
+    private int frameWidth = -1;
+    private int frameHeight = -1;
+    private int yPixelStride = -1;
+    private int uvPixelStride = -1;
+
+    private int contentLeft;
+    private int contentTop;
+    private int contentWidth;
+    private int contentHeight;
+    private int[] yColumnOffsets = new int[0];
+    private int[] uvColumnOffsets = new int[0];
+    private int[] sourceRows = new int[0];
+
+    public YuvModelInputConverter(int inputWidth, int inputHeight) {
+        if (inputWidth <= 0 || inputHeight <= 0) {
+            throw new IllegalArgumentException("input size must be > 0");
+        }
+        this.inputWidth = inputWidth;
+        this.inputHeight = inputHeight;
+        this.input = ByteBuffer.allocateDirect(inputWidth * inputHeight * CHANNELS)
+                .order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Converts one frame. Plane arrays and strides follow {@code Image.Plane}; indices outside
+     * a plane read as black luma / neutral chroma.
+     *
+     * @return The reused input buffer, rewound; valid until the next call
+     */
+    public ByteBuffer convert(byte[] y, byte[] u, byte[] v,
+                              int width, int height,
+                              int yRowStride, int yPixelStride,
+                              int uvRowStride, int uvPixelStride) {
+        prepare(width, height, yPixelStride, uvPixelStride);
+        int lastYColumn = yColumnOffsets[contentWidth - 1];
+        int lastUvColumn = uvColumnOffsets[contentWidth - 1];
+        int uvLength = Math.min(u.length, v.length);
+
+        for (int row = 0; row < contentHeight; row++) {
+            int sourceRow = sourceRows[row];
+            int yRowStart = sourceRow * yRowStride;
+            int uvRowStart = (sourceRow >> 1) * uvRowStride;
+            int out = ((contentTop + row) * inputWidth + contentLeft) * CHANNELS;
+            if (yRowStart + lastYColumn < y.length && uvRowStart + lastUvColumn < uvLength) {
+                for (int column = 0; column < contentWidth; column++) {
+                    int uvIndex = uvRowStart + uvColumnOffsets[column];
+                    out = putRgb(out, y[yRowStart + yColumnOffsets[column]] & 0xFF,
+                            (u[uvIndex] & 0xFF) - 128, (v[uvIndex] & 0xFF) - 128);
+                }
+            } else {
+                // Truncated last row(s) of a plane: bounds-check every sample
+                for (int column = 0; column < contentWidth; column++) {
+                    int yIndex = yRowStart + yColumnOffsets[column];
+                    int uvIndex = uvRowStart + uvColumnOffsets[column];
+                    int luma = yIndex < y.length ? (y[yIndex] & 0xFF) : 0;
+                    int cb = uvIndex < u.length ? (u[uvIndex] & 0xFF) - 128 : 0;
+                    int cr = uvIndex < v.length ? (v[uvIndex] & 0xFF) - 128 : 0;
+                    out = putRgb(out, luma, cb, cr);
+                }
+            }
+        }
+
+        // Only absolute puts above; callers may have moved the position or limit
+        input.clear();
+        return input;
+    }
+
+    public int getInputWidth() {
+        return inputWidth;
+    }
+
+    public int getInputHeight() {
+        return inputHeight;
+    }
+
+    /** Maps a normalized x in model input space to a normalized x in the last converted frame. */
+    public float toFrameX(float modelX) {
+        return (modelX * inputWidth - contentLeft) / contentWidth;
+    }
+
+    /** Maps a normalized y in model input space to a normalized y in the last converted frame. */
+    public float toFrameY(float modelY) {
+        return (modelY * inputHeight - contentTop) / contentHeight;
+    }
+
+    int getContentLeft() {
+        return contentLeft;
+    }
+
+    int getContentTop() {
+        return contentTop;
+    }
+
+    int getContentWidth() {
+        return contentWidth;
+    }
+
+    int getContentHeight() {
+        return contentHeight;
+    }
+
+    private int putRgb(int out, int luma, int cb, int cr) {
+        // 1.402, 0.344136, 0.714136 and 1.772 in Q16, rounded
+        input.put(out, clampByte(luma + ((91881 * cr + 32768) >> 16)));
+        input.put(out + 1, clampByte(luma + ((32768 - 22554 * cb - 46802 * cr) >> 16)));
+        input.put(out + 2, clampByte(luma + ((116130 * cb + 32768) >> 16)));
+        return out + CHANNELS;
+    }
+
+    private static byte clampByte(int value) {
+        // max/min compile to conditional moves; ternaries mispredict on noisy chroma
+        return (byte) Math.max(0, Math.min(255, value));
+    }
+
+    private void prepare(int width, int height, int yPixelStride, int uvPixelStride) {
+        if (width == frameWidth && height == frameHeight
+                && yPixelStride == this.yPixelStride && uvPixelStride == this.uvPixelStride) {
+            return;
+        }
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("frame size must be > 0");
+        }
+        frameWidth = width;
+        frameHeight = height;
+        this.yPixelStride = yPixelStride;
+        this.uvPixelStride = uvPixelStride;
+
+        float scale = Math.min((float) inputWidth / width, (float) inputHeight / height);
+        contentWidth = Math.max(1, Math.min(inputWidth, Math.round(width * scale)));
+        contentHeight = Math.max(1, Math.min(inputHeight, Math.round(height * scale)));
+        contentLeft = (inputWidth - contentWidth) / 2;
+        contentTop = (inputHeight - contentHeight) / 2;
+
+        yColumnOffsets = new int[contentWidth];
+        uvColumnOffsets = new int[contentWidth];
+        for (int column = 0; column < contentWidth; column++) {
+            int sourceColumn = (column * width) / contentWidth;
+            yColumnOffsets[column] = sourceColumn * yPixelStride;
+            uvColumnOffsets[column] = (sourceColumn >> 1) * uvPixelStride;
+        }
+        sourceRows = new int[contentHeight];
+        for (int row = 0; row < contentHeight; row++) {
+            sourceRows[row] = (row * height) / contentHeight;
+        }
+        for (int i = 0, size = input.capacity(); i < size; i++) {
+            input.put(i, (byte) 0);
+        }
+    }
+}
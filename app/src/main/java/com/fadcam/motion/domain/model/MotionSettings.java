@@ -9,6 +9,7 @@ public class MotionSettings {
     private final int postRollMs;
     private final int preRollSeconds;
     private final boolean autoTorchEnabled;
+    private final MotionZoneSet zones;
 
     public MotionSettings(
         boolean enabled,
@@ -19,6 +20,21 @@ public class MotionSettings {
         int postRollMs,
         int preRollSeconds,
         boolean autoTorchEnabled
+    ) {
+        this(enabled, triggerMode, sensitivity, analysisFps, debounceMs, postRollMs, preRollSeconds,
+            autoTorchEnabled, MotionZoneSet.EMPTY);
+    }
+
+    public MotionSettings(
+        boolean enabled,
+        MotionTriggerMode triggerMode,
+        int sensitivity,
+        int analysisFps,
+        int debounceMs,
+        int postRollMs,
+        int preRollSeconds,
+        boolean autoTorchEnabled,
+        MotionZoneSet zones
     ) {
         this.enabled = enabled;
         this.triggerMode = triggerMode;
@@ -28,6 +44,7 @@ public class MotionSettings {
         this.postRollMs = postRollMs;
         this.preRollSeconds = preRollSeconds;
         this.autoTorchEnabled = autoTorchEnabled;
+        this.zones = zones != null ? zones : MotionZoneSet.EMPTY;
     }
 
     public boolean isEnabled() {
@@ -61,4 +78,9 @@ public class MotionSettings {
     public boolean isAutoTorchEnabled() {
         return autoTorchEnabled;
     }
+
+    /** Trigger / ignore zones; {@link MotionZoneSet#EMPTY} for whole-frame triggering. */
+    public MotionZoneSet getZones() {
+        return zones;
+    }
 }
@@ -4,11 +4,21 @@ public class MotionSignal {
     private final long timestampMs;
     private final float motionScore;
     private final boolean personDetected;
+    private final MotionTileGrid tiles;
 
     public MotionSignal(long timestampMs, float motionScore, boolean personDetected) {
+        this(timestampMs, motionScore, personDetected, null);
+    }
+
+    /**
+     * @param tiles Per-tile activity for this frame, or null if the detector has none. Not
+     *              copied: the grid is reused, so it is only valid while the signal is handled.
+     */
+    public MotionSignal(long timestampMs, float motionScore, boolean personDetected, MotionTileGrid tiles) {
         this.timestampMs = timestampMs;
         this.motionScore = motionScore;
         this.personDetected = personDetected;
+        this.tiles = tiles;
     }
 
     public long getTimestampMs() {
@@ -22,4 +32,9 @@ public class MotionSignal {
     public boolean isPersonDetected() {
         return personDetected;
     }
+
+    /** Tile activity for zone evaluation, or null. */
+    public MotionTileGrid getTiles() {
+        return tiles;
+    }
 }
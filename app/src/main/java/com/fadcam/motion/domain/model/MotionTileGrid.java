@@ -0,0 +1,76 @@
+package com.fadcam.motion.domain.model;
+
+import java.util.Arrays;
+
+/**
+ * Coarse motion heatmap: a {@code columns x rows} grid over the analysis frame where each
+ * tile holds the fraction (0..1) of its analysed samples that changed in the last frame.
+ * <p>
+ * Detectors fill it in their existing per-sample pass; zones ({@link MotionZoneSet}) are
+ * evaluated against it. Instances are mutable and reused frame to frame, so a grid carried
+ * by a {@link MotionSignal} is only valid while that signal is being handled.
+ */
+public final class MotionTileGrid {
+
+    public static final int DEFAULT_COLUMNS = 8;
+    public static final int DEFAULT_ROWS = 6;
+
+    private final int columns;
+    private final int rows;
+    private final float[] activity;
+
+    public MotionTileGrid() {
+        this(DEFAULT_COLUMNS, DEFAULT_ROWS);
+    }
+
+    public MotionTileGrid(int columns, int rows) {
+        if (columns <= 0 || rows <= 0) {
+            throw new IllegalArgumentException("Tile grid must be at least 1x1");
+        }
+        this.columns = columns;
+        this.rows = rows;
+        this.activity = new float[columns * rows];
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getTileCount() {
+        return activity.length;
+    }
+
+    /** Changed fraction of tile {@code index} (row-major). */
+    public float getActivity(int index) {
+        return activity[index];
+    }
+
+    public void setActivity(int index, float value) {
+        activity[index] = value;
+    }
+
+    public float getMaxActivity() {
+        float max = 0f;
+        for (float value : activity) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+
+    public void clear() {
+        Arrays.fill(activity, 0f);
+    }
+
+    /** Copies {@code other}'s activity; both grids must have the same dimensions. */
+    public void copyFrom(MotionTileGrid other) {
+        if (other.columns != columns || other.rows != rows) {
+            throw new IllegalArgumentException("Tile grid size mismatch: "
+                    + other.columns + "x" + other.rows + " into " + columns + "x" + rows);
+        }
+        System.arraycopy(other.activity, 0, activity, 0, activity.length);
+    }
+}
@@ -0,0 +1,66 @@
+package com.fadcam.motion.domain.model;
+
+/**
+ * Named rectangle of the frame with its own trigger threshold, e.g. "door triggers when 20%
+ * of it moves" or "parking is ignored". Bounds are normalized (0..1, left/top inclusive).
+ */
+public class MotionZone {
+    private final String name;
+    private final float left;
+    private final float top;
+    private final float right;
+    private final float bottom;
+    private final float threshold;
+    private final boolean ignored;
+
+    /**
+     * @param threshold Fraction (0..1) of the zone's area that has to change to trigger it
+     * @param ignored   Motion inside this zone never triggers, even where it overlaps other zones
+     */
+    public MotionZone(String name, float left, float top, float right, float bottom, float threshold, boolean ignored) {
+        this.name = name != null ? name : "";
+        this.left = clamp01(Math.min(left, right));
+        this.top = clamp01(Math.min(top, bottom));
+        this.right = clamp01(Math.max(left, right));
+        this.bottom = clamp01(Math.max(top, bottom));
+        this.threshold = clamp01(threshold);
+        this.ignored = ignored;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public float getLeft() {
+        return left;
+    }
+
+    public float getTop() {
+        return top;
+    }
+
+    public float getRight() {
+        return right;
+    }
+
+    public float getBottom() {
+        return bottom;
+    }
+
+    public float getThreshold() {
+        return threshold;
+    }
+
+    public boolean isIgnored() {
+        return ignored;
+    }
+
+    /** True if the normalized point lies inside this zone. */
+    public boolean contains(float x, float y) {
+        return x >= left && x < right && y >= top && y < bottom;
+    }
+
+    private static float clamp01(float value) {
+        return Math.max(0f, Math.min(1f, value));
+    }
+}
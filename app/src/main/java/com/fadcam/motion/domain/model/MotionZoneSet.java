@@ -0,0 +1,176 @@
+package com.fadcam.motion.domain.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable set of {@link MotionZone}s, pre-resolved to tile indices so evaluating a frame's
+ * {@link MotionTileGrid} is a flat O(tiles) sum with no allocation.
+ * <p>
+ * A tile belongs to a zone when the tile's centre lies inside it; a zone smaller than one
+ * tile claims the tile under its own centre. Tiles inside any ignored zone are removed from
+ * every trigger zone. The resolution is cached for the last grid size seen.
+ */
+public final class MotionZoneSet {
+
+    public static final MotionZoneSet EMPTY = new MotionZoneSet(Collections.emptyList());
+
+    private final List<MotionZone> zones;
+    private final boolean hasTriggerZones;
+    private final boolean hasIgnoredZones;
+    private volatile Resolved resolved;
+
+    /** Tile indices per zone for one grid size; ignored zones get an empty array. */
+    private static final class Resolved {
+        final int columns;
+        final int rows;
+        final int[][] tilesByZone;
+
+        Resolved(int columns, int rows, int[][] tilesByZone) {
+            this.columns = columns;
+            this.rows = rows;
+            this.tilesByZone = tilesByZone;
+        }
+    }
+
+    public MotionZoneSet(List<MotionZone> zones) {
+        this.zones = Collections.unmodifiableList(new ArrayList<>(zones));
+        boolean trigger = false;
+        boolean ignored = false;
+        for (MotionZone zone : this.zones) {
+            if (zone.isIgnored()) {
+                ignored = true;
+            } else {
+                trigger = true;
+            }
+        }
+        this.hasTriggerZones = trigger;
+        this.hasIgnoredZones = ignored;
+    }
+
+    public List<MotionZone> getZones() {
+        return zones;
+    }
+
+    public boolean isEmpty() {
+        return zones.isEmpty();
+    }
+
+    /**
+     * True when at least one zone can trigger; otherwise the whole-frame score decides, and
+     * ignored zones act only through the detector's analysis mask ({@link #buildAnalysisMask}).
+     */
+    public boolean hasTriggerZones() {
+        return hasTriggerZones;
+    }
+
+    public boolean hasIgnoredZones() {
+        return hasIgnoredZones;
+    }
+
+    /**
+     * Index (into {@link #getZones()}) of the first trigger zone whose changed fraction reaches
+     * its threshold scaled by {@code thresholdScale}, or -1 if none does.
+     */
+    public int findTriggeredZone(MotionTileGrid grid, float thresholdScale) {
+        if (!hasTriggerZones) {
+            return -1;
+        }
+        int[][] tilesByZone = resolve(grid.getColumns(), grid.getRows()).tilesByZone;
+        for (int z = 0; z < tilesByZone.length; z++) {
+            int[] tiles = tilesByZone[z];
+            if (tiles.length == 0) {
+                continue;
+            }
+            float activity = meanActivity(grid, tiles);
+            if (activity > 0f && activity >= zones.get(z).getThreshold() * thresholdScale) {
+                return z;
+            }
+        }
+        return -1;
+    }
+
+    /** Mean changed fraction of zone {@code index}; 0 for ignored or empty zones. */
+    public float getZoneActivity(MotionTileGrid grid, int index) {
+        int[] tiles = resolve(grid.getColumns(), grid.getRows()).tilesByZone[index];
+        return tiles.length == 0 ? 0f : meanActivity(grid, tiles);
+    }
+
+    /**
+     * Row-major {@code width x height} analysis mask with ignored zones cleared (0) and
+     * everything else set (1), or null when no zone is ignored.
+     */
+    public byte[] buildAnalysisMask(int width, int height) {
+        if (!hasIgnoredZones) {
+            return null;
+        }
+        byte[] mask = new byte[width * height];
+        for (int row = 0; row < height; row++) {
+            float y = (row + 0.5f) / height;
+            for (int column = 0; column < width; column++) {
+                mask[row * width + column] = isIgnoredAt((column + 0.5f) / width, y) ? (byte) 0 : (byte) 1;
+            }
+        }
+        return mask;
+    }
+
+    private static float meanActivity(MotionTileGrid grid, int[] tiles) {
+        float sum = 0f;
+        for (int tile : tiles) {
+            sum += grid.getActivity(tile);
+        }
+        return sum / tiles.length;
+    }
+
+    private Resolved resolve(int columns, int rows) {
+        Resolved current = resolved;
+        if (current != null && current.columns == columns && current.rows == rows) {
+            return current;
+        }
+        int[][] tilesByZone = new int[zones.size()][];
+        int[] scratch = new int[columns * rows];
+        for (int z = 0; z < zones.size(); z++) {
+            MotionZone zone = zones.get(z);
+            if (zone.isIgnored()) {
+                tilesByZone[z] = new int[0];
+                continue;
+            }
+            int count = 0;
+            for (int row = 0; row < rows; row++) {
+                float y = (row + 0.5f) / rows;
+                for (int column = 0; column < columns; column++) {
+                    float x = (column + 0.5f) / columns;
+                    if (zone.contains(x, y) && !isIgnoredAt(x, y)) {
+                        scratch[count++] = row * columns + column;
+                    }
+                }
+            }
+            if (count == 0) {
+                // Zone narrower than a tile: use the tile under its centre
+                float x = (zone.getLeft() + zone.getRight()) / 2f;
+                float y = (zone.getTop() + zone.getBottom()) / 2f;
+                if (!isIgnoredAt(x, y)) {
+                    int column = Math.min(columns - 1, (int) (x * columns));
+                    int row = Math.min(rows - 1, (int) (y * rows));
+                    scratch[count++] = row * columns + column;
+                }
+            }
+            int[] tiles = new int[count];
+            System.arraycopy(scratch, 0, tiles, 0, count);
+            tilesByZone[z] = tiles;
+        }
+        current = new Resolved(columns, rows, tilesByZone);
+        resolved = current;
+        return current;
+    }
+
+    private boolean isIgnoredAt(float x, float y) {
+        for (MotionZone zone : zones) {
+            if (zone.isIgnored() && zone.contains(x, y)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
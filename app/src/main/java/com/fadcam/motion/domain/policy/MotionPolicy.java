@@ -7,11 +7,18 @@ import com.fadcam.motion.domain.state.MotionSessionState;
 
 public class MotionPolicy {
 
+    // Zones hold at this fraction of their threshold, mirroring the start/stop score hysteresis.
+    private static final float ZONE_HOLD_THRESHOLD_SCALE = 0.75f;
+
     public boolean isTriggerSatisfied(MotionSettings settings, MotionSignal signal, MotionSessionState state) {
+        if (usesZones(settings, signal)) {
+            if (findTriggeredZone(settings, signal, state) < 0) {
+                return false;
+            }
+            return settings.getTriggerMode() == MotionTriggerMode.ANY_MOTION || signal.isPersonDetected();
+        }
         float requiredScore;
-        if (state == MotionSessionState.RECORDING
-                || state == MotionSessionState.POST_ROLL
-                || state == MotionSessionState.PENDING) {
+        if (isHolding(state)) {
             // While arming/holding, use stop threshold so short dips do not cancel a valid trigger.
             requiredScore = stopThresholdFromSensitivity(settings.getSensitivity());
         } else {
@@ -23,6 +30,27 @@ public class MotionPolicy {
         return settings.getTriggerMode() == MotionTriggerMode.ANY_MOTION || signal.isPersonDetected();
     }
 
+    /**
+     * True when trigger zones replace the whole-frame score: the settings define at least one
+     * trigger zone and the signal carries tile activity. With only ignored zones the score still
+     * decides; detectors already leave those areas out of it.
+     */
+    public boolean usesZones(MotionSettings settings, MotionSignal signal) {
+        return signal.getTiles() != null && settings.getZones().hasTriggerZones();
+    }
+
+    /**
+     * Index of the first zone in {@code settings} whose activity reaches its threshold (relaxed
+     * while holding), or -1 when none does or zones are not in use. O(tiles), no allocation.
+     */
+    public int findTriggeredZone(MotionSettings settings, MotionSignal signal, MotionSessionState state) {
+        if (!usesZones(settings, signal)) {
+            return -1;
+        }
+        float scale = isHolding(state) ? ZONE_HOLD_THRESHOLD_SCALE : 1f;
+        return settings.getZones().findTriggeredZone(signal.getTiles(), scale);
+    }
+
     public float startThresholdFromSensitivity(int sensitivity) {
         int clamped = Math.max(0, Math.min(100, sensitivity));
         // Higher sensitivity lowers threshold. Tuned for faster indoor trigger response.
@@ -34,4 +62,10 @@ public class MotionPolicy {
         // quiet-scene noise keeps sessions stuck in RECORDING.
         return Math.max(0.12f, startThresholdFromSensitivity(sensitivity) - 0.05f);
     }
+
+    private static boolean isHolding(MotionSessionState state) {
+        return state == MotionSessionState.RECORDING
+                || state == MotionSessionState.POST_ROLL
+                || state == MotionSessionState.PENDING;
+    }
 }
@@ -2,6 +2,7 @@ package com.fadcam.motion.domain.state;
 
 import com.fadcam.motion.domain.model.MotionSettings;
 import com.fadcam.motion.domain.model.MotionSignal;
+import com.fadcam.motion.domain.model.MotionZone;
 import com.fadcam.motion.domain.policy.MotionPolicy;
 
 public class MotionStateMachine {
@@ -24,6 +25,7 @@ public class MotionStateMachine {
     private long recordingLossSinceMs = -1L;     // debounce RECORDING → POST_ROLL
     private long recordingStartedAtMs = -1L;
     private long cooldownUntilMs = -1L;
+    private MotionZone lastTriggeredZone;       // zone behind the latest trigger, null for whole-frame
 
     public MotionStateMachine(MotionPolicy policy) {
         this.policy = policy;
@@ -33,8 +35,15 @@ public class MotionStateMachine {
         return state;
     }
 
+    /** Zone that satisfied the most recent signal, or null (no trigger, or no zones in use). */
+    public MotionZone getLastTriggeredZone() {
+        return lastTriggeredZone;
+    }
+
     public TransitionAction onSignal(MotionSettings settings, MotionSignal signal) {
         boolean triggered = policy.isTriggerSatisfied(settings, signal, state);
+        int zoneIndex = triggered ? policy.findTriggeredZone(settings, signal, state) : -1;
+        lastTriggeredZone = zoneIndex >= 0 ? settings.getZones().getZones().get(zoneIndex) : null;
         switch (state) {
             case IDLE:
                 if (cooldownUntilMs > 0 && signal.getTimestampMs() < cooldownUntilMs) {
@@ -0,0 +1,286 @@
+package com.fadcam.motion.pipeline;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.fadcam.FLog;
+import com.fadcam.motion.domain.detector.EfficientDetLite1Detector;
+import com.fadcam.motion.domain.detector.MotionDebugInfoProvider;
+import com.fadcam.motion.domain.detector.MotionTileActivityProvider;
+import com.fadcam.motion.domain.model.MotionTileGrid;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+
+/**
+ * Runs the heavy half of motion analysis (object detection, JPEG encoding, state machine)
+ * on its own thread so a slow inference never stalls camera callbacks.
+ * <p>
+ * Architecture:
+ * <ul>
+ *   <li>The camera thread scores the {@code Image}, copies its planes into a pooled
+ *   {@link Frame} ({@link #obtainFrame()}) and {@link #submit}s it, then closes the image.</li>
+ *   <li>Handoff is a single slot, latest frame wins: a frame still waiting when the next one
+ *   arrives is dropped and recycled. The analysis thread always works on the freshest frame
+ *   and never builds a backlog.</li>
+ *   <li>Three frames circulate (filling, waiting, processing), each keeping its plane
+ *   buffers, so steady-state handoff allocates nothing.</li>
+ *   <li>Per-stage latency (score, copy, queue wait, process) and drop counts are kept for
+ *   the motion telemetry log; see {@link #snapshotStats()}.</li>
+ * </ul>
+ */
+public final class MotionAnalysisPipeline {
+
+    private static final String TAG = "MotionAnalysisPipeline";
+    private static final int POOL_SIZE = 3;
+
+    /** Processes one frame on the analysis thread. */
+    public interface FrameProcessor {
+        void process(@NonNull Frame frame);
+    }
+
+    /**
+     * One analysed frame: the score and detector debug values captured with it on the camera
+     * thread, and its YUV planes. Owned by the pipeline; only valid inside
+     * {@link FrameProcessor#process}.
+     */
+    public static final class Frame {
+        /** SystemClock.elapsedRealtime() when the camera thread took the frame. */
+        public long capturedAtMs;
+        public float rawScore;
+        @Nullable
+        public EfficientDetLite1Detector.FramePacket packet;
+
+        // Detector debug values for this frame (the detector's own fields move on with the next frame)
+        public boolean hasDebugInfo;
+        public float changedArea;
+        public float strongArea;
+        public float meanDelta;
+        public float backgroundDelta;
+        public float maxDelta;
+        public float centerX = 0.5f;
+        public float centerY = 0.5f;
+        public boolean globalSuppressed;
+        // Tile heatmap for zone triggering; hasTiles is false if the detector has none
+        public final MotionTileGrid tiles = new MotionTileGrid();
+        public boolean hasTiles;
+
+        long scoreNanos;
+        long copyNanos;
+        long submittedAtNanos;
+
+        /** Copies the detector's values for the frame it just scored. */
+        public void captureDebugInfo(@Nullable Object detector) {
+            hasTiles = detector instanceof MotionTileActivityProvider
+                    && ((MotionTileActivityProvider) detector).copyLastTileActivity(tiles);
+            hasDebugInfo = detector instanceof MotionDebugInfoProvider;
+            if (!hasDebugInfo) {
+                return;
+            }
+            MotionDebugInfoProvider info = (MotionDebugInfoProvider) detector;
+            changedArea = info.getLastChangedAreaRatio();
+            strongArea = info.getLastStrongAreaRatio();
+            meanDelta = info.getLastMeanDelta();
+            backgroundDelta = info.getLastBackgroundDelta();
+            maxDelta = info.getLastMaxDelta();
+            centerX = info.getLastMotionCenterX();
+            centerY = info.getLastMotionCenterY();
+            globalSuppressed = info.isLastGlobalMotionSuppressed();
+        }
+
+        /** Stage timings measured by the camera thread, reported with the pipeline's own. */
+        public void setCameraStageNanos(long scoreNanos, long copyNanos) {
+            this.scoreNanos = scoreNanos;
+            this.copyNanos = copyNanos;
+        }
+    }
+
+    /** Counters and mean stage latencies since the last {@link #resetStats()}. */
+    public static final class Stats {
+        public final long submitted;
+        public final long processed;
+        public final long dropped;
+        public final double avgScoreMs;
+        public final double avgCopyMs;
+        public final double avgWaitMs;
+        public final double avgProcessMs;
+        public final double maxProcessMs;
+
+        Stats(long submitted, long processed, long dropped, double avgScoreMs, double avgCopyMs,
+              double avgWaitMs, double avgProcessMs, double maxProcessMs) {
+            this.submitted = submitted;
+            this.processed = processed;
+            this.dropped = dropped;
+            this.avgScoreMs = avgScoreMs;
+            this.avgCopyMs = avgCopyMs;
+            this.avgWaitMs = avgWaitMs;
+            this.avgProcessMs = avgProcessMs;
+            this.maxProcessMs = maxProcessMs;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "submitted=%d, processed=%d, dropped=%d, scoreMs=%.1f, copyMs=%.1f, waitMs=%.1f, processMs=%.1f (max %.1f)",
+                    submitted, processed, dropped, avgScoreMs, avgCopyMs, avgWaitMs, avgProcessMs, maxProcessMs);
+        }
+    }
+
+    private final FrameProcessor processor;
+    private final Object lock = new Object();
+    private final Thread thread;
+
+    // Guarded by lock
+    private final ArrayDeque<Frame> free = new ArrayDeque<>(POOL_SIZE);
+    @Nullable
+    private Frame pending;
+    private boolean stopped;
+    private long submitted;
+    private long processed;
+    private long dropped;
+    private long scoreNanosTotal;
+    private long copyNanosTotal;
+    private long waitNanosTotal;
+    private long processNanosTotal;
+    private long processNanosMax;
+
+    public MotionAnalysisPipeline(@NonNull FrameProcessor processor) {
+        this.processor = processor;
+        for (int i = 0; i < POOL_SIZE; i++) {
+            free.add(new Frame());
+        }
+        thread = new Thread(this::runLoop, "MotionAnalysis");
+        thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Stops the analysis thread. A frame being processed finishes; a waiting one is discarded.
+     * Safe to call more than once.
+     */
+    public void stop() {
+        synchronized (lock) {
+            if (stopped) {
+                return;
+            }
+            stopped = true;
+            pending = null;
+            lock.notifyAll();
+        }
+        thread.interrupt();
+    }
+
+    /**
+     * A recycled frame for the camera thread to fill; its {@link Frame#packet} keeps the previous
+     * frame's buffers for {@link EfficientDetLite1Detector.FramePacket#copyFrom(android.media.Image,
+     * EfficientDetLite1Detector.FramePacket)}. Never null.
+     */
+    @NonNull
+    public Frame obtainFrame() {
+        synchronized (lock) {
+            Frame frame = free.pollFirst();
+            return frame != null ? frame : new Frame(); // only if a caller held on to a frame
+        }
+    }
+
+    /**
+     * Hands {@code frame} to the analysis thread, replacing (and dropping) any frame still
+     * waiting there.
+     */
+    public void submit(@NonNull Frame frame) {
+        frame.submittedAtNanos = System.nanoTime();
+        synchronized (lock) {
+            if (stopped) {
+                free.addLast(frame);
+                return;
+            }
+            submitted++;
+            scoreNanosTotal += frame.scoreNanos;
+            copyNanosTotal += frame.copyNanos;
+            if (pending != null) {
+                dropped++;
+                free.addLast(pending);
+            }
+            pending = frame;
+            lock.notifyAll();
+        }
+    }
+
+    /** Returns a frame obtained but not submitted (e.g. the copy failed). */
+    public void recycle(@NonNull Frame frame) {
+        synchronized (lock) {
+            free.addLast(frame);
+        }
+    }
+
+    @NonNull
+    public Stats snapshotStats() {
+        synchronized (lock) {
+            return new Stats(
+                    submitted,
+                    processed,
+                    dropped,
+                    averageMs(scoreNanosTotal, submitted),
+                    averageMs(copyNanosTotal, submitted),
+                    averageMs(waitNanosTotal, processed),
+                    averageMs(processNanosTotal, processed),
+                    processNanosMax / 1_000_000.0);
+        }
+    }
+
+    public void resetStats() {
+        synchronized (lock) {
+            submitted = 0L;
+            processed = 0L;
+            dropped = 0L;
+            scoreNanosTotal = 0L;
+            copyNanosTotal = 0L;
+            waitNanosTotal = 0L;
+            processNanosTotal = 0L;
+            processNanosMax = 0L;
+        }
+    }
+
+    private void runLoop() {
+        while (true) {
+            Frame frame;
+            synchronized (lock) {
+                while (pending == null && !stopped) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        // stop() sets the flag before interrupting; re-check it
+                    }
+                }
+                if (stopped) {
+                    return;
+                }
+                frame = pending;
+                pending = null;
+            }
+            long startNanos = System.nanoTime();
+            try {
+                processor.process(frame);
+            } catch (Throwable t) {
+                FLog.w(TAG, "Motion analysis frame processing failed", t);
+            }
+            long endNanos = System.nanoTime();
+            synchronized (lock) {
+                processed++;
+                waitNanosTotal += startNanos - frame.submittedAtNanos;
+                long processNanos = endNanos - startNanos;
+                processNanosTotal += processNanos;
+                processNanosMax = Math.max(processNanosMax, processNanos);
+                free.addLast(frame);
+            }
+        }
+    }
+
+    private static double averageMs(long totalNanos, long count) {
+        return count <= 0 ? 0.0 : totalNanos / (double) count / 1_000_000.0;
+    }
+}
@@ -25,6 +25,7 @@ import androidx.annotation.Nullable;
 import com.fadcam.VideoCodec;
 import com.fadcam.dualcam.DualCameraConfig;
 import com.fadcam.media.FragmentedMp4MuxerWrapper;
+import com.fadcam.media.PreEventSampleBuffer;
 
 /**
  * GLRecordingPipeline manages the OpenGL pipeline for real-time watermarking
@@ -262,6 +263,17 @@ public class GLRecordingPipeline {
     private long lastAudioPtsBeforePauseUs = 0;      // Last audio PTS before pause
     private boolean isCameraSwitchPause = false;     // Flag to indicate if pause is due to camera switch
 
+    // Motion pre-event standby: while motion-paused, encoded samples go to a byte-capped ring
+    // instead of the muxer and are flushed ahead of live samples on the next trigger.
+    private static final long MAX_PRE_EVENT_BUFFER_BYTES = 48L * 1024 * 1024;
+    private static final long MIN_PRE_EVENT_BUFFER_BYTES = 2L * 1024 * 1024;
+    private final Object preEventLock = new Object();
+    private volatile boolean preEventBuffering = false;
+    private boolean preEventFlushRequested = false;     // Guarded by preEventLock
+    private PreEventSampleBuffer preEventBuffer;         // Arena reused across standby periods
+    private volatile long preEventPtsOffsetUs = 0;       // Skipped standby time subtracted at write time
+    private final MediaCodec.BufferInfo preEventFlushInfo = new MediaCodec.BufferInfo();
+
     // scheduler-----------
     // Update watermark on a low-frequency handler to avoid per-frame overhead and
     // sustain 60fps
@@ -1005,8 +1017,10 @@ public class GLRecordingPipeline {
                             // PTS is already contiguous — getSynchronizedVideoTimestamp() subtracts
                             // totalPauseDurationNanos before feeding frames to the encoder, so no
                             // additional correction is needed here.
-                            mediaMuxer.writeSampleData(videoTrackIndex, encodedData, bufferInfo);
-                            segmentBytesWritten += bufferInfo.size;
+                            if (rebasePreEventPts(bufferInfo, true)) {
+                                mediaMuxer.writeSampleData(videoTrackIndex, encodedData, bufferInfo);
+                                segmentBytesWritten += bufferInfo.size;
+                            }
                         } catch (Exception e) {
                             FLog.e(TAG, "Error writing final video frame", e);
                         }
@@ -1070,10 +1084,12 @@ public class GLRecordingPipeline {
                             // PTS is already contiguous — the audio thread subtracts
                             // totalPauseDurationNanos when computing ptsUs, so no
                             // additional correction is needed here.
-                            mediaMuxer.writeSampleData(audioTrackIndex, encodedData, bufferInfo);
-                            
-                            audioSamplesWritten++;
-                            lastAudioPts = bufferInfo.presentationTimeUs;
+                            if (rebasePreEventPts(bufferInfo, false)) {
+                                mediaMuxer.writeSampleData(audioTrackIndex, encodedData, bufferInfo);
+
+                                audioSamplesWritten++;
+                                lastAudioPts = bufferInfo.presentationTimeUs;
+                            }
                             // Per-sample logging removed — summary logged at EOS below
                         } catch (Exception e) {
                             FLog.e(TAG, "Error writing final audio frame", e);
@@ -1931,7 +1947,10 @@ public class GLRecordingPipeline {
                         }
 
                         // Only write if we have valid data and muxer is still valid
-                        if (bufferInfo.size > 0 && mediaMuxer != null && muxerStarted && videoTrackIndex != -1) {
+                        if (bufferPreEventSample(PreEventSampleBuffer.TRACK_VIDEO, encodedData, bufferInfo, isKeyframe)) {
+                            // Held in the pre-event ring until the next motion trigger flushes it
+                        } else if (bufferInfo.size > 0 && mediaMuxer != null && muxerStarted && videoTrackIndex != -1
+                                && rebasePreEventPts(bufferInfo, true)) {
                             try {
                                 encodedData.position(bufferInfo.offset);
                                 encodedData.limit(bufferInfo.offset + bufferInfo.size);
@@ -2558,6 +2577,11 @@ public class GLRecordingPipeline {
             // stop log removed
             return;
         }
+        // Nothing was triggered since the motion pause: drop the pre-event media
+        finishPreEvent(false);
+        synchronized (preEventLock) {
+            preEventBuffer = null;
+        }
         pendingHevcFormat = null;
         capturedHevcCsd0 = null;
         capturedHevcCsd1 = null;
@@ -2925,6 +2949,8 @@ public class GLRecordingPipeline {
         }
 
         FLog.i(TAG, "========== PAUSE RECORDING ===========");
+        // A plain pause supersedes motion standby; the buffered pre-event media is dropped
+        finishPreEvent(false);
 
         synchronized (timestampLock) {
             // Record pause start time for duration tracking
@@ -2962,6 +2988,193 @@ public class GLRecordingPipeline {
 
     }
     
+    /**
+     * Motion auto-pause that keeps the last {@code preEventUs} of encoded media. The encoders
+     * keep running and the drain loop routes samples into a byte-capped
+     * {@link PreEventSampleBuffer} instead of the muxer; {@link #resumeRecording()} flushes it
+     * ahead of live samples, so a triggered clip starts up to that long before the trigger.
+     * Falls back to {@link #pauseRecording()} when {@code preEventUs <= 0}.
+     */
+    public void pauseRecordingWithPreEvent(long preEventUs) {
+        if (preEventUs <= 0) {
+            pauseRecording();
+            return;
+        }
+        if (!isRecording || isStopped) {
+            FLog.w(TAG, "Cannot enter pre-event standby - recording is not active");
+            return;
+        }
+        int capacity = preEventCapacityBytes(preEventUs);
+        synchronized (preEventLock) {
+            if (preEventBuffering) {
+                // Re-paused before the flush ran: stay in standby and keep the buffered media
+                preEventFlushRequested = false;
+                return;
+            }
+            if (preEventBuffer == null || preEventBuffer.getCapacityBytes() != capacity) {
+                preEventBuffer = new PreEventSampleBuffer(capacity, preEventUs);
+            } else {
+                preEventBuffer.clear();
+                preEventBuffer.setWindowUs(preEventUs);
+            }
+            preEventFlushRequested = false;
+            preEventBuffering = true;
+        }
+        FLog.i(TAG, "========== PAUSE RECORDING (pre-event standby) ===========");
+        FLog.i(TAG, "[PRE-EVENT] Buffering " + (preEventUs / 1000L) + "ms, cap=" + (capacity / 1024) + "KB");
+
+        // Start the ring on a fresh keyframe instead of waiting out the current GOP
+        if (videoEncoder != null) {
+            try {
+                android.os.Bundle params = new android.os.Bundle();
+                params.putInt(MediaCodec.PARAMETER_KEY_REQUEST_SYNC_FRAME, 0);
+                videoEncoder.setParameters(params);
+            } catch (Exception e) {
+                FLog.w(TAG, "[PRE-EVENT] Failed to request sync frame from encoder", e);
+            }
+        }
+    }
+
+    /**
+     * Buffered pre-event media that the next {@link #resumeRecording()} will prepend, or 0
+     * outside standby.
+     */
+    public long getPreEventBufferedDurationUs() {
+        synchronized (preEventLock) {
+            return preEventBuffering && preEventBuffer != null ? preEventBuffer.getBufferedDurationUs() : 0;
+        }
+    }
+
+    private int preEventCapacityBytes(long preEventUs) {
+        // Window + one GOP (the ring starts at a keyframe) + a second of VBR headroom
+        long bytesPerSecond = (Math.max(0, videoBitrate)
+                + (audioRecordingEnabled ? Math.max(0, audioBitrate) : 0)) / 8L;
+        long seconds = (preEventUs + 999_999L) / 1_000_000L + VIDEO_IFRAME_INTERVAL + 1;
+        return (int) Math.max(MIN_PRE_EVENT_BUFFER_BYTES, Math.min(MAX_PRE_EVENT_BUFFER_BYTES, bytesPerSecond * seconds));
+    }
+
+    /**
+     * Ends standby on the drain thread, so the buffered samples reach the muxer before any
+     * live sample the drain loop writes afterwards.
+     */
+    private void resumeFromPreEvent() {
+        FLog.i(TAG, "========== RESUME RECORDING (pre-event flush) ===========");
+        synchronized (preEventLock) {
+            preEventFlushRequested = true;
+        }
+        Runnable flush = () -> {
+            synchronized (preEventLock) {
+                if (preEventFlushRequested) {
+                    finishPreEvent(true);
+                }
+            }
+        };
+        Handler drain = drainHandler;
+        if (drain == null || !drain.post(flush)) {
+            flush.run();
+        }
+        ensureWatermarkUpdaterRunning();
+        updateWatermark();
+    }
+
+    /**
+     * Routes a drained sample into the pre-event ring while in standby.
+     *
+     * @return false if the sample should be written to the muxer as usual
+     */
+    private boolean bufferPreEventSample(int track, ByteBuffer data, MediaCodec.BufferInfo info, boolean keyframe) {
+        if (!preEventBuffering) {
+            return false;
+        }
+        synchronized (preEventLock) {
+            if (!preEventBuffering || preEventBuffer == null) {
+                return false;
+            }
+            preEventBuffer.add(track, data, info.offset, info.size, info.presentationTimeUs, info.flags, keyframe);
+            return true;
+        }
+    }
+
+    /**
+     * Leaves standby. With {@code flush} the buffered samples are written ahead of live ones,
+     * otherwise they are dropped. Either way the standby time that is not kept is added to
+     * {@link #preEventPtsOffsetUs}, so the next written sample follows the last one on the
+     * timeline instead of leaving a frozen gap.
+     */
+    private void finishPreEvent(boolean flush) {
+        synchronized (preEventLock) {
+            preEventFlushRequested = false;
+            if (!preEventBuffering) {
+                return;
+            }
+            boolean canFlush = flush && preEventBuffer != null && !preEventBuffer.isEmpty()
+                    && mediaMuxer != null && muxerStarted && videoTrackIndex != -1;
+            long spliceRawUs = canFlush
+                    ? preEventBuffer.getFirstPtsUs()
+                    : Math.max(0, (System.nanoTime() - recordingStartSystemTimeNanos - totalPauseDurationNanos) / 1000L);
+            long frameUs = 1_000_000L / Math.max(1, videoFramerate);
+            long skippedUs = Math.max(0, spliceRawUs - preEventPtsOffsetUs - lastVideoPts - frameUs);
+            preEventPtsOffsetUs += skippedUs;
+
+            long bufferedUs = preEventBuffer != null ? preEventBuffer.getBufferedDurationUs() : 0;
+            long bufferedBytes = preEventBuffer != null ? preEventBuffer.getBufferedBytes() : 0;
+            int[] written = new int[2];
+            if (canFlush) {
+                preEventBuffer.drainTo((track, data, ptsUs, flags) -> {
+                    boolean video = track == PreEventSampleBuffer.TRACK_VIDEO;
+                    int trackIndex = video ? videoTrackIndex : audioTrackIndex;
+                    if (trackIndex == -1) {
+                        return;
+                    }
+                    preEventFlushInfo.set(data.position(), data.remaining(), ptsUs, flags);
+                    if (!rebasePreEventPts(preEventFlushInfo, video)) {
+                        return;
+                    }
+                    try {
+                        mediaMuxer.writeSampleData(trackIndex, data, preEventFlushInfo);
+                        if (video) {
+                            videoSamplesWritten++;
+                            lastVideoPts = preEventFlushInfo.presentationTimeUs;
+                            segmentBytesWritten += preEventFlushInfo.size;
+                        } else {
+                            audioSamplesWritten++;
+                            lastAudioPts = preEventFlushInfo.presentationTimeUs;
+                        }
+                        written[video ? 0 : 1]++;
+                    } catch (Exception e) {
+                        FLog.w(TAG, "[PRE-EVENT] Failed to write buffered sample", e);
+                    }
+                });
+            } else if (preEventBuffer != null) {
+                preEventBuffer.clear();
+            }
+            preEventBuffering = false;
+            if (canFlush) {
+                FLog.i(TAG, "[PRE-EVENT] Flushed " + (bufferedUs / 1000L) + "ms (" + (bufferedBytes / 1024) + "KB, "
+                        + written[0] + " video + " + written[1] + " audio samples, "
+                        + preEventBuffer.getEvictedGopCount() + " GOPs evicted so far)");
+            } else {
+                FLog.i(TAG, "[PRE-EVENT] Standby ended without flush" + (flush ? " (nothing buffered)" : ""));
+            }
+            FLog.i(TAG, "[PRE-EVENT] Write-time PTS offset now " + (preEventPtsOffsetUs / 1000L) + "ms");
+        }
+    }
+
+    /**
+     * Applies {@link #preEventPtsOffsetUs} to a sample about to be written.
+     *
+     * @return false if the sample predates the splice point (encoded during a dropped standby)
+     *         and must be skipped to keep the track monotonic
+     */
+    private boolean rebasePreEventPts(MediaCodec.BufferInfo info, boolean video) {
+        long offset = preEventPtsOffsetUs;
+        if (offset == 0) {
+            return true;
+        }
+        info.presentationTimeUs -= offset;
+        return info.presentationTimeUs > (video ? lastVideoPts : lastAudioPts);
+    }
+
     /**
      * Prepares for a camera switch by setting the appropriate flags.
      * Call this before pauseRecording() when switching cameras.
@@ -2980,6 +3193,10 @@ public class GLRecordingPipeline {
      * Resumes the recording pipeline (no-op, for API compatibility).
      */
     public void resumeRecording() {
+        if (preEventBuffering && !isStopped) {
+            resumeFromPreEvent();
+            return;
+        }
         if (isRecording || isStopped) {
             FLog.w(TAG, "Cannot resume recording - recording is either already active or has been stopped");
             return;
@@ -3787,7 +4004,10 @@ public class GLRecordingPipeline {
                         }
 
                         // Only write if we have valid data and muxer is still valid
-                        if (bufferInfo.size > 0 && mediaMuxer != null && muxerStarted) {
+                        if (bufferPreEventSample(PreEventSampleBuffer.TRACK_AUDIO, encodedData, bufferInfo, false)) {
+                            // Held in the pre-event ring until the next motion trigger flushes it
+                        } else if (bufferInfo.size > 0 && mediaMuxer != null && muxerStarted
+                                && rebasePreEventPts(bufferInfo, false)) {
                             try {
                                 encodedData.position(bufferInfo.offset);
                                 encodedData.limit(bufferInfo.offset + bufferInfo.size);
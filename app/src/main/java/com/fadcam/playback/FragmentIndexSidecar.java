@@ -0,0 +1,272 @@
+package com.fadcam.playback;
+
+import com.fadcam.FLog;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persistent seek index for a fragmented MP4 recording (".name.mp4.fidx" next to the video).
+ *
+ * <p>Written incrementally by the recorder (one record per fragment, right after the fragment
+ * reaches disk), so even a recording that was never finalized has an index. Loading it costs
+ * one small sequential read plus two 8-byte probes, instead of walking every moof/trun of a
+ * multi-GB file.
+ *
+ * <p>Format (big-endian):
+ * <pre>
+ * header:  'FIDX' | version (int) | timescale (int) | video length (long, 0 = open-ended)
+ * record:  moof position (long) | moof+mdat size (int) | duration in timescale units (int)
+ * </pre>
+ *
+ * <p>The timescale is the unit of the record durations, so each writer stores what it
+ * actually has: the recorder Media3's millisecond fragment durations, a scan microseconds.
+ *
+ * <p>Validity stamp: the records must be contiguous and the first and last must point at a
+ * 'moof'. A scanned index stores the video length it was built from; the recorder's sidecar
+ * stores 0, because fragments are written back to back and its last record must end exactly
+ * at the video's length. Anything else (file changed, recording cut short after the last
+ * record, finalized into a regular MP4) means "rebuild".
+ */
+public final class FragmentIndexSidecar {
+
+    private static final String TAG = "FragmentIndexSidecar";
+
+    private static final int MAGIC = 0x46494458; // 'FIDX'
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 20;
+    private static final int RECORD_SIZE = 16;
+    private static final int TYPE_moof = 0x6D6F6F66;
+    private static final String SUFFIX = ".fidx";
+    /** Timescale of recorder sidecars: Media3 reports fragment durations in milliseconds. */
+    private static final int RECORDER_TIMESCALE = 1000;
+    private static final int SCAN_TIMESCALE = 1_000_000;
+
+    private FragmentIndexSidecar() {}
+
+    /**
+     * Sidecar location for {@code video} (hidden file in the same directory).
+     */
+    @NonNull
+    public static File sidecarFor(@NonNull File video) {
+        return new File(video.getParentFile(), "." + video.getName() + SUFFIX);
+    }
+
+    /**
+     * Whether a sidecar can live next to {@code video} (not for /proc/self/fd paths).
+     */
+    static boolean isSupported(@NonNull File video) {
+        return video.getParentFile() != null && !video.getPath().startsWith("/proc/");
+    }
+
+    /**
+     * Loads the sidecar of {@code video} if it exists and still matches the file.
+     *
+     * @return The index, or null if missing, unreadable or stale.
+     */
+    @Nullable
+    static FragmentedMp4IndexBuilder.FragmentIndex load(@NonNull File video) {
+        if (!isSupported(video)) {
+            return null;
+        }
+        File sidecar = sidecarFor(video);
+        long sidecarLength = sidecar.length();
+        if (sidecarLength < HEADER_SIZE + RECORD_SIZE
+                || (sidecarLength - HEADER_SIZE) % RECORD_SIZE != 0
+                || sidecarLength > Integer.MAX_VALUE) {
+            return null;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate((int) sidecarLength);
+            try (RandomAccessFile raf = new RandomAccessFile(sidecar, "r")) {
+                raf.readFully(buffer.array());
+            }
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            long timescale = buffer.getInt() & 0xFFFFFFFFL;
+            long videoLength = buffer.getLong();
+            if (timescale == 0) {
+                return null;
+            }
+
+            int count = (int) ((sidecarLength - HEADER_SIZE) / RECORD_SIZE);
+            List<FragmentedMp4IndexBuilder.FragmentEntry> fragments = new ArrayList<>(count);
+            long timeUs = 0;
+            long expectedPosition = -1;
+            for (int i = 0; i < count; i++) {
+                long position = buffer.getLong();
+                long size = buffer.getInt() & 0xFFFFFFFFL;
+                long durationUs = (buffer.getInt() & 0xFFFFFFFFL) * 1_000_000L / timescale;
+                if (size < 16 || (expectedPosition >= 0 && position != expectedPosition)) {
+                    return null;
+                }
+                FragmentedMp4IndexBuilder.FragmentEntry entry =
+                        new FragmentedMp4IndexBuilder.FragmentEntry(position, size, timeUs);
+                entry.durationUs = durationUs;
+                fragments.add(entry);
+                timeUs += durationUs;
+                expectedPosition = position + size;
+            }
+
+            // Size stamp + structural probe
+            long actualLength = video.length();
+            if (videoLength != 0 ? actualLength != videoLength : expectedPosition != actualLength) {
+                return null;
+            }
+            try (RandomAccessFile raf = new RandomAccessFile(video, "r")) {
+                if (!isMoofAt(raf, fragments.get(0).position)
+                        || !isMoofAt(raf, fragments.get(count - 1).position)) {
+                    return null;
+                }
+            }
+            return new FragmentedMp4IndexBuilder.FragmentIndex(fragments, timeUs, timescale);
+        } catch (IOException e) {
+            FLog.w(TAG, "Sidecar unreadable for " + video.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Persists an index built by scanning (atomic replace). Failures are logged and ignored.
+     */
+    static void save(@NonNull File video, @NonNull FragmentedMp4IndexBuilder.FragmentIndex index) {
+        if (!isSupported(video) || index.fragments.isEmpty()) {
+            return;
+        }
+        File sidecar = sidecarFor(video);
+        File tmp = new File(sidecar.getPath() + ".tmp");
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + RECORD_SIZE * index.fragments.size());
+        // Entries only carry microseconds; storing those avoids a lossy round trip
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(SCAN_TIMESCALE).putLong(video.length());
+        for (FragmentedMp4IndexBuilder.FragmentEntry entry : index.fragments) {
+            putRecord(buffer, entry.position, entry.size, entry.durationUs);
+        }
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(buffer.array());
+        } catch (IOException e) {
+            FLog.w(TAG, "Could not write sidecar for " + video.getName() + ": " + e.getMessage());
+            //noinspection ResultOfMethodCallIgnored
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(sidecar)) {
+            //noinspection ResultOfMethodCallIgnored
+            tmp.delete();
+        }
+    }
+
+    /**
+     * Removes the sidecar of {@code video}, if any. Call after the video was deleted or moved
+     * somewhere its index does not follow (e.g. the trash).
+     */
+    public static void delete(@NonNull File video) {
+        if (!isSupported(video)) {
+            return;
+        }
+        File sidecar = sidecarFor(video);
+        if (sidecar.exists() && !sidecar.delete()) {
+            FLog.w(TAG, "Could not delete stale sidecar " + sidecar.getName());
+        }
+    }
+
+    /**
+     * Moves the sidecar along with a renamed video. If it cannot follow, it is removed so it
+     * does not linger next to a file that no longer exists.
+     */
+    public static void rename(@NonNull File from, @NonNull File to) {
+        if (!isSupported(from)) {
+            return;
+        }
+        File sidecar = sidecarFor(from);
+        if (!sidecar.exists()) {
+            return;
+        }
+        if (!isSupported(to) || !sidecar.renameTo(sidecarFor(to))) {
+            delete(from);
+        }
+    }
+
+    private static boolean isMoofAt(RandomAccessFile raf, long position) throws IOException {
+        if (position + 8 > raf.length()) {
+            return false;
+        }
+        raf.seek(position + 4);
+        return raf.readInt() == TYPE_moof;
+    }
+
+    private static void putRecord(ByteBuffer buffer, long position, long size, long duration) {
+        buffer.putLong(position).putInt((int) size).putInt((int) Math.min(duration, 0xFFFFFFFFL));
+    }
+
+    /**
+     * Append-only writer used while recording. Each record is written with a single unbuffered
+     * write after its fragment is on disk, so a crash leaves at most the last fragment unindexed
+     * (the size stamp then rejects the sidecar and playback falls back to a scan).
+     */
+    public static final class Writer {
+        private final File file;
+        private final FileOutputStream out;
+        private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+
+        private Writer(File file, FileOutputStream out) {
+            this.file = file;
+            this.out = out;
+        }
+
+        /**
+         * Starts a fresh sidecar for {@code video}, replacing any old one.
+         *
+         * @return The writer, or null if the directory is not writable.
+         */
+        @Nullable
+        public static Writer open(@NonNull File video) {
+            if (!isSupported(video)) {
+                return null;
+            }
+            File file = sidecarFor(video);
+            try {
+                FileOutputStream out = new FileOutputStream(file, false);
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).putInt(RECORDER_TIMESCALE).putLong(0L);
+                out.write(header.array());
+                return new Writer(file, out);
+            } catch (IOException e) {
+                FLog.w(TAG, "Sidecar disabled for " + video.getName() + ": " + e.getMessage());
+                return null;
+            }
+        }
+
+        /**
+         * @param durationMs Fragment duration as reported by Media3
+         */
+        public void append(long position, long size, long durationMs) throws IOException {
+            record.clear();
+            putRecord(record, position, size, durationMs);
+            out.write(record.array());
+        }
+
+        public void close() {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        /** Closes and removes the sidecar (e.g. the recording became a regular MP4). */
+        public void discard() {
+            close();
+            if (file.exists() && !file.delete()) {
+                FLog.w(TAG, "Could not delete sidecar " + file.getName());
+            }
+        }
+    }
+}
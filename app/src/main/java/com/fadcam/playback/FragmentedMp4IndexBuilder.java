@@ -5,11 +5,12 @@ import com.fadcam.FLog;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -19,6 +20,10 @@ import java.util.List;
  * 
  * <p>This is the VLC-like approach - scan all fragments to enable seeking in fMP4
  * files that lack sidx boxes (which Media3's FragmentedMp4Muxer doesn't write).
+ * The scan is a single forward pass ({@link IncrementalScan}) that can also return a
+ * partial index early and keep following a file that is still being recorded.
+ * The result is cached in a {@link FragmentIndexSidecar} (recordings write theirs while
+ * recording), so the scan only runs once per file.
  * 
  * <p>Usage:
  * <pre>
@@ -26,11 +31,18 @@ import java.util.List;
  * FragmentIndex index = builder.buildIndex(new File(path));
  * // Use index.getSeekPosition(timeUs) to find byte offset for seeking
  * </pre>
+ * Playback uses {@link #openForPlayback} instead, which does not wait for the full scan.
  */
 public class FragmentedMp4IndexBuilder {
 
     private static final String TAG = "Fmp4IndexBuilder";
 
+    // Fragments indexed before playback starts when there is no sidecar (~1 minute at 2 s)
+    private static final int PLAYBACK_INITIAL_FRAGMENTS = 32;
+    private static final long PLAYBACK_POLL_MS = 500;
+    // A finished file stops growing at once; keep following briefly in case it is still recorded
+    private static final long PLAYBACK_STOP_AFTER_IDLE_MS = 3_000;
+
     // MP4 box type constants
     private static final int TYPE_ftyp = 0x66747970; // 'ftyp'
     private static final int TYPE_moov = 0x6D6F6F76; // 'moov'
@@ -43,6 +55,9 @@ public class FragmentedMp4IndexBuilder {
     private static final int TYPE_traf = 0x74726166; // 'traf' (track fragment)
     private static final int TYPE_tfdt = 0x74666474; // 'tfdt' (track fragment decode time)
     private static final int TYPE_trun = 0x7472756E; // 'trun' (track fragment run)
+    private static final int TYPE_tfhd = 0x74666864; // 'tfhd' (track fragment header)
+    private static final int TYPE_hdlr = 0x68646C72; // 'hdlr' (handler)
+    private static final int HANDLER_vide = 0x76696465; // 'vide'
 
     /**
      * Represents a single fragment in the MP4 file.
@@ -73,7 +88,7 @@ public class FragmentedMp4IndexBuilder {
         public final List<FragmentEntry> fragments;
         /** Total duration in microseconds. */
         public final long durationUs;
-        /** Timescale from moov/mvhd. */
+        /** Units the fragment durations were derived from (track timescale, or the sidecar's). */
         public final long timescale;
         /** Whether this index is valid for seeking. */
         public final boolean isSeekable;
@@ -192,613 +207,568 @@ public class FragmentedMp4IndexBuilder {
     /**
      * Builds a fragment index for the given file.
      * 
+     * <p>Uses the recording's {@link FragmentIndexSidecar} when it still matches the file;
+     * otherwise scans the file and persists the result for the next open.
+     * 
      * @param file The fragmented MP4 file to scan.
      * @return A FragmentIndex with all fragments, or an empty index if scanning fails.
      */
     @NonNull
     public FragmentIndex buildIndex(@NonNull File file) {
-        List<FragmentEntry> fragments = new ArrayList<>();
-        long timescale = 1000; // Default timescale
-        int videoTrackId = 0; // Video track ID from moov (0 = unknown)
-
-        if (!file.exists() || !file.canRead()) {
-            FLog.e(TAG, "File does not exist or is not readable: " + file.getPath());
-            return new FragmentIndex(fragments, 0, timescale);
+        FragmentIndex cached = FragmentIndexSidecar.load(file);
+        if (cached != null) {
+            FLog.d(TAG, "Index loaded from sidecar: " + cached.fragments.size() + " fragments, totalDuration=" +
+                  (cached.durationUs / 1000000.0) + "s");
+            return cached;
         }
+        FragmentIndex index = scanIndex(file);
+        // An empty result means not (or no longer) fragmented, e.g. finalized into a regular MP4
+        finishIndex(file, index);
+        return index;
+    }
 
-        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
-            long fileLength = raf.length();
-            long position = 0;
-            byte[] header = new byte[16]; // Buffer for atom headers
-
-            FLog.d(TAG, "Starting fragment scan: file=" + file.getName() + ", length=" + fileLength);
-
-            // First pass: find moov and get timescale and video track ID
-            while (position < fileLength) {
-                raf.seek(position);
-                if (raf.read(header, 0, 8) != 8) {
-                    break;
-                }
-
-                long atomSize = readUint32(header, 0);
-                int atomType = readInt32(header, 4);
-
-                // Handle extended size
-                if (atomSize == 1) {
-                    if (raf.read(header, 8, 8) != 8) {
-                        break;
-                    }
-                    atomSize = readInt64(header, 8);
-                } else if (atomSize == 0) {
-                    atomSize = fileLength - position;
-                }
-
-                if (atomSize < 8) {
-                    FLog.w(TAG, "Invalid atom size at position " + position);
-                    break;
-                }
-
-                if (atomType == TYPE_moov) {
-                    MoovInfo moovInfo = readMoovInfo(raf, position, atomSize);
-                    timescale = moovInfo.videoTimescale;
-                    videoTrackId = moovInfo.videoTrackId;
-                    FLog.d(TAG, "Found moov, timescale=" + timescale + ", videoTrackId=" + videoTrackId);
-                }
-
-                position += atomSize;
-            }
-
-            // Second pass: find all moof boxes
-            position = 0;
-            // Track cumulative decode time - since Media3's FragmentedMp4Muxer doesn't write tfdt,
-            // we need to calculate it from trun sample durations
-            long cumulativeDecodeTimeUs = 0;
-
-            while (position < fileLength) {
-                raf.seek(position);
-                if (raf.read(header, 0, 8) != 8) {
-                    break;
-                }
-
-                long atomSize = readUint32(header, 0);
-                int atomType = readInt32(header, 4);
-
-                // Handle extended size
-                if (atomSize == 1) {
-                    if (raf.read(header, 8, 8) != 8) {
-                        break;
-                    }
-                    atomSize = readInt64(header, 8);
-                } else if (atomSize == 0) {
-                    atomSize = fileLength - position;
-                }
-
-                if (atomSize < 8) {
-                    break;
-                }
-
-                if (atomType == TYPE_moof) {
-                    // Found moof - read fragment duration from video track's trun
-                    long fragmentDurationUnits = readMoofFragmentDuration(raf, position, atomSize, timescale, videoTrackId);
-                    long fragmentDurationUs = (fragmentDurationUnits * 1000000L) / timescale;
-                    
-                    FLog.d(TAG, "Found moof at " + position + ": fragmentDurationUnits=" + fragmentDurationUnits +
-                          ", fragmentDurationUs=" + fragmentDurationUs);
-
-                    // Find mdat size following moof
-                    long mdatSize = 0;
-                    long mdatPos = position + atomSize;
-                    if (mdatPos < fileLength) {
-                        raf.seek(mdatPos);
-                        if (raf.read(header, 0, 8) == 8) {
-                            long mdatAtomSize = readUint32(header, 0);
-                            int mdatAtomType = readInt32(header, 4);
-                            if (mdatAtomType == TYPE_mdat) {
-                                if (mdatAtomSize == 1) {
-                                    if (raf.read(header, 8, 8) == 8) {
-                                        mdatAtomSize = readInt64(header, 8);
-                                    }
-                                }
-                                mdatSize = mdatAtomSize;
-                            }
-                        }
-                    }
-
-                    long fragmentSize = atomSize + mdatSize;
-                    
-                    // Create fragment entry with current cumulative time
-                    FragmentEntry entry = new FragmentEntry(position, fragmentSize, cumulativeDecodeTimeUs);
-                    entry.durationUs = fragmentDurationUs > 0 ? fragmentDurationUs : 2000000; // Default 2s
-                    fragments.add(entry);
-
-                    FLog.d(TAG, "Fragment #" + fragments.size() + " at " + position + ": timeUs=" + cumulativeDecodeTimeUs + 
-                          " (" + (cumulativeDecodeTimeUs / 1000000.0) + "s), durationUs=" + entry.durationUs +
-                          ", size=" + fragmentSize);
-
-                    // Update cumulative time for next fragment
-                    cumulativeDecodeTimeUs += entry.durationUs;
-                }
-
-                position += atomSize;
-            }
-
+    /**
+     * Index for starting playback right away. Returns the sidecar index when it still matches;
+     * otherwise indexes the first fragments synchronously and extends the index on a background
+     * thread, saving the sidecar once the scan is done. The caller must {@link PlaybackIndex#close()}
+     * the index when playback is released, which stops that thread.
+     *
+     * @return A playback index; {@link PlaybackIndex#current()} is empty if the file could not
+     *         be read or is not fragmented.
+     */
+    @NonNull
+    public PlaybackIndex openForPlayback(@NonNull File file) {
+        FragmentIndex cached = FragmentIndexSidecar.load(file);
+        if (cached != null) {
+            FLog.d(TAG, "Playback index loaded from sidecar: " + cached.fragments.size() + " fragments");
+            return new PlaybackIndex(cached, true);
+        }
+        IncrementalScan scan;
+        FragmentIndex initial;
+        try {
+            scan = new IncrementalScan(file);
+            initial = scan.scan(PLAYBACK_INITIAL_FRAGMENTS);
         } catch (IOException e) {
-            FLog.e(TAG, "Error scanning file: " + e.getMessage(), e);
+            FLog.e(TAG, "Error opening playback index: " + e.getMessage(), e);
+            return new PlaybackIndex(new FragmentIndex(new ArrayList<>(), 0, 1000), true);
         }
-
-        // Calculate total duration
-        long totalDurationUs = 0;
-        if (!fragments.isEmpty()) {
-            FragmentEntry last = fragments.get(fragments.size() - 1);
-            totalDurationUs = last.timeUs + last.durationUs;
+        if (initial.fragments.size() < PLAYBACK_INITIAL_FRAGMENTS) {
+            // Reached the end already: this is the whole index
+            scan.close();
+            finishIndex(file, initial);
+            return new PlaybackIndex(initial, true);
         }
+        PlaybackIndex playbackIndex = new PlaybackIndex(initial, false);
+        playbackIndex.scan = scan;
+        scan.extendInBackground(PLAYBACK_POLL_MS, PLAYBACK_STOP_AFTER_IDLE_MS, new IndexListener() {
+            @Override
+            public void onIndexExtended(@NonNull FragmentIndex index) {
+                playbackIndex.current = index;
+            }
+
+            @Override
+            public void onScanFinished(@NonNull FragmentIndex index) {
+                playbackIndex.current = index;
+                playbackIndex.complete = true;
+                scan.close();
+                finishIndex(file, index);
+            }
+        });
+        return playbackIndex;
+    }
 
-        FLog.d(TAG, "Index built: " + fragments.size() + " fragments, totalDuration=" + 
-              (totalDurationUs / 1000000.0) + "s");
-
-        return new FragmentIndex(fragments, totalDurationUs, timescale);
+    /** Saves a completed scan as the sidecar, or drops a stale one if the file is not fragmented. */
+    private static void finishIndex(@NonNull File file, @NonNull FragmentIndex index) {
+        if (index.fragments.isEmpty()) {
+            if (FragmentIndexSidecar.isSupported(file)) {
+                FragmentIndexSidecar.delete(file);
+            }
+        } else {
+            FragmentIndexSidecar.save(file, index);
+        }
     }
 
     /**
-     * Reads the timescale and video track ID from the moov box.
-     * Prefers video track's mdhd timescale since trun durations are in track timescale.
+     * Fragment index that playback can use immediately while it keeps growing in the background
+     * ({@link #openForPlayback}). Each {@link #current()} is an immutable snapshot that covers
+     * at least what the previous one did. {@link #close()} stops the background scan; the last
+     * snapshot stays usable.
      */
-    private MoovInfo readMoovInfo(RandomAccessFile raf, long moovPosition, long moovSize) 
-            throws IOException {
-        long position = moovPosition + 8; // Skip moov header
-        long moovEnd = moovPosition + moovSize;
-        byte[] header = new byte[32];
-        long videoTimescale = 0;
-        long firstTrackTimescale = 0;
-        long mvhdTimescale = 0;
-        int videoTrackId = 0;
-        int trackNumber = 0; // Counter for track ID (1-based)
-
-        FLog.d(TAG, "Scanning moov at " + moovPosition + ", size=" + moovSize);
-
-        while (position < moovEnd) {
-            raf.seek(position);
-            if (raf.read(header, 0, 8) != 8) {
-                break;
-            }
-
-            long atomSize = readUint32(header, 0);
-            int atomType = readInt32(header, 4);
-            String atomName = atomTypeToString(atomType);
-
-            if (atomSize == 1) {
-                if (raf.read(header, 8, 8) != 8) {
-                    break;
-                }
-                atomSize = readInt64(header, 8);
-            }
+    public static final class PlaybackIndex implements Closeable {
+        private volatile FragmentIndex current;
+        private volatile boolean complete;
+        @Nullable
+        private volatile IncrementalScan scan;
+
+        PlaybackIndex(@NonNull FragmentIndex initial, boolean complete) {
+            this.current = initial;
+            this.complete = complete;
+        }
 
-            if (atomSize < 8) {
-                break;
-            }
+        @NonNull
+        public FragmentIndex current() {
+            return current;
+        }
 
-            FLog.d(TAG, "  Found atom: " + atomName + " at " + position + ", size=" + atomSize);
+        /** Whether {@link #current()} covers the whole file (no background scan left). */
+        public boolean isComplete() {
+            return complete;
+        }
 
-            if (atomType == TYPE_mvhd) {
-                // Read mvhd for movie timescale (fallback)
-                raf.seek(position + 8);
-                if (raf.read(header, 0, 24) == 24) {
-                    int version = header[0] & 0xFF;
-                    if (version == 0) {
-                        mvhdTimescale = readUint32(header, 12);
-                    } else {
-                        mvhdTimescale = readUint32(header, 20);
-                    }
-                    FLog.d(TAG, "  mvhd version=" + version + ", timescale=" + mvhdTimescale);
-                }
-            } else if (atomType == TYPE_trak) {
-                // Track IDs are 1-based and assigned in order of trak appearance
-                trackNumber++;
-                // Read track's mdhd timescale and check if it's video
-                TrackInfo trackInfo = readTrakInfo(raf, position, atomSize);
-                if (trackInfo != null) {
-                    trackInfo.trackId = trackNumber;
-                    if (firstTrackTimescale == 0) {
-                        firstTrackTimescale = trackInfo.timescale;
-                    }
-                    if (trackInfo.isVideo && videoTimescale == 0) {
-                        videoTimescale = trackInfo.timescale;
-                        videoTrackId = trackNumber;
-                        FLog.d(TAG, "  Found VIDEO track: id=" + videoTrackId + ", timescale=" + videoTimescale);
-                    }
-                }
+        /** Stops the background scan and closes its file; a no-op once the scan has finished. */
+        @Override
+        public void close() {
+            IncrementalScan running = scan;
+            scan = null;
+            if (running != null) {
+                running.close();
             }
-
-            position += atomSize;
         }
-
-        // Prefer video track timescale, fall back to first track, then mvhd
-        long timescale = videoTimescale > 0 ? videoTimescale : 
-                      (firstTrackTimescale > 0 ? firstTrackTimescale : 
-                      (mvhdTimescale > 0 ? mvhdTimescale : 1000));
-        FLog.d(TAG, "Using timescale: " + timescale + " (video=" + videoTimescale + 
-              ", firstTrack=" + firstTrackTimescale + ", mvhd=" + mvhdTimescale + 
-              "), videoTrackId=" + videoTrackId);
-        
-        MoovInfo moovInfo = new MoovInfo();
-        moovInfo.videoTimescale = timescale;
-        moovInfo.videoTrackId = videoTrackId;
-        return moovInfo;
     }
 
     /**
-     * Info about a track from moov/trak.
+     * Opens an incremental scan of {@code file}: {@link IncrementalScan#scan(int)} returns a
+     * usable partial index after the first fragments, and
+     * {@link IncrementalScan#extendInBackground} keeps extending it (also while the file is
+     * still being recorded). The caller must {@link IncrementalScan#close()} it.
      */
-    private static class TrackInfo {
-        long timescale;
-        boolean isVideo;
-        int trackId; // 1-based track ID (order in moov)
+    @NonNull
+    public IncrementalScan openIncremental(@NonNull File file) throws IOException {
+        return new IncrementalScan(file);
     }
 
     /**
-     * Info about the movie from moov box.
+     * Full single-pass scan of the file.
      */
-    private static class MoovInfo {
-        long videoTimescale;
-        int videoTrackId; // Track ID of the video track
+    @NonNull
+    private FragmentIndex scanIndex(@NonNull File file) {
+        if (!file.exists() || !file.canRead()) {
+            FLog.e(TAG, "File does not exist or is not readable: " + file.getPath());
+            return new FragmentIndex(new ArrayList<>(), 0, 1000);
+        }
+        try (IncrementalScan scan = new IncrementalScan(file)) {
+            FragmentIndex index = scan.scanToEnd();
+            FLog.d(TAG, "Index built: " + index.fragments.size() + " fragments, totalDuration=" +
+                  (index.durationUs / 1000000.0) + "s");
+            return index;
+        } catch (IOException e) {
+            FLog.e(TAG, "Error scanning file: " + e.getMessage(), e);
+            return new FragmentIndex(new ArrayList<>(), 0, 1000);
+        }
     }
 
     /**
-     * Reads track info (timescale and type) from a trak box.
+     * Listener for {@link IncrementalScan#extendInBackground}.
      */
-    private TrackInfo readTrakInfo(RandomAccessFile raf, long trakPosition, long trakSize) 
-            throws IOException {
-        long position = trakPosition + 8; // Skip trak header  
-        long trakEnd = trakPosition + trakSize;
-        byte[] header = new byte[32];
-        TrackInfo info = new TrackInfo();
-
-        while (position < trakEnd) {
-            raf.seek(position);
-            if (raf.read(header, 0, 8) != 8) {
-                break;
-            }
+    public interface IndexListener {
+        /** Called on the scan thread whenever new fragments were indexed. */
+        void onIndexExtended(@NonNull FragmentIndex index);
 
-            long atomSize = readUint32(header, 0);
-            int atomType = readInt32(header, 4);
-
-            if (atomSize == 1) {
-                if (raf.read(header, 8, 8) != 8) {
-                    break;
-                }
-                atomSize = readInt64(header, 8);
-            }
-
-            if (atomSize < 8) {
-                break;
-            }
-
-            if (atomType == TYPE_mdia) {
-                // Search mdia for mdhd (timescale) and hdlr (handler type)
-                readMdiaInfo(raf, position, atomSize, info);
-            }
-
-            position += atomSize;
+        /** Called on the scan thread once the background scan stops on its own (not on close). */
+        default void onScanFinished(@NonNull FragmentIndex index) {
         }
-
-        return info.timescale > 0 ? info : null;
     }
 
     /**
-     * Reads mdia info - timescale from mdhd and handler type from hdlr.
+     * Single-pass, resumable scan of the top-level boxes of a fragmented MP4.
+     *
+     * <p>Architecture:
+     * - One forward walk over a {@link FileChannel}: each box costs one 16-byte positional
+     *   read of its header; a moof (plus the header of the mdat after it) is read in ONE read
+     *   into a reused buffer and parsed in memory. The old scanner made two passes and issued
+     *   several small RandomAccessFile seeks/reads per box.
+     * - mdat payloads are skipped, never read. Because the walk touches only a few KB per
+     *   multi-MB fragment, positional reads beat a memory mapping here (mapping would fault in
+     *   whole pages of media data and, without explicit unmap on Android, pin address space
+     *   on 32-bit devices for multi-GB files).
+     * - Resumable: the scan stops at EOF or at a fragment whose mdat is not completely on disk
+     *   yet, and the next call continues from there - so a file that is still being recorded
+     *   can be indexed as it grows.
+     * - Durations are kept in track timescale units and converted in {@link #snapshot()}, so a
+     *   moov that only shows up later (never the case for our recordings) still fixes them.
      */
-    private void readMdiaInfo(RandomAccessFile raf, long mdiaPosition, long mdiaSize, TrackInfo info) 
-            throws IOException {
-        long position = mdiaPosition + 8; // Skip mdia header
-        long mdiaEnd = mdiaPosition + mdiaSize;
-        byte[] header = new byte[32];
-
-        // hdlr handler type constant for video
-        final int HANDLER_vide = 0x76696465; // 'vide'
-
-        while (position < mdiaEnd) {
-            raf.seek(position);
-            if (raf.read(header, 0, 8) != 8) {
-                break;
-            }
-
-            long atomSize = readUint32(header, 0);
-            int atomType = readInt32(header, 4);
+    public static final class IncrementalScan implements Closeable {
+
+        private static final int HEADER_READ = 16;
+        // Idle background scans stop once the file hasn't grown for this long
+        private static final long STOP_AFTER_IDLE_MS = 30_000;
+        private static final long DEFAULT_FRAGMENT_DURATION_US = 2_000_000;
+
+        private final File file;
+        private final RandomAccessFile raf;
+        private final FileChannel channel;
+        private final ByteBuffer header = ByteBuffer.allocate(HEADER_READ);
+        private ByteBuffer boxBuffer = ByteBuffer.allocate(64 * 1024);
+
+        // Scan state (guarded by this)
+        private long position = 0;
+        private boolean moovSeen = false;
+        private long timescale = 1000;
+        private int videoTrackId = 0;
+        private final List<long[]> entries = new ArrayList<>(); // {position, size, durationUnits}
+        private volatile boolean closed = false;
+        private Thread backgroundThread;
+
+        IncrementalScan(@NonNull File file) throws IOException {
+            this.file = file;
+            this.raf = new RandomAccessFile(file, "r");
+            this.channel = raf.getChannel();
+        }
 
-            if (atomSize == 1) {
-                if (raf.read(header, 8, 8) != 8) {
+        /**
+         * Indexes up to {@code maxNewFragments} more fragments (or until EOF / an incomplete
+         * fragment) and returns the index so far.
+         */
+        @NonNull
+        public synchronized FragmentIndex scan(int maxNewFragments) throws IOException {
+            long target = (long) entries.size() + Math.max(0, maxNewFragments);
+            long fileLength = channel.size();
+            while (!closed && entries.size() < target && position + 8 <= fileLength) {
+                if (!readAt(header, position, HEADER_READ, fileLength)) {
                     break;
                 }
-                atomSize = readInt64(header, 8);
-            }
-
-            if (atomSize < 8) {
-                break;
-            }
-
-            if (atomType == TYPE_mdhd) {
-                // Read mdhd for timescale
-                raf.seek(position + 8);
-                if (raf.read(header, 0, 24) == 24) {
-                    int version = header[0] & 0xFF;
-                    if (version == 0) {
-                        info.timescale = readUint32(header, 12);
-                    } else {
-                        info.timescale = readUint32(header, 20);
-                    }
-                    FLog.d(TAG, "    mdhd timescale=" + info.timescale);
+                long boxSize = header.getInt(0) & 0xFFFFFFFFL;
+                int boxType = header.getInt(4);
+                int headerSize = 8;
+                if (boxSize == 1) {
+                    if (header.limit() < 16) break;
+                    boxSize = header.getLong(8);
+                    headerSize = 16;
+                } else if (boxSize == 0) {
+                    boxSize = fileLength - position;
                 }
-            } else if (atomType == 0x68646C72) { // 'hdlr'
-                // Read hdlr for handler type
-                raf.seek(position + 8); // Skip box header
-                if (raf.read(header, 0, 16) == 16) {
-                    // hdlr: version(1) + flags(3) + pre_defined(4) + handler_type(4)
-                    int handlerType = readInt32(header, 8);
-                    info.isVideo = (handlerType == HANDLER_vide);
-                    FLog.d(TAG, "    hdlr handler=" + atomTypeToString(handlerType) + ", isVideo=" + info.isVideo);
-                }
-            }
-
-            position += atomSize;
-        }
-    }
-
-    /**
-     * Reads the total duration of samples in a moof box from trun boxes.
-     * Media3's FragmentedMp4Muxer doesn't write tfdt, so we calculate duration from trun sample_duration.
-     * 
-     * <p>NOTE: Each moof may contain multiple traf boxes (one per track). We use the VIDEO
-     * track's duration since we're using video timescale.
-     *
-     * @param raf The file to read from.
-     * @param moofPosition The position of the moof box.
-     * @param moofSize The size of the moof box.
-     * @param timescale The timescale (video timescale).
-     * @param targetVideoTrackId The video track ID from moov (0 if unknown).
-     * @return Total fragment duration in timescale units.
-     */
-    private long readMoofFragmentDuration(RandomAccessFile raf, long moofPosition, long moofSize, 
-            long timescale, int targetVideoTrackId) throws IOException {
-        long position = moofPosition + 8; // Skip moof header
-        long moofEnd = moofPosition + moofSize;
-        byte[] header = new byte[24];
-        long videoTrackDuration = 0;
-        long firstTrackDuration = 0;
-
-        while (position < moofEnd) {
-            raf.seek(position);
-            if (raf.read(header, 0, 8) != 8) {
-                break;
-            }
-
-            long atomSize = readUint32(header, 0);
-            int atomType = readInt32(header, 4);
-
-            if (atomSize == 1) {
-                if (raf.read(header, 8, 8) != 8) {
+                if (boxSize < headerSize) {
+                    FLog.w(TAG, "Invalid atom size at position " + position);
+                    position = fileLength; // corrupt: stop for good
                     break;
                 }
-                atomSize = readInt64(header, 8);
-            }
-
-            if (atomSize < 8) {
-                break;
-            }
+                if (position + boxSize > fileLength) {
+                    break; // box still being written
+                }
 
-            if (atomType == TYPE_traf) {
-                // Read tfhd to get track_id, then trun for duration
-                TrafInfo trafInfo = readTrafInfo(raf, position, atomSize);
-                if (trafInfo != null) {
-                    if (firstTrackDuration == 0) {
-                        firstTrackDuration = trafInfo.duration;
+                if (boxType == TYPE_moov) {
+                    if (!moovSeen) {
+                        readMoov(position + headerSize, position + boxSize);
+                        moovSeen = true;
                     }
-                    // Match against the video track ID we found in moov
-                    if (trafInfo.trackId == targetVideoTrackId && videoTrackDuration == 0) {
-                        videoTrackDuration = trafInfo.duration;
-                        FLog.d(TAG, "  Using video traf (track " + trafInfo.trackId + ") duration: " + trafInfo.duration + " units");
+                } else if (boxType == TYPE_moof) {
+                    if (!indexFragment(position, boxSize, fileLength)) {
+                        break; // its mdat isn't complete yet
                     }
                 }
+                position += boxSize;
             }
-
-            position += atomSize;
+            return snapshot();
         }
 
-        // Prefer video track duration, fall back to first track
-        long result = videoTrackDuration > 0 ? videoTrackDuration : firstTrackDuration;
-        if (result > 0 && videoTrackDuration == 0) {
-            FLog.d(TAG, "  No video track found (targetId=" + targetVideoTrackId + "), using first traf duration: " + result + " units");
+        /** Indexes everything currently on disk. */
+        @NonNull
+        public FragmentIndex scanToEnd() throws IOException {
+            return scan(Integer.MAX_VALUE);
         }
-        return result;
-    }
 
-    /**
-     * Info from a traf box.
-     */
-    private static class TrafInfo {
-        int trackId;
-        long duration;
-    }
+        /**
+         * Immutable index of everything scanned so far.
+         */
+        @NonNull
+        public synchronized FragmentIndex snapshot() {
+            List<FragmentEntry> fragments = new ArrayList<>(entries.size());
+            long timeUs = 0;
+            for (long[] entry : entries) {
+                long durationUs = entry[2] * 1000000L / timescale;
+                FragmentEntry fragment = new FragmentEntry(entry[0], entry[1], timeUs);
+                fragment.durationUs = durationUs > 0 ? durationUs : DEFAULT_FRAGMENT_DURATION_US;
+                fragments.add(fragment);
+                timeUs += fragment.durationUs;
+            }
+            return new FragmentIndex(fragments, timeUs, timescale);
+        }
 
-    /**
-     * Reads track_id from tfhd and duration from trun inside a traf.
-     */
-    private TrafInfo readTrafInfo(RandomAccessFile raf, long trafPosition, long trafSize) 
-            throws IOException {
-        long position = trafPosition + 8; // Skip traf header
-        long trafEnd = trafPosition + trafSize;
-        byte[] header = new byte[32];
-        TrafInfo info = new TrafInfo();
+        /**
+         * Keeps scanning on a background thread, batch by batch, and then follows the file
+         * while it grows (recording in progress). Stops on {@link #close()}, or once the file
+         * has not grown for {@code STOP_AFTER_IDLE_MS}.
+         *
+         * @param pollIntervalMs How often to look for new data once at the end of the file.
+         */
+        public void extendInBackground(long pollIntervalMs, @NonNull IndexListener listener) {
+            extendInBackground(pollIntervalMs, STOP_AFTER_IDLE_MS, listener);
+        }
 
-        // Type constants
-        final int TYPE_tfhd = 0x74666864; // 'tfhd'
+        /**
+         * Same as {@link #extendInBackground(long, IndexListener)}, stopping once the file has
+         * not grown for {@code stopAfterIdleMs}.
+         */
+        public synchronized void extendInBackground(long pollIntervalMs, long stopAfterIdleMs,
+                                                    @NonNull IndexListener listener) {
+            if (backgroundThread != null || closed) {
+                return;
+            }
+            backgroundThread = new Thread(() -> {
+                long lastGrowth = System.currentTimeMillis();
+                try {
+                    while (!closed) {
+                        int before;
+                        synchronized (this) {
+                            before = entries.size();
+                        }
+                        FragmentIndex index = scan(256);
+                        if (index.fragments.size() > before) {
+                            lastGrowth = System.currentTimeMillis();
+                            listener.onIndexExtended(index);
+                            continue; // more may be waiting
+                        }
+                        if (System.currentTimeMillis() - lastGrowth > stopAfterIdleMs) {
+                            listener.onScanFinished(index);
+                            break;
+                        }
+                        Thread.sleep(pollIntervalMs);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (IOException e) {
+                    if (!closed) {
+                        FLog.w(TAG, "Background index scan stopped: " + e.getMessage());
+                    }
+                }
+            }, "Fmp4IndexScan");
+            backgroundThread.setDaemon(true);
+            backgroundThread.start();
+        }
 
-        while (position < trafEnd) {
-            raf.seek(position);
-            if (raf.read(header, 0, 8) != 8) {
-                break;
+        @Override
+        public void close() {
+            closed = true;
+            Thread thread;
+            synchronized (this) {
+                thread = backgroundThread;
             }
-
-            long atomSize = readUint32(header, 0);
-            int atomType = readInt32(header, 4);
-
-            if (atomSize == 1) {
-                if (raf.read(header, 8, 8) != 8) {
-                    break;
-                }
-                atomSize = readInt64(header, 8);
+            if (thread != null) {
+                thread.interrupt();
             }
+            try {
+                raf.close();
+            } catch (IOException ignored) {
+            }
+        }
 
-            if (atomSize < 8) {
-                break;
+        /**
+         * Records the moof at {@code moofPosition}: reads moof + the following box header in
+         * one go, takes the video traf's trun duration and the mdat size.
+         *
+         * @return false if the mdat is not completely on disk yet.
+         */
+        private boolean indexFragment(long moofPosition, long moofSize, long fileLength) throws IOException {
+            if (moofSize > Integer.MAX_VALUE - HEADER_READ) {
+                return true; // absurd moof: skip it
+            }
+            int wanted = (int) moofSize + HEADER_READ;
+            if (boxBuffer.capacity() < wanted) {
+                boxBuffer = ByteBuffer.allocate(Math.max(wanted, boxBuffer.capacity() * 2));
             }
+            if (!readAt(boxBuffer, moofPosition, wanted, fileLength) || boxBuffer.limit() < moofSize) {
+                return false;
+            }
+            long durationUnits = readMoofDuration(boxBuffer, (int) moofSize);
 
-            if (atomType == TYPE_tfhd) {
-                // Read tfhd: version(1) + flags(3) + track_id(4)
-                raf.seek(position + 8);
-                if (raf.read(header, 0, 8) == 8) {
-                    info.trackId = readInt32(header, 4);
+            long mdatSize = 0;
+            int mdatAt = (int) moofSize;
+            if (boxBuffer.limit() >= mdatAt + 8 && boxBuffer.getInt(mdatAt + 4) == TYPE_mdat) {
+                mdatSize = boxBuffer.getInt(mdatAt) & 0xFFFFFFFFL;
+                if (mdatSize == 1 && boxBuffer.limit() >= mdatAt + 16) {
+                    mdatSize = boxBuffer.getLong(mdatAt + 8);
+                }
+                if (moofPosition + moofSize + mdatSize > fileLength) {
+                    return false;
                 }
-            } else if (atomType == TYPE_trun) {
-                // Parse trun box for sample durations
-                long trunDuration = readTrunDuration(raf, position, atomSize);
-                info.duration = trunDuration;
             }
-
-            position += atomSize;
+            entries.add(new long[] {moofPosition, moofSize + mdatSize, durationUnits});
+            return true;
         }
 
-        return info.trackId > 0 ? info : null;
-    }
-
-    /**
-     * Reads sample count and durations from a trun box.
-     * 
-     * trun box structure:
-     * - 1 byte version
-     * - 3 bytes flags (tr_flags)
-     * - 4 bytes sample_count
-     * - if (tr_flags & 0x001) 4 bytes data_offset
-     * - if (tr_flags & 0x004) 4 bytes first_sample_flags
-     * - then for each sample (sample_count times):
-     *   - if (tr_flags & 0x100) 4 bytes sample_duration
-     *   - if (tr_flags & 0x200) 4 bytes sample_size
-     *   - if (tr_flags & 0x400) 4 bytes sample_flags
-     *   - if (tr_flags & 0x800) 4 bytes sample_composition_time_offset
-     */
-    private long readTrunDuration(RandomAccessFile raf, long trunPosition, long trunSize) 
-            throws IOException {
-        // Read trun header: version (1) + flags (3) + sample_count (4)
-        raf.seek(trunPosition + 8); // Skip box header
-        byte[] data = new byte[8];
-        if (raf.read(data, 0, 8) != 8) {
-            return 0;
+        /**
+         * Sum of sample durations of the video track's trun (first traf if the video track
+         * is unknown), in track timescale units. 0 if the trun carries no durations.
+         */
+        private long readMoofDuration(ByteBuffer moof, int moofSize) {
+            long videoDuration = 0;
+            long firstDuration = 0;
+            boolean firstSeen = false;
+            int pos = 8;
+            while (pos + 8 <= moofSize) {
+                int size = moof.getInt(pos);
+                if (size < 8 || pos + size > moofSize) break;
+                if (moof.getInt(pos + 4) == TYPE_traf) {
+                    int trackId = 0;
+                    long duration = 0;
+                    int child = pos + 8;
+                    int trafEnd = pos + size;
+                    while (child + 8 <= trafEnd) {
+                        int childSize = moof.getInt(child);
+                        if (childSize < 8 || child + childSize > trafEnd) break;
+                        int childType = moof.getInt(child + 4);
+                        if (childType == TYPE_tfhd && childSize >= 16) {
+                            trackId = moof.getInt(child + 12);
+                        } else if (childType == TYPE_trun) {
+                            duration = readTrunDuration(moof, child, childSize);
+                        }
+                        child += childSize;
+                    }
+                    if (!firstSeen) {
+                        firstSeen = true;
+                        firstDuration = duration;
+                    }
+                    if (trackId == videoTrackId && videoDuration == 0) {
+                        videoDuration = duration;
+                    }
+                }
+                pos += size;
+            }
+            return videoDuration > 0 ? videoDuration : firstDuration;
         }
 
-        int version = data[0] & 0xFF;
-        int flags = ((data[1] & 0xFF) << 16) | ((data[2] & 0xFF) << 8) | (data[3] & 0xFF);
-        long sampleCount = readUint32(data, 4);
-
-        FLog.d(TAG, "    trun: version=" + version + ", flags=0x" + Integer.toHexString(flags) + 
-              ", sampleCount=" + sampleCount);
-
-        // Check if sample_duration is present
-        boolean hasSampleDuration = (flags & 0x100) != 0;
-        boolean hasDataOffset = (flags & 0x001) != 0;
-        boolean hasFirstSampleFlags = (flags & 0x004) != 0;
-        boolean hasSampleSize = (flags & 0x200) != 0;
-        boolean hasSampleFlags = (flags & 0x400) != 0;
-        boolean hasSampleCTO = (flags & 0x800) != 0;
-
-        if (!hasSampleDuration) {
-            // No per-sample duration - use default (typically from tfhd)
-            // For Media3 fMP4, default is typically fragment_duration / sample_count
-            // We'll use 2 seconds as fallback which matches the muxer config
-            FLog.d(TAG, "    trun has no sample_duration flag, using default duration");
-            return 0;
+        /**
+         * trun: version(1) flags(3) sample_count(4) [data_offset(4)] [first_sample_flags(4)],
+         * then per sample [duration][size][flags][composition offset] depending on flags.
+         */
+        private static long readTrunDuration(ByteBuffer box, int trunPosition, int trunSize) {
+            if (trunSize < 16) return 0;
+            int flags = box.getInt(trunPosition + 8) & 0xFFFFFF;
+            if ((flags & 0x100) == 0) {
+                return 0; // no per-sample durations: caller falls back to the default
+            }
+            long sampleCount = box.getInt(trunPosition + 12) & 0xFFFFFFFFL;
+            int offset = trunPosition + 16;
+            if ((flags & 0x001) != 0) offset += 4;
+            if ((flags & 0x004) != 0) offset += 4;
+            int stride = 4 + ((flags & 0x200) != 0 ? 4 : 0) + ((flags & 0x400) != 0 ? 4 : 0)
+                    + ((flags & 0x800) != 0 ? 4 : 0);
+            int end = trunPosition + trunSize;
+            long total = 0;
+            for (long i = 0; i < sampleCount && offset + 4 <= end; i++, offset += stride) {
+                total += box.getInt(offset) & 0xFFFFFFFFL;
+            }
+            return total;
         }
 
-        // Calculate offset to sample table
-        int offset = 8; // Already read version/flags/sample_count
-        if (hasDataOffset) offset += 4;
-        if (hasFirstSampleFlags) offset += 4;
-
-        // Read all sample durations
-        int bytesPerSample = 0;
-        if (hasSampleDuration) bytesPerSample += 4;
-        if (hasSampleSize) bytesPerSample += 4;
-        if (hasSampleFlags) bytesPerSample += 4;
-        if (hasSampleCTO) bytesPerSample += 4;
-
-        // Read sample data in chunks
-        long totalDuration = 0;
-        int durationOffsetInSample = 0; // duration is first if present
-
-        // Limit how many samples we read at once
-        int maxSamplesPerRead = 256;
-        byte[] sampleData = new byte[maxSamplesPerRead * bytesPerSample];
-
-        raf.seek(trunPosition + 8 + offset);
-        long remainingSamples = sampleCount;
-        
-        while (remainingSamples > 0) {
-            int samplesToRead = (int) Math.min(remainingSamples, maxSamplesPerRead);
-            int bytesToRead = samplesToRead * bytesPerSample;
-            int bytesRead = raf.read(sampleData, 0, bytesToRead);
-            
-            if (bytesRead < bytesToRead) {
-                break;
+        /**
+         * Reads timescale and video track ID from moov: video track's mdhd timescale preferred,
+         * then first track, then mvhd. Track IDs are 1-based in trak order.
+         */
+        private void readMoov(long start, long end) throws IOException {
+            long videoTimescale = 0;
+            long firstTrackTimescale = 0;
+            long mvhdTimescale = 0;
+            int trackNumber = 0;
+            long pos = start;
+            while (pos + 8 <= end) {
+                long size = readBoxHeader(pos, end);
+                if (size <= 0) break;
+                int type = header.getInt(4);
+                if (type == TYPE_mvhd) {
+                    if (readAt(header, pos + 8, HEADER_READ, end) && header.limit() >= 16) {
+                        int version = header.get(0) & 0xFF;
+                        mvhdTimescale = version == 0 ? header.getInt(12) & 0xFFFFFFFFL : readUint32At(pos + 8 + 20, end);
+                    }
+                } else if (type == TYPE_trak) {
+                    trackNumber++;
+                    long[] info = readTrak(pos + 8, pos + size); // {timescale, isVideo}
+                    if (info[0] > 0) {
+                        if (firstTrackTimescale == 0) firstTrackTimescale = info[0];
+                        if (info[1] == 1 && videoTimescale == 0) {
+                            videoTimescale = info[0];
+                            videoTrackId = trackNumber;
+                        }
+                    }
+                }
+                pos += size;
             }
+            timescale = videoTimescale > 0 ? videoTimescale
+                    : (firstTrackTimescale > 0 ? firstTrackTimescale
+                    : (mvhdTimescale > 0 ? mvhdTimescale : 1000));
+            FLog.d(TAG, "Found moov, timescale=" + timescale + ", videoTrackId=" + videoTrackId);
+        }
 
-            for (int i = 0; i < samplesToRead; i++) {
-                int sampleOffset = i * bytesPerSample + durationOffsetInSample;
-                long sampleDuration = readUint32(sampleData, sampleOffset);
-                totalDuration += sampleDuration;
+        private long[] readTrak(long start, long end) throws IOException {
+            long[] info = new long[2];
+            long pos = start;
+            while (pos + 8 <= end) {
+                long size = readBoxHeader(pos, end);
+                if (size <= 0) break;
+                if (header.getInt(4) == TYPE_mdia) {
+                    long child = pos + 8;
+                    long mdiaEnd = pos + size;
+                    while (child + 8 <= mdiaEnd) {
+                        long childSize = readBoxHeader(child, mdiaEnd);
+                        if (childSize <= 0) break;
+                        int childType = header.getInt(4);
+                        if (childType == TYPE_mdhd) {
+                            // version 0: timescale at +12 of the payload, version 1: at +20
+                            if (readAt(header, child + 8, HEADER_READ, mdiaEnd) && header.limit() >= 16) {
+                                int version = header.get(0) & 0xFF;
+                                info[0] = version == 0 ? header.getInt(12) & 0xFFFFFFFFL : readUint32At(child + 8 + 20, mdiaEnd);
+                            }
+                        } else if (childType == TYPE_hdlr) {
+                            // version/flags(4) pre_defined(4) handler_type(4)
+                            if (readAt(header, child + 8, 12, mdiaEnd) && header.limit() >= 12) {
+                                info[1] = header.getInt(8) == HANDLER_vide ? 1 : 0;
+                            }
+                        }
+                        child += childSize;
+                    }
+                }
+                pos += size;
             }
-
-            remainingSamples -= samplesToRead;
+            return info;
         }
 
-        FLog.d(TAG, "    trun total duration: " + totalDuration + " units (" + 
-              sampleCount + " samples)");
-        return totalDuration;
-    }
-
-    /**
-     * Converts atom type int to readable string.
-     */
-    private static String atomTypeToString(int type) {
-        byte[] bytes = new byte[4];
-        bytes[0] = (byte) ((type >> 24) & 0xFF);
-        bytes[1] = (byte) ((type >> 16) & 0xFF);
-        bytes[2] = (byte) ((type >> 8) & 0xFF);
-        bytes[3] = (byte) (type & 0xFF);
-        return new String(bytes);
-    }
-
-    // Utility methods for reading bytes
+        /**
+         * Reads the box header at {@code pos} into {@link #header}.
+         *
+         * @return The box size, or -1 if it is invalid or runs past {@code end}.
+         */
+        private long readBoxHeader(long pos, long end) throws IOException {
+            if (!readAt(header, pos, HEADER_READ, end) || header.limit() < 8) {
+                return -1;
+            }
+            long size = header.getInt(0) & 0xFFFFFFFFL;
+            if (size == 1) {
+                if (header.limit() < 16) return -1;
+                size = header.getLong(8);
+            }
+            return size < 8 || pos + size > end ? -1 : size;
+        }
 
-    private static long readUint32(byte[] data, int offset) {
-        return ((long) (data[offset] & 0xFF) << 24) |
-               ((long) (data[offset + 1] & 0xFF) << 16) |
-               ((long) (data[offset + 2] & 0xFF) << 8) |
-               ((long) (data[offset + 3] & 0xFF));
-    }
+        private long readUint32At(long pos, long end) throws IOException {
+            ByteBuffer four = ByteBuffer.allocate(4);
+            return readAt(four, pos, 4, end) && four.limit() == 4 ? four.getInt(0) & 0xFFFFFFFFL : 0;
+        }
 
-    private static int readInt32(byte[] data, int offset) {
-        return ((data[offset] & 0xFF) << 24) |
-               ((data[offset + 1] & 0xFF) << 16) |
-               ((data[offset + 2] & 0xFF) << 8) |
-               (data[offset + 3] & 0xFF);
-    }
+        /**
+         * Positional read of up to {@code length} bytes (clipped at {@code end}) into
+         * {@code buffer}, which is left flipped (position 0, limit = bytes read).
+         *
+         * @return false if nothing could be read.
+         */
+        private boolean readAt(ByteBuffer buffer, long pos, int length, long end) throws IOException {
+            int toRead = (int) Math.min(length, end - pos);
+            if (toRead <= 0) {
+                return false;
+            }
+            buffer.clear();
+            buffer.limit(toRead);
+            while (buffer.hasRemaining()) {
+                int n = channel.read(buffer, pos + buffer.position());
+                if (n < 0) break;
+            }
+            buffer.flip();
+            return buffer.limit() > 0;
+        }
 
-    private static long readInt64(byte[] data, int offset) {
-        return ((long) (data[offset] & 0xFF) << 56) |
-               ((long) (data[offset + 1] & 0xFF) << 48) |
-               ((long) (data[offset + 2] & 0xFF) << 40) |
-               ((long) (data[offset + 3] & 0xFF) << 32) |
-               ((long) (data[offset + 4] & 0xFF) << 24) |
-               ((long) (data[offset + 5] & 0xFF) << 16) |
-               ((long) (data[offset + 6] & 0xFF) << 8) |
-               ((long) (data[offset + 7] & 0xFF));
+        @NonNull
+        @Override
+        public String toString() {
+            return "IncrementalScan{" + file.getName() + ", fragments=" + entries.size() + "}";
+        }
     }
 }
@@ -10,6 +10,9 @@ import com.arthenica.ffmpegkit.ReturnCode;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Utility class to remux fragmented MP4 files to add proper seeking support.
@@ -19,6 +22,10 @@ import java.io.IOException;
  * with the +faststart flag to move the moov atom to the beginning and enable seeking.
  * 
  * This is a workaround for ExoPlayer's inability to seek in fMP4 without sidx boxes.
+ *
+ * Remuxing is done in-process by {@link FragmentedMp4StreamingRemuxer} (metadata-only scan,
+ * kernel copy of the media data, resumable after interruption). FFmpeg is only used as a
+ * fallback for files that remuxer rejects.
  */
 public class FragmentedMp4Remuxer {
     private static final String TAG = "FMp4Remuxer";
@@ -28,6 +35,13 @@ public class FragmentedMp4Remuxer {
         void onRemuxProgress(int percent);
     }
     
+    // Remuxes are disk-bound: run them one at a time instead of competing for I/O
+    private static final ExecutorService REMUX_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Fmp4Remux");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final Context context;
     
     public FragmentedMp4Remuxer(Context context) {
@@ -165,6 +179,13 @@ public class FragmentedMp4Remuxer {
         if (outputFile.exists()) {
             outputFile.delete();
         }
+
+        if (remuxNative(inputFile, outputFile, null)) {
+            return outputFile;
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            return null;
+        }
         
         // FFmpeg command to remux with faststart
         // -i input: input file
@@ -231,7 +252,47 @@ public class FragmentedMp4Remuxer {
         if (outputFile.exists()) {
             outputFile.delete();
         }
-        
+
+        REMUX_EXECUTOR.execute(() -> {
+            if (remuxNative(inputFile, outputFile, callback != null ? callback::onRemuxProgress : null)) {
+                if (callback != null) {
+                    callback.onRemuxComplete(true, outputPath);
+                }
+            } else if (Thread.currentThread().isInterrupted()) {
+                if (callback != null) {
+                    callback.onRemuxComplete(false, null);
+                }
+            } else {
+                remuxWithFfmpegAsync(inputPath, outputFile, callback);
+            }
+        });
+    }
+
+    /**
+     * In-process remux; leaves a resumable ".part" behind if interrupted.
+     *
+     * @return true if {@code outputFile} was written.
+     */
+    private boolean remuxNative(File inputFile, File outputFile,
+                                FragmentedMp4StreamingRemuxer.ProgressListener listener) {
+        try {
+            FragmentedMp4StreamingRemuxer.remux(inputFile, outputFile, listener);
+            FLog.i(TAG, "Remux successful: " + outputFile.getName() +
+                       " (" + outputFile.length() / 1024 + " KB)");
+            return true;
+        } catch (InterruptedIOException e) {
+            FLog.w(TAG, "Remux interrupted, partial output kept for resume: " + outputFile.getName());
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (IOException | RuntimeException e) {
+            FLog.w(TAG, "Native remux failed, falling back to FFmpeg: " + e.getMessage());
+            FragmentedMp4StreamingRemuxer.partFileFor(outputFile).delete();
+            return false;
+        }
+    }
+
+    private void remuxWithFfmpegAsync(String inputPath, File outputFile, RemuxCallback callback) {
+        String outputPath = outputFile.getAbsolutePath();
         String ffmpegCmd = String.format(
             "-i \"%s\" -c copy -movflags +faststart -y \"%s\"",
             inputPath, outputPath
@@ -0,0 +1,883 @@
+package com.fadcam.playback;
+
+import com.fadcam.FLog;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Pure-Java fMP4 -> progressive MP4 remuxer (moov first, "faststart").
+ *
+ * <p>Architecture:
+ * - Pass 1 reads only metadata: ftyp, the init moov and every moof (trun sample sizes,
+ *   durations, flags, composition offsets, data offsets). Media data is never read.
+ * - The output moov is the init moov with real sample tables (stts/ctts/stss/stsc/stsz/
+ *   stco|co64) and durations; mvex is dropped. Each trun becomes one chunk.
+ * - Pass 2 copies the sample data with {@link FileChannel#transferTo} (kernel copy, no
+ *   user-space buffer), coalescing runs that are contiguous in the input.
+ * - Resumable: the output header (ftyp + moov + mdat header) is a pure function of the input
+ *   metadata, so an interrupted ".part" whose header still matches is continued from where
+ *   it stopped instead of starting over.
+ * - Hybrid-finalized recordings (whole fMP4 wrapped in one mdat, see
+ *   FragmentedMp4MuxerWrapper) are handled by walking into that mdat.
+ */
+public final class FragmentedMp4StreamingRemuxer {
+
+    private static final String TAG = "Fmp4StreamingRemuxer";
+
+    private static final int TYPE_ftyp = 0x66747970;
+    private static final int TYPE_moov = 0x6D6F6F76;
+    private static final int TYPE_moof = 0x6D6F6F66;
+    private static final int TYPE_mdat = 0x6D646174;
+    private static final int TYPE_mvhd = 0x6D766864;
+    private static final int TYPE_mvex = 0x6D766578;
+    private static final int TYPE_trex = 0x74726578;
+    private static final int TYPE_trak = 0x7472616B;
+    private static final int TYPE_tkhd = 0x746B6864;
+    private static final int TYPE_edts = 0x65647473;
+    private static final int TYPE_elst = 0x656C7374;
+    private static final int TYPE_mdia = 0x6D646961;
+    private static final int TYPE_mdhd = 0x6D646864;
+    private static final int TYPE_minf = 0x6D696E66;
+    private static final int TYPE_stbl = 0x7374626C;
+    private static final int TYPE_stsd = 0x73747364;
+    private static final int TYPE_traf = 0x74726166;
+    private static final int TYPE_tfhd = 0x74666864;
+    private static final int TYPE_tfdt = 0x74666474;
+    private static final int TYPE_trun = 0x7472756E;
+
+    private static final int MAX_METADATA_BOX = 64 * 1024 * 1024;
+    // Re-copy this much before the end of an interrupted .part (the tail may not be durable)
+    private static final long RESUME_BACKOFF = 1024 * 1024;
+
+    /**
+     * Progress in percent of media bytes copied (0..100).
+     */
+    public interface ProgressListener {
+        void onProgress(int percent);
+    }
+
+    private FragmentedMp4StreamingRemuxer() {}
+
+    /**
+     * Temporary file an interrupted remux of {@code output} resumes from.
+     */
+    @NonNull
+    public static File partFileFor(@NonNull File output) {
+        return new File(output.getPath() + ".part");
+    }
+
+    /**
+     * Remuxes {@code input} into a progressive, moov-first MP4 at {@code output}.
+     * Runs on the calling thread; interrupting it stops the copy and keeps the ".part"
+     * for a later resume.
+     *
+     * @throws IOException If the input is not a fragmented MP4 this remuxer understands, or on
+     *                     I/O failure ({@link InterruptedIOException} when interrupted).
+     */
+    public static void remux(@NonNull File input, @NonNull File output,
+                             @Nullable ProgressListener listener) throws IOException {
+        long start = System.currentTimeMillis();
+        try (RandomAccessFile in = new RandomAccessFile(input, "r")) {
+            FileChannel inChannel = in.getChannel();
+            Scan scan = new Scan(inChannel);
+            scan.walk(0, inChannel.size(), true);
+            if (scan.ftyp == null || scan.initMoov == null || scan.chunkCount == 0) {
+                throw new IOException("Not a fragmented MP4 (ftyp=" + (scan.ftyp != null)
+                        + ", moov=" + (scan.initMoov != null) + ", runs=" + scan.chunkCount + ")");
+            }
+
+            long payloadBytes = 0;
+            for (int i = 0; i < scan.chunkCount; i++) {
+                payloadBytes += scan.chunkLength[i];
+            }
+            byte[] header = buildHeader(scan, payloadBytes);
+            long totalLength = header.length + payloadBytes;
+
+            File part = partFileFor(output);
+            long resumeFrom = resumeOffset(part, input, header);
+            try (RandomAccessFile out = new RandomAccessFile(part, "rw")) {
+                FileChannel outChannel = out.getChannel();
+                if (resumeFrom == 0) {
+                    outChannel.truncate(0);
+                    writeFully(outChannel, ByteBuffer.wrap(header), 0);
+                    resumeFrom = header.length;
+                } else {
+                    FLog.i(TAG, "Resuming " + output.getName() + " at " + resumeFrom + "/" + totalLength);
+                }
+                copyPayload(inChannel, outChannel, scan, header.length, resumeFrom, payloadBytes, listener);
+                outChannel.truncate(totalLength);
+                outChannel.force(true);
+            }
+            if (output.exists() && !output.delete()) {
+                throw new IOException("Cannot replace " + output.getName());
+            }
+            if (!part.renameTo(output)) {
+                throw new IOException("Cannot rename " + part.getName());
+            }
+            FLog.i(TAG, "Remuxed " + input.getName() + ": " + scan.trackCount + " tracks, "
+                    + scan.chunkCount + " runs, " + (totalLength / 1024) + " KB in "
+                    + (System.currentTimeMillis() - start) + "ms");
+        }
+    }
+
+    /**
+     * Where to continue an interrupted remux: after the copied bytes of a ".part" whose header
+     * is identical to the one just built (same input metadata), else 0 (start over).
+     */
+    private static long resumeOffset(File part, File input, byte[] header) {
+        if (!part.isFile() || part.length() <= header.length || part.lastModified() < input.lastModified()) {
+            return 0;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(part, "r")) {
+            byte[] existing = new byte[header.length];
+            raf.readFully(existing);
+            if (!Arrays.equals(existing, header)) {
+                return 0;
+            }
+            return Math.max(header.length, raf.length() - RESUME_BACKOFF);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void copyPayload(FileChannel in, FileChannel out, Scan scan, long payloadStart,
+                                    long resumeFrom, long payloadBytes,
+                                    @Nullable ProgressListener listener) throws IOException {
+        long outPos = payloadStart;
+        int lastPercent = -1;
+        int i = 0;
+        while (i < scan.chunkCount) {
+            // Coalesce runs that are contiguous in the input into one transfer
+            long srcStart = scan.chunkInputOffset[i];
+            long length = scan.chunkLength[i];
+            int j = i + 1;
+            while (j < scan.chunkCount && scan.chunkInputOffset[j] == srcStart + length) {
+                length += scan.chunkLength[j];
+                j++;
+            }
+            long rangeEnd = outPos + length;
+            if (rangeEnd > resumeFrom) {
+                long skip = Math.max(0, resumeFrom - outPos);
+                transferFully(in, srcStart + skip, length - skip, out, outPos + skip);
+            }
+            outPos = rangeEnd;
+            i = j;
+
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Remux interrupted at " + outPos);
+            }
+            if (listener != null && payloadBytes > 0) {
+                int percent = (int) ((outPos - payloadStart) * 100 / payloadBytes);
+                if (percent != lastPercent) {
+                    lastPercent = percent;
+                    listener.onProgress(percent);
+                }
+            }
+        }
+    }
+
+    private static void transferFully(FileChannel in, long position, long count,
+                                      FileChannel out, long outPosition) throws IOException {
+        out.position(outPosition);
+        while (count > 0) {
+            long n = in.transferTo(position, count, out);
+            if (n <= 0) {
+                throw new IOException("Input ended early at " + position);
+            }
+            position += n;
+            count -= n;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    // ------------------------------------------------------------------ pass 1: metadata
+
+    /** Growable primitive arrays: 10 h of video is ~1M samples, too many for boxed lists. */
+    private static final class IntArray {
+        int[] values = new int[256];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+    }
+
+    private static final class Track {
+        final int trackId;
+        int defaultDescriptionIndex = 1;
+        int defaultDuration;
+        int defaultSize;
+        int defaultFlags;
+        long timescale = 1000;
+        long firstDecodeTime = -1;
+        long durationUnits;
+        boolean allSync = true;
+        boolean hasCompositionOffsets;
+        boolean negativeCompositionOffsets;
+        final IntArray sizes = new IntArray();
+        final IntArray durations = new IntArray();
+        final IntArray compositionOffsets = new IntArray();
+        final IntArray syncSamples = new IntArray(); // 1-based
+        final IntArray chunkIndices = new IntArray(); // indices into Scan chunk arrays
+        final IntArray chunkSampleCounts = new IntArray();
+        final IntArray chunkDescriptionIndex = new IntArray();
+
+        Track(int trackId) {
+            this.trackId = trackId;
+        }
+
+        int sampleCount() {
+            return sizes.size;
+        }
+    }
+
+    private static final class Scan {
+        final FileChannel channel;
+        final ByteBuffer headerBuffer = ByteBuffer.allocate(16);
+        byte[] ftyp;
+        ByteBuffer initMoov;
+        final List<Track> tracks = new ArrayList<>();
+        int trackCount;
+        long[] chunkInputOffset = new long[1024];
+        long[] chunkLength = new long[1024];
+        int chunkCount;
+        long fileLength;
+        boolean truncated;
+
+        Scan(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void walk(long start, long end, boolean topLevel) throws IOException {
+            if (topLevel) {
+                fileLength = end;
+            }
+            long pos = start;
+            while (!truncated && pos + 8 <= end) {
+                headerBuffer.clear();
+                headerBuffer.limit((int) Math.min(16, end - pos));
+                readFully(headerBuffer, pos);
+                long size = headerBuffer.getInt(0) & 0xFFFFFFFFL;
+                int type = headerBuffer.getInt(4);
+                int headerSize = 8;
+                if (size == 1) {
+                    if (headerBuffer.limit() < 16) break;
+                    size = headerBuffer.getLong(8);
+                    headerSize = 16;
+                } else if (size == 0) {
+                    size = end - pos;
+                }
+                if (size < headerSize || pos + size > end) {
+                    break; // truncated tail (interrupted recording): stop at the last whole box
+                }
+                if (type == TYPE_ftyp && ftyp == null) {
+                    ftyp = readBox(pos, size).array();
+                } else if (type == TYPE_moov && initMoov == null) {
+                    initMoov = readBox(pos, size);
+                    parseInitMoov(initMoov);
+                } else if (type == TYPE_moof && initMoov != null) {
+                    parseMoof(readBox(pos, size), pos);
+                } else if (type == TYPE_mdat && topLevel && size > headerSize + 8) {
+                    // Hybrid-finalized recording: the original fMP4 sits inside one big mdat
+                    headerBuffer.clear();
+                    readFully(headerBuffer, pos + headerSize);
+                    int innerType = headerBuffer.getInt(4);
+                    if (innerType == TYPE_moov || innerType == TYPE_moof) {
+                        walk(pos + headerSize, pos + size, false);
+                    }
+                }
+                pos += size;
+            }
+        }
+
+        private ByteBuffer readBox(long pos, long size) throws IOException {
+            if (size > MAX_METADATA_BOX) {
+                throw new IOException("Metadata box too large: " + size);
+            }
+            ByteBuffer box = ByteBuffer.allocate((int) size);
+            readFully(box, pos);
+            return box;
+        }
+
+        private void readFully(ByteBuffer buffer, long pos) throws IOException {
+            while (buffer.hasRemaining()) {
+                int n = channel.read(buffer, pos + buffer.position());
+                if (n < 0) throw new IOException("Unexpected end of file at " + pos);
+            }
+        }
+
+        private void parseInitMoov(ByteBuffer moov) {
+            forEachChild(moov, 8, moov.limit(), (type, at, size) -> {
+                if (type == TYPE_trak) {
+                    Track track = new Track(findTrackId(moov, at, size));
+                    forEachChild(moov, at + 8, at + size, (t, a, s) -> {
+                        if (t == TYPE_mdia) {
+                            forEachChild(moov, a + 8, a + s, (t2, a2, s2) -> {
+                                if (t2 == TYPE_mdhd) {
+                                    int version = moov.get(a2 + 8) & 0xFF;
+                                    track.timescale = moov.getInt(a2 + (version == 1 ? 28 : 20)) & 0xFFFFFFFFL;
+                                }
+                            });
+                        }
+                    });
+                    tracks.add(track);
+                } else if (type == TYPE_mvex) {
+                    forEachChild(moov, at + 8, at + size, (t, a, s) -> {
+                        if (t == TYPE_trex && s >= 32) {
+                            Track track = trackById(moov.getInt(a + 12));
+                            if (track != null) {
+                                track.defaultDescriptionIndex = moov.getInt(a + 16);
+                                track.defaultDuration = moov.getInt(a + 20);
+                                track.defaultSize = moov.getInt(a + 24);
+                                track.defaultFlags = moov.getInt(a + 28);
+                            }
+                        }
+                    });
+                }
+            });
+            trackCount = tracks.size();
+        }
+
+        private int findTrackId(ByteBuffer moov, int trakAt, int trakSize) {
+            int[] id = {0};
+            forEachChild(moov, trakAt + 8, trakAt + trakSize, (t, a, s) -> {
+                if (t == TYPE_tkhd) {
+                    int version = moov.get(a + 8) & 0xFF;
+                    id[0] = moov.getInt(a + (version == 1 ? 28 : 20));
+                }
+            });
+            return id[0];
+        }
+
+        @Nullable
+        private Track trackById(int trackId) {
+            for (Track track : tracks) {
+                if (track.trackId == trackId) return track;
+            }
+            return null;
+        }
+
+        private void parseMoof(ByteBuffer moof, long moofPosition) throws IOException {
+            long[] previousTrafEnd = {moofPosition};
+            int[] chunkMark = {chunkCount};
+            int[][] sampleMarks = new int[tracks.size()][];
+            for (int i = 0; i < tracks.size(); i++) {
+                sampleMarks[i] = new int[] {tracks.get(i).sampleCount(), tracks.get(i).chunkIndices.size,
+                        tracks.get(i).syncSamples.size};
+            }
+            boolean[] ok = {true};
+            forEachChild(moof, 8, moof.limit(), (type, at, size) -> {
+                if (type == TYPE_traf && ok[0]) {
+                    ok[0] = parseTraf(moof, at, size, moofPosition, previousTrafEnd);
+                }
+            });
+            if (!ok[0]) {
+                // Sample data of this fragment is not (fully) on disk: roll it back and stop
+                chunkCount = chunkMark[0];
+                for (int i = 0; i < tracks.size(); i++) {
+                    rollBack(tracks.get(i), sampleMarks[i]);
+                }
+                truncated = true;
+            }
+        }
+
+        private void rollBack(Track track, int[] marks) {
+            for (int i = marks[0]; i < track.sampleCount(); i++) {
+                track.durationUnits -= track.durations.values[i];
+            }
+            track.sizes.size = marks[0];
+            track.durations.size = marks[0];
+            track.compositionOffsets.size = Math.min(track.compositionOffsets.size, marks[0]);
+            track.chunkIndices.size = marks[1];
+            track.chunkSampleCounts.size = marks[1];
+            track.chunkDescriptionIndex.size = marks[1];
+            track.syncSamples.size = marks[2];
+        }
+
+        /**
+         * @return false if a run points past the end of the file.
+         */
+        private boolean parseTraf(ByteBuffer moof, int trafAt, int trafSize, long moofPosition,
+                                  long[] previousTrafEnd) {
+            int end = trafAt + trafSize;
+            Track track = null;
+            int tfhdFlags = 0;
+            long base = previousTrafEnd[0];
+            int descriptionIndex = 0;
+            int defaultDuration = 0;
+            int defaultSize = 0;
+            int defaultFlags = 0;
+            long dataCursor = -1;
+
+            int pos = trafAt + 8;
+            while (pos + 8 <= end) {
+                int size = moof.getInt(pos);
+                int type = moof.getInt(pos + 4);
+                if (size < 8 || pos + size > end) break;
+                if (type == TYPE_tfhd) {
+                    tfhdFlags = moof.getInt(pos + 8) & 0xFFFFFF;
+                    track = trackById(moof.getInt(pos + 12));
+                    if (track == null) return true; // unknown track: ignore its data
+                    descriptionIndex = track.defaultDescriptionIndex;
+                    defaultDuration = track.defaultDuration;
+                    defaultSize = track.defaultSize;
+                    defaultFlags = track.defaultFlags;
+                    int field = pos + 16;
+                    if ((tfhdFlags & 0x01) != 0) { base = moof.getLong(field); field += 8; }
+                    else if ((tfhdFlags & 0x20000) != 0) { base = moofPosition; }
+                    if ((tfhdFlags & 0x02) != 0) { descriptionIndex = moof.getInt(field); field += 4; }
+                    if ((tfhdFlags & 0x08) != 0) { defaultDuration = moof.getInt(field); field += 4; }
+                    if ((tfhdFlags & 0x10) != 0) { defaultSize = moof.getInt(field); field += 4; }
+                    if ((tfhdFlags & 0x20) != 0) { defaultFlags = moof.getInt(field); }
+                } else if (type == TYPE_tfdt && track != null && track.firstDecodeTime < 0) {
+                    int version = moof.get(pos + 8) & 0xFF;
+                    track.firstDecodeTime = version == 1 ? moof.getLong(pos + 12) : moof.getInt(pos + 12) & 0xFFFFFFFFL;
+                } else if (type == TYPE_trun && track != null) {
+                    int version = moof.get(pos + 8) & 0xFF;
+                    int flags = moof.getInt(pos + 8) & 0xFFFFFF;
+                    int count = moof.getInt(pos + 12);
+                    int field = pos + 16;
+                    long dataStart = dataCursor < 0 ? base : dataCursor;
+                    if ((flags & 0x001) != 0) { dataStart = base + moof.getInt(field); field += 4; }
+                    int firstSampleFlags = defaultFlags;
+                    boolean hasFirstFlags = (flags & 0x004) != 0;
+                    if (hasFirstFlags) { firstSampleFlags = moof.getInt(field); field += 4; }
+
+                    long runBytes = 0;
+                    for (int i = 0; i < count && field <= pos + size; i++) {
+                        int duration = defaultDuration;
+                        int sampleSize = defaultSize;
+                        int sampleFlags = i == 0 && hasFirstFlags ? firstSampleFlags : defaultFlags;
+                        int composition = 0;
+                        if ((flags & 0x100) != 0) { duration = moof.getInt(field); field += 4; }
+                        if ((flags & 0x200) != 0) { sampleSize = moof.getInt(field); field += 4; }
+                        if ((flags & 0x400) != 0) {
+                            int perSample = moof.getInt(field);
+                            field += 4;
+                            if (!(i == 0 && hasFirstFlags)) sampleFlags = perSample;
+                        }
+                        if ((flags & 0x800) != 0) { composition = moof.getInt(field); field += 4; }
+
+                        track.sizes.add(sampleSize);
+                        track.durations.add(duration);
+                        track.durationUnits += duration & 0xFFFFFFFFL;
+                        if (composition != 0 && !track.hasCompositionOffsets) {
+                            // Back-fill zeros for earlier samples
+                            track.hasCompositionOffsets = true;
+                            while (track.compositionOffsets.size < track.sampleCount() - 1) {
+                                track.compositionOffsets.add(0);
+                            }
+                        }
+                        if (track.hasCompositionOffsets) {
+                            track.compositionOffsets.add(composition);
+                            // Only version 1 runs carry signed offsets; v0 bits are copied as-is
+                            if (version == 1 && composition < 0) track.negativeCompositionOffsets = true;
+                        }
+                        boolean sync = (sampleFlags & 0x10000) == 0;
+                        if (sync) {
+                            track.syncSamples.add(track.sampleCount());
+                        } else {
+                            track.allSync = false;
+                        }
+                        runBytes += sampleSize & 0xFFFFFFFFL;
+                    }
+                    if (count > 0) {
+                        if (dataStart < 0 || dataStart + runBytes > fileLength) {
+                            return false;
+                        }
+                        addChunk(track, dataStart, runBytes, count, descriptionIndex);
+                    }
+                    dataCursor = dataStart + runBytes;
+                }
+                pos += size;
+            }
+            if (dataCursor >= 0) {
+                previousTrafEnd[0] = dataCursor;
+            }
+            return true;
+        }
+
+        private void addChunk(Track track, long inputOffset, long length, int samples, int descriptionIndex) {
+            if (chunkCount == chunkInputOffset.length) {
+                chunkInputOffset = Arrays.copyOf(chunkInputOffset, chunkCount * 2);
+                chunkLength = Arrays.copyOf(chunkLength, chunkCount * 2);
+            }
+            chunkInputOffset[chunkCount] = inputOffset;
+            chunkLength[chunkCount] = length;
+            track.chunkIndices.add(chunkCount);
+            track.chunkSampleCounts.add(samples);
+            track.chunkDescriptionIndex.add(descriptionIndex);
+            chunkCount++;
+        }
+    }
+
+    private interface ChildVisitor {
+        void visit(int type, int at, int size);
+    }
+
+    /** Visits the 32-bit-sized child boxes in {@code [from, to)} of an in-memory box. */
+    private static void forEachChild(ByteBuffer box, int from, int to, ChildVisitor visitor) {
+        int pos = from;
+        while (pos + 8 <= to) {
+            int size = box.getInt(pos);
+            if (size < 8 || pos + size > to) return;
+            visitor.visit(box.getInt(pos + 4), pos, size);
+            pos += size;
+        }
+    }
+
+    // ------------------------------------------------------------------ output header
+
+    /**
+     * ftyp + moov + 16-byte mdat header. Chunk offsets depend on the moov size, whose stco vs
+     * co64 choice depends on the total size, so the moov is sized first and built last.
+     */
+    private static byte[] buildHeader(Scan scan, long payloadBytes) {
+        int mdatHeader = 16;
+        byte[] probe = buildMoov(scan, 0, false);
+        boolean co64 = (long) scan.ftyp.length + probe.length + mdatHeader + payloadBytes > 0xFFFFFFFFL;
+        int moovSize = co64 ? buildMoov(scan, 0, true).length : probe.length;
+        long payloadStart = (long) scan.ftyp.length + moovSize + mdatHeader;
+        byte[] moov = buildMoov(scan, payloadStart, co64);
+
+        BoxWriter out = new BoxWriter(scan.ftyp.length + moov.length + mdatHeader);
+        out.putBytes(scan.ftyp, 0, scan.ftyp.length);
+        out.putBytes(moov, 0, moov.length);
+        out.putInt(1); // size = 1: 64-bit largesize follows
+        out.putInt(TYPE_mdat);
+        out.putLong(mdatHeader + payloadBytes);
+        return out.toByteArray();
+    }
+
+    private static byte[] buildMoov(Scan scan, long payloadStart, boolean co64) {
+        ByteBuffer moov = scan.initMoov;
+        long movieTimescale = 1000;
+        int[] mvhdAt = {-1};
+        forEachChild(moov, 8, moov.limit(), (type, at, size) -> {
+            if (type == TYPE_mvhd) mvhdAt[0] = at;
+        });
+        if (mvhdAt[0] >= 0) {
+            int version = moov.get(mvhdAt[0] + 8) & 0xFF;
+            movieTimescale = moov.getInt(mvhdAt[0] + (version == 1 ? 28 : 20)) & 0xFFFFFFFFL;
+            if (movieTimescale == 0) movieTimescale = 1000;
+        }
+
+        // Output chunk offsets: payload is the input runs in input order, back to back
+        long[] outputOffsets = new long[scan.chunkCount];
+        long cursor = payloadStart;
+        for (int i = 0; i < scan.chunkCount; i++) {
+            outputOffsets[i] = cursor;
+            cursor += scan.chunkLength[i];
+        }
+
+        long movieDuration = 0;
+        for (Track track : scan.tracks) {
+            movieDuration = Math.max(movieDuration, toMovieUnits(track, track.durationUnits, movieTimescale)
+                    + toMovieUnits(track, Math.max(0, track.firstDecodeTime), movieTimescale));
+        }
+
+        BoxWriter out = new BoxWriter(moov.limit() + 64 * 1024);
+        int moovStart = out.startBox(TYPE_moov);
+        final long finalMovieTimescale = movieTimescale;
+        final long finalMovieDuration = movieDuration;
+        int[] trakIndex = {0};
+        forEachChild(moov, 8, moov.limit(), (type, at, size) -> {
+            if (type == TYPE_mvhd) {
+                copyWithDuration(out, moov, at, size, 24, 32, finalMovieDuration);
+            } else if (type == TYPE_trak) {
+                Track track = scan.tracks.get(trakIndex[0]++);
+                writeTrak(out, moov, at, size, track, outputOffsets, co64, finalMovieTimescale);
+            } else if (type != TYPE_mvex) {
+                out.putBytes(moov.array(), at, size);
+            }
+        });
+        out.endBox(moovStart);
+        return out.toByteArray();
+    }
+
+    private static long toMovieUnits(Track track, long mediaUnits, long movieTimescale) {
+        return track.timescale > 0 ? mediaUnits * movieTimescale / track.timescale : mediaUnits;
+    }
+
+    private static void writeTrak(BoxWriter out, ByteBuffer moov, int trakAt, int trakSize, Track track,
+                                  long[] outputOffsets, boolean co64, long movieTimescale) {
+        long trackMovieDuration = toMovieUnits(track, track.durationUnits, movieTimescale);
+        long leadIn = toMovieUnits(track, Math.max(0, track.firstDecodeTime), movieTimescale);
+        boolean[] hasEdts = {false};
+        forEachChild(moov, trakAt + 8, trakAt + trakSize, (type, at, size) -> {
+            if (type == TYPE_edts) hasEdts[0] = true;
+        });
+
+        int trakStart = out.startBox(TYPE_trak);
+        forEachChild(moov, trakAt + 8, trakAt + trakSize, (type, at, size) -> {
+            if (type == TYPE_tkhd) {
+                copyWithDuration(out, moov, at, size, 28, 36, trackMovieDuration + leadIn);
+                if (!hasEdts[0] && leadIn > 0) {
+                    // Track starts after t=0 (tfdt): keep A/V sync with an empty edit
+                    int edts = out.startBox(TYPE_edts);
+                    int elst = out.startBox(TYPE_elst);
+                    out.putInt(0); // version 0, flags
+                    out.putInt(2);
+                    out.putInt((int) leadIn); out.putInt(-1); out.putInt(0x10000);
+                    out.putInt((int) trackMovieDuration); out.putInt(0); out.putInt(0x10000);
+                    out.endBox(elst);
+                    out.endBox(edts);
+                }
+            } else if (type == TYPE_edts) {
+                writeEdts(out, moov, at, size, trackMovieDuration);
+            } else if (type == TYPE_mdia) {
+                int mdia = out.startBox(TYPE_mdia);
+                forEachChild(moov, at + 8, at + size, (t, a, s) -> {
+                    if (t == TYPE_mdhd) {
+                        copyWithDuration(out, moov, a, s, 24, 32, track.durationUnits);
+                    } else if (t == TYPE_minf) {
+                        int minf = out.startBox(TYPE_minf);
+                        forEachChild(moov, a + 8, a + s, (t2, a2, s2) -> {
+                            if (t2 == TYPE_stbl) {
+                                writeStbl(out, moov, a2, s2, track, outputOffsets, co64);
+                            } else {
+                                out.putBytes(moov.array(), a2, s2);
+                            }
+                        });
+                        out.endBox(minf);
+                    } else {
+                        out.putBytes(moov.array(), a, s);
+                    }
+                });
+                out.endBox(mdia);
+            } else {
+                out.putBytes(moov.array(), at, size);
+            }
+        });
+        out.endBox(trakStart);
+    }
+
+    /**
+     * Copies edts; fragmented files may use segment_duration 0 ("whole track"), which a
+     * progressive file must spell out.
+     */
+    private static void writeEdts(BoxWriter out, ByteBuffer moov, int at, int size, long trackMovieDuration) {
+        int start = out.position();
+        out.putBytes(moov.array(), at, size);
+        byte[] buffer = out.array();
+        forEachChild(moov, at + 8, at + size, (type, a, s) -> {
+            if (type != TYPE_elst) return;
+            int version = moov.get(a + 8) & 0xFF;
+            int count = moov.getInt(a + 12);
+            int entry = a + 16;
+            int entrySize = version == 1 ? 20 : 12;
+            for (int i = 0; i < count && entry + entrySize <= a + s; i++, entry += entrySize) {
+                int outEntry = start + (entry - at);
+                if (version == 1) {
+                    if (moov.getLong(entry) == 0) BoxWriter.putLong(buffer, outEntry, trackMovieDuration);
+                } else if (moov.getInt(entry) == 0) {
+                    BoxWriter.putInt(buffer, outEntry, (int) Math.min(trackMovieDuration, 0xFFFFFFFFL));
+                }
+            }
+        });
+    }
+
+    /**
+     * Copies a full box with a duration field at payload offset {@code v0Offset} (32-bit) or
+     * {@code v1Offset} (64-bit), measured from the box start.
+     */
+    private static void copyWithDuration(BoxWriter out, ByteBuffer moov, int at, int size,
+                                         int v0Offset, int v1Offset, long duration) {
+        int start = out.position();
+        out.putBytes(moov.array(), at, size);
+        int version = moov.get(at + 8) & 0xFF;
+        if (version == 1) {
+            BoxWriter.putLong(out.array(), start + v1Offset, duration);
+        } else {
+            BoxWriter.putInt(out.array(), start + v0Offset, (int) Math.min(duration, 0xFFFFFFFFL));
+        }
+    }
+
+    private static void writeStbl(BoxWriter out, ByteBuffer moov, int stblAt, int stblSize, Track track,
+                                  long[] outputOffsets, boolean co64) {
+        int stbl = out.startBox(TYPE_stbl);
+        forEachChild(moov, stblAt + 8, stblAt + stblSize, (type, at, size) -> {
+            if (type == TYPE_stsd) out.putBytes(moov.array(), at, size);
+        });
+        int n = track.sampleCount();
+
+        // stts: run-length sample durations
+        int stts = out.startFullBox(0x73747473, 0);
+        int sttsCount = out.reserveInt();
+        int entries = 0;
+        for (int i = 0; i < n; ) {
+            int j = i + 1;
+            while (j < n && track.durations.values[j] == track.durations.values[i]) j++;
+            out.putInt(j - i);
+            out.putInt(track.durations.values[i]);
+            entries++;
+            i = j;
+        }
+        out.patchInt(sttsCount, entries);
+        out.endBox(stts);
+
+        if (track.hasCompositionOffsets) {
+            int ctts = out.startFullBox(0x63747473, track.negativeCompositionOffsets ? 1 : 0);
+            int cttsCount = out.reserveInt();
+            entries = 0;
+            int[] offsets = track.compositionOffsets.values;
+            for (int i = 0; i < n; ) {
+                int j = i + 1;
+                while (j < n && offsets[j] == offsets[i]) j++;
+                out.putInt(j - i);
+                out.putInt(offsets[i]);
+                entries++;
+                i = j;
+            }
+            out.patchInt(cttsCount, entries);
+            out.endBox(ctts);
+        }
+
+        if (!track.allSync) {
+            int stss = out.startFullBox(0x73747373, 0);
+            out.putInt(track.syncSamples.size);
+            for (int i = 0; i < track.syncSamples.size; i++) {
+                out.putInt(track.syncSamples.values[i]);
+            }
+            out.endBox(stss);
+        }
+
+        // stsc: one entry per change of samples-per-chunk / description index
+        int stsc = out.startFullBox(0x73747363, 0);
+        int stscCount = out.reserveInt();
+        entries = 0;
+        for (int c = 0; c < track.chunkIndices.size; c++) {
+            if (c == 0 || track.chunkSampleCounts.values[c] != track.chunkSampleCounts.values[c - 1]
+                    || track.chunkDescriptionIndex.values[c] != track.chunkDescriptionIndex.values[c - 1]) {
+                out.putInt(c + 1);
+                out.putInt(track.chunkSampleCounts.values[c]);
+                out.putInt(Math.max(1, track.chunkDescriptionIndex.values[c]));
+                entries++;
+            }
+        }
+        out.patchInt(stscCount, entries);
+        out.endBox(stsc);
+
+        int stsz = out.startFullBox(0x7374737A, 0);
+        boolean uniform = n > 0;
+        for (int i = 1; i < n && uniform; i++) {
+            uniform = track.sizes.values[i] == track.sizes.values[0];
+        }
+        if (uniform) {
+            out.putInt(track.sizes.values[0]);
+            out.putInt(n);
+        } else {
+            out.putInt(0);
+            out.putInt(n);
+            for (int i = 0; i < n; i++) out.putInt(track.sizes.values[i]);
+        }
+        out.endBox(stsz);
+
+        int stco = out.startFullBox(co64 ? 0x636F3634 : 0x7374636F, 0);
+        out.putInt(track.chunkIndices.size);
+        for (int c = 0; c < track.chunkIndices.size; c++) {
+            long offset = outputOffsets[track.chunkIndices.values[c]];
+            if (co64) out.putLong(offset); else out.putInt((int) offset);
+        }
+        out.endBox(stco);
+
+        out.endBox(stbl);
+    }
+
+    /** Minimal big-endian box writer over a growable array. */
+    private static final class BoxWriter {
+        private byte[] data;
+        private int size;
+
+        BoxWriter(int capacity) {
+            data = new byte[Math.max(64, capacity)];
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > data.length) {
+                data = Arrays.copyOf(data, Math.max(size + extra, data.length * 2));
+            }
+        }
+
+        int position() { return size; }
+
+        byte[] array() { return data; }
+
+        void putInt(int value) {
+            ensure(4);
+            putInt(data, size, value);
+            size += 4;
+        }
+
+        void putLong(long value) {
+            ensure(8);
+            putLong(data, size, value);
+            size += 8;
+        }
+
+        void putBytes(byte[] src, int offset, int length) {
+            ensure(length);
+            System.arraycopy(src, offset, data, size, length);
+            size += length;
+        }
+
+        int startBox(int type) {
+            int start = size;
+            putInt(0);
+            putInt(type);
+            return start;
+        }
+
+        int startFullBox(int type, int version) {
+            int start = startBox(type);
+            putInt(version << 24);
+            return start;
+        }
+
+        int reserveInt() {
+            int at = size;
+            putInt(0);
+            return at;
+        }
+
+        void patchInt(int at, int value) {
+            putInt(data, at, value);
+        }
+
+        void endBox(int start) {
+            putInt(data, start, size - start);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(data, size);
+        }
+
+        static void putInt(byte[] d, int at, int v) {
+            d[at] = (byte) (v >>> 24);
+            d[at + 1] = (byte) (v >>> 16);
+            d[at + 2] = (byte) (v >>> 8);
+            d[at + 3] = (byte) v;
+        }
+
+        static void putLong(byte[] d, int at, long v) {
+            putInt(d, at, (int) (v >>> 32));
+            putInt(d, at + 4, (int) v);
+        }
+    }
+}
@@ -0,0 +1,616 @@
+package com.fadcam.playback;
+
+import com.fadcam.FLog;
+import android.content.Context;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Header-only duration / format probe for MP4 files (regular, hybrid-finalized and
+ * fragmented), replacing a MediaMetadataRetriever session per file.
+ *
+ * <p>Architecture:
+ * - Walks top-level box headers with small positional reads up to the moov; media data is
+ *   never read.
+ * - Regular / hybrid MP4: duration from mvhd, format from the tracks' hdlr + stsd.
+ * - Fragmented MP4 (init moov has mvex): the header walk stops at the moov. The recorder's
+ *   seek-index sidecar, when valid, answers the duration. Otherwise duration = end of the last
+ *   complete fragment minus the start of the first (tfdt + trun durations of those two moofs
+ *   only); the last moof is found by searching a bounded window at the end of the file, so
+ *   the cost does not grow with the fragment count. Without tfdt every moof's trun durations
+ *   are summed.
+ * - Returns null for anything it does not understand; callers then fall back to the
+ *   platform retriever.
+ */
+public final class Mp4MetadataProbe {
+
+    private static final String TAG = "Mp4MetadataProbe";
+
+    private static final int TYPE_ftyp = 0x66747970;
+    private static final int TYPE_moov = 0x6D6F6F76;
+    private static final int TYPE_moof = 0x6D6F6F66;
+    private static final int TYPE_mdat = 0x6D646174;
+    private static final int TYPE_mvhd = 0x6D766864;
+    private static final int TYPE_mvex = 0x6D766578;
+    private static final int TYPE_trex = 0x74726578;
+    private static final int TYPE_trak = 0x7472616B;
+    private static final int TYPE_tkhd = 0x746B6864;
+    private static final int TYPE_mdia = 0x6D646961;
+    private static final int TYPE_mdhd = 0x6D646864;
+    private static final int TYPE_hdlr = 0x68646C72;
+    private static final int TYPE_minf = 0x6D696E66;
+    private static final int TYPE_stbl = 0x7374626C;
+    private static final int TYPE_stsd = 0x73747364;
+    private static final int TYPE_traf = 0x74726166;
+    private static final int TYPE_tfhd = 0x74666864;
+    private static final int TYPE_tfdt = 0x74666474;
+    private static final int TYPE_trun = 0x7472756E;
+    private static final int HANDLER_vide = 0x76696465;
+    private static final int HANDLER_soun = 0x736F756E;
+
+    private static final int MAX_MOOF_SIZE = 1024 * 1024;
+    private static final int MAX_TOP_LEVEL_BOXES = 1_000_000;
+    /** Boxes (styp, sidx, free...) allowed between the init moov and the first moof. */
+    private static final int MAX_BOXES_BEFORE_FIRST_MOOF = 16;
+    private static final int TAIL_CHUNK = 1024 * 1024;
+    private static final long TAIL_SEARCH_MAX = 32L * 1024 * 1024;
+
+    /** Probe result; strings mirror MediaMetadataRetriever's values where they overlap. */
+    public static final class Result {
+        public final long durationMs;
+        /** Container MIME (METADATA_KEY_MIMETYPE equivalent): video/mp4 or audio/mp4. */
+        @NonNull public final String mimeType;
+        /** Codec MIME of the first video track (e.g. video/avc), or null. */
+        @Nullable public final String videoCodecMime;
+        /** Codec MIME of the first audio track (e.g. audio/mp4a-latm), or null. */
+        @Nullable public final String audioCodecMime;
+        public final int width;
+        public final int height;
+        public final boolean fragmented;
+
+        Result(long durationMs, @NonNull String mimeType, @Nullable String videoCodecMime,
+               @Nullable String audioCodecMime, int width, int height, boolean fragmented) {
+            this.durationMs = durationMs;
+            this.mimeType = mimeType;
+            this.videoCodecMime = videoCodecMime;
+            this.audioCodecMime = audioCodecMime;
+            this.width = width;
+            this.height = height;
+            this.fragmented = fragmented;
+        }
+    }
+
+    private Mp4MetadataProbe() {}
+
+    /**
+     * Probes a file:// or content:// URI.
+     *
+     * @return The result, or null if the URI is not an MP4 this probe understands.
+     */
+    @Nullable
+    public static Result probe(@NonNull Context context, @NonNull Uri uri) {
+        String scheme = uri.getScheme();
+        if ("file".equals(scheme)) {
+            String path = uri.getPath();
+            return path != null ? probe(new File(path)) : null;
+        }
+        if (!"content".equals(scheme)) {
+            return null;
+        }
+        try (ParcelFileDescriptor pfd = context.getContentResolver().openFileDescriptor(uri, "r")) {
+            if (pfd == null) return null;
+            try (FileInputStream in = new FileInputStream(pfd.getFileDescriptor())) {
+                return probe(in.getChannel(), null);
+            }
+        } catch (Exception e) {
+            FLog.d(TAG, "Probe failed for " + uri + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Probes a local file.
+     *
+     * @return The result, or null if the file is not an MP4 this probe understands.
+     */
+    @Nullable
+    public static Result probe(@NonNull File file) {
+        if (!file.isFile()) return null;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            return probe(raf.getChannel(), file);
+        } catch (Exception e) {
+            FLog.d(TAG, "Probe failed for " + file.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static final class Track {
+        int trackId;
+        int handler;
+        long timescale;
+        long mdhdDuration;
+        String codecMime;
+        int width;
+        int height;
+        long defaultSampleDuration;
+        // Fragment timing (media timescale units)
+        long firstDecodeTime = -1;
+        long endTime;
+        long summedDuration;
+    }
+
+    @Nullable
+    private static Result probe(@NonNull FileChannel channel, @Nullable File file) throws IOException {
+        long length = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(16);
+
+        boolean sawFtyp = false;
+        boolean sawMoov = false;
+        List<Track> tracks = new ArrayList<>();
+        long[] movie = new long[2]; // timescale, duration
+        boolean[] hasMvex = new boolean[1];
+        long fragmentsStart = -1;
+
+        long pos = 0;
+        int boxes = 0;
+        while (pos + 8 <= length && boxes++ < MAX_TOP_LEVEL_BOXES) {
+            header.clear();
+            header.limit((int) Math.min(16, length - pos));
+            readFully(channel, header, pos);
+            long size = header.getInt(0) & 0xFFFFFFFFL;
+            int type = header.getInt(4);
+            if (size == 1) {
+                if (header.limit() < 16) break;
+                size = header.getLong(8);
+            } else if (size == 0) {
+                size = length - pos;
+            }
+            if (size < 8) break;
+            boolean complete = pos + size <= length;
+
+            if (boxes == 1 && type != TYPE_ftyp) {
+                return null; // Not ISO BMFF
+            }
+            if (type == TYPE_ftyp) {
+                sawFtyp = true;
+            } else if (type == TYPE_moov && complete) {
+                // Hybrid files carry the init moov inside the wrapping mdat and the final one
+                // at the top level, so the last top-level moov wins
+                tracks.clear();
+                movie[0] = movie[1] = 0;
+                hasMvex[0] = false;
+                parseMoov(channel, pos, size, tracks, movie, hasMvex);
+                sawMoov = true;
+                if (hasMvex[0]) {
+                    // Only fragments follow; they are located from the file's ends below
+                    fragmentsStart = pos + size;
+                    break;
+                }
+            }
+            if (!complete) break;
+            pos += size;
+        }
+        if (!sawFtyp || !sawMoov || tracks.isEmpty()) {
+            return null;
+        }
+
+        long durationMs;
+        boolean fragmented = hasMvex[0];
+        if (fragmented) {
+            durationMs = fragmentedDurationMs(channel, file, tracks, fragmentsStart);
+        } else if (movie[0] > 0 && movie[1] > 0) {
+            durationMs = movie[1] * 1000 / movie[0];
+        } else {
+            durationMs = 0;
+            for (Track track : tracks) {
+                if (track.timescale > 0) {
+                    durationMs = Math.max(durationMs, track.mdhdDuration * 1000 / track.timescale);
+                }
+            }
+        }
+
+        Track video = null;
+        Track audio = null;
+        for (Track track : tracks) {
+            if (track.handler == HANDLER_vide && video == null) video = track;
+            if (track.handler == HANDLER_soun && audio == null) audio = track;
+        }
+        return new Result(durationMs, video != null ? "video/mp4" : "audio/mp4",
+                video != null ? video.codecMime : null, audio != null ? audio.codecMime : null,
+                video != null ? video.width : 0, video != null ? video.height : 0, fragmented);
+    }
+
+    // ------------------------------------------------------------------ moov
+
+    private static void parseMoov(FileChannel channel, long moovPosition, long moovSize,
+                                  List<Track> tracks, long[] movie, boolean[] hasMvex) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(128);
+        for (long[] child : children(channel, moovPosition + 8, moovPosition + moovSize)) {
+            int type = (int) child[2];
+            if (type == TYPE_mvhd) {
+                ByteBuffer mvhd = read(channel, child[0], Math.min(child[1], 40), buffer);
+                int version = mvhd.get(8) & 0xFF;
+                movie[0] = mvhd.getInt(version == 1 ? 28 : 20) & 0xFFFFFFFFL;
+                movie[1] = version == 1 ? mvhd.getLong(32) : mvhd.getInt(24) & 0xFFFFFFFFL;
+            } else if (type == TYPE_trak) {
+                Track track = new Track();
+                parseTrak(channel, child[0], child[1], track, buffer);
+                tracks.add(track);
+            } else if (type == TYPE_mvex) {
+                hasMvex[0] = true;
+                for (long[] ex : children(channel, child[0] + 8, child[0] + child[1])) {
+                    if ((int) ex[2] == TYPE_trex && ex[1] >= 24) {
+                        ByteBuffer trex = read(channel, ex[0], 24, buffer);
+                        int trackId = trex.getInt(12);
+                        for (Track track : tracks) {
+                            if (track.trackId == trackId) {
+                                track.defaultSampleDuration = trex.getInt(20) & 0xFFFFFFFFL;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void parseTrak(FileChannel channel, long at, long size, Track track,
+                                  ByteBuffer buffer) throws IOException {
+        for (long[] child : children(channel, at + 8, at + size)) {
+            int type = (int) child[2];
+            if (type == TYPE_tkhd) {
+                ByteBuffer tkhd = read(channel, child[0], Math.min(child[1], 32), buffer);
+                int version = tkhd.get(8) & 0xFF;
+                track.trackId = tkhd.getInt(version == 1 ? 28 : 20);
+            } else if (type == TYPE_mdia) {
+                for (long[] m : children(channel, child[0] + 8, child[0] + child[1])) {
+                    int mType = (int) m[2];
+                    if (mType == TYPE_mdhd) {
+                        ByteBuffer mdhd = read(channel, m[0], Math.min(m[1], 40), buffer);
+                        int version = mdhd.get(8) & 0xFF;
+                        track.timescale = mdhd.getInt(version == 1 ? 28 : 20) & 0xFFFFFFFFL;
+                        track.mdhdDuration = version == 1 ? mdhd.getLong(32) : mdhd.getInt(24) & 0xFFFFFFFFL;
+                    } else if (mType == TYPE_hdlr) {
+                        track.handler = read(channel, m[0], Math.min(m[1], 20), buffer).getInt(16);
+                    } else if (mType == TYPE_minf) {
+                        parseMinf(channel, m[0], m[1], track, buffer);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void parseMinf(FileChannel channel, long at, long size, Track track,
+                                  ByteBuffer buffer) throws IOException {
+        for (long[] child : children(channel, at + 8, at + size)) {
+            if ((int) child[2] != TYPE_stbl) continue;
+            for (long[] s : children(channel, child[0] + 8, child[0] + child[1])) {
+                if ((int) s[2] != TYPE_stsd || s[1] < 24) continue;
+                // stsd: header(8) version/flags(4) count(4), then the first sample entry
+                ByteBuffer stsd = read(channel, s[0], Math.min(s[1], 52), buffer);
+                int format = stsd.getInt(20);
+                track.codecMime = codecMime(format);
+                if (stsd.limit() >= 52 && track.handler != HANDLER_soun) {
+                    // VisualSampleEntry: width/height at +32/+34 of the entry
+                    track.width = stsd.getShort(16 + 32) & 0xFFFF;
+                    track.height = stsd.getShort(16 + 34) & 0xFFFF;
+                }
+            }
+        }
+    }
+
+    @Nullable
+    private static String codecMime(int format) {
+        switch (format) {
+            case 0x61766331: // avc1
+            case 0x61766333: // avc3
+                return "video/avc";
+            case 0x68766331: // hvc1
+            case 0x68657631: // hev1
+                return "video/hevc";
+            case 0x61763031: // av01
+                return "video/av01";
+            case 0x76703039: // vp09
+                return "video/x-vnd.on2.vp9";
+            case 0x6D703476: // mp4v
+                return "video/mp4v-es";
+            case 0x6D703461: // mp4a
+                return "audio/mp4a-latm";
+            case 0x4F707573: // Opus
+                return "audio/opus";
+            case 0x73616D72: // samr
+                return "audio/3gpp";
+            default:
+                return null;
+        }
+    }
+
+    // ------------------------------------------------------------------ fragments
+
+    private static long fragmentedDurationMs(FileChannel channel, @Nullable File file, List<Track> tracks,
+                                             long fragmentsStart) throws IOException {
+        if (file != null) {
+            FragmentedMp4IndexBuilder.FragmentIndex sidecar = FragmentIndexSidecar.load(file);
+            if (sidecar != null) {
+                return sidecar.durationUs / 1000;
+            }
+        }
+        long firstMoof = findFirstMoof(channel, fragmentsStart);
+        if (firstMoof < 0) {
+            return 0;
+        }
+        long lastCompleteMoof = findLastCompleteMoof(channel, firstMoof);
+        if (lastCompleteMoof < 0) {
+            // No complete fragment near the end (huge fragments or a torn tail): walk
+            lastCompleteMoof = walkToLastCompleteMoof(channel, firstMoof);
+            if (lastCompleteMoof < 0) {
+                return 0;
+            }
+        }
+        boolean firstHasTfdt = parseMoof(channel, firstMoof, tracks, true);
+        boolean lastHasTfdt = firstMoof == lastCompleteMoof || parseMoof(channel, lastCompleteMoof, tracks, false);
+        if (!firstHasTfdt || !lastHasTfdt) {
+            // No decode times: sum every complete fragment's sample durations
+            for (Track track : tracks) track.summedDuration = 0;
+            sumAllFragments(channel, tracks, lastCompleteMoof);
+            long durationMs = 0;
+            for (Track track : tracks) {
+                if (track.timescale > 0) {
+                    durationMs = Math.max(durationMs, track.summedDuration * 1000 / track.timescale);
+                }
+            }
+            return durationMs;
+        }
+        long durationMs = 0;
+        for (Track track : tracks) {
+            if (track.timescale > 0 && track.firstDecodeTime >= 0 && track.endTime > track.firstDecodeTime) {
+                durationMs = Math.max(durationMs, (track.endTime - track.firstDecodeTime) * 1000 / track.timescale);
+            }
+        }
+        FLog.d(TAG, "fMP4 duration " + durationMs + "ms from first/last fragment");
+        return durationMs;
+    }
+
+    /** Position of the first top-level moof at or after {@code from}, or -1. */
+    private static long findFirstMoof(FileChannel channel, long from) throws IOException {
+        long length = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(16);
+        long pos = from;
+        for (int boxes = 0; boxes < MAX_BOXES_BEFORE_FIRST_MOOF && pos + 8 <= length; boxes++) {
+            header.clear();
+            header.limit((int) Math.min(16, length - pos));
+            readFully(channel, header, pos);
+            long size = header.getInt(0) & 0xFFFFFFFFL;
+            if (size == 1 && header.limit() == 16) size = header.getLong(8);
+            if (size < 8) return -1;
+            if (header.getInt(4) == TYPE_moof) {
+                return isCompleteFragment(channel, pos, length) ? pos : -1;
+            }
+            pos += size;
+        }
+        return -1;
+    }
+
+    /**
+     * Searches backwards from the end of the file, one chunk at a time, for the newest moof
+     * followed by a complete mdat.
+     *
+     * @return The moof position, or -1 if none starts within {@link #TAIL_SEARCH_MAX} of the end.
+     */
+    private static long findLastCompleteMoof(FileChannel channel, long firstMoof) throws IOException {
+        long length = channel.size();
+        long floor = Math.max(firstMoof, length - TAIL_SEARCH_MAX);
+        ByteBuffer chunk = ByteBuffer.allocate(TAIL_CHUNK + 8);
+        long end = length;
+        while (end > floor) {
+            long start = Math.max(floor, end - TAIL_CHUNK);
+            // Overlap the previous chunk so a box header split at the boundary is still seen
+            chunk.clear();
+            chunk.limit((int) (Math.min(length, end + 8) - start));
+            readFully(channel, chunk, start);
+            for (int i = chunk.limit() - 4; i >= 4; i--) {
+                if (chunk.getInt(i) == TYPE_moof && isCompleteFragment(channel, start + i - 4, length)) {
+                    return start + i - 4;
+                }
+            }
+            end = start;
+        }
+        return -1;
+    }
+
+    /** Linear top-level walk from {@code firstMoof}; the fallback when the tail search fails. */
+    private static long walkToLastCompleteMoof(FileChannel channel, long firstMoof) throws IOException {
+        long length = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(16);
+        long lastComplete = -1;
+        long pos = firstMoof;
+        int boxes = 0;
+        while (pos + 8 <= length && boxes++ < MAX_TOP_LEVEL_BOXES) {
+            header.clear();
+            header.limit((int) Math.min(16, length - pos));
+            readFully(channel, header, pos);
+            long size = header.getInt(0) & 0xFFFFFFFFL;
+            if (size == 1 && header.limit() == 16) size = header.getLong(8);
+            if (size < 8 || pos + size > length) break;
+            if (header.getInt(4) == TYPE_moof && isCompleteFragment(channel, pos, length)) {
+                lastComplete = pos;
+            }
+            pos += size;
+        }
+        return lastComplete;
+    }
+
+    /**
+     * Whether a plausible moof (mfhd first) sits at {@code position} and is followed by an mdat
+     * that ends within the file. Guards the tail search against "moof" bytes inside media data.
+     */
+    private static boolean isCompleteFragment(FileChannel channel, long position, long length)
+            throws IOException {
+        if (position < 0 || position + 24 > length) return false;
+        ByteBuffer header = ByteBuffer.allocate(16);
+        readFully(channel, header, position);
+        long moofSize = header.getInt(0) & 0xFFFFFFFFL;
+        if (header.getInt(4) != TYPE_moof || moofSize < 24 || moofSize > MAX_MOOF_SIZE
+                || header.getInt(12) != 0x6D666864 /* mfhd */) {
+            return false;
+        }
+        long mdatPosition = position + moofSize;
+        if (mdatPosition + 8 > length) return false;
+        header.clear();
+        header.limit((int) Math.min(16, length - mdatPosition));
+        readFully(channel, header, mdatPosition);
+        if (header.getInt(4) != TYPE_mdat) return false;
+        long mdatSize = header.getInt(0) & 0xFFFFFFFFL;
+        if (mdatSize == 1) {
+            if (header.limit() < 16) return false;
+            mdatSize = header.getLong(8);
+        } else if (mdatSize == 0) {
+            // Extends to the end of the file: only complete once the recorder rewrote the size
+            return false;
+        }
+        return mdatSize >= 8 && mdatPosition + mdatSize <= length;
+    }
+
+    private static void sumAllFragments(FileChannel channel, List<Track> tracks, long lastCompleteMoof)
+            throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(16);
+        long pos = 0;
+        long end = Math.min(channel.size(), lastCompleteMoof + 1);
+        while (pos < end) {
+            header.clear();
+            readFully(channel, header, pos);
+            long size = header.getInt(0) & 0xFFFFFFFFL;
+            if (size == 1) size = header.getLong(8);
+            if (size < 8) return;
+            if (header.getInt(4) == TYPE_moof) {
+                parseMoof(channel, pos, tracks, false);
+            }
+            pos += size;
+        }
+    }
+
+    /**
+     * Adds the moof's sample durations to each track's summedDuration and records decode times.
+     *
+     * @return true if every traf carried a tfdt.
+     */
+    private static boolean parseMoof(FileChannel channel, long position, List<Track> tracks,
+                                     boolean first) throws IOException {
+        ByteBuffer sizeBuffer = ByteBuffer.allocate(8);
+        readFully(channel, sizeBuffer, position);
+        long size = sizeBuffer.getInt(0) & 0xFFFFFFFFL;
+        if (size < 16 || size > MAX_MOOF_SIZE) return false;
+        ByteBuffer moof = ByteBuffer.allocate((int) size);
+        readFully(channel, moof, position);
+
+        boolean allTfdt = true;
+        int pos = 8;
+        while (pos + 8 <= size) {
+            int boxSize = moof.getInt(pos);
+            if (boxSize < 8 || pos + boxSize > size) break;
+            if (moof.getInt(pos + 4) == TYPE_traf) {
+                allTfdt &= parseTraf(moof, pos + 8, pos + boxSize, tracks, first);
+            }
+            pos += boxSize;
+        }
+        return allTfdt;
+    }
+
+    private static boolean parseTraf(ByteBuffer moof, int from, int to, List<Track> tracks, boolean first) {
+        Track track = null;
+        long defaultDuration = 0;
+        long decodeTime = -1;
+        long runDuration = 0;
+        int pos = from;
+        while (pos + 8 <= to) {
+            int size = moof.getInt(pos);
+            int type = moof.getInt(pos + 4);
+            if (size < 8 || pos + size > to) break;
+            if (type == TYPE_tfhd) {
+                int flags = moof.getInt(pos + 8) & 0xFFFFFF;
+                int trackId = moof.getInt(pos + 12);
+                for (Track t : tracks) {
+                    if (t.trackId == trackId) track = t;
+                }
+                if (track == null) return true;
+                defaultDuration = track.defaultSampleDuration;
+                int field = pos + 16;
+                if ((flags & 0x01) != 0) field += 8;
+                if ((flags & 0x02) != 0) field += 4;
+                if ((flags & 0x08) != 0) defaultDuration = moof.getInt(field) & 0xFFFFFFFFL;
+            } else if (type == TYPE_tfdt && track != null) {
+                int version = moof.get(pos + 8) & 0xFF;
+                decodeTime = version == 1 ? moof.getLong(pos + 12) : moof.getInt(pos + 12) & 0xFFFFFFFFL;
+            } else if (type == TYPE_trun && track != null) {
+                int flags = moof.getInt(pos + 8) & 0xFFFFFF;
+                int count = moof.getInt(pos + 12);
+                int field = pos + 16;
+                if ((flags & 0x001) != 0) field += 4;
+                if ((flags & 0x004) != 0) field += 4;
+                int stride = Integer.bitCount(flags & 0xF00) * 4;
+                if ((flags & 0x100) == 0) {
+                    runDuration += defaultDuration * count;
+                } else {
+                    for (int i = 0; i < count && field + 4 <= pos + size; i++, field += stride) {
+                        runDuration += moof.getInt(field) & 0xFFFFFFFFL;
+                    }
+                }
+            }
+            pos += size;
+        }
+        if (track == null) return true;
+        track.summedDuration += runDuration;
+        if (decodeTime < 0) return false;
+        if (first) {
+            track.firstDecodeTime = decodeTime;
+        }
+        track.endTime = Math.max(track.endTime, decodeTime + runDuration);
+        return true;
+    }
+
+    // ------------------------------------------------------------------ I/O
+
+    /** Child boxes in [from, to) as {position, size, type}. */
+    private static List<long[]> children(FileChannel channel, long from, long to) throws IOException {
+        List<long[]> result = new ArrayList<>();
+        ByteBuffer header = ByteBuffer.allocate(16);
+        long pos = from;
+        while (pos + 8 <= to) {
+            header.clear();
+            header.limit((int) Math.min(16, to - pos));
+            readFully(channel, header, pos);
+            long size = header.getInt(0) & 0xFFFFFFFFL;
+            if (size == 1 && header.limit() == 16) size = header.getLong(8);
+            if (size < 8 || pos + size > to) break;
+            result.add(new long[] {pos, size, header.getInt(4)});
+            pos += size;
+        }
+        return result;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, long length, ByteBuffer buffer)
+            throws IOException {
+        buffer.clear();
+        buffer.limit((int) Math.min(buffer.capacity(), length));
+        readFully(channel, buffer, position);
+        return buffer;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + buffer.position());
+            if (n < 0) throw new IOException("Unexpected end of file at " + position);
+        }
+    }
+}
@@ -283,6 +283,8 @@ public final class PlayerHolder {
             // fails for standard MP4 files with broken moov atoms (Faditor-converted).
             boolean usedFmp4Factory = false;
             if (fmp4SourceFactory != null) {
+                // The source being replaced no longer needs its index scan
+                fmp4SourceFactory.releaseIndexes();
                 try {
                     MediaSource mediaSource = fmp4SourceFactory.createMediaSource(item);
                     player.setMediaSource(mediaSource);
@@ -344,11 +346,22 @@ public final class PlayerHolder {
         FLog.d(TAG, "Seeked to " + positionMs + "ms (player reports: " + player.getCurrentPosition() + "ms)");
     }
 
+    /**
+     * Stops the background fMP4 index scans of the current media (the player stays usable).
+     * Call when playback ends for good, e.g. when the player screen is destroyed.
+     */
+    public synchronized void releaseMediaIndexes() {
+        if (fmp4SourceFactory != null) {
+            fmp4SourceFactory.releaseIndexes();
+        }
+    }
+
     public synchronized void release() {
         if (player != null) {
             try { player.release(); } catch (Exception ignored) {}
             player = null;
         }
+        releaseMediaIndexes();
         currentUri = null;
         fmp4SourceFactory = null;
         appContext = null;
@@ -37,13 +37,17 @@ import com.google.common.collect.ImmutableList;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Factory for creating MediaSources for fragmented MP4 files with proper seeking support.
  * 
- * <p>This factory pre-scans fMP4 files to build a fragment index, then wraps the standard
- * FragmentedMp4Extractor to provide a seekable SeekMap. This is the VLC-like approach
- * that enables seeking without requiring sidx boxes in the MP4 file.
+ * <p>This factory indexes fMP4 files ({@link FragmentedMp4IndexBuilder#openForPlayback}), then
+ * wraps the standard FragmentedMp4Extractor to provide a seekable SeekMap. This is the VLC-like
+ * approach that enables seeking without requiring sidx boxes in the MP4 file. Without a valid
+ * sidecar only the first fragments are indexed up front; the SeekMap is republished as the
+ * background scan extends the index, so playback and seeking start without waiting for it.
  * 
  * <p>Usage:
  * <pre>
@@ -51,6 +55,8 @@ import java.io.InputStream;
  *     new SeekableFragmentedMp4MediaSourceFactory(context);
  * MediaSource source = factory.createMediaSource(MediaItem.fromUri(uri));
  * player.setMediaSource(source);
+ * // when the source is replaced or the player released:
+ * factory.releaseIndexes();
  * </pre>
  */
 @OptIn(markerClass = UnstableApi.class)
@@ -60,6 +66,8 @@ public class SeekableFragmentedMp4MediaSourceFactory {
 
     private final Context context;
     private final FragmentedMp4IndexBuilder indexBuilder;
+    // Indexes opened for sources not yet released; their background scans hold the file open
+    private final List<FragmentedMp4IndexBuilder.PlaybackIndex> openIndexes = new ArrayList<>();
 
     public SeekableFragmentedMp4MediaSourceFactory(@NonNull Context context) {
         this.context = context.getApplicationContext();
@@ -69,7 +77,7 @@ public class SeekableFragmentedMp4MediaSourceFactory {
     /**
      * Creates a MediaSource for the given MediaItem with proper fMP4 seeking support.
      *
-     * <p>For {@code file://} URIs, builds a full fragment index using
+     * <p>For {@code file://} URIs, opens a fragment index using
      * {@link FragmentedMp4IndexBuilder} for precise seeking. For {@code content://} URIs
      * (SAF / custom storage), uses a {@link ClippingMediaSource} with the duration
      * obtained from {@link MediaMetadataRetriever}, because
@@ -96,28 +104,21 @@ public class SeekableFragmentedMp4MediaSourceFactory {
             return createContentUriMediaSource(mediaItem, uri);
         }
 
-        // Build the fragment index for file:// URIs
-        FragmentedMp4IndexBuilder.FragmentIndex fragmentIndex = null;
+        // Open the fragment index for file:// URIs
+        FragmentedMp4IndexBuilder.PlaybackIndex playbackIndex = null;
         if ("file".equals(scheme)) {
             String path = uri.getPath();
             if (path != null) {
                 File file = new File(path);
                 if (file.exists()) {
-                    long startTime = System.currentTimeMillis();
-                    fragmentIndex = indexBuilder.buildIndex(file);
-                    long scanTime = System.currentTimeMillis() - startTime;
-                    FLog.d(TAG, "Index built in " + scanTime + "ms: " + 
-                          fragmentIndex.fragments.size() + " fragments, " +
-                          "duration=" + (fragmentIndex.durationUs / 1000000.0) + "s, " +
-                          "seekable=" + fragmentIndex.isSeekable);
+                    playbackIndex = openIndex(file, "file");
                 }
             }
         }
 
         // Create the ExtractorsFactory — use standard Mp4Extractor for
         // non-fragmented files, our FragmentedMp4Extractor wrapper only for fMP4.
-        final FragmentedMp4IndexBuilder.FragmentIndex index = fragmentIndex;
-        ExtractorsFactory extractorsFactory = extractorsFactoryFor(index);
+        ExtractorsFactory extractorsFactory = extractorsFactoryFor(playbackIndex);
 
         // Create ProgressiveMediaSource with our custom extractor
         DataSource.Factory dataSourceFactory = new FileDataSource.Factory();
@@ -146,20 +147,13 @@ public class SeekableFragmentedMp4MediaSourceFactory {
             File file = new File(reconstructedPath);
             FLog.d(TAG, "Content URI → reconstructed path: " + reconstructedPath);
 
-            long startTime = System.currentTimeMillis();
-            FragmentedMp4IndexBuilder.FragmentIndex fragmentIndex = indexBuilder.buildIndex(file);
-            long scanTime = System.currentTimeMillis() - startTime;
-            FLog.d(TAG, "Index built from content URI in " + scanTime + "ms: " +
-                  fragmentIndex.fragments.size() + " fragments, " +
-                  "duration=" + (fragmentIndex.durationUs / 1_000_000.0) + "s, " +
-                  "seekable=" + fragmentIndex.isSeekable);
+            FragmentedMp4IndexBuilder.PlaybackIndex playbackIndex = openIndex(file, "content URI");
 
             // Build MediaItem from file URI for FileDataSource compatibility
             Uri fileUri = Uri.fromFile(file);
             MediaItem fileItem = MediaItem.fromUri(fileUri);
 
-            final FragmentedMp4IndexBuilder.FragmentIndex index = fragmentIndex;
-            ExtractorsFactory extractorsFactory = extractorsFactoryFor(index);
+            ExtractorsFactory extractorsFactory = extractorsFactoryFor(playbackIndex);
 
             DataSource.Factory dataSourceFactory = new FileDataSource.Factory();
             return new ProgressiveMediaSource.Factory(dataSourceFactory, extractorsFactory)
@@ -176,19 +170,11 @@ public class SeekableFragmentedMp4MediaSourceFactory {
                 String fdPath = "/proc/self/fd/" + pfd.getFd();
                 File fdFile = new File(fdPath);
                 if (fdFile.exists() && fdFile.canRead()) {
-                    long startTime = System.currentTimeMillis();
-                    FragmentedMp4IndexBuilder.FragmentIndex fragmentIndex =
-                            indexBuilder.buildIndex(fdFile);
-                    long scanTime = System.currentTimeMillis() - startTime;
-                    FLog.d(TAG, "Index built from FD in " + scanTime + "ms: " +
-                          fragmentIndex.fragments.size() + " fragments, " +
-                          "duration=" + (fragmentIndex.durationUs / 1_000_000.0) + "s, " +
-                          "seekable=" + fragmentIndex.isSeekable);
-
-                    if (fragmentIndex.isSeekable && !fragmentIndex.fragments.isEmpty()) {
-                        final FragmentedMp4IndexBuilder.FragmentIndex index = fragmentIndex;
+                    final FragmentedMp4IndexBuilder.PlaybackIndex playbackIndex = openIndex(fdFile, "FD");
+
+                    if (playbackIndex.current().isSeekable) {
                         ExtractorsFactory extractorsFactory = () -> new Extractor[] {
-                            new SeekMapInjectingExtractor(index)
+                            new SeekMapInjectingExtractor(playbackIndex)
                         };
                         DataSource.Factory ds = new DefaultDataSource.Factory(context);
                         // Keep PFD open for the lifetime of playback
@@ -344,6 +330,39 @@ public class SeekableFragmentedMp4MediaSourceFactory {
         return C.TIME_UNSET;
     }
 
+    /**
+     * Opens the playback index of {@code file} and logs how much of it was ready up front.
+     */
+    @NonNull
+    private FragmentedMp4IndexBuilder.PlaybackIndex openIndex(@NonNull File file, @NonNull String source) {
+        long startTime = System.currentTimeMillis();
+        FragmentedMp4IndexBuilder.PlaybackIndex playbackIndex = indexBuilder.openForPlayback(file);
+        synchronized (openIndexes) {
+            openIndexes.add(playbackIndex);
+        }
+        FragmentedMp4IndexBuilder.FragmentIndex index = playbackIndex.current();
+        FLog.d(TAG, "Index opened from " + source + " in " + (System.currentTimeMillis() - startTime) + "ms: " +
+              index.fragments.size() + " fragments, " +
+              "duration=" + (index.durationUs / 1_000_000.0) + "s, " +
+              "seekable=" + index.isSeekable + ", complete=" + playbackIndex.isComplete());
+        return playbackIndex;
+    }
+
+    /**
+     * Stops the background index scans of every source created so far. Call when those sources
+     * are replaced or the player is released; the sources keep seeking within what was indexed.
+     */
+    public void releaseIndexes() {
+        List<FragmentedMp4IndexBuilder.PlaybackIndex> toClose;
+        synchronized (openIndexes) {
+            toClose = new ArrayList<>(openIndexes);
+            openIndexes.clear();
+        }
+        for (FragmentedMp4IndexBuilder.PlaybackIndex index : toClose) {
+            index.close();
+        }
+    }
+
     /**
      * Returns an {@link ExtractorsFactory} appropriate for the given fragment index.
      * <p>
@@ -355,10 +374,9 @@ public class SeekableFragmentedMp4MediaSourceFactory {
      */
     @NonNull
     private ExtractorsFactory extractorsFactoryFor(
-            @Nullable FragmentedMp4IndexBuilder.FragmentIndex index) {
-        if (index != null && !index.fragments.isEmpty()) {
-            final FragmentedMp4IndexBuilder.FragmentIndex idx = index;
-            return () -> new Extractor[] { new SeekMapInjectingExtractor(idx) };
+            @Nullable FragmentedMp4IndexBuilder.PlaybackIndex index) {
+        if (index != null && !index.current().fragments.isEmpty()) {
+            return () -> new Extractor[] { new SeekMapInjectingExtractor(index) };
         }
         return new DefaultExtractorsFactory();
     }
@@ -532,6 +550,9 @@ public class SeekableFragmentedMp4MediaSourceFactory {
 
     /**
      * Extractor that wraps FragmentedMp4Extractor and injects a pre-built SeekMap.
+     * While the index is still being extended in the background, a newer ChunkIndex is
+     * republished from {@link #read} (the loader thread) whenever one is available; seeks past
+     * the indexed range land on the last indexed fragment until then.
      */
     private static class SeekMapInjectingExtractor implements Extractor {
         
@@ -539,31 +560,36 @@ public class SeekableFragmentedMp4MediaSourceFactory {
         
         private final FragmentedMp4Extractor delegate;
         @Nullable
-        private final FragmentedMp4IndexBuilder.FragmentIndex fragmentIndex;
+        private final FragmentedMp4IndexBuilder.PlaybackIndex playbackIndex;
+        @Nullable
+        private FragmentedMp4IndexBuilder.FragmentIndex indexedFrom;
         @Nullable
         private ChunkIndex seekableChunkIndex;
-        private ExtractorOutput wrappedOutput;
+        private SeekMapInterceptingOutput wrappedOutput;
 
-        SeekMapInjectingExtractor(@Nullable FragmentedMp4IndexBuilder.FragmentIndex fragmentIndex) {
+        SeekMapInjectingExtractor(@Nullable FragmentedMp4IndexBuilder.PlaybackIndex playbackIndex) {
             this.delegate = new FragmentedMp4Extractor(new DefaultSubtitleParserFactory());
-            this.fragmentIndex = fragmentIndex;
+            this.playbackIndex = playbackIndex;
             
             // Build ChunkIndex from fragment index
+            FragmentedMp4IndexBuilder.FragmentIndex fragmentIndex =
+                    playbackIndex != null ? playbackIndex.current() : null;
             if (fragmentIndex != null && fragmentIndex.isSeekable) {
-                int count = fragmentIndex.fragments.size();
-                int[] sizes = fragmentIndex.getSizes();
-                long[] offsets = fragmentIndex.getOffsets();
-                long[] durationsUs = fragmentIndex.getDurationsUs();
-                long[] timesUs = fragmentIndex.getTimesUs();
-                
-                this.seekableChunkIndex = new ChunkIndex(sizes, offsets, durationsUs, timesUs);
-                FLog.i(TAG_EXTRACTOR, "Created ChunkIndex with " + count + " fragments, " +
+                this.seekableChunkIndex = toChunkIndex(fragmentIndex);
+                this.indexedFrom = fragmentIndex;
+                FLog.i(TAG_EXTRACTOR, "Created ChunkIndex with " + fragmentIndex.fragments.size() + " fragments, " +
                       "duration=" + (seekableChunkIndex.getDurationUs() / 1000000.0) + "s");
             } else {
                 FLog.w(TAG_EXTRACTOR, "No fragment index available, seeking will not work");
             }
         }
 
+        @NonNull
+        private static ChunkIndex toChunkIndex(@NonNull FragmentedMp4IndexBuilder.FragmentIndex index) {
+            return new ChunkIndex(index.getSizes(), index.getOffsets(),
+                    index.getDurationsUs(), index.getTimesUs());
+        }
+
         @Override
         public boolean sniff(@NonNull ExtractorInput input) throws IOException {
             return delegate.sniff(input);
@@ -586,6 +612,14 @@ public class SeekableFragmentedMp4MediaSourceFactory {
         @Override
         public int read(@NonNull ExtractorInput input, @NonNull PositionHolder seekPosition) 
                 throws IOException {
+            if (playbackIndex != null && indexedFrom != null && wrappedOutput != null) {
+                FragmentedMp4IndexBuilder.FragmentIndex latest = playbackIndex.current();
+                if (latest != indexedFrom && latest.fragments.size() > indexedFrom.fragments.size()) {
+                    indexedFrom = latest;
+                    seekableChunkIndex = toChunkIndex(latest);
+                    wrappedOutput.updateChunkIndex(seekableChunkIndex);
+                }
+            }
             return delegate.read(input, seekPosition);
         }
 
@@ -611,7 +645,8 @@ public class SeekableFragmentedMp4MediaSourceFactory {
         
         private final ExtractorOutput delegate;
         @Nullable
-        private final ChunkIndex seekableChunkIndex;
+        private ChunkIndex seekableChunkIndex;
+        private boolean seekMapSent;
 
         SeekMapInterceptingOutput(@NonNull ExtractorOutput delegate, 
                                    @Nullable ChunkIndex seekableChunkIndex) {
@@ -646,6 +681,7 @@ public class SeekableFragmentedMp4MediaSourceFactory {
                 }
                 FLog.i(TAG_OUTPUT, "ChunkIndex: duration=" + (seekableChunkIndex.getDurationUs() / 1000000.0) + "s");
                 delegate.seekMap(seekableChunkIndex);
+                seekMapSent = true;
             } else if (seekMap.isSeekable()) {
                 FLog.d(TAG_OUTPUT, "Using delegate's seekable SeekMap (file has sidx)");
                 delegate.seekMap(seekMap);
@@ -654,5 +690,18 @@ public class SeekableFragmentedMp4MediaSourceFactory {
                 delegate.seekMap(seekMap);
             }
         }
+
+        /**
+         * Replaces the pre-built index with a longer one. Republished right away once the
+         * player has a SeekMap (it refreshes duration and seekable range), otherwise used when
+         * the delegate emits its own.
+         */
+        void updateChunkIndex(@NonNull ChunkIndex chunkIndex) {
+            seekableChunkIndex = chunkIndex;
+            if (seekMapSent) {
+                FLog.d(TAG_OUTPUT, "Index extended: duration=" + (chunkIndex.getDurationUs() / 1000000.0) + "s");
+                delegate.seekMap(chunkIndex);
+            }
+        }
     }
 }
@@ -9,6 +9,7 @@ import android.os.Handler;
 import android.os.Looper;
 import com.fadcam.Constants;
 import com.fadcam.Utils;
+import com.fadcam.playback.FragmentIndexSidecar;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.InputStream;
@@ -184,6 +185,9 @@ public class FileOperationManager {
                 if (originalFile.exists()) {
                     deleted = originalFile.delete();
                 }
+                if (deleted) {
+                    FragmentIndexSidecar.delete(originalFile);
+                }
             } else {
                 deleted = context.getContentResolver().delete(task.sourceUri, null, null) > 0;
             }
@@ -205,6 +209,9 @@ public class FileOperationManager {
             if (file.exists()) {
                 deleted = file.delete();
             }
+            if (deleted) {
+                FragmentIndexSidecar.delete(file);
+            }
         } else {
             deleted = context.getContentResolver().delete(task.sourceUri, null, null) > 0;
         }
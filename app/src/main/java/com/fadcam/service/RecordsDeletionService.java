@@ -16,6 +16,7 @@ import com.fadcam.FLog;
 import com.fadcam.R;
 import com.fadcam.Utils;
 import com.fadcam.data.VideoIndexRepository;
+import com.fadcam.playback.FragmentIndexSidecar;
 import com.fadcam.utils.TrashManager;
 import com.fadcam.utils.VideoStatsCache;
 
@@ -519,6 +520,9 @@ public class RecordsDeletionService extends Service {
             // Local file system - direct deletion
             File sourceFile = new File(uri.getPath());
             boolean deleted = !sourceFile.exists() || sourceFile.delete();
+            if (deleted) {
+                FragmentIndexSidecar.delete(sourceFile);
+            }
             if (!deleted) {
                 FLog.w(TAG, "deleteOriginalFile: Failed to delete local file: " + uri.getPath());
             }
@@ -121,6 +121,9 @@ public class RecordingService extends Service {
     private static final String CHANNEL_ID = "RecordingServiceChannel";
     private static final String TAG = "RecordingService"; // Use standard Log TAG
     private static final long FORENSICS_HEARTBEAT_INTERVAL_MS = 1600L;
+    // Resolution of the frame-diff analysis mask built from ignored motion zones
+    private static final int MOTION_ZONE_MASK_WIDTH = 64;
+    private static final int MOTION_ZONE_MASK_HEIGHT = 36;
     private static volatile boolean isCameraResourceReleasing = false;
     
     private long lastStartAttemptTime = 0;
@@ -209,6 +212,11 @@ public class RecordingService extends Service {
     // Motion Lab (advanced, opt-in): sidecar analysis path. No control-flow impact unless explicitly wired later.
     private boolean motionLabEnabledForSession = false;
     private ImageReader motionAnalysisReader;
+    // Owns the thread processMotionFrame runs on; created and released with motionAnalysisReader
+    private volatile com.fadcam.motion.pipeline.MotionAnalysisPipeline motionAnalysisPipeline;
+    // Trigger / ignore zones from PREF_MOTION_ZONES_JSON, parsed once per session
+    private volatile com.fadcam.motion.domain.model.MotionZoneSet motionZones =
+            com.fadcam.motion.domain.model.MotionZoneSet.EMPTY;
     private long motionAnalysisIntervalMs = 333L; // ~3fps default
     private long lastMotionAnalysisTimestampMs = 0L;
     private volatile com.fadcam.motion.domain.detector.MotionDetector motionDetector =
@@ -216,17 +224,19 @@ public class RecordingService extends Service {
     private volatile com.fadcam.motion.domain.detector.EfficientDetLite1Detector efficientDetDetector;
     private com.fadcam.motion.domain.policy.MotionPolicy motionPolicy =
             new com.fadcam.motion.domain.policy.MotionPolicy();
-    private com.fadcam.motion.domain.state.MotionStateMachine motionStateMachine;
+    // Replaced or nulled by session setup/teardown while processMotionFrame runs on the
+    // analysis thread: volatile, and read once per frame into a local
+    private volatile com.fadcam.motion.domain.state.MotionStateMachine motionStateMachine;
     private boolean motionAutoPaused = false;
     private boolean motionSafeMode = false;
-    private int motionConsecutivePersonHits = 0;
-    private long motionFramesAnalyzed = 0L;
-    private long motionTriggerActionCount = 0L;
-    private long motionSuppressedSignalCount = 0L;
-    private float motionScoreEma = Float.NaN;
-    private long motionLastDebugBroadcastMs = 0L;
-    private long motionLastTelemetryLogMs = 0L;
-    private long motionPersonLikelyUntilMs = 0L;
+    private volatile int motionConsecutivePersonHits = 0;
+    private volatile long motionFramesAnalyzed = 0L;
+    private volatile long motionTriggerActionCount = 0L;
+    private volatile long motionSuppressedSignalCount = 0L;
+    private volatile float motionScoreEma = Float.NaN;
+    private volatile long motionLastDebugBroadcastMs = 0L;
+    private volatile long motionLastTelemetryLogMs = 0L;
+    private volatile long motionPersonLikelyUntilMs = 0L;
     private volatile boolean motionOpenCvActive = false;
     private volatile boolean motionDetectorWarmupScheduled = false;
     private volatile boolean motionDetectorWarmupCompleted = false;
@@ -245,13 +255,13 @@ public class RecordingService extends Service {
     private String motionLastClassName = null;
     private float motionLastDetectionConfidence = 0f;
     private boolean motionLastGlobalSuppressed = false;
-    private long motionLastForensicsHeartbeatMs = 0L;
+    private volatile long motionLastForensicsHeartbeatMs = 0L;
     private String motionLastOverlayPayload = null;
-    private long motionJpegAttemptCount = 0L;
-    private long motionJpegSuccessCount = 0L;
-    private long motionJpegSkipCount = 0L;
-    private long motionJpegEncodeTotalMs = 0L;
-    private long motionLastPerfLogMs = 0L;
+    private volatile long motionJpegAttemptCount = 0L;
+    private volatile long motionJpegSuccessCount = 0L;
+    private volatile long motionJpegSkipCount = 0L;
+    private volatile long motionJpegEncodeTotalMs = 0L;
+    private volatile long motionLastPerfLogMs = 0L;
 
     // --- Lifecycle Methods ---
     @Override
@@ -444,11 +454,17 @@ public class RecordingService extends Service {
 
                 if (!motionOpenCvActive) {
                     try {
-                        motionDetector = new com.fadcam.motion.domain.detector.OpenCvMog2MotionDetector();
+                        com.fadcam.motion.domain.detector.OpenCvMog2MotionDetector openCv =
+                                new com.fadcam.motion.domain.detector.OpenCvMog2MotionDetector();
+                        applyMotionZoneMask(openCv);
+                        motionDetector = openCv;
                         motionOpenCvActive = true;
                         FLog.i(TAG, "Motion detector backend: OpenCV MOG2");
                     } catch (Throwable t) {
-                        motionDetector = new com.fadcam.motion.domain.detector.FrameDiffMotionDetector();
+                        com.fadcam.motion.domain.detector.FrameDiffMotionDetector fallback =
+                                new com.fadcam.motion.domain.detector.FrameDiffMotionDetector();
+                        applyMotionZoneMask(fallback);
+                        motionDetector = fallback;
                         motionOpenCvActive = false;
                         FLog.w(TAG, "OpenCV backend unavailable; keeping FrameDiffMotionDetector", t);
                     }
@@ -2582,8 +2598,15 @@ public class RecordingService extends Service {
     private void pauseRecording() {
         if (recordingState != RecordingState.IN_PROGRESS)
             return;
-        if (glRecordingPipeline != null)
-            glRecordingPipeline.pauseRecording(); // if supported
+        if (glRecordingPipeline != null) {
+            if (motionAutoPaused && motionLabEnabledForSession && sharedPreferencesManager != null) {
+                // Keep encoding into the pre-event ring so the next trigger includes the lead-in
+                glRecordingPipeline.pauseRecordingWithPreEvent(
+                        sharedPreferencesManager.getMotionPreRollSeconds() * 1_000_000L);
+            } else {
+                glRecordingPipeline.pauseRecording(); // if supported
+            }
+        }
         if (pauseStartedAt <= 0L) {
             pauseStartedAt = SystemClock.elapsedRealtime();
         }
@@ -2630,10 +2653,14 @@ public class RecordingService extends Service {
             openCamera();
         }
 
-        if (glRecordingPipeline != null)
+        // Pre-event media flushed on resume is part of the recording, not of the pause
+        long preEventMs = 0L;
+        if (glRecordingPipeline != null) {
+            preEventMs = glRecordingPipeline.getPreEventBufferedDurationUs() / 1000L;
             glRecordingPipeline.resumeRecording(); // if supported
+        }
         if (pauseStartedAt > 0L) {
-            accumulatedPausedDurationMs += Math.max(0L, SystemClock.elapsedRealtime() - pauseStartedAt);
+            accumulatedPausedDurationMs += Math.max(0L, SystemClock.elapsedRealtime() - pauseStartedAt - preEventMs);
             pauseStartedAt = 0L;
         }
         persistRecordingTimelineState();
@@ -3028,6 +3055,14 @@ public class RecordingService extends Service {
         motionJpegSkipCount = 0L;
         motionJpegEncodeTotalMs = 0L;
         motionLastPerfLogMs = 0L;
+        motionZones = sharedPreferencesManager != null
+                ? com.fadcam.motion.data.MotionZonesJson.parse(sharedPreferencesManager.getMotionZonesJson())
+                : com.fadcam.motion.domain.model.MotionZoneSet.EMPTY;
+        applyMotionZoneMask(motionDetector);
+        com.fadcam.motion.pipeline.MotionAnalysisPipeline pipeline = motionAnalysisPipeline;
+        if (pipeline != null) {
+            pipeline.resetStats();
+        }
         motionStateMachine = motionLabEnabledForSession
                 ? new com.fadcam.motion.domain.state.MotionStateMachine(motionPolicy)
                 : null;
@@ -3047,6 +3082,19 @@ public class RecordingService extends Service {
         }
     }
 
+    /**
+     * Ignored zones are cut out of analysis entirely on both backends, so the whole-frame
+     * score (used when no trigger zone is set) and the tile heatmap never see motion there.
+     */
+    private void applyMotionZoneMask(com.fadcam.motion.domain.detector.MotionDetector detector) {
+        if (detector instanceof com.fadcam.motion.domain.detector.MotionRegionOfInterestFilter) {
+            ((com.fadcam.motion.domain.detector.MotionRegionOfInterestFilter) detector).setRegionOfInterest(
+                    motionZones.buildAnalysisMask(MOTION_ZONE_MASK_WIDTH, MOTION_ZONE_MASK_HEIGHT),
+                    MOTION_ZONE_MASK_WIDTH,
+                    MOTION_ZONE_MASK_HEIGHT);
+        }
+    }
+
     private void maybeAttachMotionAnalysisSurface(List<Surface> surfaces, int targetFrameRate) {
         if (!motionLabEnabledForSession) {
             return;
@@ -3115,8 +3163,9 @@ public class RecordingService extends Service {
                         // to 1 fps to save power and reduce heat.  Cameras with a third output surface
                         // (analysis YUV) keep the ISP active even when nothing is recording.
                         long effectiveIntervalMs = motionAnalysisIntervalMs;
-                        if (motionStateMachine != null
-                                && motionStateMachine.getState() == com.fadcam.motion.domain.state.MotionSessionState.IDLE
+                        com.fadcam.motion.domain.state.MotionStateMachine stateMachine = motionStateMachine;
+                        if (stateMachine != null
+                                && stateMachine.getState() == com.fadcam.motion.domain.state.MotionSessionState.IDLE
                                 && recordingState == RecordingState.PAUSED) {
                             effectiveIntervalMs = Math.max(effectiveIntervalMs, 1000L);
                         }
@@ -3124,12 +3173,26 @@ public class RecordingService extends Service {
                             return;
                         }
                         lastMotionAnalysisTimestampMs = now;
-                        float rawMotionScore = motionDetector.detectScore(image);
-                        com.fadcam.motion.domain.detector.EfficientDetLite1Detector.FramePacket framePacket =
-                                com.fadcam.motion.domain.detector.EfficientDetLite1Detector.FramePacket.copyFrom(image);
+                        com.fadcam.motion.pipeline.MotionAnalysisPipeline pipeline = motionAnalysisPipeline;
+                        if (pipeline == null) {
+                            return;
+                        }
+                        // Scoring needs the live Image; detection, JPEG and state run on the analysis thread.
+                        long scoreStart = System.nanoTime();
+                        com.fadcam.motion.domain.detector.MotionDetector detector = motionDetector;
+                        float rawMotionScore = detector.detectScore(image);
+                        long copyStart = System.nanoTime();
+                        com.fadcam.motion.pipeline.MotionAnalysisPipeline.Frame frame = pipeline.obtainFrame();
+                        frame.captureDebugInfo(detector);
+                        frame.packet = com.fadcam.motion.domain.detector.EfficientDetLite1Detector.FramePacket
+                                .copyFrom(image, frame.packet);
+                        long copyEnd = System.nanoTime();
                         image.close();
                         image = null;
-                        processMotionFrame(rawMotionScore, framePacket, now);
+                        frame.rawScore = rawMotionScore;
+                        frame.capturedAtMs = now;
+                        frame.setCameraStageNanos(copyStart - scoreStart, copyEnd - copyStart);
+                        pipeline.submit(frame);
                     } catch (Throwable t) {
                         FLog.w(TAG, "Motion analysis frame processing failed", t);
                     } finally {
@@ -3138,6 +3201,12 @@ public class RecordingService extends Service {
                         }
                     }
                 }, backgroundHandler);
+                motionAnalysisPipeline = new com.fadcam.motion.pipeline.MotionAnalysisPipeline(frame -> {
+                    if (motionLabEnabledForSession) {
+                        processMotionFrame(frame);
+                    }
+                });
+                motionAnalysisPipeline.start();
                 FLog.d(TAG, "Created motion analysis reader: " + width + "x" + height + " @" + analysisFps + "fps");
             }
             return motionAnalysisReader.getSurface();
@@ -3148,26 +3217,34 @@ public class RecordingService extends Service {
         }
     }
 
-    private void processMotionFrame(
-            float rawMotionScore,
-            @Nullable com.fadcam.motion.domain.detector.EfficientDetLite1Detector.FramePacket framePacket,
-            long nowMs
-    ) {
+    /**
+     * Runs on the motion analysis thread (see {@link com.fadcam.motion.pipeline.MotionAnalysisPipeline});
+     * {@code frame} and its packet are only valid for the duration of this call.
+     */
+    private void processMotionFrame(@NonNull com.fadcam.motion.pipeline.MotionAnalysisPipeline.Frame frame) {
+        float rawMotionScore = frame.rawScore;
+        com.fadcam.motion.domain.detector.EfficientDetLite1Detector.FramePacket framePacket = frame.packet;
+        long nowMs = frame.capturedAtMs;
+        // Session setup/teardown may swap these from another thread: one read per frame
+        final com.fadcam.motion.domain.state.MotionStateMachine stateMachine = motionStateMachine;
+        float scoreEma = motionScoreEma;
+        int consecutivePersonHits = motionConsecutivePersonHits;
         motionFramesAnalyzed++;
         // OpenCV MOG2 outputs are intentionally conservative; normalize to policy scale.
         if (motionOpenCvActive) {
             rawMotionScore = Math.min(1f, rawMotionScore * 1.35f);
         }
-        if (Float.isNaN(motionScoreEma)) {
-            motionScoreEma = rawMotionScore;
+        if (Float.isNaN(scoreEma)) {
+            scoreEma = rawMotionScore;
         } else {
             // Rise fast to avoid missed starts; decay slower to avoid threshold chatter.
             float riseAlpha = 0.72f;
             float fallAlpha = 0.34f;
-            float alpha = rawMotionScore >= motionScoreEma ? riseAlpha : fallAlpha;
-            motionScoreEma = (alpha * rawMotionScore) + ((1f - alpha) * motionScoreEma);
+            float alpha = rawMotionScore >= scoreEma ? riseAlpha : fallAlpha;
+            scoreEma = (alpha * rawMotionScore) + ((1f - alpha) * scoreEma);
         }
-        float motionScore = motionScoreEma;
+        motionScoreEma = scoreEma;
+        float motionScore = scoreEma;
         List<com.fadcam.motion.domain.detector.EfficientDetLite1Detector.DetectionResult> detections =
                 (efficientDetDetector != null && framePacket != null)
                         ? efficientDetDetector.detect(framePacket)
@@ -3177,22 +3254,24 @@ public class RecordingService extends Service {
         float personConfidence = efficientDetDetector != null ? efficientDetDetector.bestPersonConfidence(detections) : 0f;
         boolean personDetectedRaw = efficientDetDetector != null && efficientDetDetector.hasPerson(detections);
         if (personDetectedRaw) {
-            motionConsecutivePersonHits++;
+            consecutivePersonHits++;
         } else {
-            motionConsecutivePersonHits = Math.max(0, motionConsecutivePersonHits - 1);
+            consecutivePersonHits = Math.max(0, consecutivePersonHits - 1);
         }
+        motionConsecutivePersonHits = consecutivePersonHits;
         int requiredHits = motionSafeMode ? 3 : 2;
-        boolean personDetected = personDetectedRaw && motionConsecutivePersonHits >= requiredHits;
+        boolean personDetected = personDetectedRaw && consecutivePersonHits >= requiredHits;
         if (personDetectedRaw && personConfidence >= 0.62f) {
             motionPersonLikelyUntilMs = nowMs + 2500L;
         }
         // Keep person-confirmed signal stable across single-frame classifier misses.
-        if (!personDetected && motionConsecutivePersonHits >= requiredHits && personConfidence >= 0.55f) {
+        if (!personDetected && consecutivePersonHits >= requiredHits && personConfidence >= 0.55f) {
             personDetected = true;
         }
         boolean personLikely = personDetected
                 || (personDetectedRaw && personConfidence >= 0.70f)
                 || nowMs <= motionPersonLikelyUntilMs;
+        // Captured with the frame on the camera thread; the detector has moved on since
         float debugChangedArea = 0f;
         float debugStrongArea = 0f;
         float debugMeanDelta = 0f;
@@ -3201,21 +3280,19 @@ public class RecordingService extends Service {
         float debugCenterX = 0.5f;
         float debugCenterY = 0.5f;
         boolean debugGlobalSuppressed = false;
-        if (motionDetector instanceof com.fadcam.motion.domain.detector.MotionDebugInfoProvider) {
-            com.fadcam.motion.domain.detector.MotionDebugInfoProvider detector =
-                    (com.fadcam.motion.domain.detector.MotionDebugInfoProvider) motionDetector;
-            debugChangedArea = detector.getLastChangedAreaRatio();
-            debugStrongArea = detector.getLastStrongAreaRatio();
-            debugMeanDelta = detector.getLastMeanDelta();
-            debugBackgroundDelta = detector.getLastBackgroundDelta();
-            debugMaxDelta = detector.getLastMaxDelta();
-            debugCenterX = detector.getLastMotionCenterX();
-            debugCenterY = detector.getLastMotionCenterY();
-            debugGlobalSuppressed = detector.isLastGlobalMotionSuppressed();
+        if (frame.hasDebugInfo) {
+            debugChangedArea = frame.changedArea;
+            debugStrongArea = frame.strongArea;
+            debugMeanDelta = frame.meanDelta;
+            debugBackgroundDelta = frame.backgroundDelta;
+            debugMaxDelta = frame.maxDelta;
+            debugCenterX = frame.centerX;
+            debugCenterY = frame.centerY;
+            debugGlobalSuppressed = frame.globalSuppressed;
         }
         com.fadcam.motion.domain.state.MotionSessionState stateBefore =
-                motionStateMachine != null ? motionStateMachine.getState() : null;
-        if (motionStateMachine != null && sharedPreferencesManager != null) {
+                stateMachine != null ? stateMachine.getState() : null;
+        if (stateMachine != null && sharedPreferencesManager != null) {
             com.fadcam.motion.domain.model.MotionSettings settings = new com.fadcam.motion.domain.model.MotionSettings(
                     sharedPreferencesManager.isMotionModeEnabled(),
                     com.fadcam.motion.domain.model.MotionTriggerMode.fromValue(
@@ -3225,15 +3302,18 @@ public class RecordingService extends Service {
                     sharedPreferencesManager.getMotionDebounceMs(),
                     sharedPreferencesManager.getMotionPostRollMs(),
                     sharedPreferencesManager.getMotionPreRollSeconds(),
-                    sharedPreferencesManager.isMotionAutoTorchEnabled());
+                    sharedPreferencesManager.isMotionAutoTorchEnabled(),
+                    motionZones);
+            com.fadcam.motion.domain.model.MotionTileGrid tiles = frame.hasTiles ? frame.tiles : null;
             float startThreshold = motionPolicy.startThresholdFromSensitivity(settings.getSensitivity());
             com.fadcam.motion.domain.state.MotionStateMachine.TransitionAction action =
-                    motionStateMachine.onSignal(settings, new com.fadcam.motion.domain.model.MotionSignal(
+                    stateMachine.onSignal(settings, new com.fadcam.motion.domain.model.MotionSignal(
                             nowMs,
                             motionScore,
-                            personDetected));
+                            personDetected,
+                            tiles));
             if (action == com.fadcam.motion.domain.state.MotionStateMachine.TransitionAction.NONE
-                    && motionStateMachine.getState() != com.fadcam.motion.domain.state.MotionSessionState.RECORDING
+                    && stateMachine.getState() != com.fadcam.motion.domain.state.MotionSessionState.RECORDING
                     && !debugGlobalSuppressed
                     && personLikely
                     && personConfidence >= 0.70f
@@ -3247,15 +3327,16 @@ public class RecordingService extends Service {
                 );
                 float farAssistScore = Math.max(motionScore, Math.min(1f, farAssistFloor));
                 if (farAssistScore > motionScore) {
-                    action = motionStateMachine.onSignal(settings, new com.fadcam.motion.domain.model.MotionSignal(
+                    action = stateMachine.onSignal(settings, new com.fadcam.motion.domain.model.MotionSignal(
                             nowMs,
                             farAssistScore,
-                            true));
+                            true,
+                            tiles));
                     motionScore = farAssistScore;
                 }
             }
             if (action == com.fadcam.motion.domain.state.MotionStateMachine.TransitionAction.NONE
-                    && motionStateMachine.getState() != com.fadcam.motion.domain.state.MotionSessionState.RECORDING
+                    && stateMachine.getState() != com.fadcam.motion.domain.state.MotionSessionState.RECORDING
                     && !debugGlobalSuppressed
                     && motionOpenCvActive
                     && debugChangedArea >= 0.004f
@@ -3270,15 +3351,16 @@ public class RecordingService extends Service {
                 );
                 float edgeAssistScore = Math.max(motionScore, Math.min(1f, edgeAssistFloor));
                 if (edgeAssistScore > motionScore) {
-                    action = motionStateMachine.onSignal(settings, new com.fadcam.motion.domain.model.MotionSignal(
+                    action = stateMachine.onSignal(settings, new com.fadcam.motion.domain.model.MotionSignal(
                             nowMs,
                             edgeAssistScore,
-                            personLikely));
+                            personLikely,
+                            tiles));
                     motionScore = edgeAssistScore;
                 }
             }
             if (action == com.fadcam.motion.domain.state.MotionStateMachine.TransitionAction.NONE
-                    && motionStateMachine.getState() != com.fadcam.motion.domain.state.MotionSessionState.RECORDING
+                    && stateMachine.getState() != com.fadcam.motion.domain.state.MotionSessionState.RECORDING
                     && !debugGlobalSuppressed
                     && motionOpenCvActive
                     && personLikely
@@ -3293,15 +3375,16 @@ public class RecordingService extends Service {
                 );
                 float microEntryScore = Math.max(motionScore, Math.min(1f, microEntryFloor));
                 if (microEntryScore > motionScore) {
-                    action = motionStateMachine.onSignal(settings, new com.fadcam.motion.domain.model.MotionSignal(
+                    action = stateMachine.onSignal(settings, new com.fadcam.motion.domain.model.MotionSignal(
                             nowMs,
                             microEntryScore,
-                            true));
+                            true,
+                            tiles));
                     motionScore = microEntryScore;
                 }
             }
             if (action == com.fadcam.motion.domain.state.MotionStateMachine.TransitionAction.NONE
-                    && motionStateMachine.getState() != com.fadcam.motion.domain.state.MotionSessionState.RECORDING
+                    && stateMachine.getState() != com.fadcam.motion.domain.state.MotionSessionState.RECORDING
                     && !debugGlobalSuppressed
                     && debugChangedArea >= 0.05f
                     && debugMeanDelta >= 0.010f
@@ -3312,10 +3395,11 @@ public class RecordingService extends Service {
                         motionPolicy.stopThresholdFromSensitivity(settings.getSensitivity()) + 0.015f);
                 float assistedScore = Math.max(motionScore, Math.min(1f, assistedFloor));
                 if (assistedScore > motionScore) {
-                    action = motionStateMachine.onSignal(settings, new com.fadcam.motion.domain.model.MotionSignal(
+                    action = stateMachine.onSignal(settings, new com.fadcam.motion.domain.model.MotionSignal(
                             nowMs,
                             assistedScore,
-                            personLikely));
+                            personLikely,
+                            tiles));
                     motionScore = assistedScore;
                 }
             }
@@ -3328,10 +3412,11 @@ public class RecordingService extends Service {
                         motionScore,
                         startThreshold + (debugGlobalSuppressed ? 0.08f : 0.03f)
                 );
-                action = motionStateMachine.onSignal(settings, new com.fadcam.motion.domain.model.MotionSignal(
+                action = stateMachine.onSignal(settings, new com.fadcam.motion.domain.model.MotionSignal(
                         nowMs,
                         Math.min(1f, boostedScore),
-                        true
+                        true,
+                        tiles
                 ));
                 if (action != com.fadcam.motion.domain.state.MotionStateMachine.TransitionAction.NONE) {
                     motionScore = boostedScore;
@@ -3364,7 +3449,7 @@ public class RecordingService extends Service {
                     && stateBefore == com.fadcam.motion.domain.state.MotionSessionState.IDLE) {
                 motionSuppressedSignalCount++;
             }
-            if (stateBefore != motionStateMachine.getState() ||
+            if (stateBefore != stateMachine.getState() ||
                     action != com.fadcam.motion.domain.state.MotionStateMachine.TransitionAction.NONE) {
                 FLog.d(TAG, "MotionLab: score=" + String.format(Locale.US, "%.3f", motionScore)
                         + ", raw=" + String.format(Locale.US, "%.3f", rawMotionScore)
@@ -3380,17 +3465,19 @@ public class RecordingService extends Service {
                         + ", bgDelta=" + String.format(Locale.US, "%.3f", debugBackgroundDelta)
                         + ", maxDelta=" + String.format(Locale.US, "%.3f", debugMaxDelta)
                         + ", globalSuppressed=" + debugGlobalSuppressed
-                        + ", personHits=" + motionConsecutivePersonHits + "/" + requiredHits
+                        + ", personHits=" + consecutivePersonHits + "/" + requiredHits
                         + ", person=" + personDetected
-                        + ", state=" + motionStateMachine.getState()
+                        + ", state=" + stateMachine.getState()
                         + ", action=" + action
+                        + (stateMachine.getLastTriggeredZone() != null
+                            ? ", zone=" + stateMachine.getLastTriggeredZone().getName() : "")
                         + ", counters={frames=" + motionFramesAnalyzed
                         + ", actions=" + motionTriggerActionCount
                         + ", suppressed=" + motionSuppressedSignalCount + "}");
             }
             if ((nowMs - motionLastTelemetryLogMs) >= 10000L) {
                 motionLastTelemetryLogMs = nowMs;
-                FLog.d(TAG, "MotionLab Live: state=" + motionStateMachine.getState()
+                FLog.d(TAG, "MotionLab Live: state=" + stateMachine.getState()
                         + ", action=" + action
                         + ", backend=" + (motionOpenCvActive ? "opencv_mog2" : "frame_diff")
                         + ", raw=" + String.format(Locale.US, "%.3f", rawMotionScore)
@@ -3411,10 +3498,10 @@ public class RecordingService extends Service {
                     && sharedPreferencesManager.isDfEvidenceCollectionEnabled();
             boolean shouldEmitForensicsSnapshot = digitalForensicsEventRecorder != null
                     && forensicsCaptureEnabled
-                    && motionStateMachine.getState() == com.fadcam.motion.domain.state.MotionSessionState.RECORDING
+                    && stateMachine.getState() == com.fadcam.motion.domain.state.MotionSessionState.RECORDING
                     && (nowMs - motionLastForensicsHeartbeatMs) >= FORENSICS_HEARTBEAT_INTERVAL_MS;
             boolean shouldEmitDebugFrame = (nowMs - motionLastDebugBroadcastMs) >= 900L
-                    || stateBefore != motionStateMachine.getState()
+                    || stateBefore != stateMachine.getState()
                     || (action != null && action != com.fadcam.motion.domain.state.MotionStateMachine.TransitionAction.NONE);
             boolean shouldEncodeJpeg = shouldEncodeFrameJpeg(shouldEmitForensicsSnapshot, shouldEmitDebugFrame);
             byte[] frameJpeg = null;
@@ -3431,7 +3518,7 @@ public class RecordingService extends Service {
             } else {
                 motionJpegSkipCount++;
             }
-            maybeBroadcastMotionDebug(rawMotionScore, motionScore, settings, motionStateMachine.getState(), action, personDetected, personConfidence, stateBefore, frameJpeg, debugChangedArea, debugStrongArea, debugMeanDelta, debugBackgroundDelta, debugMaxDelta, debugGlobalSuppressed);
+            maybeBroadcastMotionDebug(rawMotionScore, motionScore, settings, stateMachine.getState(), action, personDetected, personConfidence, stateBefore, frameJpeg, debugChangedArea, debugStrongArea, debugMeanDelta, debugBackgroundDelta, debugMaxDelta, debugGlobalSuppressed);
 
             if (shouldEmitForensicsSnapshot) {
                 motionLastForensicsHeartbeatMs = nowMs;
@@ -3855,6 +3942,10 @@ public class RecordingService extends Service {
                 + ", avgEncodeMs=" + avgEncodeMs
                 + ", actions=" + motionTriggerActionCount
                 + ", suppressed=" + motionSuppressedSignalCount);
+        com.fadcam.motion.pipeline.MotionAnalysisPipeline pipeline = motionAnalysisPipeline;
+        if (pipeline != null) {
+            FLog.i(TAG, "MotionPipeline: " + pipeline.snapshotStats());
+        }
     }
 
     @Nullable
@@ -3907,6 +3998,11 @@ public class RecordingService extends Service {
                 motionAnalysisReader = null;
             }
         }
+        com.fadcam.motion.pipeline.MotionAnalysisPipeline pipeline = motionAnalysisPipeline;
+        motionAnalysisPipeline = null;
+        if (pipeline != null) {
+            pipeline.stop();
+        }
     }
 
     /**
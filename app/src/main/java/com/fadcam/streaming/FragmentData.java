@@ -0,0 +1,50 @@
+package com.fadcam.streaming;
+
+import androidx.annotation.NonNull;
+
+import com.fadcam.streaming.buffer.PooledFragment;
+
+import java.io.InputStream;
+
+/**
+ * Represents a single fMP4 fragment (moof + mdat).
+ * The bytes live in a reference-counted {@link PooledFragment}; the buffer itself
+ * holds one reference and every reader must retain/release around its use.
+ */
+public class FragmentData {
+    public final int sequenceNumber;
+    public final PooledFragment data; // moof + mdat bytes
+    public final long timestamp;
+    public final int sizeBytes;
+    public final long durationMs;
+
+    public FragmentData(int sequenceNumber, PooledFragment data, long durationMs) {
+        this.sequenceNumber = sequenceNumber;
+        this.data = data;
+        this.timestamp = System.currentTimeMillis();
+        this.sizeBytes = data.size();
+        this.durationMs = durationMs > 0 ? durationMs : 2000;
+    }
+
+    public double getDurationSeconds() {
+        return durationMs / 1000.0;
+    }
+
+    /** @return false if the fragment was evicted and its slabs already recycled. */
+    public boolean tryRetain() {
+        return data.tryRetain();
+    }
+
+    public void release() {
+        data.release();
+    }
+
+    /**
+     * Stream over the fragment bytes. Consumes the reference taken by
+     * {@link RemoteStreamManager#acquireFragment(int)}; closing the stream releases it.
+     */
+    @NonNull
+    public InputStream openStream() {
+        return data.openStream();
+    }
+}
@@ -0,0 +1,209 @@
+package com.fadcam.streaming;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Sequence-indexed ring of live fMP4 fragments.
+ *
+ * Architecture:
+ * - Power-of-two capacity; fragment N lives in slot {@code N & mask}, so lookups are O(1)
+ *   instead of scanning every slot.
+ * - Single writer (the muxer writer thread). {@link #publish}, {@link #clear} and
+ *   {@link #close} are synchronized only against each other; readers never take a lock.
+ * - A ring swapped out for a resized one is {@link #close closed}: a writer that captured it
+ *   before the swap can still publish, and that fragment is released instead of stranded.
+ * - The valid window (oldest, latest) is packed into one volatile long, so a reader always
+ *   sees a consistent pair. A slot is written BEFORE the window advances, which makes every
+ *   sequence inside the window visible to readers.
+ * - Readers that race with eviction are safe: they verify the slot's sequence number and
+ *   must win {@link FragmentData#tryRetain()} before touching bytes.
+ *
+ * Retention is separate from capacity: the ring keeps {@code retention} fragments and
+ * releases the rest eagerly, so rounding capacity up to a power of two never pins extra memory.
+ */
+public final class FragmentRing {
+
+    private final int capacity;
+    private final int mask;
+    private final int retention;
+    private final AtomicReferenceArray<FragmentData> slots;
+
+    // (oldest << 32) | latest. latest == 0 means empty.
+    private volatile long window = 0L;
+    private volatile long bufferedBytes = 0L;
+    private boolean closed; // guarded by this
+
+    /**
+     * @param retention Number of most recent fragments to keep (>= 1).
+     */
+    public FragmentRing(int retention) {
+        if (retention < 1) throw new IllegalArgumentException("retention must be >= 1");
+        this.retention = retention;
+        this.capacity = nextPowerOfTwo(retention);
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    static int nextPowerOfTwo(int value) {
+        int highest = Integer.highestOneBit(Math.max(1, value));
+        return highest == value ? value : highest << 1;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getRetention() {
+        return retention;
+    }
+
+    /**
+     * Stores a fragment and advances the window. Takes over the caller's reference;
+     * the evicted fragment (if any) is released.
+     *
+     * A sequence number at or below the current latest means the encoder restarted, so the
+     * ring is cleared first to avoid mixing fragments from two timelines.
+     */
+    public synchronized void publish(@NonNull FragmentData fragment) {
+        if (closed) {
+            fragment.release();
+            return;
+        }
+        int sequence = fragment.sequenceNumber;
+        int latest = latest(window);
+        if (latest != 0 && sequence <= latest) {
+            clearLocked();
+            latest = 0;
+        }
+
+        FragmentData evicted = slots.getAndSet(sequence & mask, fragment);
+        long bytes = bufferedBytes + fragment.sizeBytes;
+        if (evicted != null) {
+            bytes -= evicted.sizeBytes;
+            evicted.release();
+        }
+
+        // Release whatever fell out of the retention window (capacity may exceed retention,
+        // and a sequence gap can leave older fragments in other slots)
+        int oldest = Math.max(1, sequence - retention + 1);
+        int previousOldest = latest == 0 ? oldest : oldest(window);
+        // Never walk more than one lap, even after a huge sequence jump
+        for (int seq = Math.max(previousOldest, oldest - capacity); seq < oldest; seq++) {
+            int slot = seq & mask;
+            FragmentData stale = slots.get(slot);
+            if (stale != null && stale.sequenceNumber < oldest && slots.compareAndSet(slot, stale, null)) {
+                bytes -= stale.sizeBytes;
+                stale.release();
+            }
+        }
+
+        bufferedBytes = bytes;
+        window = pack(oldest, sequence); // publish last
+    }
+
+    /**
+     * Releases every fragment and empties the window.
+     */
+    public synchronized void clear() {
+        clearLocked();
+    }
+
+    /**
+     * Releases every fragment and makes later {@link #publish} calls release theirs right away.
+     * For a ring that has been replaced and may still be referenced by the writer.
+     */
+    public synchronized void close() {
+        closed = true;
+        clearLocked();
+    }
+
+    private void clearLocked() {
+        window = 0L; // readers stop seeing fragments before they are released
+        for (int i = 0; i < capacity; i++) {
+            FragmentData fragment = slots.getAndSet(i, null);
+            if (fragment != null) {
+                fragment.release();
+            }
+        }
+        bufferedBytes = 0L;
+    }
+
+    /**
+     * Lock-free lookup. Returns a RETAINED fragment (caller must release) or null if the
+     * sequence is outside the window or was evicted concurrently.
+     */
+    @Nullable
+    public FragmentData acquire(int sequence) {
+        long w = window;
+        int latest = latest(w);
+        if (latest == 0 || sequence < oldest(w) || sequence > latest) {
+            return null;
+        }
+        FragmentData fragment = slots.get(sequence & mask);
+        if (fragment == null || fragment.sequenceNumber != sequence) {
+            return null;
+        }
+        return fragment.tryRetain() ? fragment : null;
+    }
+
+    /**
+     * Copies up to {@code out.length} of the newest fragments into {@code out}, oldest first,
+     * without retaining them. Only the immutable metadata (sequence, duration, size) may be
+     * read from the result; use {@link #acquire(int)} for the bytes.
+     *
+     * @return Number of entries written.
+     */
+    public int snapshot(@NonNull FragmentData[] out) {
+        long w = window;
+        int latest = latest(w);
+        if (latest == 0 || out.length == 0) {
+            return 0;
+        }
+        int from = Math.max(oldest(w), latest - out.length + 1);
+        int count = 0;
+        for (int seq = from; seq <= latest; seq++) {
+            FragmentData fragment = slots.get(seq & mask);
+            if (fragment != null && fragment.sequenceNumber == seq) {
+                out[count++] = fragment;
+            }
+        }
+        return count;
+    }
+
+    /** Latest published sequence number, 0 if empty. */
+    public int getLatestSequence() {
+        return latest(window);
+    }
+
+    /** Oldest sequence number still inside the window, 0 if empty. */
+    public int getOldestSequence() {
+        return oldest(window);
+    }
+
+    /** Number of fragments inside the window (an upper bound if the encoder skipped sequence numbers). */
+    public int size() {
+        long w = window;
+        int latest = latest(w);
+        return latest == 0 ? 0 : latest - oldest(w) + 1;
+    }
+
+    /** Sum of buffered fragment sizes (as of the last publish/clear). */
+    public long getBufferedBytes() {
+        return bufferedBytes;
+    }
+
+    private static long pack(int oldest, int latest) {
+        return ((long) oldest << 32) | (latest & 0xFFFFFFFFL);
+    }
+
+    private static int oldest(long w) {
+        return (int) (w >>> 32);
+    }
+
+    private static int latest(long w) {
+        return (int) w;
+    }
+}
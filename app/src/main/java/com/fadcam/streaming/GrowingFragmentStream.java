@@ -0,0 +1,144 @@
+package com.fadcam.streaming;
+
+import androidx.annotation.NonNull;
+
+import com.fadcam.FLog;
+import com.fadcam.streaming.server.ConnectionContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.function.LongConsumer;
+
+/**
+ * Body of a "growing" fragment: segment {@code msn} delivered part by part while the muxer is
+ * still producing it, for chunked-transfer responses.
+ *
+ * Architecture:
+ * - Each LL-HLS part is a self-contained moof+mdat, so the concatenation of a segment's parts
+ *   is a valid fMP4 fragment (several moof/mdat pairs) that players decode like the whole one.
+ * - {@link #read} hands out the bytes of the current part, then blocks in
+ *   {@link RemoteStreamManager#awaitPart} for the next. The stream ends cleanly only once the
+ *   next segment has started and this one's parts are intact.
+ * - On a part timeout, the request deadline, or a builder resync the connection is reset
+ *   ({@link ConnectionContext#abortCurrent}): a chunked body that simply ended would look
+ *   complete, and the player would keep a truncated segment instead of retrying.
+ * - Any number of viewers can read the same segment; each holds its own part references and
+ *   wakes on the part store's monitor when a part is published.
+ */
+final class GrowingFragmentStream extends InputStream {
+    private static final String TAG = "GrowingFragmentStream";
+
+    private final RemoteStreamManager streamManager;
+    private final int msn;
+    private final long partTimeoutMs;
+    private final long deadlineMs;
+    private final LongConsumer onClose;
+
+    private LowLatencyPartStore.PartData current;
+    private ByteBuffer[] views;
+    private int viewIndex;
+    private long bytesRead;
+    private boolean finished;
+    private boolean closed;
+
+    /**
+     * @param first         Part 0 of segment {@code msn}, already retained; the stream owns it.
+     * @param partTimeoutMs Maximum wait for each following part.
+     * @param deadlineMs    Wall-clock time ({@link System#currentTimeMillis}) by which the whole
+     *                      segment must have been delivered.
+     * @param onClose       Receives the number of bytes delivered when the stream is closed.
+     */
+    GrowingFragmentStream(@NonNull RemoteStreamManager streamManager,
+                          @NonNull LowLatencyPartStore.PartData first,
+                          long partTimeoutMs, long deadlineMs, @NonNull LongConsumer onClose) {
+        this.streamManager = streamManager;
+        this.msn = first.msn;
+        this.partTimeoutMs = partTimeoutMs;
+        this.deadlineMs = deadlineMs;
+        this.onClose = onClose;
+        setCurrent(first);
+    }
+
+    private void setCurrent(LowLatencyPartStore.PartData part) {
+        current = part;
+        views = part.data.views();
+        viewIndex = 0;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(@NonNull byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        while (!finished) {
+            while (viewIndex < views.length) {
+                ByteBuffer view = views[viewIndex];
+                if (view.hasRemaining()) {
+                    int n = Math.min(length, view.remaining());
+                    view.get(buffer, offset, n);
+                    bytesRead += n;
+                    return n;
+                }
+                viewIndex++;
+            }
+            // Current part fully sent: wait for the next one of the same segment
+            int nextIndex = current.index + 1;
+            current.release();
+            current = null;
+            long waitMs = Math.min(partTimeoutMs, deadlineMs - System.currentTimeMillis());
+            if (waitMs <= 0) {
+                throw abort("request deadline passed before part " + msn + "." + nextIndex);
+            }
+            LowLatencyPartStore.PartData next;
+            try {
+                next = streamManager.awaitPart(msn, nextIndex, waitMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw abort("interrupted while waiting for part " + msn + "." + nextIndex);
+            }
+            if (next != null) {
+                setCurrent(next);
+            } else if (streamManager.isPartSegmentComplete(msn, nextIndex)) {
+                // Next segment started and every part of this one was sent
+                finished = true;
+            } else {
+                throw abort("part " + msn + "." + nextIndex + " timed out or was dropped by a resync");
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Ends the transfer as failed: resets the connection so the client discards what it got.
+     */
+    private IOException abort(String reason) {
+        finished = true;
+        FLog.w(TAG, "Aborting growing fragment #" + msn + " after " + bytesRead + " bytes: " + reason);
+        ConnectionContext.abortCurrent();
+        return new IOException(reason);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (current != null) {
+            current.release();
+            current = null;
+        }
+        if (!finished) {
+            FLog.d(TAG, "Growing fragment #" + msn + " closed early after " + bytesRead + " bytes");
+        }
+        finished = true;
+        onClose.accept(bytesRead);
+    }
+}
@@ -0,0 +1,278 @@
+package com.fadcam.streaming;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Pre-rendered, versioned live HLS playlist.
+ *
+ * Architecture:
+ * - The muxer writer thread renders the playlist ONCE per new fragment ({@link #publish});
+ *   every viewer poll is served the same immutable {@link Snapshot} bytes.
+ * - Each snapshot carries a strong ETag and a pre-formatted Last-Modified, so unchanged
+ *   polls can be answered with 304 and no per-request formatting happens on worker threads.
+ * - Blocking playlist reload (LL-HLS {@code _HLS_msn}/{@code _HLS_part}): {@link #awaitSequence}
+ *   parks the request thread until the requested segment or part is published, instead of the
+ *   player polling every half target duration.
+ * - In low-latency mode the playlist also lists recent parts (EXT-X-PART), the in-progress
+ *   segment's parts and an EXT-X-PRELOAD-HINT for the next one.
+ */
+public final class HlsPlaylistCache {
+
+    /**
+     * Immutable rendered playlist.
+     */
+    public static final class Snapshot {
+        public final byte[] body;
+        public final String etag;
+        public final String lastModified;
+        public final int mediaSequence;
+        public final int latestSequence;
+        public final int targetDurationSeconds;
+        // Newest advertised LL-HLS part, or -1/-1 when parts are off
+        public final int latestPartMsn;
+        public final int latestPartIndex;
+
+        Snapshot(byte[] body, String etag, String lastModified, int mediaSequence,
+                 int latestSequence, int targetDurationSeconds, int latestPartMsn, int latestPartIndex) {
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.mediaSequence = mediaSequence;
+            this.latestSequence = latestSequence;
+            this.targetDurationSeconds = targetDurationSeconds;
+            this.latestPartMsn = latestPartMsn;
+            this.latestPartIndex = latestPartIndex;
+        }
+
+        /**
+         * True once segment {@code msn} is complete, or (if {@code part >= 0} and parts are
+         * advertised) once part {@code part} of it - or anything later - is listed.
+         */
+        public boolean contains(int msn, int part) {
+            if (latestSequence >= msn) {
+                return true;
+            }
+            if (part < 0 || latestPartMsn < 0) {
+                return false;
+            }
+            return latestPartMsn > msn || (latestPartMsn == msn && latestPartIndex >= part);
+        }
+    }
+
+    // Distinguishes ETags across app restarts (version restarts at 0)
+    private final String etagPrefix = Long.toHexString(System.currentTimeMillis());
+    // Only touched under the monitor (writer thread), never per request
+    private final SimpleDateFormat httpDateFormat;
+    private final StringBuilder scratch = new StringBuilder(1024);
+
+    private volatile Snapshot current;
+    private long version = 0;
+
+    public HlsPlaylistCache() {
+        httpDateFormat = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US);
+        httpDateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+    }
+
+    /**
+     * Latest rendered playlist, or null while fewer than 2 fragments are buffered.
+     */
+    @Nullable
+    public Snapshot get() {
+        return current;
+    }
+
+    /**
+     * Renders the local playlist for {@code fragments[0..count)} (oldest first) and wakes
+     * every blocked reload. Playlists need at least 2 fragments; fewer clears the snapshot.
+     *
+     * @param parts        LL-HLS parts (oldest first), or null when low-latency mode is off
+     * @param partTargetMs Advertised PART-TARGET (ignored without parts)
+     */
+    public synchronized void publish(@NonNull FragmentData[] fragments, int count,
+                                     @Nullable LowLatencyPartStore.PartData[] parts, int partCount,
+                                     long partTargetMs) {
+        if (count < 2) {
+            current = null;
+            notifyAll();
+            return;
+        }
+        scratch.setLength(0);
+        int targetDuration = render(scratch, fragments, count, "/", true, parts, partCount, partTargetMs);
+        int latestPartMsn = -1;
+        int latestPartIndex = -1;
+        if (parts != null) {
+            // Newest part actually listed (same filter as render: window + in-progress segment)
+            int firstListed = fragments[0].sequenceNumber;
+            int inProgress = fragments[count - 1].sequenceNumber + 1;
+            for (int i = 0; i < partCount; i++) {
+                if (parts[i].msn >= firstListed && parts[i].msn <= inProgress) {
+                    latestPartMsn = parts[i].msn;
+                    latestPartIndex = parts[i].index;
+                }
+            }
+        }
+        FragmentData latest = fragments[count - 1];
+        version++;
+        current = new Snapshot(
+            scratch.toString().getBytes(StandardCharsets.UTF_8),
+            "\"" + etagPrefix + "-" + version + "\"",
+            httpDateFormat.format(new Date()),
+            fragments[0].sequenceNumber,
+            latest.sequenceNumber,
+            targetDuration,
+            latestPartMsn,
+            latestPartIndex);
+        notifyAll();
+    }
+
+    /**
+     * Drops the snapshot (new stream / streaming stopped) and releases blocked reloads.
+     */
+    public synchronized void clear() {
+        current = null;
+        notifyAll();
+    }
+
+    /**
+     * Blocks until a snapshot containing segment {@code sequence} (or part {@code part} of it,
+     * see {@link Snapshot#contains}) is available.
+     *
+     * @param part Part index, or -1 to wait for the whole segment
+     * @return The snapshot, or null on timeout.
+     */
+    @Nullable
+    public Snapshot awaitSequence(int sequence, int part, long timeoutMs) throws InterruptedException {
+        Snapshot snapshot = current;
+        if (snapshot != null && snapshot.contains(sequence, part)) {
+            return snapshot;
+        }
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (this) {
+            while (true) {
+                snapshot = current;
+                if (snapshot != null && snapshot.contains(sequence, part)) {
+                    return snapshot;
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return null;
+                }
+                wait(remaining);
+            }
+        }
+    }
+
+    /**
+     * Appends an fMP4 media playlist for {@code fragments[0..count)} to {@code out}.
+     * Shared by the local server and the cloud relay so both stay byte-compatible.
+     *
+     * @param uriPrefix   "/" for the local server, "" for relative relay URLs
+     * @param blockReload Advertise EXT-X-SERVER-CONTROL:CAN-BLOCK-RELOAD
+     * @return The EXT-X-TARGETDURATION written.
+     */
+    public static int render(@NonNull StringBuilder out, @NonNull FragmentData[] fragments,
+                             int count, @NonNull String uriPrefix, boolean blockReload) {
+        return render(out, fragments, count, uriPrefix, blockReload, null, 0, 0);
+    }
+
+    /**
+     * Same as {@link #render(StringBuilder, FragmentData[], int, String, boolean)},
+     * plus LL-HLS parts when {@code parts} is non-null: EXT-X-PART lines ahead of each recent
+     * segment's EXTINF, the in-progress segment's parts after the last segment, and an
+     * EXT-X-PRELOAD-HINT for the next part.
+     */
+    static int render(@NonNull StringBuilder out, @NonNull FragmentData[] fragments,
+                      int count, @NonNull String uriPrefix, boolean blockReload,
+                      @Nullable LowLatencyPartStore.PartData[] parts, int partCount, long partTargetMs) {
+        long maxDurationMs = 0;
+        for (int i = 0; i < count; i++) {
+            maxDurationMs = Math.max(maxDurationMs, fragments[i].durationMs);
+        }
+        int targetDuration = Math.max(1, (int) ((maxDurationMs + 999) / 1000));
+
+        out.append("#EXTM3U\n");
+        out.append("#EXT-X-VERSION:7\n"); // fMP4 requires version 7
+        out.append("#EXT-X-INDEPENDENT-SEGMENTS\n"); // MUST come early
+        out.append("#EXT-X-TARGETDURATION:").append(targetDuration).append('\n');
+        if (blockReload) {
+            out.append("#EXT-X-SERVER-CONTROL:CAN-BLOCK-RELOAD=YES");
+            if (parts != null) {
+                // Spec: PART-HOLD-BACK must be at least 3x PART-TARGET
+                out.append(",PART-HOLD-BACK=");
+                appendSeconds(out, partTargetMs * 3);
+            }
+            out.append('\n');
+        }
+        if (parts != null) {
+            out.append("#EXT-X-PART-INF:PART-TARGET=");
+            appendSeconds(out, partTargetMs);
+            out.append('\n');
+        }
+        // Media sequence BEFORE map
+        out.append("#EXT-X-MEDIA-SEQUENCE:").append(fragments[0].sequenceNumber).append('\n');
+        // INIT SEGMENT - MUST be declared before fragments
+        out.append("#EXT-X-MAP:URI=\"").append(uriPrefix).append("init.mp4\"\n");
+
+        int p = 0;
+        for (int i = 0; i < count; i++) {
+            FragmentData fragment = fragments[i];
+            if (parts != null) {
+                while (p < partCount && parts[p].msn < fragment.sequenceNumber) p++;
+                while (p < partCount && parts[p].msn == fragment.sequenceNumber) {
+                    appendPart(out, uriPrefix, parts[p++]);
+                }
+            }
+            out.append("#EXTINF:");
+            appendSeconds(out, fragment.durationMs);
+            out.append(",\n");
+            out.append(uriPrefix).append("seg-").append(fragment.sequenceNumber).append(".m4s\n");
+        }
+
+        if (parts != null) {
+            // Parts of the segment being produced right now
+            int inProgress = fragments[count - 1].sequenceNumber + 1;
+            while (p < partCount && parts[p].msn < inProgress) p++;
+            int hintIndex = 0;
+            while (p < partCount && parts[p].msn == inProgress) {
+                hintIndex = parts[p].index + 1;
+                appendPart(out, uriPrefix, parts[p++]);
+            }
+            // Parts past the in-progress segment mean its whole segment hasn't landed yet: no hint
+            if (p == partCount) {
+                out.append("#EXT-X-PRELOAD-HINT:TYPE=PART,URI=\"").append(uriPrefix).append("part-")
+                    .append(inProgress).append('.').append(hintIndex).append(".m4s\"\n");
+            }
+        }
+        return targetDuration;
+    }
+
+    private static void appendPart(StringBuilder out, String uriPrefix, LowLatencyPartStore.PartData part) {
+        out.append("#EXT-X-PART:DURATION=");
+        appendSeconds(out, (part.durationUs + 500) / 1000);
+        out.append(",URI=\"").append(uriPrefix).append("part-")
+            .append(part.msn).append('.').append(part.index).append(".m4s\"");
+        if (part.independent) {
+            out.append(",INDEPENDENT=YES");
+        }
+        out.append('\n');
+    }
+
+    /**
+     * Formats milliseconds as seconds with 3 decimals ("2.000") without String.format.
+     */
+    static void appendSeconds(@NonNull StringBuilder out, long millis) {
+        long ms = Math.max(0, millis);
+        out.append(ms / 1000).append('.');
+        long fraction = ms % 1000;
+        if (fraction < 100) out.append('0');
+        if (fraction < 10) out.append('0');
+        out.append(fraction);
+    }
+}
@@ -3,16 +3,20 @@ package com.fadcam.streaming;
 import com.fadcam.Log;
 import com.fadcam.FLog;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.fadcam.streaming.model.ClientEvent;
 import com.fadcam.streaming.model.ClientMetrics;
 import com.fadcam.streaming.model.StreamQuality;
+import com.fadcam.streaming.server.ConnectionContext;
+import com.fadcam.streaming.server.PooledFragmentResponse;
 import com.fadcam.utils.ServiceStartPolicy;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.Socket;
 import java.util.List;
 
 import fi.iki.elonen.NanoHTTPD;
@@ -21,13 +25,18 @@ import fi.iki.elonen.NanoHTTPD;
  * LiveM3U8Server provides HTTP endpoints for HLS streaming of fMP4 segments.
  * 
  * Endpoints:
- * - GET /live.m3u8         - HLS playlist referencing buffered segments
- * - GET /seg-{id}.m4s      - Serves individual fMP4 segment bytes
+ * - GET /live.m3u8         - HLS playlist referencing buffered segments (supports _HLS_msn blocking reload)
+ * - GET /seg-{id}.m4s      - Serves individual fMP4 segment bytes; the next, not-yet-finished
+ *                            segment is held, or streamed chunked part by part in LL-HLS mode
+ * - GET /part-{id}.{n}.m4s - Serves LL-HLS partial segment n of segment id (blocks for the hinted part)
  * - GET /status            - JSON status (fps, bitrate, resolution, connections)
  * - GET /                  - Simple HTML landing page with instructions
  * 
  * Architecture:
- * - Built on NanoHTTPD lightweight HTTP server
+ * - Built on NanoHTTPD lightweight HTTP server, one thread per connection: held playlist,
+ *   part and next-fragment requests block their connection's thread, so a fixed-size worker
+ *   pool would be exhausted by a few LL-HLS viewers
+ * - Fragment and part bodies are copied straight from pooled slabs ({@link PooledFragmentResponse})
  * - Reads segment data from RemoteStreamManager circular buffer
  * - CORS-enabled for web player compatibility
  * - Connection tracking for active client monitoring
@@ -40,6 +49,10 @@ import fi.iki.elonen.NanoHTTPD;
  */
     public class LiveM3U8Server extends NanoHTTPD {
         private static final String TAG = "LiveM3U8Server";
+        // How long a request for the not-yet-produced next fragment is held in total (~3 target durations)
+        private static final long NEXT_FRAGMENT_WAIT_MS = 6000;
+        // How long a request for a preload-hinted LL-HLS part is held (3 part targets, per the spec)
+        private static final long PART_WAIT_MS = RemoteStreamManager.PART_TARGET_MS * 3;
         
         private final RemoteStreamManager streamManager;
         private final android.content.Context context;
@@ -52,6 +65,34 @@ import fi.iki.elonen.NanoHTTPD;
             FLog.i(TAG, "✅ [HTTP Server] Listening on ALL interfaces (0.0.0.0:" + port + ")");
             FLog.i(TAG, "✅ [HTTP Server] Now ACCESSIBLE from other devices on hotspot!");
         }
+        
+        /**
+         * Remembers each connection's socket for the thread serving it, so a growing-fragment
+         * response can abort the connection ({@link ConnectionContext#abortCurrent}).
+         */
+        @Override
+        protected ClientHandler createClientHandler(final Socket finalAccept, final InputStream inputStream) {
+            return new SocketAwareClientHandler(inputStream, finalAccept);
+        }
+        
+        private final class SocketAwareClientHandler extends ClientHandler {
+            private final Socket socket;
+            
+            SocketAwareClientHandler(InputStream inputStream, Socket socket) {
+                super(inputStream, socket);
+                this.socket = socket;
+            }
+            
+            @Override
+            public void run() {
+                ConnectionContext.bind(socket);
+                try {
+                    super.run();
+                } finally {
+                    ConnectionContext.unbind();
+                }
+            }
+        }
     
     /**
      * Helper method to create JSON responses with proper charset encoding.
@@ -90,7 +131,7 @@ import fi.iki.elonen.NanoHTTPD;
         streamManager.trackClientIP(clientIP);
         
         // Track API calls (not fragment/HLS calls)
-        boolean isApiCall = !uri.startsWith("/seg-") && !uri.startsWith("/live.m3u8") && 
+        boolean isApiCall = !uri.startsWith("/seg-") && !uri.startsWith("/part-") && !uri.startsWith("/live.m3u8") && 
                            !uri.startsWith("/stream.m3u8") && !uri.startsWith("/init.mp4") &&
                            !uri.startsWith("/css/") && !uri.startsWith("/js/") && !uri.startsWith("/assets/");
         
@@ -123,11 +164,13 @@ import fi.iki.elonen.NanoHTTPD;
         if (Method.GET.equals(method)) {
             if ("/live.m3u8".equals(uri) || "/stream.m3u8".equals(uri)) {
                 // HLS playlist - industry standard for live streaming
-                response = servePlaylist();
+                response = servePlaylist(session);
             } else if ("/init.mp4".equals(uri)) {
                 response = serveInitSegment(clientIP);
             } else if (uri.startsWith("/seg-") && uri.endsWith(".m4s")) {
                 response = serveFragment(uri, clientIP);
+            } else if (uri.startsWith("/part-") && uri.endsWith(".m4s")) {
+                response = servePart(uri, clientIP);
             } else if ("/status".equals(uri)) {
                 FLog.d(TAG, "🌐 [/status] Dashboard request from " + clientIP + " User-Agent: " + userAgent);
                 response = serveStatus();
@@ -170,6 +213,10 @@ import fi.iki.elonen.NanoHTTPD;
                 response = setStreamQuality(session);
             } else if ("/config/batteryWarning".equals(uri)) {
                 response = setBatteryWarning(session);
+            } else if ("/config/lowLatencyHls".equals(uri)) {
+                response = setLowLatencyHls(session);
+            } else if ("/config/dvrWindow".equals(uri)) {
+                response = setDvrWindow(session);
             } else if ("/config/videoCodec".equals(uri)) {
                 response = setVideoCodec(session);
             } else if ("/audio/volume".equals(uri)) {
@@ -216,9 +263,10 @@ import fi.iki.elonen.NanoHTTPD;
     
     /**
      * Serve HLS playlist (M3U8) with fragment references.
+     * Serves the pre-rendered playlist; supports If-None-Match and _HLS_msn blocking reload.
      */
     @NonNull
-    private Response servePlaylist() {
+    private Response servePlaylist(IHTTPSession session) {
         // Check if streaming is enabled at all
         if (!streamManager.isStreamingEnabled()) {
             FLog.w(TAG, "❌ Streaming is disabled - recording not started or streaming mode is DISABLED");
@@ -247,15 +295,47 @@ import fi.iki.elonen.NanoHTTPD;
             );
         }
         
-        // Get buffered fragments
-        java.util.List<RemoteStreamManager.FragmentData> fragments = streamManager.getBufferedFragments();
+        // Blocking playlist reload (LL-HLS): _HLS_msn=N holds the request until segment N is listed,
+        // _HLS_msn=N&_HLS_part=P until part P of it is (whole segment when parts are off).
+        int requestedMsn = parseQueryInt(session, "_HLS_msn");
+        int requestedPart = parseQueryInt(session, "_HLS_part");
+        if (requestedMsn < 0 && session.getParameters().containsKey("_HLS_part")) {
+            return newFixedLengthResponse(Response.Status.BAD_REQUEST, MIME_PLAINTEXT,
+                "_HLS_part requires _HLS_msn");
+        }
+
+        HlsPlaylistCache.Snapshot playlist = streamManager.getPlaylistSnapshot();
+        if (requestedMsn >= 0) {
+            int latest = streamManager.getLatestSequenceNumber();
+            // Spec: more than two segments ahead of the live edge is a client error
+            if (latest > 0 && requestedMsn > latest + 2) {
+                return newFixedLengthResponse(Response.Status.BAD_REQUEST, MIME_PLAINTEXT,
+                    "_HLS_msn " + requestedMsn + " is too far ahead of live edge " + latest);
+            }
+            int targetDuration = playlist != null ? playlist.targetDurationSeconds : 2;
+            try {
+                // Spec: give up after 3x target duration
+                playlist = streamManager.awaitPlaylist(requestedMsn, requestedPart, targetDuration * 3000L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                playlist = null;
+            }
+            if (playlist == null) {
+                return newFixedLengthResponse(Response.Status.SERVICE_UNAVAILABLE, MIME_PLAINTEXT,
+                    "Segment " + requestedMsn + " not available yet");
+            }
+        }
         
-        if (fragments.isEmpty()) {
-            FLog.w(TAG, "⏳ No fragments buffered yet - waiting for encoder output");
-            String message = "⏳ Buffering Fragments\n\n" +
-                "Init segment ready, waiting for first video fragments from encoder.\n" +
-                "This usually takes 1-2 seconds. Please wait...\n\n" +
-                "Check /status endpoint for current state.";
+        if (playlist == null) {
+            // Professional live streaming: minimum 2 fragments buffered before serving (lowered to reduce startup delay)
+            int buffered = streamManager.getBufferedCount();
+            FLog.d(TAG, "⏳ Buffering... Only " + buffered + "/2 fragments available");
+            String message = buffered == 0
+                ? "⏳ Buffering Fragments\n\n" +
+                  "Init segment ready, waiting for first video fragments from encoder.\n" +
+                  "This usually takes 1-2 seconds. Please wait...\n\n" +
+                  "Check /status endpoint for current state."
+                : "Buffering stream... Please wait (" + buffered + "/2 fragments ready)";
             return newFixedLengthResponse(
                 Response.Status.SERVICE_UNAVAILABLE,
                 MIME_PLAINTEXT,
@@ -267,70 +347,30 @@ import fi.iki.elonen.NanoHTTPD;
         streamManager.incrementConnections();
         
         try {
-            // Generate M3U8 playlist - CORRECT ORDER FOR fMP4
-            StringBuilder m3u8 = new StringBuilder();
-            m3u8.append("#EXTM3U\n");
-            m3u8.append("#EXT-X-VERSION:7\n"); // fMP4 requires version 7
-            m3u8.append("#EXT-X-INDEPENDENT-SEGMENTS\n"); // MUST come early
-            
-            // CRITICAL: Get buffered fragments before generating rest of playlist
-            // Apple HLS spec requires minimum 6 segments, we use 8 for more buffer room
-            java.util.List<RemoteStreamManager.FragmentData> stable = new java.util.ArrayList<>(fragments);
-            int LIVE_WINDOW_SIZE = 8;
-            java.util.List<RemoteStreamManager.FragmentData> liveEdge = new java.util.ArrayList<>();
-            int startIdx = Math.max(0, stable.size() - LIVE_WINDOW_SIZE);
-            for (int i = startIdx; i < stable.size(); i++) {
-                liveEdge.add(stable.get(i));
-            }
-
-            m3u8.append("#EXT-X-TARGETDURATION:")
-                .append(RemoteStreamManager.getTargetDurationSeconds(liveEdge))
-                .append("\n");
-            
-            // Media sequence BEFORE map
-            m3u8.append("#EXT-X-MEDIA-SEQUENCE:").append(liveEdge.get(0).sequenceNumber).append("\n");
-            
-            // INIT SEGMENT - MUST be declared before fragments
-            m3u8.append("#EXT-X-MAP:URI=\"/init.mp4\"\n");
-
-            // Professional live streaming: minimum 2 fragments buffered before serving (lowered to reduce startup delay)
-            if (fragments.size() < 2) {
-                FLog.d(TAG, "⏳ Buffering... Only " + fragments.size() + "/2 fragments available");
-                return newFixedLengthResponse(
-                    Response.Status.SERVICE_UNAVAILABLE,
-                    MIME_PLAINTEXT,
-                    "Buffering stream... Please wait (" + fragments.size() + "/2 fragments ready)"
+            // OPTIMIZATION: Playlist is rendered once per fragment by RemoteStreamManager.
+            // Unchanged polls only cost an ETag comparison.
+            String ifNoneMatch = session.getHeaders().get("if-none-match");
+            Response response;
+            if (playlist.etag.equals(ifNoneMatch)) {
+                response = newFixedLengthResponse(Response.Status.NOT_MODIFIED, "application/vnd.apple.mpegurl", "");
+            } else {
+                response = newFixedLengthResponse(
+                    Response.Status.OK,
+                    "application/vnd.apple.mpegurl",
+                    new ByteArrayInputStream(playlist.body),
+                    playlist.body.length
                 );
+                response.addHeader("Content-Type", "application/vnd.apple.mpegurl; charset=utf-8");
+                response.addHeader("Content-Disposition", "inline");
             }
             
-            // Add fragments to playlist
-            for (RemoteStreamManager.FragmentData fragment : liveEdge) {
-                m3u8.append("#EXTINF:").append(String.format(java.util.Locale.US, "%.3f", fragment.getDurationSeconds())).append(",\n");
-                m3u8.append("/seg-").append(fragment.sequenceNumber).append(".m4s\n");
-            }
-            
-            FLog.i(TAG, "📋 Generated M3U8 playlist:");
-            FLog.i(TAG, "   Total fragments: " + fragments.size());
-            FLog.i(TAG, "   Stable fragments: " + stable.size());
-            FLog.i(TAG, "   Live edge fragments: " + liveEdge.size());
-            FLog.i(TAG, "   Sequence range: " + liveEdge.get(0).sequenceNumber + " to " + liveEdge.get(liveEdge.size()-1).sequenceNumber);
-            FLog.d(TAG, "M3U8 Content:\n" + m3u8.toString());
-            
-            Response response = newFixedLengthResponse(
-                Response.Status.OK,
-                "application/vnd.apple.mpegurl",
-                m3u8.toString()
-            );
-            
-            // ULTRA-AGGRESSIVE cache prevention for HLS playlist
-            // Prevents browser/HLS.js from serving stale playlists with old fragment numbers
-            response.addHeader("Content-Type", "application/vnd.apple.mpegurl; charset=utf-8");
-            response.addHeader("Content-Disposition", "inline");
-            response.addHeader("Cache-Control", "no-cache, no-store, must-revalidate, max-age=0, s-maxage=0");
+            // Always revalidate: players must never reuse a playlist with old fragment numbers,
+            // but a matching ETag lets them do it with a 304 instead of a full body
+            response.addHeader("Cache-Control", "no-cache, must-revalidate, max-age=0, s-maxage=0");
             response.addHeader("Pragma", "no-cache");
             response.addHeader("Expires", "0");
-            response.addHeader("ETag", String.valueOf(System.currentTimeMillis())); // Force unique response each time
-            response.addHeader("Last-Modified", new java.text.SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss z", java.util.Locale.US).format(new java.util.Date()));
+            response.addHeader("ETag", playlist.etag);
+            response.addHeader("Last-Modified", playlist.lastModified);
             response.addHeader("Access-Control-Allow-Origin", "*");
             
             return response;
@@ -339,6 +379,24 @@ import fi.iki.elonen.NanoHTTPD;
             streamManager.decrementConnections();
         }
     }
+
+    /**
+     * Reads a non-negative integer query parameter.
+     *
+     * @return The value, or -1 if missing or malformed.
+     */
+    private static int parseQueryInt(IHTTPSession session, String name) {
+        java.util.List<String> values = session.getParameters().get(name);
+        if (values == null || values.isEmpty()) {
+            return -1;
+        }
+        try {
+            int value = Integer.parseInt(values.get(0).trim());
+            return value >= 0 ? value : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
     
     /**
      * Serve initialization segment (ftyp + moov).
@@ -421,13 +479,31 @@ import fi.iki.elonen.NanoHTTPD;
             int oldest = streamManager.getOldestSequenceNumber();
             int latest = streamManager.getLatestSequenceNumber();
 
-            // Reject clearly stale requests early (e.g., cached player asking for old segments)
-            if (sequenceNumber < oldest || sequenceNumber > latest) {
+            // Takes a reference on the pooled fragment; ownership passes to the response below
+            FragmentData fragment;
+            if (latest > 0 && sequenceNumber == latest + 1) {
+                // One budget for every wait below, so the fallbacks never stack
+                long deadlineMs = System.currentTimeMillis() + NEXT_FRAGMENT_WAIT_MS;
+                // Next fragment requested before it exists: stream it while it is being muxed
+                Response growing = serveGrowingFragment(sequenceNumber, clientIP, deadlineMs);
+                if (growing != null) {
+                    return growing;
+                }
+                // No parts for it (LL-HLS off / builder resyncing): hold until the whole fragment lands
+                try {
+                    fragment = streamManager.awaitFragment(sequenceNumber,
+                        Math.max(0, deadlineMs - System.currentTimeMillis()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    fragment = null;
+                }
+            } else if (sequenceNumber < oldest || sequenceNumber > latest) {
+                // Reject clearly stale requests early (e.g., cached player asking for old segments)
                 FLog.w(TAG, "❌ Fragment #" + sequenceNumber + " outside window [" + oldest + ", " + latest + "] - treating as stale request");
                 return newFixedLengthResponse(Response.Status.NOT_FOUND, MIME_PLAINTEXT, "Fragment outside live window");
+            } else {
+                fragment = streamManager.acquireFragment(sequenceNumber);
             }
-
-            RemoteStreamManager.FragmentData fragment = streamManager.getFragment(sequenceNumber);
             
             if (fragment == null) {
                 FLog.w(TAG, "Fragment #" + sequenceNumber + " not found in buffer");
@@ -436,22 +512,13 @@ import fi.iki.elonen.NanoHTTPD;
             
             streamManager.incrementConnections();
             
+            boolean handedOff = false;
             try {
                 FLog.d(TAG, "📦 Serving fragment #" + sequenceNumber + " (" + (fragment.sizeBytes / 1024) + " KB) to " + clientIP);
                 
-                // DEBUG: Log first few bytes of fragment to verify moof box
-                if (fragment.data.length > 8) {
-                    String firstBytes = String.format(java.util.Locale.US, "%02X %02X %02X %02X %02X %02X %02X %02X",
-                        fragment.data[0] & 0xFF, fragment.data[1] & 0xFF, fragment.data[2] & 0xFF, fragment.data[3] & 0xFF,
-                        fragment.data[4] & 0xFF, fragment.data[5] & 0xFF, fragment.data[6] & 0xFF, fragment.data[7] & 0xFF);
-                    FLog.d(TAG, "📦 Fragment #" + sequenceNumber + " header (hex): " + firstBytes + " (should start with moof)");
-                    
-                    // Check for moof box signature
-                    if (fragment.data[4] == 'm' && fragment.data[5] == 'o' && fragment.data[6] == 'o' && fragment.data[7] == 'f') {
-                        FLog.d(TAG, "✅ Fragment #" + sequenceNumber + " has valid moof box");
-                    } else {
-                        FLog.w(TAG, "❌ Fragment #" + sequenceNumber + " missing moof box! May be corrupted");
-                    }
+                // Check for moof box signature (bytes 4..7) without copying the fragment
+                if (fragment.sizeBytes > 8 && fragment.data.getIntBE(4) != 0x6D6F6F66) { // 'moof'
+                    FLog.w(TAG, "❌ Fragment #" + sequenceNumber + " missing moof box! May be corrupted");
                 }
                 
                 // Get previous data before adding new
@@ -476,9 +543,10 @@ import fi.iki.elonen.NanoHTTPD;
                     ));
                 }
                 
-                // Serve fragment bytes
-                InputStream fragmentStream = new java.io.ByteArrayInputStream(fragment.data);
-                Response response = newFixedLengthResponse(Response.Status.OK, "video/mp4", fragmentStream, fragment.sizeBytes);
+                // Serve fragment bytes straight from the pooled slabs (gathering write on NIO sockets).
+                // NanoHTTPD closes the response after sending (or on socket error), which releases the reference.
+                Response response = new PooledFragmentResponse(Response.Status.OK, "video/mp4", fragment.data);
+                handedOff = true;
                 // Never allow fragment caching; stale caches caused old video playback
                 response.addHeader("Cache-Control", "no-cache, no-store, must-revalidate");
                 response.addHeader("Pragma", "no-cache");
@@ -488,6 +556,9 @@ import fi.iki.elonen.NanoHTTPD;
                 return response;
                 
             } finally {
+                if (!handedOff) {
+                    fragment.release();
+                }
                 streamManager.decrementConnections();
             }
             
@@ -497,6 +568,96 @@ import fi.iki.elonen.NanoHTTPD;
         }
     }
     
+    /**
+     * Chunked-transfer delivery of the fragment currently being produced ("growing fragment").
+     * Bytes go out part by part as the muxer cuts them, instead of after the whole moof+mdat
+     * is finished. Every viewer waiting on the same sequence is woken by the same part.
+     *
+     * If a part times out, the deadline passes or the builder resyncs mid-body, the connection
+     * is reset rather than the body ended, so the player retries instead of caching a short
+     * segment ({@link GrowingFragmentStream}).
+     *
+     * @param deadlineMs Wall-clock time by which the whole request must be finished
+     * @return The chunked response, or null when no parts are produced for this sequence
+     *         (low-latency mode off, or the part builder is resyncing).
+     */
+    @Nullable
+    private Response serveGrowingFragment(int sequenceNumber, String clientIP, long deadlineMs) {
+        if (!streamManager.isLowLatencyHlsEnabled()) {
+            return null;
+        }
+        long waitMs = deadlineMs - System.currentTimeMillis();
+        if (waitMs <= 0) {
+            return null;
+        }
+        LowLatencyPartStore.PartData first;
+        try {
+            first = streamManager.awaitPart(sequenceNumber, 0, waitMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        if (first == null) {
+            return null;
+        }
+        FLog.d(TAG, "📦 Streaming growing fragment #" + sequenceNumber + " to " + clientIP);
+        // The stream owns the part reference; NanoHTTPD closes it after the last chunk
+        InputStream body = new GrowingFragmentStream(streamManager, first, RemoteStreamManager.PART_TARGET_MS * 6,
+            deadlineMs, bytes -> streamManager.addDataServed(clientIP, bytes));
+        Response response = newChunkedResponse(Response.Status.OK, "video/mp4", body);
+        response.addHeader("Cache-Control", "no-cache, no-store, must-revalidate");
+        response.addHeader("Pragma", "no-cache");
+        response.addHeader("Expires", "0");
+        return response;
+    }
+
+    /**
+     * Serve an LL-HLS partial segment ("/part-{msn}.{index}.m4s").
+     * The part named by EXT-X-PRELOAD-HINT usually doesn't exist yet: the request is held
+     * until the muxer publishes it, so the player receives it the moment it is cut.
+     */
+    @NonNull
+    private Response servePart(String uri, String clientIP) {
+        int msn;
+        int partIndex;
+        try {
+            String id = uri.substring(6, uri.length() - 4); // Remove "/part-" and ".m4s"
+            int dot = id.indexOf('.');
+            msn = Integer.parseInt(id.substring(0, dot));
+            partIndex = Integer.parseInt(id.substring(dot + 1));
+        } catch (RuntimeException e) {
+            return newFixedLengthResponse(Response.Status.BAD_REQUEST, MIME_PLAINTEXT, "Invalid part ID");
+        }
+
+        LowLatencyPartStore.PartData part = streamManager.acquirePart(msn, partIndex);
+        if (part == null && streamManager.isLowLatencyHlsEnabled()
+                && msn > streamManager.getLatestSequenceNumber()) {
+            try {
+                // Spec: hold a preload-hinted part until it is available
+                part = streamManager.awaitPart(msn, partIndex, PART_WAIT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (part == null) {
+            return newFixedLengthResponse(Response.Status.NOT_FOUND, MIME_PLAINTEXT, "Part not available");
+        }
+
+        boolean handedOff = false;
+        try {
+            streamManager.addDataServed(clientIP, part.data.size());
+            // Same ownership rules as serveFragment(): closing the response releases the reference
+            Response response = new PooledFragmentResponse(Response.Status.OK, "video/mp4", part.data);
+            handedOff = true;
+            response.addHeader("Cache-Control", "no-cache, no-store, must-revalidate");
+            return response;
+        } finally {
+            if (!handedOff) {
+                part.release();
+            }
+        }
+    }
+
     /**
      * Handle torch toggle request from web interface.
      * Mirrors TorchToggleActivity logic: checks if recording is active and routes appropriately.
@@ -928,6 +1089,64 @@ import fi.iki.elonen.NanoHTTPD;
         }
     }
 
+    /**
+     * Enable/disable LL-HLS partial segments. Body: {"enabled": true}
+     */
+    @NonNull
+    private Response setLowLatencyHls(IHTTPSession session) {
+        try {
+            java.util.Map<String, String> files = new java.util.HashMap<>();
+            session.parseBody(files);
+            String body = files.get("postData");
+            if (body == null || body.isEmpty()) {
+                return newFixedLengthResponse(Response.Status.BAD_REQUEST, "application/json; charset=utf-8", "{\"error\": \"No body\"}");
+            }
+            boolean enabled;
+            try {
+                enabled = new org.json.JSONObject(body).getBoolean("enabled");
+            } catch (Exception e) {
+                FLog.e(TAG, "Failed to parse low-latency HLS JSON", e);
+                return newFixedLengthResponse(Response.Status.BAD_REQUEST, "application/json; charset=utf-8", "{\"error\": \"Invalid JSON\"}");
+            }
+            streamManager.setLowLatencyHlsEnabled(enabled, context);
+            return jsonResponse(Response.Status.OK,
+                "{\"status\": \"success\", \"lowLatencyHls\": " + enabled + "}");
+        } catch (Exception e) {
+            FLog.e(TAG, "Error setting low-latency HLS", e);
+            return newFixedLengthResponse(Response.Status.INTERNAL_ERROR, "application/json; charset=utf-8", "{\"status\": \"error\", \"message\": \"" + e.getMessage() + "\"}");
+        }
+    }
+
+    /**
+     * Set the DVR rewind window in fragments. Body: {"fragments": 60}
+     * Clamped to the supported range; applies when the stream buffer is next reset.
+     */
+    @NonNull
+    private Response setDvrWindow(IHTTPSession session) {
+        try {
+            java.util.Map<String, String> files = new java.util.HashMap<>();
+            session.parseBody(files);
+            String body = files.get("postData");
+            if (body == null || body.isEmpty()) {
+                return newFixedLengthResponse(Response.Status.BAD_REQUEST, "application/json; charset=utf-8", "{\"error\": \"No body\"}");
+            }
+            int fragments;
+            try {
+                fragments = new org.json.JSONObject(body).getInt("fragments");
+            } catch (Exception e) {
+                FLog.e(TAG, "Failed to parse DVR window JSON", e);
+                return newFixedLengthResponse(Response.Status.BAD_REQUEST, "application/json; charset=utf-8", "{\"error\": \"Invalid JSON\"}");
+            }
+            streamManager.setDvrWindowFragments(fragments, context);
+            return jsonResponse(Response.Status.OK,
+                "{\"status\": \"success\", \"dvrWindowFragments\": " + streamManager.getPendingPlaylistWindow()
+                    + ", \"playlistWindow\": " + streamManager.getPlaylistWindow() + "}");
+        } catch (Exception e) {
+            FLog.e(TAG, "Error setting DVR window", e);
+            return newFixedLengthResponse(Response.Status.INTERNAL_ERROR, "application/json; charset=utf-8", "{\"status\": \"error\", \"message\": \"" + e.getMessage() + "\"}");
+        }
+    }
+
     
     // START: VideoCodec Config Endpoint
     @NonNull
@@ -0,0 +1,205 @@
+package com.fadcam.streaming;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.fadcam.streaming.buffer.PooledFragment;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Recent LL-HLS partial segments ("parts"), addressed by (media sequence, part index).
+ *
+ * Architecture:
+ * - Only the last few segments' parts are kept; older ones are released as new segments begin
+ *   (players only load parts near the live edge, then switch to whole segments).
+ * - A segment's parts are advertised only if they are contiguous from index 0 ("complete");
+ *   after a builder resync the affected segments are invalidated instead of shown with holes.
+ * - {@link #awaitPart} backs EXT-X-PRELOAD-HINT: a request for the hinted part is held until
+ *   it is published, or until a later segment starts (the hint turned out to be past the end).
+ * - Tiny (a few dozen entries), written ~3x per second: a plain monitor is sufficient.
+ */
+public final class LowLatencyPartStore {
+
+    /**
+     * One part. The bytes follow the same retain/release rules as {@link FragmentData}.
+     */
+    public static final class PartData {
+        public final int msn;
+        public final int index;
+        public final long durationUs;
+        public final boolean independent;
+        public final PooledFragment data;
+
+        PartData(int msn, int index, long durationUs, boolean independent, PooledFragment data) {
+            this.msn = msn;
+            this.index = index;
+            this.durationUs = durationUs;
+            this.independent = independent;
+            this.data = data;
+        }
+
+        public boolean tryRetain() {
+            return data.tryRetain();
+        }
+
+        public void release() {
+            data.release();
+        }
+    }
+
+    private final int segmentsKept;
+    private final ArrayDeque<PartData> parts = new ArrayDeque<>();
+    // Segments whose parts have holes (resync / attached mid-segment) - never advertised
+    private final Set<Integer> incompleteMsns = new HashSet<>();
+    private int latestMsn = 0;
+    private int latestIndex = -1;
+
+    /**
+     * @param segmentsKept Number of most recent segments whose parts are retained.
+     */
+    public LowLatencyPartStore(int segmentsKept) {
+        this.segmentsKept = Math.max(1, segmentsKept);
+    }
+
+    /**
+     * Stores a part, taking over the caller's reference.
+     */
+    public synchronized void publish(int msn, int index, long durationUs, boolean independent,
+                                     @NonNull PooledFragment data) {
+        if (msn < latestMsn || (msn == latestMsn && index <= latestIndex)) {
+            // Builder restarted on a new timeline
+            clearLocked();
+        }
+        // A segment that doesn't start at part 0 (or has a hole) is not advertised
+        boolean contiguous = index == 0 || (msn == latestMsn && index == latestIndex + 1);
+        if (!contiguous) {
+            incompleteMsns.add(msn);
+        }
+        parts.addLast(new PartData(msn, index, durationUs, independent, data));
+        latestMsn = msn;
+        latestIndex = index;
+
+        int oldestKept = msn - segmentsKept + 1;
+        while (!parts.isEmpty() && parts.peekFirst().msn < oldestKept) {
+            parts.pollFirst().release();
+        }
+        incompleteMsns.removeIf(m -> m < oldestKept);
+        notifyAll();
+    }
+
+    /**
+     * Drops parts of segment {@code msn} and later (builder resync).
+     */
+    public synchronized void invalidateFrom(int msn) {
+        Iterator<PartData> it = parts.descendingIterator();
+        while (it.hasNext()) {
+            PartData part = it.next();
+            if (part.msn < msn) break;
+            it.remove();
+            part.release();
+        }
+        // Segments in flight are incomplete now; the builder resumes on a fresh segment
+        for (int m = msn; m <= Math.max(msn, latestMsn); m++) {
+            incompleteMsns.add(m);
+        }
+        notifyAll();
+    }
+
+    public synchronized void clear() {
+        clearLocked();
+        notifyAll();
+    }
+
+    private void clearLocked() {
+        while (!parts.isEmpty()) {
+            parts.pollFirst().release();
+        }
+        incompleteMsns.clear();
+        latestMsn = 0;
+        latestIndex = -1;
+    }
+
+    /**
+     * Returns a RETAINED part (caller must release), or null.
+     */
+    @Nullable
+    public synchronized PartData acquire(int msn, int index) {
+        PartData part = findLocked(msn, index);
+        return part != null && part.tryRetain() ? part : null;
+    }
+
+    /**
+     * Blocks until part (msn, index) exists. Gives up early once a later segment has started,
+     * because then that part will never be produced.
+     *
+     * @return A RETAINED part, or null on timeout / never-to-exist.
+     */
+    @Nullable
+    public PartData awaitPart(int msn, int index, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (this) {
+            while (true) {
+                PartData part = findLocked(msn, index);
+                if (part != null) {
+                    return part.tryRetain() ? part : null;
+                }
+                if (latestMsn > msn || (latestMsn == msn && latestIndex >= index)) {
+                    return null; // passed without producing it (or already evicted)
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return null;
+                }
+                wait(remaining);
+            }
+        }
+    }
+
+    /**
+     * Whether segment {@code msn} is known to consist of exactly parts 0..{@code partCount}-1:
+     * a later segment has started and those parts were published without a hole or resync.
+     * False while the segment is still open, or when it can no longer be verified (evicted).
+     */
+    public synchronized boolean isSegmentComplete(int msn, int partCount) {
+        return partCount > 0
+                && latestMsn > msn
+                && !incompleteMsns.contains(msn)
+                && findLocked(msn, partCount - 1) != null
+                && findLocked(msn, partCount) == null;
+    }
+
+    /**
+     * Copies metadata of advertisable parts (complete segments only, oldest first) into {@code out}.
+     * Entries are NOT retained.
+     *
+     * @return Number of entries written.
+     */
+    public synchronized int snapshot(@NonNull PartData[] out) {
+        int count = 0;
+        for (PartData part : parts) {
+            if (count == out.length) break;
+            if (!incompleteMsns.contains(part.msn)) {
+                out[count++] = part;
+            }
+        }
+        return count;
+    }
+
+    /** Number of parts currently held. */
+    public synchronized int size() {
+        return parts.size();
+    }
+
+    private PartData findLocked(int msn, int index) {
+        for (PartData part : parts) {
+            if (part.msn == msn && part.index == index) {
+                return part;
+            }
+        }
+        return null;
+    }
+}
@@ -8,6 +8,8 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.fadcam.SharedPreferencesManager;
+import com.fadcam.streaming.buffer.FragmentSlabPool;
+import com.fadcam.streaming.buffer.PooledFragment;
 import com.fadcam.streaming.model.ClientEvent;
 import com.fadcam.streaming.model.ClientMetrics;
 import com.fadcam.streaming.model.NetworkHealth;
@@ -17,6 +19,7 @@ import com.fadcam.streaming.util.NetworkMonitor;
 import org.json.JSONObject;
 
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -31,15 +34,28 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * maintaining a circular buffer of recent fMP4 fragments for HLS streaming.
  * 
  * Architecture:
- * - Circular buffer with 15 fragment slots (~30 seconds of video at 2s/fragment)
- * - Thread-safe read/write access via ReadWriteLock
+ * - Sequence-indexed power-of-two ring ({@link FragmentRing}) keeping 15 fragments by default
+ *   (~30 seconds at 2s/fragment); configurable for DVR-style rewind via {@link #setDvrWindowFragments}
+ * - Playlist/segment readers are lock-free and never block the muxer writer thread
+ * - Session state (mode, recording flags) is guarded by a ReadWriteLock
  * - Supports both stream-only and stream-and-save modes
  * - Stores initialization segment (ftyp + moov) separately
- * - Each fragment is a complete moof+mdat pair
+ * - Each fragment is a complete moof+mdat pair held in pooled direct slabs
+ *   ({@link FragmentSlabPool}); readers take a reference instead of a copy
  */
 public class RemoteStreamManager {
     private static final String TAG = "RemoteStreamManager";
-    private static final int BUFFER_SIZE = 15; // Keep last 15 fragments (~30 seconds at 2s/fragment)
+    // Live playlist advertises the newest 8 fragments (Apple recommends >= 6)
+    public static final int DEFAULT_PLAYLIST_WINDOW = 8;
+    // Fragments kept behind the playlist window so slow viewers can still fetch what they were given
+    private static final int HOLD_BACK_FRAGMENTS = 7; // 8 + 7 = 15 fragments (~30 seconds at 2s/fragment)
+    // Upper bound for DVR window (~8.5 minutes at 2s/fragment)
+    public static final int MAX_PLAYLIST_WINDOW = 256;
+    private static final String PREF_DVR_WINDOW_FRAGMENTS = "stream_dvr_window_fragments";
+    // LL-HLS: ~0.5s parts advertised alongside the 2s segments (opt-in)
+    public static final long PART_TARGET_MS = 500;
+    private static final int PART_SEGMENTS_KEPT = 4; // Last 3 complete segments + the one in progress
+    private static final String PREF_LOW_LATENCY_HLS = "stream_low_latency_hls";
     
     private static RemoteStreamManager instance;
     
@@ -47,14 +63,25 @@ public class RemoteStreamManager {
     private StreamingMode streamingMode = StreamingMode.STREAM_AND_SAVE;
     private android.content.Context context;
     
-    // Fragment buffer (circular)
-    private final FragmentData[] fragmentBuffer = new FragmentData[BUFFER_SIZE];
-    private int bufferHead = 0; // Next write position
-    private int fragmentSequence = 0;
-    private int oldestSequence = 0; // Track oldest buffered fragment
+    // Fragment ring (lock-free readers). Swapped only in clearBuffer() when the window size changes.
+    private volatile FragmentRing fragmentRing = new FragmentRing(DEFAULT_PLAYLIST_WINDOW + HOLD_BACK_FRAGMENTS);
+    private volatile int playlistWindow = DEFAULT_PLAYLIST_WINDOW;
+    private volatile int pendingPlaylistWindow = DEFAULT_PLAYLIST_WINDOW;
     
     // Initialization segment (ftyp + moov)
-    private byte[] initializationSegment = null;
+    private volatile byte[] initializationSegment = null;
+
+    // Live playlist rendered once per fragment, served as-is to every viewer
+    private final HlsPlaylistCache playlistCache = new HlsPlaylistCache();
+    // Serializes renders from the encoder thread (parts) and the muxer writer thread (segments)
+    private final Object playlistRenderLock = new Object();
+
+    // LL-HLS partial segments (only populated when low-latency mode is on)
+    private final LowLatencyPartStore partStore = new LowLatencyPartStore(PART_SEGMENTS_KEPT);
+    private volatile boolean lowLatencyHlsEnabled = false;
+
+    // Recycled direct memory backing every buffered fragment
+    private final FragmentSlabPool fragmentPool = FragmentSlabPool.getShared();
     
     // Thread safety
     private final ReadWriteLock bufferLock = new ReentrantReadWriteLock();
@@ -111,33 +138,6 @@ public class RemoteStreamManager {
         STREAM_AND_SAVE  // Keep recording on disk
     }
     
-    /**
-     * Represents a single fMP4 fragment (moof + mdat).
-     */
-    public static class FragmentData {
-        public final int sequenceNumber;
-        public final byte[] data; // moof + mdat bytes
-        public final long timestamp;
-        public final int sizeBytes;
-        public final long durationMs;
-        
-        public FragmentData(int sequenceNumber, byte[] data) {
-            this(sequenceNumber, data, 2000);
-        }
-
-        public FragmentData(int sequenceNumber, byte[] data, long durationMs) {
-            this.sequenceNumber = sequenceNumber;
-            this.data = data;
-            this.timestamp = System.currentTimeMillis();
-            this.sizeBytes = data.length;
-            this.durationMs = durationMs > 0 ? durationMs : 2000;
-        }
-        
-        public double getDurationSeconds() {
-            return durationMs / 1000.0;
-        }
-    }
-    
     private RemoteStreamManager() {
         // Initialization log removed - too generic, logged once at getInstance
     }
@@ -203,6 +203,8 @@ public class RemoteStreamManager {
             
             if (!enabled) {
                 clearBuffer();
+                // Give idle slabs back to the GC; in-flight responses release theirs as they finish
+                fragmentPool.trim();
             }
         } finally {
             bufferLock.writeLock().unlock();
@@ -233,6 +235,8 @@ public class RemoteStreamManager {
             // Load saved quality preset and orientation
             loadStreamQuality(this.context);
             loadStreamOrientation(this.context);
+            loadDvrWindow(this.context);
+            loadLowLatencyHls(this.context);
             // Initialize current volume from AudioManager
             initializeVolume(this.context);
         }
@@ -399,21 +403,10 @@ public class RemoteStreamManager {
             
             // CRITICAL PRODUCTION FIX: Clear ALL old fragments when starting new stream
             // This prevents serving 45+ minute old fragments from previous sessions
-            int clearedCount = 0;
-            for (int i = 0; i < BUFFER_SIZE; i++) {
-                if (fragmentBuffer[i] != null) {
-                    clearedCount++;
-                    fragmentBuffer[i] = null;
-                }
-            }
-            
-            // Reset sequence tracking
-            fragmentSequence = 0;
-            oldestSequence = 1;
-            bufferHead = 0;
-            
-            if (clearedCount > 0) {
-            }
+            // (also resets sequence tracking)
+            fragmentRing.clear();
+            partStore.clear();
+            playlistCache.clear();
             
             if (initData != null) {
                 
@@ -438,88 +431,79 @@ public class RemoteStreamManager {
      * @param fragmentData Complete moof+mdat bytes
      */
     public void onFragmentComplete(int sequenceNumber, byte[] fragmentData) {
-        onFragmentComplete(sequenceNumber, fragmentData, 2000);
+        onFragmentComplete(sequenceNumber, ByteBuffer.wrap(fragmentData), 2000);
     }
 
     /**
      * Called by FragmentedMp4MuxerWrapper when a fragment is complete.
+     * The payload is copied once into pooled slabs; the caller keeps ownership of
+     * {@code fragmentData} and its position is left untouched.
      * @param sequenceNumber Fragment sequence number (1-based)
-     * @param fragmentData Complete moof+mdat bytes
+     * @param fragmentData Complete moof+mdat bytes (position..limit)
      * @param durationMs Fragment duration reported by Media3 muxer
      */
-    public void onFragmentComplete(int sequenceNumber, byte[] fragmentData, long durationMs) {
+    public void onFragmentComplete(int sequenceNumber, @NonNull ByteBuffer fragmentData, long durationMs) {
         if (!streamingEnabled) {
             return;
         }
-        
-        bufferLock.writeLock().lock();
-        try {
-            // Detect unexpected sequence gaps (helps catch encoder reset issues)
-            if (fragmentSequence > 0 && sequenceNumber != fragmentSequence + 1) {
-                FLog.w(TAG, "⚠️ Fragment gap: last=" + fragmentSequence + " incoming=" + sequenceNumber + " (possible encoder restart)");
-            }
 
-            // CRITICAL FIX: Clear all old fragments from the buffer slot we're about to use
-            // This prevents serving stale fragments when buffer wraps around
-            if (fragmentBuffer[bufferHead] != null) {
-                int oldSeq = fragmentBuffer[bufferHead].sequenceNumber;
+        // Copy once into pooled slabs - the only copy this fragment ever gets on the HLS path
+        PooledFragment pooled = fragmentPool.copyOf(fragmentData);
+
+        // No bufferLock here: the writer thread must never wait behind /status or playlist readers
+        FragmentRing ring = fragmentRing;
+
+        // Detect unexpected sequence gaps (helps catch encoder reset issues)
+        int lastSequence = ring.getLatestSequence();
+        if (lastSequence > 0 && sequenceNumber != lastSequence + 1) {
+            FLog.w(TAG, "⚠️ Fragment gap: last=" + lastSequence + " incoming=" + sequenceNumber + " (possible encoder restart)");
+        }
+
+        // Encryption needs a heap array - copy only for the relay, never for local viewers.
+        // Taken before publishing: once the ring owns the reference it may be evicted at any time.
+        CloudStreamUploader uploader = null;
+        byte[] relayCopy = null;
+        if (context != null) {
+            CloudStreamUploader candidate = CloudStreamUploader.getInstance(context);
+            if (candidate.isEnabled() && candidate.isReady()) {
+                uploader = candidate;
+                relayCopy = pooled.toByteArray();
             }
-            
-            // Create fragment object
-            FragmentData fragment = new FragmentData(sequenceNumber, fragmentData, durationMs);
-            
-            // Add to circular buffer (overwrites old slot)
-            fragmentBuffer[bufferHead] = fragment;
-            fragmentSequence = sequenceNumber;
-            
-            // Track oldest sequence in buffer (always maintain sliding window)
-            oldestSequence = Math.max(1, sequenceNumber - BUFFER_SIZE + 1);
-            
-            // CRITICAL: Also clear any fragments older than oldestSequence
-            // This ensures no stale data from previous buffer cycles
-            for (int i = 0; i < BUFFER_SIZE; i++) {
-                if (fragmentBuffer[i] != null && fragmentBuffer[i].sequenceNumber < oldestSequence) {
-                    fragmentBuffer[i] = null;
+        }
+
+        // Ring takes over the initial reference; evicted/stale fragments are released
+        // so their slabs return to the pool once in-flight readers finish
+        ring.publish(new FragmentData(sequenceNumber, pooled, durationMs));
+
+        // Render the playlist once here instead of once per viewer poll; wakes blocked reloads
+        renderPlaylist();
+        
+        // Upload to cloud relay if enabled
+        // CRITICAL FIX: Upload playlist ONLY AFTER segment upload succeeds
+        // This prevents race condition where viewer gets playlist before segment is available
+        if (uploader != null) {
+            // Capture playlist now but upload after segment succeeds
+            final String playlist = generateCloudPlaylist();
+            final CloudStreamUploader relay = uploader;
+            
+            // Upload segment with callback - playlist uploaded only after segment succeeds
+            relay.uploadSegment(sequenceNumber, relayCopy, new CloudStreamUploader.UploadCallback() {
+                @Override
+                public void onSuccess() {
+                    // Segment uploaded successfully - update relay freshness timestamp
+                    lastRelayUploadMs = System.currentTimeMillis();
+                    // NOW upload the playlist
+                    if (playlist != null) {
+                        relay.uploadPlaylist(playlist, null);
+                    }
                 }
-            }
-            
-            // Advance head pointer (circular)
-            bufferHead = (bufferHead + 1) % BUFFER_SIZE;
-            
-            //     (fragmentData.length / 1024) + " KB) [" + getBufferedCount() + "/" + BUFFER_SIZE + " slots] oldest=" + oldestSequence + ", head=" + bufferHead);
-            
-            // Upload to cloud relay if enabled
-            // CRITICAL FIX: Upload playlist ONLY AFTER segment upload succeeds
-            // This prevents race condition where viewer gets playlist before segment is available
-            if (context != null) {
-                CloudStreamUploader uploader = CloudStreamUploader.getInstance(context);
-                if (uploader.isEnabled() && uploader.isReady()) {
-                    // Capture playlist now (while we have the lock) but upload after segment succeeds
-                    final String playlist = generateCloudPlaylist();
-                    
-                    // Upload segment with callback - playlist uploaded only after segment succeeds
-                    uploader.uploadSegment(sequenceNumber, fragmentData, new CloudStreamUploader.UploadCallback() {
-                        @Override
-                        public void onSuccess() {
-                            // Segment uploaded successfully - update relay freshness timestamp
-                            lastRelayUploadMs = System.currentTimeMillis();
-                            // NOW upload the playlist
-                            if (playlist != null) {
-                                uploader.uploadPlaylist(playlist, null);
-                            }
-                        }
-                        
-                        @Override
-                        public void onError(String error) {
-                            // Segment failed - don't update playlist (viewers won't see missing segment)
-                            FLog.w(TAG, "⚠️ Segment " + sequenceNumber + " upload failed, skipping playlist update: " + error);
-                        }
-                    });
+                
+                @Override
+                public void onError(String error) {
+                    // Segment failed - don't update playlist (viewers won't see missing segment)
+                    FLog.w(TAG, "⚠️ Segment " + sequenceNumber + " upload failed, skipping playlist update: " + error);
                 }
-            }
-            
-        } finally {
-            bufferLock.writeLock().unlock();
+            });
         }
     }
     
@@ -528,130 +512,123 @@ public class RemoteStreamManager {
      */
     @Nullable
     public byte[] getInitializationSegment() {
-        bufferLock.readLock().lock();
-        try {
-            return initializationSegment;
-        } finally {
-            bufferLock.readLock().unlock();
-        }
+        return initializationSegment;
     }
     
     /**
-     * Get a specific fragment by sequence number.
+     * Get a specific fragment by sequence number and take a reference on it.
      * CRITICAL: Only returns fragments within the valid sequence window to prevent serving stale data.
+     * The caller MUST call {@link FragmentData#release()} (or close {@link FragmentData#openStream()})
+     * when done, otherwise the slabs never return to the pool.
      */
     @Nullable
-    public FragmentData getFragment(int sequenceNumber) {
-        bufferLock.readLock().lock();
-        try {
-            // CRITICAL: Reject requests for fragments outside the valid window
-            // This prevents serving 45+ minute old fragments when client has stale playlist
-            if (sequenceNumber < oldestSequence || sequenceNumber > fragmentSequence) {
-                FLog.w(TAG, "❌ Fragment #" + sequenceNumber + " is outside valid range [" + oldestSequence + " to " + fragmentSequence + "] - REJECTED");
-                return null;
-            }
-            
-            for (FragmentData fragment : fragmentBuffer) {
-                if (fragment != null && fragment.sequenceNumber == sequenceNumber) {
-                    return fragment;
-                }
-            }
-            
-            // Fragment was in valid range but not found in buffer (already evicted)
-            FLog.w(TAG, "⚠️ Fragment #" + sequenceNumber + " was in valid range but already evicted from buffer");
-            return null;
-        } finally {
-            bufferLock.readLock().unlock();
-        }
+    public FragmentData acquireFragment(int sequenceNumber) {
+        // Lock-free O(1) lookup. Window check (stale playlist / not yet produced) and
+        // eviction race are both handled by the ring.
+        return fragmentRing.acquire(sequenceNumber);
     }
     
     /**
-     * Get list of buffered fragments sorted by sequence number.
+     * Blocking variant of {@link #acquireFragment(int)} for a fragment that is still being
+     * produced: waits until the playlist lists it (or the timeout passes), then acquires it.
+     *
+     * @return A retained fragment, or null if it did not appear within {@code timeoutMs}.
      */
-    @NonNull
-    public List<FragmentData> getBufferedFragments() {
-        bufferLock.readLock().lock();
-        try {
-            List<FragmentData> fragments = new ArrayList<>();
-            
-            // Only include fragments in the current valid sequence range
-            // This prevents serving stale fragments when the circular buffer wraps
-            int validRangeStart = Math.max(1, fragmentSequence - BUFFER_SIZE + 1);
-            
-            for (FragmentData fragment : fragmentBuffer) {
-                if (fragment != null && fragment.sequenceNumber >= validRangeStart && fragment.sequenceNumber <= fragmentSequence) {
-                    fragments.add(fragment);
-                }
-            }
-            
-            // Sort by sequence number
-            fragments.sort((a, b) -> Integer.compare(a.sequenceNumber, b.sequenceNumber));
-            
-            return fragments;
-        } finally {
-            bufferLock.readLock().unlock();
+    @Nullable
+    public FragmentData awaitFragment(int sequenceNumber, long timeoutMs) throws InterruptedException {
+        FragmentData fragment = fragmentRing.acquire(sequenceNumber);
+        if (fragment != null) {
+            return fragment;
         }
+        playlistCache.awaitSequence(sequenceNumber, -1, timeoutMs);
+        return fragmentRing.acquire(sequenceNumber);
     }
     
     /**
      * Get the latest fragment sequence number.
      */
     public int getLatestSequenceNumber() {
-        bufferLock.readLock().lock();
-        try {
-            return fragmentSequence;
-        } finally {
-            bufferLock.readLock().unlock();
-        }
+        return fragmentRing.getLatestSequence();
     }
     
     /**
      * Get the oldest buffered sequence number.
      */
     public int getOldestSequenceNumber() {
-        bufferLock.readLock().lock();
-        try {
-            return oldestSequence;
-        } finally {
-            bufferLock.readLock().unlock();
-        }
+        return fragmentRing.getOldestSequence();
     }
     
     /**
      * Get number of buffered fragments.
-     * Thread-safe with read lock protection.
      */
     public int getBufferedCount() {
-        bufferLock.readLock().lock();
-        try {
-            int count = 0;
-            for (FragmentData fragment : fragmentBuffer) {
-                if (fragment != null) {
-                    count++;
-                }
-            }
-            return count;
-        } finally {
-            bufferLock.readLock().unlock();
-        }
+        return fragmentRing.size();
     }
     
     /**
      * Get total size of buffered fragments in bytes.
      */
     public long getBufferSizeBytes() {
-        bufferLock.readLock().lock();
-        try {
-            long totalBytes = 0;
-            for (FragmentData fragment : fragmentBuffer) {
-                if (fragment != null) {
-                    totalBytes += fragment.sizeBytes;
-                }
-            }
-            return totalBytes;
-        } finally {
-            bufferLock.readLock().unlock();
+        return fragmentRing.getBufferedBytes();
+    }
+
+    /**
+     * Number of fragments advertised in the live playlist.
+     * Larger than {@link #DEFAULT_PLAYLIST_WINDOW} when a DVR window is configured.
+     */
+    public int getPlaylistWindow() {
+        return playlistWindow;
+    }
+
+    /**
+     * DVR window that will be used after the next buffer reset.
+     */
+    public int getPendingPlaylistWindow() {
+        return pendingPlaylistWindow;
+    }
+
+    /**
+     * Configure the DVR rewind window (number of fragments advertised in the playlist).
+     * The ring keeps {@value #HOLD_BACK_FRAGMENTS} extra fragments behind the window.
+     * Applied when the buffer is next reset (new recording / stream restart) so live
+     * viewers never see the window shrink underneath them.
+     *
+     * @param fragments Window size; clamped to [{@value #DEFAULT_PLAYLIST_WINDOW}, {@value #MAX_PLAYLIST_WINDOW}]
+     */
+    public void setDvrWindowFragments(int fragments, android.content.Context context) {
+        int clamped = Math.max(DEFAULT_PLAYLIST_WINDOW, Math.min(MAX_PLAYLIST_WINDOW, fragments));
+        if (context != null) {
+            context.getSharedPreferences("FadCamPrefs", android.content.Context.MODE_PRIVATE)
+                .edit()
+                .putInt(PREF_DVR_WINDOW_FRAGMENTS, clamped)
+                .apply();
         }
+        pendingPlaylistWindow = clamped;
+        FLog.i(TAG, "DVR window set to " + clamped + " fragments (applies on next stream reset)");
+    }
+
+    /**
+     * Load DVR window from SharedPreferences.
+     */
+    public void loadDvrWindow(android.content.Context context) {
+        if (context == null) return;
+        android.content.SharedPreferences prefs = context.getSharedPreferences("FadCamPrefs", android.content.Context.MODE_PRIVATE);
+        int fragments = prefs.getInt(PREF_DVR_WINDOW_FRAGMENTS, DEFAULT_PLAYLIST_WINDOW);
+        pendingPlaylistWindow = Math.max(DEFAULT_PLAYLIST_WINDOW, Math.min(MAX_PLAYLIST_WINDOW, fragments));
+    }
+    
+    /**
+     * Direct memory currently held by the fragment slab pool (in use + idle).
+     */
+    public long getFragmentPoolBytes() {
+        return fragmentPool.getPooledBytes();
+    }
+
+    /**
+     * Direct memory referenced by buffered fragments and in-flight responses.
+     */
+    public long getFragmentPoolInUseBytes() {
+        return fragmentPool.getInUseBytes();
     }
     
     /**
@@ -662,64 +639,138 @@ public class RemoteStreamManager {
      */
     @Nullable
     private String generateCloudPlaylist() {
-        bufferLock.readLock().lock();
-        try {
-            // Get buffered fragments
-            List<FragmentData> fragments = new ArrayList<>();
-            int validRangeStart = Math.max(1, fragmentSequence - BUFFER_SIZE + 1);
-            
-            for (FragmentData fragment : fragmentBuffer) {
-                if (fragment != null && fragment.sequenceNumber >= validRangeStart && fragment.sequenceNumber <= fragmentSequence) {
-                    fragments.add(fragment);
-                }
-            }
-            
-            // Need at least 2 fragments for HLS
-            if (fragments.size() < 2 || initializationSegment == null) {
-                return null;
-            }
-            
-            // Sort by sequence number
-            fragments.sort((a, b) -> Integer.compare(a.sequenceNumber, b.sequenceNumber));
-            
-            // Get live edge (last 8 fragments for sliding window)
-            // Apple HLS spec requires minimum 6 segments, we use 8 for more buffer room
-            int LIVE_WINDOW_SIZE = 8;
-            List<FragmentData> liveEdge = new ArrayList<>();
-            int startIdx = Math.max(0, fragments.size() - LIVE_WINDOW_SIZE);
-            for (int i = startIdx; i < fragments.size(); i++) {
-                liveEdge.add(fragments.get(i));
-            }
-            
-            // Build M3U8 playlist
-            StringBuilder m3u8 = new StringBuilder();
-            m3u8.append("#EXTM3U\n");
-            m3u8.append("#EXT-X-VERSION:7\n"); // fMP4 requires version 7
-            m3u8.append("#EXT-X-INDEPENDENT-SEGMENTS\n");
-            m3u8.append("#EXT-X-TARGETDURATION:").append(getTargetDurationSeconds(liveEdge)).append("\n");
-            m3u8.append("#EXT-X-MEDIA-SEQUENCE:").append(liveEdge.get(0).sequenceNumber).append("\n");
-            
-            // Init segment - relative path for cloud (same directory)
-            m3u8.append("#EXT-X-MAP:URI=\"init.mp4\"\n");
-            
-            // Add fragments - use relative paths (seg-N.m4s, not /seg-N.m4s)
-            for (FragmentData fragment : liveEdge) {
-                m3u8.append("#EXTINF:").append(String.format(java.util.Locale.US, "%.3f", fragment.getDurationSeconds())).append(",\n");
-                m3u8.append("seg-").append(fragment.sequenceNumber).append(".m4s\n");
-            }
-            
-            return m3u8.toString();
-        } finally {
-            bufferLock.readLock().unlock();
+        // Get live edge (last 8 fragments for sliding window), already in sequence order.
+        // Apple HLS spec requires minimum 6 segments, we use 8 for more buffer room.
+        // The relay keeps its own short window, so DVR size does not apply here.
+        FragmentData[] snapshot = new FragmentData[DEFAULT_PLAYLIST_WINDOW];
+        int count = fragmentRing.snapshot(snapshot);
+        
+        // Need at least 2 fragments for HLS
+        if (count < 2 || initializationSegment == null) {
+            return null;
+        }
+        
+        // Same renderer as the local playlist, with relative URLs (seg-N.m4s, not /seg-N.m4s)
+        // and no blocking reload - the relay serves its own copy
+        StringBuilder m3u8 = new StringBuilder(512);
+        HlsPlaylistCache.render(m3u8, snapshot, count, "", false);
+        return m3u8.toString();
+    }
+
+    /**
+     * Called by FragmentedMp4MuxerWrapper (encoder thread) for each LL-HLS part.
+     * @param payload Complete moof+mdat bytes (position..limit); copied, not retained
+     */
+    public void onPartComplete(int msn, int partIndex, @NonNull ByteBuffer payload, long durationUs, boolean independent) {
+        if (!streamingEnabled || !lowLatencyHlsEnabled) {
+            return;
         }
+        partStore.publish(msn, partIndex, durationUs, independent, fragmentPool.copyOf(payload));
+        renderPlaylist();
+    }
+
+    /**
+     * Called when the part builder lost sync with the muxer: parts from {@code msn} on are dropped.
+     */
+    public void discardPartsFrom(int msn) {
+        partStore.invalidateFrom(msn);
+        renderPlaylist();
+    }
+
+    /**
+     * Get a specific LL-HLS part and take a reference on it (caller must release).
+     */
+    @Nullable
+    public LowLatencyPartStore.PartData acquirePart(int msn, int partIndex) {
+        return partStore.acquire(msn, partIndex);
     }
 
-    public static int getTargetDurationSeconds(@NonNull List<FragmentData> fragments) {
-        double maxDurationSeconds = 0;
-        for (FragmentData fragment : fragments) {
-            maxDurationSeconds = Math.max(maxDurationSeconds, fragment.getDurationSeconds());
+    /**
+     * Blocking fetch for a preload-hinted part.
+     *
+     * @return A retained part, or null if it did not appear within {@code timeoutMs}.
+     */
+    @Nullable
+    public LowLatencyPartStore.PartData awaitPart(int msn, int partIndex, long timeoutMs) throws InterruptedException {
+        return partStore.awaitPart(msn, partIndex, timeoutMs);
+    }
+
+    /**
+     * Whether LL-HLS segment {@code msn} closed cleanly after exactly {@code partCount} parts.
+     */
+    public boolean isPartSegmentComplete(int msn, int partCount) {
+        return partStore.isSegmentComplete(msn, partCount);
+    }
+
+    /**
+     * Whether the live playlist advertises LL-HLS parts.
+     */
+    public boolean isLowLatencyHlsEnabled() {
+        return lowLatencyHlsEnabled;
+    }
+
+    /**
+     * Enable/disable LL-HLS partial segments. Takes effect immediately; parts resume at the
+     * next segment boundary after enabling.
+     */
+    public void setLowLatencyHlsEnabled(boolean enabled, android.content.Context context) {
+        if (context != null) {
+            context.getSharedPreferences("FadCamPrefs", android.content.Context.MODE_PRIVATE)
+                .edit()
+                .putBoolean(PREF_LOW_LATENCY_HLS, enabled)
+                .apply();
+        }
+        lowLatencyHlsEnabled = enabled;
+        if (!enabled) {
+            partStore.clear();
         }
-        return Math.max(1, (int) Math.ceil(maxDurationSeconds));
+        renderPlaylist();
+        FLog.i(TAG, "Low-latency HLS " + (enabled ? "enabled" : "disabled"));
+    }
+
+    /**
+     * Load LL-HLS preference from SharedPreferences.
+     */
+    public void loadLowLatencyHls(android.content.Context context) {
+        if (context == null) return;
+        android.content.SharedPreferences prefs = context.getSharedPreferences("FadCamPrefs", android.content.Context.MODE_PRIVATE);
+        lowLatencyHlsEnabled = prefs.getBoolean(PREF_LOW_LATENCY_HLS, false);
+    }
+
+    /**
+     * Re-renders the live playlist from the ring (and parts in LL mode) and wakes blocked reloads.
+     */
+    private void renderPlaylist() {
+        synchronized (playlistRenderLock) {
+            FragmentData[] window = new FragmentData[playlistWindow];
+            int count = fragmentRing.snapshot(window);
+            if (lowLatencyHlsEnabled) {
+                LowLatencyPartStore.PartData[] parts = new LowLatencyPartStore.PartData[partStore.size()];
+                int partCount = partStore.snapshot(parts);
+                playlistCache.publish(window, count, parts, partCount, PART_TARGET_MS);
+            } else {
+                playlistCache.publish(window, count, null, 0, 0);
+            }
+        }
+    }
+
+    /**
+     * Current pre-rendered live playlist, or null while fewer than 2 fragments are buffered.
+     */
+    @Nullable
+    public HlsPlaylistCache.Snapshot getPlaylistSnapshot() {
+        return playlistCache.get();
+    }
+
+    /**
+     * Blocking playlist reload: waits until fragment {@code sequenceNumber} (or, in LL mode,
+     * part {@code partIndex} of it; -1 for the whole fragment) is in the playlist.
+     *
+     * @return The playlist, or null if it did not appear within {@code timeoutMs}.
+     */
+    @Nullable
+    public HlsPlaylistCache.Snapshot awaitPlaylist(int sequenceNumber, int partIndex, long timeoutMs) throws InterruptedException {
+        return playlistCache.awaitSequence(sequenceNumber, partIndex, timeoutMs);
     }
     
     /**
@@ -762,13 +813,9 @@ public class RemoteStreamManager {
                 maxMediaVolume = maxVol;
             }
             
-            int bufferedCount = getBufferedCount();
-            long totalBytes = 0;
-            for (FragmentData fragment : fragmentBuffer) {
-                if (fragment != null) {
-                    totalBytes += fragment.sizeBytes;
-                }
-            }
+            FragmentRing ring = fragmentRing;
+            int bufferedCount = ring.size();
+            long totalBytes = ring.getBufferedBytes();
             
             // Determine stream readiness state
             // CRITICAL: Must match the requirements in LiveM3U8Server.servePlaylist()
@@ -915,7 +962,9 @@ public class RemoteStreamManager {
                 "{\"streaming\": %s, \"mode\": %s, \"state\": %s, \"message\": %s, " +
                 "\"lastUpdated\": %d, \"serverVersion\": %s, " +
                 "\"isRecording\": %s, \"isPaused\": %s, \"fragmentsBuffered\": %d, \"bufferSizeMb\": %.2f, " +
+                "\"fragmentPoolMb\": %.2f, \"fragmentPoolInUseMb\": %.2f, " +
                 "\"latestSequence\": %d, \"oldestSequence\": %d, \"activeConnections\": %d, " +
+                "\"playlistWindow\": %d, \"dvrWindowFragments\": %d, " +
                 "\"cloudViewers\": %d, \"cloudViewerTelemetryAvailable\": %s, " +
                 "\"hasInitSegment\": %s, \"uptimeSeconds\": %d, " +
                 "\"batteryDetails\": %s, " +
@@ -947,9 +996,13 @@ public class RemoteStreamManager {
                 recordingPaused,
                 bufferedCount,
                 totalBytes / (1024.0 * 1024.0),
-                fragmentSequence,
-                oldestSequence,
+                fragmentPool.getPooledBytes() / (1024.0 * 1024.0),
+                fragmentPool.getInUseBytes() / (1024.0 * 1024.0),
+                ring.getLatestSequence(),
+                ring.getOldestSequence(),
                 isCloudMode ? cloudViewerCount : getAllClientMetrics().size(), // activeConnections: cloud viewers or local clients
+                playlistWindow,
+                pendingPlaylistWindow,
                 cloudViewerCount,
                 cloudViewerTelemetryAvailable,
                 hasInit,
@@ -1947,12 +2000,19 @@ public class RemoteStreamManager {
      * Clear all buffered fragments.
      */
     private void clearBuffer() {
-        for (int i = 0; i < BUFFER_SIZE; i++) {
-            fragmentBuffer[i] = null;
+        // Apply a pending DVR window change now that nobody is mid-playlist
+        if (pendingPlaylistWindow != playlistWindow) {
+            FragmentRing retired = fragmentRing;
+            fragmentRing = new FragmentRing(pendingPlaylistWindow + HOLD_BACK_FRAGMENTS);
+            playlistWindow = pendingPlaylistWindow;
+            // onFragmentComplete may still hold the old ring; closing it releases a late publish
+            retired.close();
+            FLog.i(TAG, "Fragment ring resized: window=" + playlistWindow + " capacity=" + fragmentRing.getCapacity());
+        } else {
+            fragmentRing.clear();
         }
-        bufferHead = 0;
-        fragmentSequence = 0;
-        oldestSequence = 0;
+        partStore.clear();
+        playlistCache.clear();
         initializationSegment = null;
         FLog.d(TAG, "Fragment buffer cleared");
     }
@@ -0,0 +1,181 @@
+package com.fadcam.streaming.buffer;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-size pool of direct {@link ByteBuffer} slabs that back live HLS fragments.
+ *
+ * A 2 s fragment at 8 Mbps is ~2 MB. Allocating that as a fresh {@code byte[]}
+ * every fragment (plus a copy per viewer) churned the heap and caused GC pauses
+ * on the muxer writer thread. Fragments are instead spread over equally sized
+ * slabs that are recycled once the last reader releases them, so the steady
+ * state allocates nothing.
+ *
+ * Idle slabs are capped ({@link #DEFAULT_MAX_IDLE_SLABS}); anything released
+ * beyond the cap is dropped and reclaimed by the GC, so a burst of viewers
+ * cannot pin memory forever.
+ */
+public final class FragmentSlabPool {
+    public static final int DEFAULT_SLAB_SIZE = 256 * 1024;      // 256 KB
+    public static final int DEFAULT_MAX_IDLE_SLABS = 128;        // 32 MB of idle slabs max
+
+    private static volatile FragmentSlabPool shared;
+
+    private final int slabSize;
+    private final int maxIdleSlabs;
+    private final ArrayDeque<ByteBuffer> idleSlabs = new ArrayDeque<>();
+
+    // Stats (bytes)
+    private final AtomicLong inUseBytes = new AtomicLong();
+    private final AtomicLong idleBytes = new AtomicLong();
+    private final AtomicLong allocatedSlabs = new AtomicLong();
+    private final AtomicLong recycledSlabs = new AtomicLong();
+
+    public FragmentSlabPool(int slabSize, int maxIdleSlabs) {
+        if (slabSize <= 0) throw new IllegalArgumentException("slabSize must be > 0");
+        this.slabSize = slabSize;
+        this.maxIdleSlabs = Math.max(0, maxIdleSlabs);
+    }
+
+    /**
+     * Process-wide pool used by the live streaming path.
+     */
+    @NonNull
+    public static FragmentSlabPool getShared() {
+        FragmentSlabPool pool = shared;
+        if (pool == null) {
+            synchronized (FragmentSlabPool.class) {
+                pool = shared;
+                if (pool == null) {
+                    pool = new FragmentSlabPool(DEFAULT_SLAB_SIZE, DEFAULT_MAX_IDLE_SLABS);
+                    shared = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Copies the remaining bytes of {@code src} into pooled slabs.
+     * The position of {@code src} is not modified.
+     *
+     * @return A fragment holding one reference, owned by the caller.
+     */
+    @NonNull
+    public PooledFragment copyOf(@NonNull ByteBuffer src) {
+        ByteBuffer in = src.duplicate();
+        int size = in.remaining();
+        ByteBuffer[] slabs = acquireSlabs(size);
+        int limit = in.limit();
+        for (ByteBuffer slab : slabs) {
+            int chunk = Math.min(slab.remaining(), in.remaining());
+            in.limit(in.position() + chunk);
+            slab.put(in);
+            in.limit(limit);
+            slab.flip();
+        }
+        return new PooledFragment(this, slabs, size);
+    }
+
+    /**
+     * Copies {@code length} bytes of {@code src} starting at {@code offset} into pooled slabs.
+     */
+    @NonNull
+    public PooledFragment copyOf(@NonNull byte[] src, int offset, int length) {
+        return copyOf(ByteBuffer.wrap(src, offset, length));
+    }
+
+    /**
+     * Hands out enough cleared slabs to hold {@code size} bytes.
+     */
+    @NonNull
+    ByteBuffer[] acquireSlabs(int size) {
+        int count = Math.max(1, (size + slabSize - 1) / slabSize);
+        ByteBuffer[] slabs = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            slabs[i] = acquireSlab();
+        }
+        return slabs;
+    }
+
+    @NonNull
+    ByteBuffer acquireSlab() {
+        ByteBuffer slab;
+        synchronized (idleSlabs) {
+            slab = idleSlabs.pollFirst();
+        }
+        if (slab != null) {
+            idleBytes.addAndGet(-slabSize);
+        } else {
+            slab = ByteBuffer.allocateDirect(slabSize);
+            allocatedSlabs.incrementAndGet();
+        }
+        slab.clear();
+        inUseBytes.addAndGet(slabSize);
+        return slab;
+    }
+
+    /**
+     * Returns slabs to the pool. Called by {@link PooledFragment} when its last reference is released.
+     */
+    void recycle(@NonNull ByteBuffer[] slabs) {
+        for (ByteBuffer slab : slabs) {
+            if (slab == null) continue;
+            inUseBytes.addAndGet(-slabSize);
+            boolean kept = false;
+            synchronized (idleSlabs) {
+                if (idleSlabs.size() < maxIdleSlabs) {
+                    idleSlabs.addFirst(slab); // LIFO keeps recently touched memory warm
+                    kept = true;
+                }
+            }
+            if (kept) {
+                idleBytes.addAndGet(slabSize);
+                recycledSlabs.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Drops all idle slabs so their direct memory can be reclaimed (e.g. when streaming stops).
+     */
+    public void trim() {
+        synchronized (idleSlabs) {
+            idleBytes.addAndGet(-(long) idleSlabs.size() * slabSize);
+            idleSlabs.clear();
+        }
+    }
+
+    public int getSlabSize() {
+        return slabSize;
+    }
+
+    /** Bytes currently referenced by live fragments (ring buffer + in-flight responses). */
+    public long getInUseBytes() {
+        return inUseBytes.get();
+    }
+
+    /** Bytes sitting in the idle list, ready for reuse. */
+    public long getIdleBytes() {
+        return idleBytes.get();
+    }
+
+    /** Total direct memory held by the pool (in use + idle). */
+    public long getPooledBytes() {
+        return inUseBytes.get() + idleBytes.get();
+    }
+
+    /** Number of slabs ever allocated with {@link ByteBuffer#allocateDirect}. */
+    public long getAllocatedSlabCount() {
+        return allocatedSlabs.get();
+    }
+
+    /** Number of slab releases that went back to the idle list instead of the GC. */
+    public long getRecycledSlabCount() {
+        return recycledSlabs.get();
+    }
+}
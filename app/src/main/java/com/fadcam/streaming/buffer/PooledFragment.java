@@ -0,0 +1,204 @@
+package com.fadcam.streaming.buffer;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reference-counted, immutable byte sequence stored in {@link FragmentSlabPool} slabs.
+ *
+ * Ownership rules:
+ * - The creator holds one reference.
+ * - Every reader calls {@link #tryRetain()} before touching the bytes and
+ *   {@link #release()} when done (streams from {@link #openStream()} release on close).
+ * - When the count drops to zero the slabs go back to the pool. Any later
+ *   {@link #tryRetain()} fails, which readers treat exactly like "evicted".
+ *
+ * Readers only ever see read-only duplicates ({@link #views()}), so one fragment can
+ * be served to any number of sockets concurrently without copying it.
+ */
+public final class PooledFragment {
+
+    private final FragmentSlabPool pool;
+    private final ByteBuffer[] slabs;
+    private final int size;
+    private final AtomicInteger refCount = new AtomicInteger(1);
+
+    PooledFragment(@NonNull FragmentSlabPool pool, @NonNull ByteBuffer[] slabs, int size) {
+        this.pool = pool;
+        this.slabs = slabs;
+        this.size = size;
+    }
+
+    /** Total payload size in bytes. */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds a reference unless the fragment has already been recycled.
+     *
+     * @return false if the slabs were already returned to the pool.
+     */
+    public boolean tryRetain() {
+        while (true) {
+            int current = refCount.get();
+            if (current <= 0) {
+                return false;
+            }
+            if (refCount.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Drops a reference. The last release recycles the slabs.
+     */
+    public void release() {
+        int remaining = refCount.decrementAndGet();
+        if (remaining == 0) {
+            pool.recycle(slabs);
+        } else if (remaining < 0) {
+            refCount.set(0);
+            throw new IllegalStateException("PooledFragment released more times than retained");
+        }
+    }
+
+    /** Current reference count (diagnostics only). */
+    public int refCount() {
+        return refCount.get();
+    }
+
+    /**
+     * Read-only views over the payload, in order. Each view is independent, so callers
+     * may consume them (e.g. with a gathering write) without affecting other readers.
+     * The caller must hold a reference for as long as the views are in use.
+     */
+    @NonNull
+    public ByteBuffer[] views() {
+        ByteBuffer[] out = new ByteBuffer[slabs.length];
+        for (int i = 0; i < slabs.length; i++) {
+            out[i] = slabs[i].asReadOnlyBuffer();
+        }
+        return out;
+    }
+
+    /**
+     * Reads a single byte at an absolute offset.
+     */
+    public byte get(int offset) {
+        if (offset < 0 || offset >= size) {
+            throw new IndexOutOfBoundsException("offset=" + offset + " size=" + size);
+        }
+        int slabSize = pool.getSlabSize();
+        return slabs[offset / slabSize].get(offset % slabSize);
+    }
+
+    /**
+     * Reads a big-endian 32-bit value at an absolute offset (box size / box type peeking).
+     */
+    public int getIntBE(int offset) {
+        return ((get(offset) & 0xFF) << 24) | ((get(offset + 1) & 0xFF) << 16)
+                | ((get(offset + 2) & 0xFF) << 8) | (get(offset + 3) & 0xFF);
+    }
+
+    /**
+     * Copies the payload into a new heap array. Only for consumers that genuinely need a
+     * {@code byte[]} (e.g. AES-GCM encryption before cloud upload) — not for serving viewers.
+     */
+    @NonNull
+    public byte[] toByteArray() {
+        byte[] out = new byte[size];
+        int pos = 0;
+        for (ByteBuffer slab : slabs) {
+            ByteBuffer view = slab.duplicate();
+            int n = view.remaining();
+            view.get(out, pos, n);
+            pos += n;
+        }
+        return out;
+    }
+
+    /**
+     * Opens a stream over the payload that consumes one reference: the caller must have
+     * retained the fragment for this stream, and {@link InputStream#close()} releases it.
+     */
+    @NonNull
+    public InputStream openStream() {
+        return new SlabInputStream(this);
+    }
+
+    /**
+     * Streams the slabs straight out of direct memory. NanoHTTPD pulls 16 KB at a time
+     * through {@link #read(byte[], int, int)}, so no full-fragment array is ever created.
+     */
+    private static final class SlabInputStream extends InputStream {
+        private final PooledFragment fragment;
+        private final ByteBuffer[] views;
+        private int index = 0;
+        private boolean closed = false;
+
+        SlabInputStream(PooledFragment fragment) {
+            this.fragment = fragment;
+            this.views = fragment.views();
+        }
+
+        @Override
+        public int read() {
+            ByteBuffer current = current();
+            return current == null ? -1 : (current.get() & 0xFF);
+        }
+
+        @Override
+        public int read(@NonNull byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            ByteBuffer current = current();
+            if (current == null) return -1;
+            int n = Math.min(len, current.remaining());
+            current.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = 0;
+            while (skipped < n) {
+                ByteBuffer current = current();
+                if (current == null) break;
+                int step = (int) Math.min(n - skipped, current.remaining());
+                current.position(current.position() + step);
+                skipped += step;
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            int total = 0;
+            for (int i = index; i < views.length; i++) {
+                total += views[i].remaining();
+            }
+            return total;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                fragment.release();
+            }
+        }
+
+        private ByteBuffer current() {
+            if (closed) return null;
+            while (index < views.length && !views[index].hasRemaining()) {
+                index++;
+            }
+            return index < views.length ? views[index] : null;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.fadcam.streaming.server;
+
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * The socket of the connection the current worker thread is serving.
+ * NanoHTTPD runs {@code serve()} and {@code Response.send()} on the connection's thread but
+ * never exposes the socket; responses that need to abort the connection look it up here.
+ */
+public final class ConnectionContext {
+    private static final ThreadLocal<Socket> CURRENT = new ThreadLocal<>();
+
+    private ConnectionContext() {}
+
+    public static void bind(Socket socket) {
+        CURRENT.set(socket);
+    }
+
+    public static void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Resets the current connection (RST, no orderly shutdown) so the client sees a failed
+     * transfer instead of a short body it could mistake for a complete one.
+     */
+    public static void abortCurrent() {
+        Socket socket = CURRENT.get();
+        if (socket == null) {
+            return;
+        }
+        try {
+            socket.setSoLinger(true, 0);
+            socket.close();
+        } catch (IOException ignored) {
+            // Already closed
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.fadcam.streaming.server;
+
+import com.fadcam.FLog;
+
+import androidx.annotation.NonNull;
+
+import com.fadcam.streaming.buffer.PooledFragment;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+import fi.iki.elonen.NanoHTTPD;
+
+/**
+ * Fixed-length response whose body is a {@link PooledFragment}: the slabs are copied to the
+ * socket through a small scratch array, with no intermediate byte[] of the whole fragment.
+ *
+ * Ownership: the constructor takes over ONE reference, held by the response's data stream.
+ * NanoHTTPD closes the response after sending (or on error), which releases it.
+ */
+public final class PooledFragmentResponse extends NanoHTTPD.Response {
+    private static final String TAG = "PooledFragmentResponse";
+
+    private static final ThreadLocal<SimpleDateFormat> HTTP_DATE = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US);
+            format.setTimeZone(TimeZone.getTimeZone("GMT"));
+            return format;
+        }
+    };
+
+    private final PooledFragment fragment;
+    // Response.header is private in NanoHTTPD 2.3.1; keep our own ordered copy for send()
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private boolean keepAlive = true;
+
+    /**
+     * @param fragment A fragment the caller has already retained for this response.
+     */
+    public PooledFragmentResponse(@NonNull Status status, @NonNull String mimeType, @NonNull PooledFragment fragment) {
+        super(status, mimeType, fragment.openStream(), fragment.size());
+        this.fragment = fragment;
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        super.addHeader(name, value);
+        headers.put(name, value);
+    }
+
+    @Override
+    public void setKeepAlive(boolean useKeepAlive) {
+        super.setKeepAlive(useKeepAlive);
+        this.keepAlive = useKeepAlive;
+    }
+
+    @Override
+    protected void send(OutputStream outputStream) {
+        try {
+            StringBuilder head = new StringBuilder(256);
+            head.append("HTTP/1.1 ").append(getStatus().getDescription()).append(" \r\n");
+            if (getMimeType() != null) {
+                head.append("Content-Type: ").append(getMimeType()).append("\r\n");
+            }
+            if (getHeader("date") == null) {
+                head.append("Date: ").append(HTTP_DATE.get().format(new Date())).append("\r\n");
+            }
+            for (Map.Entry<String, String> entry : headers.entrySet()) {
+                // Content-Length is always written below from the real size
+                if (!"content-length".equalsIgnoreCase(entry.getKey())) {
+                    head.append(entry.getKey()).append(": ").append(entry.getValue()).append("\r\n");
+                }
+            }
+            if (getHeader("connection") == null) {
+                head.append("Connection: ").append(keepAlive ? "keep-alive" : "close").append("\r\n");
+            }
+            head.append("Content-Length: ").append(fragment.size()).append("\r\n\r\n");
+            outputStream.write(head.toString().getBytes(StandardCharsets.US_ASCII));
+            outputStream.flush();
+
+            if (getRequestMethod() == NanoHTTPD.Method.HEAD) {
+                return;
+            }
+            writeCopying(outputStream);
+        } catch (IOException e) {
+            // Viewer went away mid-fragment; NanoHTTPD closes the socket and this response
+            FLog.d(TAG, "Fragment send aborted: " + e.getMessage());
+        }
+    }
+
+    private void writeCopying(OutputStream outputStream) throws IOException {
+        byte[] scratch = new byte[16 * 1024];
+        for (ByteBuffer view : fragment.views()) {
+            while (view.hasRemaining()) {
+                int n = Math.min(scratch.length, view.remaining());
+                view.get(scratch, 0, n);
+                outputStream.write(scratch, 0, n);
+            }
+        }
+        outputStream.flush();
+    }
+}
@@ -7655,7 +7655,7 @@ public class HomeFragment extends BaseFragment {
                 // Not recording: also run delta scan if index was invalidated
                 // (e.g. immediately after recording stopped, to pick up the new file).
                 if (repo.isIndexInvalidated()) {
-                    repo.getVideos(sharedPreferencesManager); // Consumes invalidation flag + delta scans
+                    repo.syncIndex(sharedPreferencesManager); // Consumes invalidation flag + delta scans
                     long[] freshStats = repo.getQuickStats();
                     int freshCount = (int) freshStats[0];
                     long freshMB = freshStats[1] / (1024 * 1024);
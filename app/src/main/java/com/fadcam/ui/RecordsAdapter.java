@@ -58,6 +58,7 @@ import com.fadcam.R;
 // Ensure VideoItem import is correct
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.fadcam.Utils; // Import Utils for the new formatter
+import com.fadcam.playback.FragmentIndexSidecar;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -140,27 +141,10 @@ public class RecordsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
     private static final int SAFE_SCROLL_THUMBNAIL_SIZE = 80;
     private Set<Uri> currentlyProcessingUris = new HashSet<>(); // Track processing URIs within adapter instance (passed
                                                                 // from fragment)
-    // Bounded LRU caches to avoid unbounded memory usage
-    private final java.util.Map<String, Long> durationCache = new java.util.LinkedHashMap<String, Long>(256, 0.75f,
-            true) {
-        @Override
-        protected boolean removeEldestEntry(java.util.Map.Entry<String, Long> eldest) {
-            return size() > 256; // keep at most 256 entries
-        }
-    };
-    private final java.util.Map<String, Long> savedPositionCache = new java.util.LinkedHashMap<String, Long>(256, 0.75f,
-            true) {
-        @Override
-        protected boolean removeEldestEntry(java.util.Map.Entry<String, Long> eldest) {
-            return size() > 1024; // keep more entries for saved positions
-        }
-    };
+    // Durations + resume positions, shared with the player and index (lock-free reads, persisted)
+    private final com.fadcam.data.MediaAttributeStore mediaAttributes;
     // Reuse a single main-thread handler for UI updates
     private final android.os.Handler mainHandler = new android.os.Handler(android.os.Looper.getMainLooper());
-    // Simple file-based cache for durations (persist across sessions)
-    private final File durationCacheFile;
-    // Debounced persist task (posts to executor)
-    private final Runnable persistDurationTask;
     // Broadcast receiver to listen for playback position updates
     private final androidx.localbroadcastmanager.content.LocalBroadcastManager localBroadcastManager;
     private final android.content.BroadcastReceiver playbackPositionReceiver;
@@ -219,20 +203,7 @@ public class RecordsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
                                                                                                              // provides
                                                                                                              // this
 
-
-        // Duration cache file inside app cache dir
-        File appCache = context.getCacheDir();
-        this.durationCacheFile = new File(appCache, "duration_cache.json");
-        // load persisted duration cache
-        loadDurationCacheFromDisk();
-
-        // Prepare debounced persist task
-        this.persistDurationTask = () -> {
-            try {
-                this.executorService.execute(this::persistDurationCacheToDisk);
-            } catch (Exception ignored) {
-            }
-        };
+        this.mediaAttributes = com.fadcam.data.MediaAttributeStore.getInstance(context);
 
         // Setup LocalBroadcastReceiver for immediate progress updates
         this.localBroadcastManager = androidx.localbroadcastmanager.content.LocalBroadcastManager.getInstance(context);
@@ -256,10 +227,7 @@ public class RecordsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
                 }
                 if (uriStr == null || pos < 0)
                     return;
-                // Update savedPositionCache and notify specific item
-                synchronized (savedPositionCache) {
-                    savedPositionCache.put(uriStr, pos);
-                }
+                // The player already saved it to the shared store; just refresh the row
                 int posIndex = findPositionByStringUri(uriStr);
                 if (posIndex != -1) {
                     mainHandler.post(() -> notifyItemChanged(posIndex));
@@ -519,53 +487,32 @@ public class RecordsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
                     // Show placeholder immediately — never block the UI thread
                     holder.textViewFileTime.setText("--:--");
                     if (canRunHeavyMetadataWork()) {
-                        // Try DB-backed duration first (instant), fall back to FFprobe only if needed
-                        executorService.execute(() -> {
-                            long duration = -1;
-
-                            // Fast path: read from persistent Room DB index
-                            try {
-                                com.fadcam.data.VideoIndexRepository repo =
-                                        com.fadcam.data.VideoIndexRepository.getInstance(context);
-                                duration = repo.getCachedDuration(videoUri.toString());
-                            } catch (Exception e) {
-                                FLog.w(TAG, "DB duration lookup failed", e);
-                            }
-
-                            // Slow path: fall back to FFprobe/MMR only if DB has no data
-                            if (duration <= 0) {
-                                // Add a small delay for newly recorded videos
-                                if (videoItem.isNew) {
-                                    try {
-                                        Thread.sleep(500);
-                                    } catch (InterruptedException e) {
-                                        Thread.currentThread().interrupt();
-                                    }
-                                }
-                                duration = getVideoDuration(videoUri);
-
-                                // Write FFprobe result back to DB so we never re-probe this video
-                                if (duration > 0) {
-                                    try {
-                                        com.fadcam.data.VideoIndexRepository.getInstance(context)
-                                                .persistDurationToDb(videoUri.toString(), duration);
-                                    } catch (Exception ex) {
-                                        // Non-fatal: adapter cache still has the value
-                                    }
-                                }
-                            }
-
-                            String formattedDuration = formatVideoDuration(duration);
-                            // Cache by URI (thread-safe ConcurrentHashMap) — survives list reorders.
+                        // DB-backed duration first (instant); otherwise ask the enrichment
+                        // scheduler to resolve this on-screen row ahead of its backlog, and
+                        // fall back to FFprobe only if the header probe and MMR both fail
+                        long cachedMs = -1;
+                        com.fadcam.data.VideoIndexRepository repo = null;
+                        try {
+                            repo = com.fadcam.data.VideoIndexRepository.getInstance(context);
+                            cachedMs = repo.getCachedDuration(uriString);
+                        } catch (Exception e) {
+                            FLog.w(TAG, "DB duration lookup failed", e);
+                        }
+                        if (cachedMs > 0) {
+                            String formattedDuration = formatVideoDuration(cachedMs);
                             loadedThumbnailCache.put(uriString, formattedDuration);
-
-                            // Update UI on main thread — re-check that the holder still shows THIS video.
-                            new Handler(Looper.getMainLooper()).post(() -> {
-                                if (uriString.equals(holder.currentUri) && holder.textViewFileTime != null) {
-                                    holder.textViewFileTime.setText(formattedDuration);
+                            holder.textViewFileTime.setText(formattedDuration);
+                        } else if (repo != null) {
+                            repo.requestDuration(uriString, isImage, (uri, durationMs) -> {
+                                if (durationMs > 0) {
+                                    postRowDuration(holder, uriString, durationMs);
+                                } else {
+                                    executorService.execute(() -> resolveDurationSlowPath(holder, videoItem, uriString));
                                 }
                             });
-                        });
+                        } else {
+                            executorService.execute(() -> resolveDurationSlowPath(holder, videoItem, uriString));
+                        }
                     }
                 }
             }
@@ -576,7 +523,7 @@ public class RecordsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
 
         // Only set the thumbnail if holder view is visible (important optimization)
         if (holder.imageViewThumbnail != null && holder.itemView.getVisibility() == View.VISIBLE) {
-            setThumbnail(holder, videoUri);
+            setThumbnail(holder, videoItem);
         }
 
         // --- Last-viewed progress bar handling (optimized with caching) ---
@@ -591,51 +538,26 @@ public class RecordsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
                     progressBg.setVisibility(View.VISIBLE);
                     progressFill.setVisibility(View.GONE);
                     final String key = videoUri.toString();
-                    // Try caches first
-                    Long cachedSaved = savedPositionCache.get(key);
-                    Long cachedDur = durationCache.get(key);
-                    // Also check DB-backed duration cache (avoids FFprobe entirely)
-                    if (cachedDur == null) {
-                        try {
-                            long dbDur = com.fadcam.data.VideoIndexRepository.getInstance(context)
-                                    .getCachedDuration(key);
-                            if (dbDur > 0) {
-                                cachedDur = dbDur;
-                                synchronized (durationCache) {
-                                    durationCache.put(key, dbDur);
-                                }
-                            }
-                        } catch (Exception ignored) {}
-                    }
-                    if (cachedSaved != null && cachedDur != null) {
+                    // Shared store first: plain array reads, no locks or boxing
+                    final long cachedSaved = mediaAttributes.getResumePosition(key);
+                    final long cachedDur = mediaAttributes.getDuration(key);
+                    if (cachedSaved != com.fadcam.data.MediaAttributeStore.MISSING
+                            && cachedDur != com.fadcam.data.MediaAttributeStore.MISSING) {
                         applyProgressToView(progressBg, progressFill, cachedSaved, cachedDur);
                     } else {
                         if (!canRunHeavyMetadataWork()) {
                             progressFill.setVisibility(View.GONE);
                             return;
                         }
-                        final Long finalCachedDur = cachedDur;
                         // Submit one background task to compute missing values
                         executorService.execute(() -> {
                             try {
-                                long savedMs = cachedSaved != null ? cachedSaved
-                                        : sharedPreferencesManager.getSavedPlaybackPositionMsWithFilenameFallback(key,
-                                                getFileName(videoUri));
-                                long durationMs = finalCachedDur != null ? finalCachedDur : getVideoDuration(videoUri);
-                                // Cache results for future bindings (synchronized because LinkedHashMap isn't
-                                // thread-safe)
-                                synchronized (durationCache) {
-                                    if (durationMs > 0) {
-                                        durationCache.put(key, durationMs);
-                                        // schedule persist (debounced)
-                                        mainHandler.removeCallbacks(persistDurationTask);
-                                        mainHandler.postDelayed(persistDurationTask, 2000);
-                                    }
-                                }
-                                synchronized (savedPositionCache) {
-                                    if (savedMs > 0)
-                                        savedPositionCache.put(key, savedMs);
-                                }
+                                // Filename / legacy-preferences fallbacks; hits are adopted by the store
+                                long savedMs = cachedSaved != com.fadcam.data.MediaAttributeStore.MISSING ? cachedSaved
+                                        : mediaAttributes.getResumePosition(key, getFileName(videoUri));
+                                long durationMs = cachedDur != com.fadcam.data.MediaAttributeStore.MISSING ? cachedDur
+                                        : getVideoDuration(videoUri);
+                                mediaAttributes.putDuration(key, durationMs);
                                 final long fSaved = savedMs;
                                 final long fDur = durationMs;
                                 mainHandler.post(() -> applyProgressToView(progressBg, progressFill, fSaved, fDur));
@@ -825,49 +747,6 @@ public class RecordsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
         return count;
     }
 
-    // Load duration cache from JSON file
-    private void loadDurationCacheFromDisk() {
-        if (durationCacheFile == null || !durationCacheFile.exists())
-            return;
-        try (java.io.FileInputStream fis = new java.io.FileInputStream(durationCacheFile)) {
-            byte[] data = new byte[(int) durationCacheFile.length()];
-            fis.read(data);
-            String json = new String(data, java.nio.charset.StandardCharsets.UTF_8);
-            org.json.JSONObject obj = new org.json.JSONObject(json);
-            org.json.JSONArray names = obj.names();
-            if (names != null) {
-                for (int i = 0; i < names.length(); i++) {
-                    String k = names.getString(i);
-                    long v = obj.optLong(k, 0L);
-                    if (v > 0)
-                        durationCache.put(k, v);
-                }
-            }
-        } catch (Exception e) {
-            FLog.w(TAG, "Failed to load duration cache", e);
-        }
-    }
-
-    // Persist duration cache to disk (best-effort)
-    private void persistDurationCacheToDisk() {
-        if (durationCacheFile == null)
-            return;
-        try {
-            org.json.JSONObject obj = new org.json.JSONObject();
-            synchronized (durationCache) {
-                for (java.util.Map.Entry<String, Long> e : durationCache.entrySet()) {
-                    obj.put(e.getKey(), e.getValue());
-                }
-            }
-            try (java.io.FileOutputStream fos = new java.io.FileOutputStream(durationCacheFile)) {
-                fos.write(obj.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8));
-                fos.getFD().sync();
-            }
-        } catch (Exception e) {
-            FLog.w(TAG, "Failed to persist duration cache", e);
-        }
-    }
-
     // Helper to apply computed progress to views on UI thread
     private void applyProgressToView(View progressBg, View progressFill, long savedMs, long durationMs) {
         try {
@@ -986,7 +865,8 @@ public class RecordsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
     }
 
     // Update the setThumbnail method to consider scrolling state with caching
-    private void setThumbnail(RecordViewHolder holder, Uri videoUri) {
+    private void setThumbnail(RecordViewHolder holder, VideoItem videoItem) {
+        final Uri videoUri = videoItem.uri;
         if (holder.imageViewThumbnail == null || context == null)
             return;
         // Honor user preference: hide thumbnails if requested
@@ -994,6 +874,7 @@ public class RecordsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
             if (sharedPreferencesManager != null && sharedPreferencesManager.isHideThumbnailsEnabled()) {
                 // Hide the thumbnail view and show a lightweight placeholder background
                 holder.imageViewThumbnail.setImageResource(R.drawable.ic_video_placeholder);
+                holder.shownThumbnailKey = null;
                 holder.imageViewThumbnail.setScaleType(ImageView.ScaleType.CENTER_INSIDE);
                 return;
             }
@@ -1003,28 +884,51 @@ public class RecordsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
         // Skip Glide loading for skeleton URIs
         if ("skeleton".equals(videoUri.getScheme())) {
             holder.imageViewThumbnail.setImageResource(R.drawable.ic_video_placeholder);
+            holder.shownThumbnailKey = null;
             return;
         }
 
-        String uriString = videoUri.toString();
+        final String uriString = videoUri.toString();
+        final com.fadcam.utils.ThumbnailStore thumbnailStore = com.fadcam.utils.ThumbnailStore.getInstance(context);
+        final String thumbnailKey = com.fadcam.utils.ThumbnailStore.keyFor(uriString, videoItem.lastModified,
+                videoItem.size);
+
+        // Memory tier: instant, no I/O
+        android.graphics.Bitmap cachedBitmap = thumbnailStore.getFromMemory(thumbnailKey);
+        if (cachedBitmap != null) {
+            showStoredThumbnail(holder, cachedBitmap, thumbnailKey);
+            return;
+        }
 
-        // Try to get cached thumbnail first
-        byte[] cachedThumbnail = com.fadcam.utils.VideoSessionCache.getThumbnailWithFallback(context, uriString);
-        if (cachedThumbnail != null) {
-            // Load from cache - instant display
-            try {
-                android.graphics.Bitmap bitmap = android.graphics.BitmapFactory.decodeByteArray(cachedThumbnail, 0,
-                        cachedThumbnail.length);
-                if (bitmap != null) {
-                    holder.imageViewThumbnail.setImageBitmap(bitmap);
-                    holder.imageViewThumbnail.setScaleType(ImageView.ScaleType.CENTER_CROP);
-                    return;
-                }
-            } catch (Exception e) {
-                FLog.w(TAG, "Error loading cached thumbnail", e);
-            }
+        // Disk tier off the main thread; only frames never stored before go through Glide.
+        // A rebind of the same frame (scroll settle, payload update) keeps what it shows
+        // instead of flashing the placeholder until the pack answers.
+        if (!thumbnailKey.equals(holder.shownThumbnailKey)) {
+            holder.imageViewThumbnail.setImageResource(R.drawable.ic_video_placeholder);
+            holder.shownThumbnailKey = null;
         }
+        thumbnailStore.loadAsync(thumbnailKey, stored -> new Handler(Looper.getMainLooper()).post(() -> {
+            if (!uriString.equals(holder.currentUri) || holder.imageViewThumbnail == null) return;
+            if (stored != null) {
+                showStoredThumbnail(holder, stored, thumbnailKey);
+            } else {
+                loadThumbnailWithGlide(holder, videoUri, thumbnailStore, thumbnailKey);
+            }
+        }));
+    }
 
+    private static void showStoredThumbnail(RecordViewHolder holder, android.graphics.Bitmap bitmap,
+            String thumbnailKey) {
+        holder.imageViewThumbnail.setImageBitmap(bitmap);
+        holder.imageViewThumbnail.setScaleType(ImageView.ScaleType.CENTER_CROP);
+        holder.shownThumbnailKey = thumbnailKey;
+    }
+
+    /** Extracts a frame with Glide and stores it in the thumbnail store for next time. */
+    private void loadThumbnailWithGlide(RecordViewHolder holder, Uri videoUri,
+            com.fadcam.utils.ThumbnailStore thumbnailStore, String thumbnailKey) {
+        if (context == null)
+            return;
         // Lower resolution during scrolling for performance
         int thumbnailSize;
         if (safeMediaProbeMode) {
@@ -1047,6 +951,7 @@ public class RecordsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
             options = options.dontAnimate();
         }
 
+        final int finalThumbnailSize = thumbnailSize;
         // Load with Glide and cache the result
         Glide.with(context)
                 .asBitmap()
@@ -1060,23 +965,16 @@ public class RecordsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
                         // Set the image
                         holder.imageViewThumbnail.setImageBitmap(resource);
                         holder.imageViewThumbnail.setScaleType(ImageView.ScaleType.CENTER_CROP);
-
-                        // Cache the thumbnail for future use
-                        executorService.execute(() -> {
-                            try {
-                                java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream();
-                                resource.compress(android.graphics.Bitmap.CompressFormat.JPEG, 85, baos);
-                                byte[] thumbnailData = baos.toByteArray();
-
-                                // Cache in memory and disk
-                                com.fadcam.utils.VideoSessionCache.cacheThumbnail(uriString, thumbnailData);
-                                com.fadcam.utils.VideoSessionCache.saveThumbnailToDisk(context, uriString,
-                                        thumbnailData);
-
-                            } catch (Exception e) {
-                                FLog.w(TAG, "Error caching thumbnail", e);
-                            }
-                        });
+                        holder.shownThumbnailKey = null; // Glide owns this bitmap; never keep it across binds
+
+                        // Store full-size results only; .thumbnail(0.1f) delivers a tiny preview first.
+                        // Glide recycles its bitmaps, so the store gets its own copy.
+                        if (Math.max(resource.getWidth(), resource.getHeight()) >= finalThumbnailSize / 2) {
+                            android.graphics.Bitmap owned = resource.copy(
+                                    resource.getConfig() != null ? resource.getConfig()
+                                            : android.graphics.Bitmap.Config.ARGB_8888, false);
+                            if (owned != null) thumbnailStore.put(thumbnailKey, owned);
+                        }
                     }
 
                     @Override
@@ -1084,10 +982,51 @@ public class RecordsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
                             @androidx.annotation.Nullable android.graphics.drawable.Drawable placeholder) {
                         // Set placeholder if load is cleared
                         holder.imageViewThumbnail.setImageResource(R.drawable.ic_video_placeholder);
+                        holder.shownThumbnailKey = null;
                     }
                 });
     }
 
+    /**
+     * FFprobe/MMR duration for a row the index could not resolve. Runs on the executor;
+     * writes the result back to the DB so the video is never re-probed.
+     */
+    private void resolveDurationSlowPath(RecordViewHolder holder, VideoItem videoItem, String uriString) {
+        // Add a small delay for newly recorded videos
+        if (videoItem.isNew) {
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        long duration = getVideoDuration(videoItem.uri);
+
+        if (duration > 0) {
+            try {
+                com.fadcam.data.VideoIndexRepository.getInstance(context)
+                        .persistDurationToDb(uriString, duration);
+            } catch (Exception ex) {
+                // Non-fatal: adapter cache still has the value
+            }
+        }
+        postRowDuration(holder, uriString, duration);
+    }
+
+    /** Caches the formatted duration and shows it if the holder still displays this video. */
+    private void postRowDuration(RecordViewHolder holder, String uriString, long durationMs) {
+        String formattedDuration = formatVideoDuration(durationMs);
+        // Cache by URI (thread-safe ConcurrentHashMap) — survives list reorders.
+        loadedThumbnailCache.put(uriString, formattedDuration);
+
+        // Update UI on main thread — re-check that the holder still shows THIS video.
+        new Handler(Looper.getMainLooper()).post(() -> {
+            if (uriString.equals(holder.currentUri) && holder.textViewFileTime != null) {
+                holder.textViewFileTime.setText(formattedDuration);
+            }
+        });
+    }
+
     // Override onViewRecycled to cancel thumbnail loading for recycled views
     @Override
     public void onViewRecycled(@NonNull RecyclerView.ViewHolder viewHolder) {
@@ -1099,6 +1038,10 @@ public class RecordsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
         if (holder.imageViewThumbnail != null && context != null) {
             Glide.with(context).clear(holder.imageViewThumbnail);
         }
+        // Row left the screen: its duration no longer needs to jump the enrichment queue
+        if (holder.currentUri != null && context != null) {
+            com.fadcam.data.VideoIndexRepository.getInstance(context).cancelDurationRequest(holder.currentUri);
+        }
         holder.itemView.setScaleX(1f);
         holder.itemView.setScaleY(1f);
     }
@@ -1119,7 +1062,7 @@ public class RecordsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
                         && entries.get(position) instanceof VideoItemEntry) {
                     VideoItem videoItem = ((VideoItemEntry) entries.get(position)).item;
                     if (videoItem != null && videoItem.uri != null) {
-                        setThumbnail(holder, videoItem.uri);
+                        setThumbnail(holder, videoItem);
                     }
                 }
                 return;
@@ -1698,6 +1641,7 @@ public class RecordsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
 
                 if (oldFile.renameTo(newFile)) {
                     renameSuccess = true;
+                    FragmentIndexSidecar.rename(oldFile, newFile);
                     newUri = Uri.fromFile(newFile);
                     FLog.i(TAG, "Renamed file system file successfully to: " + uniqueName);
                 } else {
@@ -2244,6 +2188,11 @@ public class RecordsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
     private String getVideoResolution(Uri videoUri) {
         if (context == null || videoUri == null)
             return "N/A";
+        com.fadcam.playback.Mp4MetadataProbe.Result probed =
+                com.fadcam.playback.Mp4MetadataProbe.probe(context, videoUri);
+        if (probed != null && probed.width > 0 && probed.height > 0) {
+            return probed.width + " x " + probed.height;
+        }
         MediaMetadataRetriever retriever = new MediaMetadataRetriever();
         String resolution = "N/A";
         try {
@@ -2506,6 +2455,14 @@ public class RecordsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
         if ("skeleton".equals(videoUri.getScheme())) {
             return 0;
         }
+
+        // Header-only probe: FadCam's own (fragmented/hybrid) MP4s need no FFprobe/MMR session
+        com.fadcam.playback.Mp4MetadataProbe.Result probed =
+                com.fadcam.playback.Mp4MetadataProbe.probe(context, videoUri);
+        if (probed != null && probed.durationMs > 0) {
+            FLog.d(TAG, "duration_source=header_probe durationMs=" + probed.durationMs + " uri=" + videoUri);
+            return probed.durationMs;
+        }
         
         if (safeMediaProbeMode) {
             return getVideoDurationWithMmr(videoUri, "safe_mmr");
@@ -2688,6 +2645,8 @@ public class RecordsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
     static class RecordViewHolder extends RecyclerView.ViewHolder {
         /** The URI of the item currently bound to this holder — used to detect stale async callbacks. */
         String currentUri;
+        /** Store key of the thumbnail the image view shows, or null while it shows a placeholder. */
+        String shownThumbnailKey;
         ImageView imageViewThumbnail;
         FrameLayout thumbnailContainer;
         TextView textViewRecord;
@@ -3000,6 +2959,7 @@ public class RecordsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
 
         // Step 3: Set placeholder for thumbnail — small centered icon like "hide thumbnails" mode
         holder.imageViewThumbnail.setImageResource(R.drawable.ic_video_placeholder);
+        holder.shownThumbnailKey = null;
         holder.imageViewThumbnail.setAlpha(0.5f); // Visible placeholder
         holder.imageViewThumbnail.setScaleType(ImageView.ScaleType.CENTER_INSIDE);
 
@@ -3136,21 +3096,18 @@ public class RecordsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
      * Should be called on low memory conditions
      */
     /**
-     * Clears only the in-memory duration cache without affecting thumbnails or positions.
+     * Clears the shared duration store without affecting thumbnails or positions.
      * Call this when stale durations must be re-probed (e.g. after MMR cleanup).
-     * Does NOT delete the disk cache file; use {@link VideoIndexRepository#clearStaleMMRDurationsOnce()}
-     * to coordinate disk deletion.
+     * The DB copy is reset separately by {@link VideoIndexRepository#clearStaleMMRDurationsOnce()}.
      */
     public void invalidateDurationCache() {
-        // Clear the numeric Long cache (used for progress bar).
-        synchronized (durationCache) {
-            durationCache.clear();
-        }
+        // Clear the numeric durations (used for progress bar).
+        mediaAttributes.clearDurations();
         // Also clear the formatted-string duration cache (loadedThumbnailCache stores
         // the duration badge text, e.g. "00:26", keyed by URI — must be flushed so the
         // stale value isn't served at bind time before FFprobe can re-probe).
         loadedThumbnailCache.clear();
-        FLog.d(TAG, "invalidateDurationCache: cleared durationCache + loadedThumbnailCache — FFprobe will re-probe");
+        FLog.d(TAG, "invalidateDurationCache: cleared durations + loadedThumbnailCache — FFprobe will re-probe");
     }
 
     private boolean canRunHeavyMetadataWork() {
@@ -3159,14 +3116,8 @@ public class RecordsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
 
     public void clearCaches() {
         loadedThumbnailCache.clear();
-        // Also clear duration cache to prevent stale duration data for new videos
-        synchronized (durationCache) {
-            durationCache.clear();
-        }
-        synchronized (savedPositionCache) {
-            savedPositionCache.clear();
-        }
-        FLog.d(TAG, "Cleared all adapter caches including duration and position caches");
+        // Durations and positions live in the shared store, which evicts changed/deleted files itself
+        FLog.d(TAG, "Cleared adapter caches");
     }
 
     public void evictCachesForUris(@NonNull List<Uri> uris) {
@@ -3174,23 +3125,30 @@ public class RecordsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
             return;
         }
 
-        synchronized (durationCache) {
-            synchronized (savedPositionCache) {
-                for (Uri uri : uris) {
-                    if (uri == null) {
-                        continue;
-                    }
-                    String uriString = uri.toString();
-                    loadedThumbnailCache.remove(uriString);
-                    durationCache.remove(uriString);
-                    savedPositionCache.remove(uriString);
-                }
+        for (Uri uri : uris) {
+            if (uri == null) {
+                continue;
             }
+            String uriString = uri.toString();
+            loadedThumbnailCache.remove(uriString);
+            mediaAttributes.remove(uriString);
         }
 
         FLog.d(TAG, "evictCachesForUris: removed cache entries for " + uris.size() + " deleted items");
     }
 
+    /** Files modified in place: drop the thumbnail and duration, keep the resume position. */
+    public void evictChangedUris(@NonNull List<Uri> uris) {
+        for (Uri uri : uris) {
+            if (uri == null) {
+                continue;
+            }
+            String uriString = uri.toString();
+            loadedThumbnailCache.remove(uriString);
+            mediaAttributes.removeDuration(uriString);
+        }
+    }
+
     // For dialogs, use themed MaterialAlertDialogBuilder as in SettingsFragment
     private MaterialAlertDialogBuilder themedDialogBuilder(Context context) {
         int dialogTheme = R.style.ThemeOverlay_FadCam_Dialog;
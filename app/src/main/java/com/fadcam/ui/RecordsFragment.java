@@ -96,7 +96,6 @@ import com.guardanis.applock.dialogs.UnlockDialogBuilder;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
@@ -185,8 +184,6 @@ public class RecordsFragment extends BaseFragment implements
                 // Show skeleton items immediately without triggering updateRecords
                 if (recordsAdapter != null) {
                     recordsAdapter.setSkeletonMode(true);
-                    allLoadedItems.clear();
-                    allLoadedItems.addAll(skeletonItems);
                     videoItems.clear();
                     videoItems.addAll(skeletonItems);
 
@@ -211,16 +208,36 @@ public class RecordsFragment extends BaseFragment implements
     }
 
     /**
-     * Replaces skeleton items with actual video data in one smooth transition
+     * Shows the files a cold-start scan has indexed so far. Loading state stays on until
+     * {@link #replaceSkeletonsWithData} runs once the scan is complete.
      */
-    private void replaceSkeletonsWithData(List<VideoItem> actualItems) {
+    private void showScanProgress(int indexedSoFar) {
+        if (!isAdded() || !isLoading || indexedSoFar == 0) return;
+
+        if (recordsAdapter != null) {
+            recordsAdapter.setSkeletonMode(false);
+        }
+        dropSkeletonItems();
+        reloadRecordsView();
+        if (recyclerView != null) {
+            recyclerView.setVisibility(View.VISIBLE);
+        }
+        if (emptyStateContainer != null) {
+            emptyStateContainer.setVisibility(View.GONE);
+        }
+        FLog.d(TAG, "Cold start scan progress: " + indexedSoFar + " items so far");
+    }
+
+    /**
+     * Replaces skeleton items with the first window of indexed data in one smooth transition
+     */
+    private void replaceSkeletonsWithData(int indexedCount) {
         if (getActivity() != null) {
             getActivity().runOnUiThread(() -> {
                 if (!isAdded())
                     return;
 
-                FLog.d(TAG, "Replacing " + allLoadedItems.size() + " skeletons with " + actualItems.size()
-                        + " actual videos");
+                FLog.d(TAG, "Replacing skeletons with " + indexedCount + " indexed videos");
 
                 // ordering -----------
 
@@ -229,11 +246,9 @@ public class RecordsFragment extends BaseFragment implements
                     recordsAdapter.setSkeletonMode(false);
                 }
 
-                // Replace source data, then apply active filter to visible list.
-                allLoadedItems.clear();
-                allLoadedItems.addAll(normalizeVideoCategories(actualItems));
-                applyActiveFilterToUi();
-                FLog.d(TAG, "Applied active filter to " + actualItems.size() + " loaded videos");
+                // Query the first window of the active filter from the index
+                dropSkeletonItems();
+                reloadRecordsView();
 
                 // Update UI visibility
                 isLoading = false;
@@ -277,7 +292,6 @@ public class RecordsFragment extends BaseFragment implements
                     recordsAdapter.setSkeletonMode(false);
                 }
 
-                allLoadedItems.clear();
                 videoItems.clear();
                 if (recordsAdapter != null) {
                     recordsAdapter.notifyDataSetChanged();
@@ -550,20 +564,16 @@ public class RecordsFragment extends BaseFragment implements
             return;
         }
 
-        allLoadedItems.removeIf(item ->
-                item == null || item.uri == null || deletedUriStrings.contains(item.uri.toString()));
         videoItems.removeIf(item ->
                 item == null || item.uri == null || deletedUriStrings.contains(item.uri.toString()));
         selectedUris.removeIf(uri -> uri != null && deletedUriStrings.contains(uri.toString()));
 
-        totalItems = allLoadedItems.size();
-
         if (recordsAdapter != null) {
             recordsAdapter.evictCachesForUris(deletedUris);
         }
 
-        com.fadcam.utils.VideoSessionCache.updateSessionCache(allLoadedItems);
-        applyActiveFilterToUi();
+        com.fadcam.utils.VideoSessionCache.invalidateOnNextAccess();
+        reloadRecordsView();
         FLog.d(TAG, "applyDeletedItemsToUi: removed " + deletedUriStrings.size()
                 + " items without forcing a full records reload");
     }
@@ -1213,7 +1223,18 @@ public class RecordsFragment extends BaseFragment implements
         registerRepairScanReceiver();
         if (invalidationCoordinator == null && getContext() != null) {
             invalidationCoordinator = new RealtimeMediaInvalidationCoordinator(requireContext());
-            invalidationCoordinator.addListener(reason -> requestRealtimeRefresh("coordinator:" + reason));
+            invalidationCoordinator.addListener(new RealtimeMediaInvalidationCoordinator.Listener() {
+                @Override
+                public void onInvalidated(@NonNull String reason) {
+                    requestRealtimeRefresh("coordinator:" + reason, null);
+                }
+
+                @Override
+                public void onInvalidated(@NonNull String reason,
+                                          @Nullable com.fadcam.data.MediaChangeLog changes) {
+                    requestRealtimeRefresh("coordinator:" + reason, changes);
+                }
+            });
         }
         if (invalidationCoordinator != null) {
             invalidationCoordinator.start();
@@ -1511,52 +1532,19 @@ public class RecordsFragment extends BaseFragment implements
 
                         if (originalTempSafUriString != null) {
                             Uri originalTempSafUri = Uri.parse(originalTempSafUriString);
-                            boolean foundAndRemoved = false;
-                            for (int i = videoItems.size() - 1; i >= 0; i--) {
-                                if (videoItems.get(i).uri.equals(originalTempSafUri)) {
-                                    videoItems.remove(i);
-                                    foundAndRemoved = true;
-                                    FLog.d(TAG, "Removed temporary SAF VideoItem: " + originalTempSafUri);
-                                    break;
-                                }
-                            }
-                            for (int i = allLoadedItems.size() - 1; i >= 0; i--) {
-                                if (allLoadedItems.get(i).uri.equals(originalTempSafUri)) {
-                                    allLoadedItems.remove(i);
-                                    break;
-                                }
-                            }
-
-                            if (success && finalUriString != null) {
-                                Uri finalUri = Uri.parse(finalUriString);
-                                DocumentFile finalDocFile = DocumentFile.fromSingleUri(context, finalUri);
-                                if (finalDocFile != null && finalDocFile.exists()) {
-                                    VideoItem newItem = new VideoItem(
-                                            finalUri,
-                                            finalDocFile.getName(),
-                                            finalDocFile.length(),
-                                            finalDocFile.lastModified());
-                                    newItem.isNew = true;
-                                    videoItems.add(0, newItem); // Add to top, assuming latest
-                                    allLoadedItems.add(0, newItem);
-                                    FLog.d(TAG, "Added final SAF VideoItem: " + finalUriString);
-                                } else {
-                                    FLog.w(TAG, "Final SAF DocumentFile does not exist or is null: " + finalUriString);
-                                }
-                            } else if (!success) {
+                            if (!success) {
                                 FLog.w(TAG, "Processing failed for original temp SAF URI: " + originalTempSafUriString
-                                        + ". It was removed from list if present.");
-                                // If processing failed, the temp SAF item (if it was ever added) is removed.
+                                        + ". The delta scan drops it from the list if it is gone.");
                                 // The actual temp file on disk might still be there if deletion in service
                                 // failed.
                             }
-
-                            if (foundAndRemoved || (success && finalUriString != null)) {
-                                // Sort source list and re-apply current filter.
-                                sortItems(allLoadedItems, currentSortOption);
-                                applyActiveFilterToUi();
-                                updateUiVisibility();
+                            selectedUris.remove(originalTempSafUri);
+                            if (recordsAdapter != null) {
+                                recordsAdapter.evictCachesForUris(Collections.singletonList(originalTempSafUri));
                             }
+                            // SAF rows are only synced by a delta scan: it swaps the temp document
+                            // for the final one in the index, then reloads the view
+                            triggerRecordsDeltaScanWithDelay(0);
                             return; // Handled SAF replacement case
                         }
 
@@ -1781,85 +1769,89 @@ public class RecordsFragment extends BaseFragment implements
             selectAllContainer.setOnClickListener(v -> {
                 if (!isInSelectionMode)
                     return; // ignore when not selecting
-                boolean willSelectAll = selectedUris.size() != videoItems.size() || videoItems.isEmpty();
-                if (willSelectAll) {
-                    selectedUris.clear();
-                    for (VideoItem item : videoItems) {
-                        if (item != null && item.uri != null)
-                            selectedUris.add(item.uri);
-                    }
-                } else {
-                    selectedUris.clear();
-                }
-                if (recordsAdapter != null)
-                    recordsAdapter.setSelectionModeActive(true, selectedUris);
-                // animate the header check like picker does
-                boolean allSelected = !videoItems.isEmpty() && selectedUris.size() == videoItems.size();
-                // Use unified bounce+fade animation for header check
-                if (allSelected) {
-                    selectAllContainer.setVisibility(View.VISIBLE);
-                    selectAllCheck.setVisibility(View.VISIBLE);
-                    try {
-                        android.graphics.drawable.Drawable d = selectAllCheck.getDrawable();
-                        if (d instanceof androidx.vectordrawable.graphics.drawable.AnimatedVectorDrawableCompat) {
-                            androidx.vectordrawable.graphics.drawable.AnimatedVectorDrawableCompat avd = (androidx.vectordrawable.graphics.drawable.AnimatedVectorDrawableCompat) d;
-                            avd.stop();
-                            avd.start();
-                        } else if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.LOLLIPOP
-                                && d instanceof android.graphics.drawable.AnimatedVectorDrawable) {
-                            android.graphics.drawable.AnimatedVectorDrawable av = (android.graphics.drawable.AnimatedVectorDrawable) d;
-                            av.stop();
-                            av.start();
-                        } else {
-                            // fallback to a quick fade in
-                            selectAllCheck.setAlpha(0f);
-                            selectAllCheck.setScaleX(0f);
-                            selectAllCheck.setScaleY(0f);
-                            android.animation.ObjectAnimator sx = android.animation.ObjectAnimator
-                                    .ofFloat(selectAllCheck, View.SCALE_X, 0f, 1f);
-                            android.animation.ObjectAnimator sy = android.animation.ObjectAnimator
-                                    .ofFloat(selectAllCheck, View.SCALE_Y, 0f, 1f);
-                            android.animation.ObjectAnimator a = android.animation.ObjectAnimator
-                                    .ofFloat(selectAllCheck, View.ALPHA, 0f, 1f);
-                            sx.setDuration(200);
-                            sy.setDuration(200);
-                            a.setDuration(160);
-                            android.animation.AnimatorSet set = new android.animation.AnimatorSet();
-                            set.playTogether(sx, sy, a);
-                            set.start();
-                        }
-                    } catch (Exception e) {
-                        /* ignore and fallback */ }
-                } else {
-                    // uncheck: fade/erase fallback; if AVD present, just fade out
-                    try {
-                        android.graphics.drawable.Drawable d = selectAllCheck.getDrawable();
-                        if (d instanceof androidx.vectordrawable.graphics.drawable.AnimatedVectorDrawableCompat) {
-                            // can't reliably reverse; fade out the view
-                            android.animation.ObjectAnimator a = android.animation.ObjectAnimator
-                                    .ofFloat(selectAllCheck, View.ALPHA, selectAllCheck.getAlpha(), 0f);
-                            a.setDuration(180);
-                            a.setInterpolator(new android.view.animation.AccelerateInterpolator());
-                            a.start();
-                        } else {
-                            android.animation.ObjectAnimator a = android.animation.ObjectAnimator
-                                    .ofFloat(selectAllCheck, View.ALPHA, selectAllCheck.getAlpha(), 0f);
-                            android.animation.ObjectAnimator sx = android.animation.ObjectAnimator
-                                    .ofFloat(selectAllCheck, View.SCALE_X, selectAllCheck.getScaleX(), 0f);
-                            android.animation.ObjectAnimator sy = android.animation.ObjectAnimator
-                                    .ofFloat(selectAllCheck, View.SCALE_Y, selectAllCheck.getScaleY(), 0f);
-                            a.setDuration(180);
-                            sx.setDuration(180);
-                            sy.setDuration(180);
-                            android.animation.AnimatorSet set = new android.animation.AnimatorSet();
-                            set.playTogether(a, sx, sy);
-                            set.start();
+                // Rows outside the loaded window come from the index
+                loadFilteredViewItems(filteredItems -> {
+                    if (!isInSelectionMode) return;
+                    boolean willSelectAll = selectedUris.size() != filteredItems.size() || filteredItems.isEmpty();
+                    if (willSelectAll) {
+                        selectedUris.clear();
+                        for (VideoItem item : filteredItems) {
+                            if (item != null && item.uri != null)
+                                selectedUris.add(item.uri);
                         }
-                    } catch (Exception e) {
-                        /* ignore */ }
-                    selectAllContainer.setVisibility(View.VISIBLE);
-                }
-                updateUiForSelectionMode();
+                    } else {
+                        selectedUris.clear();
+                    }
+                    if (recordsAdapter != null)
+                        recordsAdapter.setSelectionModeActive(true, selectedUris);
+                    // animate the header check like picker does
+                    boolean allSelected = !filteredItems.isEmpty() && selectedUris.size() == filteredItems.size();
+                    // Use unified bounce+fade animation for header check
+                    if (allSelected) {
+                        selectAllContainer.setVisibility(View.VISIBLE);
+                        selectAllCheck.setVisibility(View.VISIBLE);
+                        try {
+                            android.graphics.drawable.Drawable d = selectAllCheck.getDrawable();
+                            if (d instanceof androidx.vectordrawable.graphics.drawable.AnimatedVectorDrawableCompat) {
+                                androidx.vectordrawable.graphics.drawable.AnimatedVectorDrawableCompat avd = (androidx.vectordrawable.graphics.drawable.AnimatedVectorDrawableCompat) d;
+                                avd.stop();
+                                avd.start();
+                            } else if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.LOLLIPOP
+                                    && d instanceof android.graphics.drawable.AnimatedVectorDrawable) {
+                                android.graphics.drawable.AnimatedVectorDrawable av = (android.graphics.drawable.AnimatedVectorDrawable) d;
+                                av.stop();
+                                av.start();
+                            } else {
+                                // fallback to a quick fade in
+                                selectAllCheck.setAlpha(0f);
+                                selectAllCheck.setScaleX(0f);
+                                selectAllCheck.setScaleY(0f);
+                                android.animation.ObjectAnimator sx = android.animation.ObjectAnimator
+                                        .ofFloat(selectAllCheck, View.SCALE_X, 0f, 1f);
+                                android.animation.ObjectAnimator sy = android.animation.ObjectAnimator
+                                        .ofFloat(selectAllCheck, View.SCALE_Y, 0f, 1f);
+                                android.animation.ObjectAnimator a = android.animation.ObjectAnimator
+                                        .ofFloat(selectAllCheck, View.ALPHA, 0f, 1f);
+                                sx.setDuration(200);
+                                sy.setDuration(200);
+                                a.setDuration(160);
+                                android.animation.AnimatorSet set = new android.animation.AnimatorSet();
+                                set.playTogether(sx, sy, a);
+                                set.start();
+                            }
+                        } catch (Exception e) {
+                            /* ignore and fallback */ }
+                    } else {
+                        // uncheck: fade/erase fallback; if AVD present, just fade out
+                        try {
+                            android.graphics.drawable.Drawable d = selectAllCheck.getDrawable();
+                            if (d instanceof androidx.vectordrawable.graphics.drawable.AnimatedVectorDrawableCompat) {
+                                // can't reliably reverse; fade out the view
+                                android.animation.ObjectAnimator a = android.animation.ObjectAnimator
+                                        .ofFloat(selectAllCheck, View.ALPHA, selectAllCheck.getAlpha(), 0f);
+                                a.setDuration(180);
+                                a.setInterpolator(new android.view.animation.AccelerateInterpolator());
+                                a.start();
+                            } else {
+                                android.animation.ObjectAnimator a = android.animation.ObjectAnimator
+                                        .ofFloat(selectAllCheck, View.ALPHA, selectAllCheck.getAlpha(), 0f);
+                                android.animation.ObjectAnimator sx = android.animation.ObjectAnimator
+                                        .ofFloat(selectAllCheck, View.SCALE_X, selectAllCheck.getScaleX(), 0f);
+                                android.animation.ObjectAnimator sy = android.animation.ObjectAnimator
+                                        .ofFloat(selectAllCheck, View.SCALE_Y, selectAllCheck.getScaleY(), 0f);
+                                a.setDuration(180);
+                                sx.setDuration(180);
+                                sy.setDuration(180);
+                                android.animation.AnimatorSet set = new android.animation.AnimatorSet();
+                                set.playTogether(a, sx, sy);
+                                set.start();
+                            }
+                        } catch (Exception e) {
+                            /* ignore */ }
+                        selectAllContainer.setVisibility(View.VISIBLE);
+                    }
+                    updateUiForSelectionMode();
+                });
             });
         }
         setupFilterUi();
@@ -1912,32 +1904,26 @@ public class RecordsFragment extends BaseFragment implements
 
                 deltaExecutor.submit(() -> {
                     try {
-                        // Phase 1: Quick DB read (sub-50ms) — no skeleton needed
-                        List<VideoItem> dbItems = repo.getVideos(sharedPreferencesManager);
-                        List<VideoItem> normalized = normalizeVideoCategories(dbItems);
-                        sortItems(normalized, currentSortOption);
+                        // Phase 1: Apply logged file events (sub-50ms) — no skeleton needed
+                        final long generation = repo.getGeneration();
+                        repo.syncIndex(sharedPreferencesManager);
 
                         // Phase 2: Delta scan for freshness (picks up new/deleted files)
-                        List<VideoItem> deltaItems = repo.deltaScan(sharedPreferencesManager);
-                        List<VideoItem> deltaNormalized = normalizeVideoCategories(deltaItems);
-                        sortItems(deltaNormalized, currentSortOption);
-                        totalItems = deltaNormalized.size();
-
-                        // Keep caches in sync
-                        com.fadcam.utils.VideoSessionCache.updateSessionCache(deltaNormalized);
+                        final int indexedCount = repo.deltaScan(sharedPreferencesManager);
+                        normalizeUnclassifiedRecords(repo);
+                        com.fadcam.utils.VideoSessionCache.invalidateOnNextAccess();
 
-                        // Push final data to UI in one smooth update
+                        // Re-query the visible window in one smooth update
                         new Handler(Looper.getMainLooper()).post(() -> {
                             if (!isAdded()) return;
 
-                            allLoadedItems.clear();
-                            allLoadedItems.addAll(deltaNormalized);
-                            applyActiveFilterToUi();
+                            appliedIndexGeneration = generation;
+                            reloadRecordsView();
 
                             if (swipeRefreshLayout != null) {
                                 swipeRefreshLayout.setRefreshing(false);
                             }
-                            FLog.i(TAG, "Silent refresh complete: " + deltaNormalized.size() + " items");
+                            FLog.i(TAG, "Silent refresh complete: " + indexedCount + " items");
                         });
 
                         // Enrich any new unresolved durations
@@ -1996,11 +1982,8 @@ public class RecordsFragment extends BaseFragment implements
             loadRecordsList();
         } else {
             FLog.d(TAG, "onViewCreated: Existing data found (" + videoItems.size() + " items), updating UI visibility.");
-            // If data exists (e.g., fragment recreated), ensure source list + active filter are applied.
-            if (allLoadedItems.isEmpty()) {
-                allLoadedItems.addAll(videoItems);
-            }
-            applyActiveFilterToUi();
+            // If data exists (e.g., fragment recreated), re-query counts and the active filter.
+            reloadRecordsView();
             updateUiVisibility();
         }
         // unlocked (session-based) -----
@@ -2078,7 +2061,7 @@ public class RecordsFragment extends BaseFragment implements
     @Override
     public void onResume() {
         super.onResume();
-        FLog.d(TAG, "lifecycle onResume: activeFilter=" + activeFilter + ", loadedItems=" + allLoadedItems.size());
+        FLog.d(TAG, "lifecycle onResume: activeFilter=" + activeFilter + ", loadedItems=" + videoItems.size());
         FLog.i(TAG, "LOG_LIFECYCLE: onResume called.");
         // Self-healing scan (issue #332): repairs any recording left as an
         // unfinalized fMP4, then shows the repair banner. Background thread —
@@ -2480,12 +2463,15 @@ public class RecordsFragment extends BaseFragment implements
                 }
 
 
-                // Don't do any loading if we're in selection mode or search mode
-                if (isInSelectionMode() || isSearchActive() || isLoading) {
-                    return;
+                // Extend the DB-backed window before the user reaches its end
+                if (dy > 0 && hasMoreItems && !isLoading
+                        && lastVisibleItemPosition >= totalItemCount - 1 - PRELOAD_DISTANCE) {
+                    loadNextRecordsWindow();
+                }
+                // ...and re-read pages it dropped before the user reaches its start
+                if (dy < 0 && windowFirstPage > 0 && !isLoading && firstVisible <= PRELOAD_DISTANCE) {
+                    loadPreviousRecordsWindow();
                 }
-
-                // ...existing code...
             }
         });
 
@@ -2599,10 +2585,29 @@ public class RecordsFragment extends BaseFragment implements
     // --- Remove the paging related fields ---
     private static final int PAGE_SIZE = 30; // Number of videos to load per page
     private static final int PRELOAD_DISTANCE = 10; // Number of items to preload ahead
+    private static final int MAX_WINDOW_PAGES = 3; // Pages kept loaded; the far end is dropped past this
     private boolean isLoadingMore = false;
     private boolean hasMoreItems = true;
+    // DB-backed view window: the query behind videoItems, where the page after it starts, and a
+    // token that invalidates pages from queries superseded by a newer chip/sort change
+    @Nullable
+    private com.fadcam.data.RecordsQuery activeRecordsQuery;
+    @Nullable
+    private com.fadcam.data.RecordsQuery.Cursor nextRecordsCursor;
+    // Start cursor of every page of activeRecordsQuery reached so far (null for the first one),
+    // so pages dropped from the window can be re-read on scroll-back
+    private final List<com.fadcam.data.RecordsQuery.Cursor> recordsPageStarts = new ArrayList<>();
+    // Index of the window's first page in recordsPageStarts, and the row count of each loaded page
+    private int windowFirstPage = 0;
+    private final List<Integer> windowPageSizes = new ArrayList<>();
+    private int recordsQueryToken = 0;
+    private boolean pendingScrollToTop = false;
+    // Total rows matching activeRecordsQuery (from its first page), for whole-view actions
+    private int activeRecordsTotal = 0;
+    // Row counts per classification for the chips and header stats (null until first queried)
+    @Nullable
+    private List<com.fadcam.data.RecordsQuery.Facet> recordsFacets;
     private int currentPage = 0;
-    private final List<VideoItem> allLoadedItems = new ArrayList<>();
     private final SparseArray<String> videoItemPositionCache = new SparseArray<>();
     private DebouncedRunnable loadMoreDebouncer;
 
@@ -2612,9 +2617,11 @@ public class RecordsFragment extends BaseFragment implements
     private boolean isLoading = false;
     private boolean isInitialLoad = true;
     private boolean pendingForcedRealtimeReload = false;
+    // Index generation the view reflects (-1 = unknown); realtime file events apply
+    // VideoIndexRepository diffs on top of it instead of reloading the whole list
+    private volatile long appliedIndexGeneration = -1;
     @Nullable
     private RealtimeMediaInvalidationCoordinator invalidationCoordinator;
-    private int totalItems = 0; // Track the total number of items
     private final List<VideoItem> cachedInternalItems = new ArrayList<>(); // Cache internal items
     private final List<VideoItem> cachedSafItems = new ArrayList<>(); // Cache SAF items
     private final List<VideoItem> cachedTempItems = new ArrayList<>(); // Cache temp items
@@ -3126,7 +3133,6 @@ public class RecordsFragment extends BaseFragment implements
 
                             // Force a full refresh of the data
                             currentPage = 0;
-                            allLoadedItems.clear();
                             videoItems.clear();
 
                             // Perform complete data reload from scratch
@@ -3564,50 +3570,300 @@ public class RecordsFragment extends BaseFragment implements
         applyActiveFilterToUi();
     }
 
+    /**
+     * Index contents changed: re-query the chip counts and header stats, then the visible
+     * window.
+     */
+    private void reloadRecordsView() {
+        refreshRecordsFacets();
+        applyActiveFilterToUi();
+    }
+
+    /**
+     * Re-evaluates the Records list for the active chips, sort and search. Filtering and
+     * sorting run as a paged SQL query ({@link com.fadcam.data.RecordsQuery}) and only a
+     * window of at most {@value #MAX_WINDOW_PAGES} pages is loaded; pages load on scroll and
+     * drop off the far end. While skeletons are up, the load that showed them queries once
+     * the index is ready.
+     */
     private void applyActiveFilterToUi() {
-        List<VideoItem> filteredItems = new ArrayList<>();
-        for (VideoItem item : allLoadedItems) {
-            if (activeFilter == VideoItem.Category.ALL || item.category == activeFilter) {
-                if (activeFilter == VideoItem.Category.CAMERA && !matchesCameraSubtype(item, activeCameraSubtype)) {
-                    continue;
-                }
-                if (activeFilter == VideoItem.Category.FADITOR && !matchesFaditorSubtype(item, activeFaditorSubtype)) {
-                    continue;
-                }
-                if (activeFilter == VideoItem.Category.SHOT && !matchesShotSubtype(item, activeShotSubtype)) {
-                    continue;
-                }
-                if (activeFilter == VideoItem.Category.MINIAPPS && "QR".equals(activeMiniAppsSubtype)
-                        && !item.uri.toString().contains("QRScanner")) {
-                    continue;
-                }
-                filteredItems.add(item);
+        if (!isShowingSkeletons()) {
+            com.fadcam.data.RecordsQuery query = buildRecordsQuery();
+            // Same view refreshed (e.g. index change): re-read the loaded pages in place so a
+            // deep-scrolled list neither jumps back to its first page nor grows
+            boolean sameView = query.equals(activeRecordsQuery) && !videoItems.isEmpty()
+                    && !windowPageSizes.isEmpty();
+            activeRecordsQuery = query;
+            recordsQueryToken++;
+            if (sameView) {
+                reloadRecordsWindow();
+            } else {
+                requestFirstRecordsPage();
             }
         }
-        videoItems.clear();
-        videoItems.addAll(filteredItems);
-        if (recordsAdapter != null) {
-            recordsAdapter.updateRecords(videoItems);
-        }
-        updateFilterChipLabels();
+        updateRecordsFilterLabels();
         updateFilterChipUi();
         updateCameraFilterRowVisibility();
-        updateCameraFilterChipLabels();
         updateCameraFilterChipUi();
         updateFaditorFilterRowVisibility();
-        updateFaditorFilterChipLabels();
         updateFaditorFilterChipUi();
         updateShotFilterRowVisibility();
-        updateShotFilterChipLabels();
         updateShotFilterChipUi();
         updateMiniAppsFilterRowVisibility();
-        updateMiniAppsFilterChipLabels();
         updateMiniAppsFilterChipUi();
         updateFilterHelperText();
+    }
+
+    /** Chip counts, read from {@link #recordsFacets}. */
+    private void updateRecordsFilterLabels() {
+        updateFilterChipLabels();
+        updateCameraFilterChipLabels();
+        updateFaditorFilterChipLabels();
+        updateShotFilterChipLabels();
+        updateMiniAppsFilterChipLabels();
+    }
+
+    private void refreshRecordsFacets() {
+        Context context = getContext();
+        if (context == null) return;
+        com.fadcam.data.VideoIndexRepository.getInstance(context).queryFacets(facets -> {
+            if (getActivity() == null) return;
+            getActivity().runOnUiThread(() -> {
+                if (!isAdded()) return;
+                recordsFacets = facets;
+                updateRecordsFilterLabels();
+                updateHeaderStats();
+            });
+        });
+    }
+
+    private boolean isShowingSkeletons() {
+        return !videoItems.isEmpty() && videoItems.get(0).isSkeleton;
+    }
+
+    private void dropSkeletonItems() {
+        if (isShowingSkeletons()) {
+            videoItems.clear();
+        }
+    }
+
+    @NonNull
+    private com.fadcam.data.RecordsQuery buildRecordsQuery() {
+        String nameQuery = isSearchActive() ? searchView.getQuery().toString() : null;
+        return new com.fadcam.data.RecordsQuery(activeFilter, activeCameraSubtype, activeShotSubtype,
+                activeFaditorSubtype, activeMiniAppsSubtype, nameQuery, toQuerySort(currentSortOption));
+    }
+
+    /**
+     * Loads the first page of {@link #activeRecordsQuery} from the index, replacing the list.
+     * Results from a query superseded by a newer chip/sort change are dropped.
+     */
+    private void requestFirstRecordsPage() {
+        Context context = getContext();
+        if (context == null || activeRecordsQuery == null) return;
+        final int token = recordsQueryToken;
+        isLoadingMore = true;
+        com.fadcam.data.VideoIndexRepository.getInstance(context).queryRecords(activeRecordsQuery, null, PAGE_SIZE,
+                (page, totalCount) -> postRecordsResult(token, () -> {
+                    List<VideoItem> items = normalizeVideoCategories(page.items);
+                    recordsPageStarts.clear();
+                    recordsPageStarts.add(null);
+                    windowFirstPage = 0;
+                    windowPageSizes.clear();
+                    windowPageSizes.add(items.size());
+                    setNextRecordsCursor(page.next);
+                    activeRecordsTotal = totalCount;
+                    FLog.d(TAG, "Records query: " + totalCount + " matches, showing " + items.size());
+                    showRecordsWindow(items, true);
+                }));
+    }
+
+    /**
+     * Re-reads the loaded pages between the cursors they were read with, so index changes
+     * show up in place and the window keeps its position and size.
+     */
+    private void reloadRecordsWindow() {
+        Context context = getContext();
+        if (context == null || activeRecordsQuery == null) return;
+        final int token = recordsQueryToken;
+        final int firstPage = windowFirstPage;
+        List<com.fadcam.data.RecordsQuery.Cursor> bounds = new ArrayList<>(
+                recordsPageStarts.subList(firstPage, firstPage + windowPageSizes.size()));
+        bounds.add(nextRecordsCursor);
+        isLoadingMore = true;
+        com.fadcam.data.VideoIndexRepository.getInstance(context).queryRecordsPages(activeRecordsQuery, bounds,
+                PAGE_SIZE, true, (pages, totalCount) -> postRecordsResult(token, () -> {
+                    List<VideoItem> items = new ArrayList<>();
+                    windowPageSizes.clear();
+                    for (com.fadcam.data.RecordsQuery.Page page : pages) {
+                        List<VideoItem> pageItems = normalizeVideoCategories(page.items);
+                        items.addAll(pageItems);
+                        windowPageSizes.add(pageItems.size());
+                    }
+                    activeRecordsTotal = totalCount;
+                    if (items.isEmpty() && firstPage > 0) {
+                        // Every loaded row is gone: start over from the top
+                        recordsQueryToken++;
+                        requestFirstRecordsPage();
+                        return;
+                    }
+                    setNextRecordsCursor(pages.get(pages.size() - 1).next);
+                    showRecordsWindow(items, false);
+                }));
+    }
+
+    /**
+     * Scroll reached the end of the loaded window: fetch the next page, dropping the first
+     * one once the window holds more than {@value #MAX_WINDOW_PAGES}.
+     */
+    private void loadNextRecordsWindow() {
+        Context context = getContext();
+        if (context == null || activeRecordsQuery == null || nextRecordsCursor == null || isLoadingMore) return;
+        final int token = recordsQueryToken;
+        isLoadingMore = true;
+        com.fadcam.data.VideoIndexRepository.getInstance(context).queryRecords(activeRecordsQuery,
+                nextRecordsCursor, PAGE_SIZE, (page, totalCount) -> postRecordsResult(token, () -> {
+                    List<VideoItem> pageItems = normalizeVideoCategories(page.items);
+                    List<VideoItem> items = new ArrayList<>(videoItems.size() + pageItems.size());
+                    items.addAll(videoItems);
+                    items.addAll(pageItems);
+                    windowPageSizes.add(pageItems.size());
+                    if (windowPageSizes.size() > MAX_WINDOW_PAGES) {
+                        int dropped = Math.min(windowPageSizes.remove(0), items.size());
+                        items.subList(0, dropped).clear();
+                        windowFirstPage++;
+                    }
+                    setNextRecordsCursor(page.next);
+                    showRecordsWindow(items, false);
+                }));
+    }
+
+    /**
+     * Scroll reached the start of a window that dropped earlier pages: re-read the page before
+     * it, dropping the last one once the window holds more than {@value #MAX_WINDOW_PAGES}.
+     */
+    private void loadPreviousRecordsWindow() {
+        Context context = getContext();
+        if (context == null || activeRecordsQuery == null || windowFirstPage == 0 || isLoadingMore) return;
+        final int token = recordsQueryToken;
+        List<com.fadcam.data.RecordsQuery.Cursor> bounds = new ArrayList<>(
+                recordsPageStarts.subList(windowFirstPage - 1, windowFirstPage + 1));
+        isLoadingMore = true;
+        com.fadcam.data.VideoIndexRepository.getInstance(context).queryRecordsPages(activeRecordsQuery, bounds,
+                PAGE_SIZE, false, (pages, totalCount) -> postRecordsResult(token, () -> {
+                    List<VideoItem> pageItems = normalizeVideoCategories(pages.get(0).items);
+                    List<VideoItem> items = new ArrayList<>(pageItems.size() + videoItems.size());
+                    items.addAll(pageItems);
+                    items.addAll(videoItems);
+                    windowPageSizes.add(0, pageItems.size());
+                    windowFirstPage--;
+                    if (windowPageSizes.size() > MAX_WINDOW_PAGES) {
+                        int dropped = Math.min(windowPageSizes.remove(windowPageSizes.size() - 1), items.size());
+                        items.subList(items.size() - dropped, items.size()).clear();
+                        setNextRecordsCursor(recordsPageStarts.get(windowFirstPage + windowPageSizes.size()));
+                    }
+                    showRecordsWindow(items, false);
+                }));
+    }
+
+    /** Runs {@code action} on the main thread unless a newer query superseded {@code token}. */
+    private void postRecordsResult(int token, @NonNull Runnable action) {
+        if (getActivity() == null) return;
+        getActivity().runOnUiThread(() -> {
+            if (token != recordsQueryToken || !isAdded()) return;
+            isLoadingMore = false;
+            action.run();
+        });
+    }
+
+    /** Where the page after the window starts (null = the window reaches the last row). */
+    private void setNextRecordsCursor(@Nullable com.fadcam.data.RecordsQuery.Cursor next) {
+        nextRecordsCursor = next;
+        hasMoreItems = next != null;
+        if (next == null) return;
+        int index = windowFirstPage + windowPageSizes.size();
+        if (index < recordsPageStarts.size()) {
+            recordsPageStarts.set(index, next);
+        } else {
+            recordsPageStarts.add(next);
+        }
+    }
+
+    /** Whether the window holds every row of the view (nothing dropped before it or left after it). */
+    private boolean isWholeViewLoaded() {
+        return windowFirstPage == 0 && !hasMoreItems;
+    }
+
+    private void showRecordsWindow(@NonNull List<VideoItem> items, boolean scrollToTop) {
+        videoItems.clear();
+        videoItems.addAll(items);
+        if (recordsAdapter != null) {
+            recordsAdapter.updateRecords(videoItems);
+        }
+        if (scrollToTop && pendingScrollToTop && recyclerView != null) {
+            pendingScrollToTop = false;
+            recyclerView.scrollToPosition(0);
+        }
         updateUiVisibility();
         updateSelectionActionRow();
     }
 
+    /** Number of items the current view matches, including rows outside the loaded window. */
+    private int filteredViewCount() {
+        return isWholeViewLoaded() ? videoItems.size() : activeRecordsTotal;
+    }
+
+    /**
+     * Every item the current view matches (chips and name search), including rows outside the
+     * loaded window, delivered on the main thread. For whole-view actions (select all,
+     * delete all), not for display.
+     */
+    private void loadFilteredViewItems(@NonNull com.fadcam.data.VideoIndexRepository.RecordsItemsCallback callback) {
+        Context context = getContext();
+        if (isWholeViewLoaded() || context == null) {
+            callback.onItems(new ArrayList<>(videoItems));
+            return;
+        }
+        com.fadcam.data.VideoIndexRepository.getInstance(context).queryAllRecords(buildRecordsQuery(), items -> {
+            if (getActivity() == null) return;
+            getActivity().runOnUiThread(() -> {
+                if (isAdded()) callback.onItems(items);
+            });
+        });
+    }
+
+    /**
+     * Items for {@code uris}, taken from the loaded window where possible and from the index
+     * for the rest (selections keep rows the window has dropped or not loaded yet). Delivered on the
+     * main thread; URIs that are no longer indexed are skipped.
+     */
+    private void resolveSelectedItems(@NonNull List<Uri> uris,
+                                      @NonNull com.fadcam.data.VideoIndexRepository.RecordsItemsCallback callback) {
+        List<VideoItem> resolved = new ArrayList<>(uris.size());
+        List<String> missing = new ArrayList<>();
+        for (Uri uri : uris) {
+            VideoItem item = findVideoItemByUri(videoItems, uri);
+            if (item != null) {
+                resolved.add(item);
+            } else if (uri != null) {
+                missing.add(uri.toString());
+            }
+        }
+        Context context = getContext();
+        if (missing.isEmpty() || context == null) {
+            callback.onItems(resolved);
+            return;
+        }
+        com.fadcam.data.VideoIndexRepository.getInstance(context).getItemsByUris(missing, items -> {
+            if (getActivity() == null) return;
+            getActivity().runOnUiThread(() -> {
+                if (!isAdded()) return;
+                resolved.addAll(items);
+                callback.onItems(resolved);
+            });
+        });
+    }
+
     private void updateFilterChipUi() {
         if (chipFilterAll != null) chipFilterAll.setChecked(activeFilter == VideoItem.Category.ALL);
         if (chipFilterCamera != null) chipFilterCamera.setChecked(activeFilter == VideoItem.Category.CAMERA);
@@ -3701,12 +3957,12 @@ public class RecordsFragment extends BaseFragment implements
         if (chipCameraDual != null) chipCameraDual.setChecked(activeCameraSubtype == VideoItem.CameraSubtype.DUAL);
     }
 
-    private boolean matchesCameraSubtype(@NonNull VideoItem item, @NonNull VideoItem.CameraSubtype filterSubtype) {
-        if (item.category != VideoItem.Category.CAMERA && item.category != VideoItem.Category.DUAL) return false;
+    private boolean matchesCameraSubtype(@Nullable VideoItem.CameraSubtype subtype,
+                                         @NonNull VideoItem.CameraSubtype filterSubtype) {
         if (filterSubtype == VideoItem.CameraSubtype.ALL) return true;
-        VideoItem.CameraSubtype itemSubtype = item.cameraSubtype == null
+        VideoItem.CameraSubtype itemSubtype = subtype == null
                 ? VideoItem.CameraSubtype.UNKNOWN
-                : item.cameraSubtype;
+                : subtype;
         if (itemSubtype == VideoItem.CameraSubtype.UNKNOWN) {
             itemSubtype = VideoItem.CameraSubtype.BACK;
         }
@@ -3720,12 +3976,12 @@ public class RecordsFragment extends BaseFragment implements
         if (chipFaditorMerge != null) chipFaditorMerge.setChecked(activeFaditorSubtype == VideoItem.FaditorSubtype.MERGE);
     }
 
-    private boolean matchesFaditorSubtype(@NonNull VideoItem item, @NonNull VideoItem.FaditorSubtype filterSubtype) {
-        if (item.category != VideoItem.Category.FADITOR) return false;
+    private boolean matchesFaditorSubtype(@Nullable VideoItem.FaditorSubtype subtype,
+                                          @NonNull VideoItem.FaditorSubtype filterSubtype) {
         if (filterSubtype == VideoItem.FaditorSubtype.ALL) return true;
-        VideoItem.FaditorSubtype itemSubtype = item.faditorSubtype == null
+        VideoItem.FaditorSubtype itemSubtype = subtype == null
                 ? VideoItem.FaditorSubtype.UNKNOWN
-                : item.faditorSubtype;
+                : subtype;
         if (itemSubtype == VideoItem.FaditorSubtype.UNKNOWN) {
             itemSubtype = VideoItem.FaditorSubtype.OTHER;
         }
@@ -3805,24 +4061,25 @@ public class RecordsFragment extends BaseFragment implements
     }
 
     private int getMiniAppsSubtypeCount(@Nullable String subtype) {
+        if (recordsFacets == null) return 0;
         int count = 0;
-        for (VideoItem item : allLoadedItems) {
-            if (item.category != VideoItem.Category.MINIAPPS) continue;
+        for (com.fadcam.data.RecordsQuery.Facet facet : recordsFacets) {
+            if (facet.category != VideoItem.Category.MINIAPPS) continue;
             if (subtype == null) {
-                count++;
-            } else if ("QR".equals(subtype) && item.uri.toString().contains("QRScanner")) {
-                count++;
+                count += facet.count;
+            } else if ("QR".equals(subtype) && facet.qrScanner) {
+                count += facet.count;
             }
         }
         return count;
     }
 
-    private boolean matchesShotSubtype(@NonNull VideoItem item, @NonNull VideoItem.ShotSubtype filterSubtype) {
-        if (item.category != VideoItem.Category.SHOT) return false;
+    private boolean matchesShotSubtype(@Nullable VideoItem.ShotSubtype subtype,
+                                       @NonNull VideoItem.ShotSubtype filterSubtype) {
         if (filterSubtype == VideoItem.ShotSubtype.ALL) return true;
-        VideoItem.ShotSubtype itemSubtype = item.shotSubtype == null
+        VideoItem.ShotSubtype itemSubtype = subtype == null
                 ? VideoItem.ShotSubtype.UNKNOWN
-                : item.shotSubtype;
+                : subtype;
         if (itemSubtype == VideoItem.ShotSubtype.UNKNOWN) {
             itemSubtype = VideoItem.ShotSubtype.BACK; // legacy fallback
         }
@@ -3907,15 +4164,17 @@ public class RecordsFragment extends BaseFragment implements
     }
 
     private int getCategoryCount(@NonNull VideoItem.Category category) {
-        if (category == VideoItem.Category.ALL) return allLoadedItems.size();
+        if (recordsFacets == null) return 0;
         int count = 0;
-        for (VideoItem item : allLoadedItems) {
-            if (category == VideoItem.Category.CAMERA) {
-                if (item.category == VideoItem.Category.CAMERA || item.category == VideoItem.Category.DUAL) {
-                    count++;
+        for (com.fadcam.data.RecordsQuery.Facet facet : recordsFacets) {
+            if (category == VideoItem.Category.ALL) {
+                count += facet.count;
+            } else if (category == VideoItem.Category.CAMERA) {
+                if (facet.category == VideoItem.Category.CAMERA || facet.category == VideoItem.Category.DUAL) {
+                    count += facet.count;
                 }
-            } else if (item.category == category) {
-                count++;
+            } else if (facet.category == category) {
+                count += facet.count;
             }
         }
         return count;
@@ -3996,33 +4255,36 @@ public class RecordsFragment extends BaseFragment implements
     }
 
     private int getShotSubtypeCount(@NonNull VideoItem.ShotSubtype subtype) {
+        if (recordsFacets == null) return 0;
         int count = 0;
-        for (VideoItem item : allLoadedItems) {
-            if (item.category != VideoItem.Category.SHOT) continue;
-            if (matchesShotSubtype(item, subtype)) {
-                count++;
+        for (com.fadcam.data.RecordsQuery.Facet facet : recordsFacets) {
+            if (facet.category != VideoItem.Category.SHOT) continue;
+            if (matchesShotSubtype(facet.shotSubtype, subtype)) {
+                count += facet.count;
             }
         }
         return count;
     }
 
     private int getCameraSubtypeCount(@NonNull VideoItem.CameraSubtype subtype) {
+        if (recordsFacets == null) return 0;
         int count = 0;
-        for (VideoItem item : allLoadedItems) {
-            if (item.category != VideoItem.Category.CAMERA && item.category != VideoItem.Category.DUAL) continue;
-            if (matchesCameraSubtype(item, subtype)) {
-                count++;
+        for (com.fadcam.data.RecordsQuery.Facet facet : recordsFacets) {
+            if (facet.category != VideoItem.Category.CAMERA && facet.category != VideoItem.Category.DUAL) continue;
+            if (matchesCameraSubtype(facet.cameraSubtype, subtype)) {
+                count += facet.count;
             }
         }
         return count;
     }
 
     private int getFaditorSubtypeCount(@NonNull VideoItem.FaditorSubtype subtype) {
+        if (recordsFacets == null) return 0;
         int count = 0;
-        for (VideoItem item : allLoadedItems) {
-            if (item.category != VideoItem.Category.FADITOR) continue;
-            if (matchesFaditorSubtype(item, subtype)) {
-                count++;
+        for (com.fadcam.data.RecordsQuery.Facet facet : recordsFacets) {
+            if (facet.category != VideoItem.Category.FADITOR) continue;
+            if (matchesFaditorSubtype(facet.faditorSubtype, subtype)) {
+                count += facet.count;
             }
         }
         return count;
@@ -4082,6 +4344,7 @@ public class RecordsFragment extends BaseFragment implements
 
     private List<VideoItem> normalizeVideoCategories(@NonNull List<VideoItem> input) {
         List<VideoItem> normalized = new ArrayList<>(input.size());
+        List<VideoItem> reclassified = new ArrayList<>();
         for (VideoItem item : input) {
             if (item == null || item.uri == null) {
                 continue;
@@ -4123,6 +4386,16 @@ public class RecordsFragment extends BaseFragment implements
             copy.isProcessingUri = item.isProcessingUri;
             copy.isSkeleton = item.isSkeleton;
             normalized.add(copy);
+            if (!item.isSkeleton && (copy.category != item.category || copy.mediaType != item.mediaType
+                    || copy.shotSubtype != item.shotSubtype || copy.cameraSubtype != item.cameraSubtype
+                    || copy.faditorSubtype != item.faditorSubtype)) {
+                reclassified.add(copy);
+            }
+        }
+        // Keep the index in step so DB-backed filtering agrees with the chips
+        Context context = getContext();
+        if (!reclassified.isEmpty() && context != null) {
+            com.fadcam.data.VideoIndexRepository.getInstance(context).persistClassifications(reclassified);
         }
         return normalized;
     }
@@ -4313,19 +4586,22 @@ public class RecordsFragment extends BaseFragment implements
 
     private void toggleSelectAllVisibleItems() {
         if (!isInSelectionMode) return;
-        boolean allSelected = !videoItems.isEmpty() && selectedUris.size() == videoItems.size();
-        selectedUris.clear();
-        if (!allSelected) {
-            for (VideoItem item : videoItems) {
-                if (item != null && item.uri != null) {
-                    selectedUris.add(item.uri);
+        loadFilteredViewItems(filteredItems -> {
+            if (!isInSelectionMode) return;
+            boolean allSelected = !filteredItems.isEmpty() && selectedUris.size() == filteredItems.size();
+            selectedUris.clear();
+            if (!allSelected) {
+                for (VideoItem item : filteredItems) {
+                    if (item != null && item.uri != null) {
+                        selectedUris.add(item.uri);
+                    }
                 }
             }
-        }
-        if (recordsAdapter != null) {
-            recordsAdapter.setSelectionModeActive(true, selectedUris);
-        }
-        updateUiForSelectionMode();
+            if (recordsAdapter != null) {
+                recordsAdapter.setSelectionModeActive(true, selectedUris);
+            }
+            updateUiForSelectionMode();
+        });
     }
 
     private void showBatchActionsSheet() {
@@ -4337,7 +4613,8 @@ public class RecordsFragment extends BaseFragment implements
         boolean hasSelection = selectedCount > 0;
 
         ArrayList<OptionItem> items = new ArrayList<>();
-        boolean allSelected = !videoItems.isEmpty() && selectedUris.size() == videoItems.size();
+        int filteredCount = filteredViewCount();
+        boolean allSelected = filteredCount > 0 && selectedUris.size() == filteredCount;
         items.add(new OptionItem(
                 "batch_select_all",
                 getString(allSelected ? R.string.records_batch_deselect_all : R.string.records_batch_select_all) + suffix,
@@ -4529,14 +4806,8 @@ public class RecordsFragment extends BaseFragment implements
             Toast.makeText(requireContext(), getString(R.string.records_batch_select_items_first), Toast.LENGTH_SHORT).show();
             return;
         }
-        List<VideoItem> itemsToSave = new ArrayList<>();
-        for (Uri uri : new ArrayList<>(selectedUris)) {
-            VideoItem item = findVideoItemByUri(allLoadedItems, uri);
-            if (item != null) {
-                itemsToSave.add(item);
-            }
-        }
-        enqueueRecordsSaveToGallery(itemsToSave, moveFiles);
+        resolveSelectedItems(new ArrayList<>(selectedUris),
+                itemsToSave -> enqueueRecordsSaveToGallery(itemsToSave, moveFiles));
         exitSelectionMode();
     }
 
@@ -4573,20 +4844,26 @@ public class RecordsFragment extends BaseFragment implements
         }
         if (getContext() == null) return;
 
-        // Convert URIs to RecordsDeletionRequestItem list
-        List<RecordsDeletionRequestItem> requestItems = new ArrayList<>(pendingCustomExportUris.size());
-        for (Uri uri : pendingCustomExportUris) {
-            VideoItem item = findVideoItemByUri(allLoadedItems, uri);
-            if (item != null && item.displayName != null) {
+        List<Uri> exportUris = new ArrayList<>(pendingCustomExportUris);
+        pendingCustomExportUris.clear();
+        resolveSelectedItems(exportUris, items -> startCustomExport(items, treeUri));
+    }
+
+    private void startCustomExport(@NonNull List<VideoItem> items, @NonNull Uri treeUri) {
+        if (!isAdded()) return;
+
+        // Convert items to RecordsDeletionRequestItem list
+        List<RecordsDeletionRequestItem> requestItems = new ArrayList<>(items.size());
+        for (VideoItem item : items) {
+            if (item != null && item.uri != null && item.displayName != null) {
                 requestItems.add(new RecordsDeletionRequestItem(
-                        uri.toString(),
+                        item.uri.toString(),
                         item.displayName,
                         Math.max(0L, item.size),
-                        "content".equals(uri.getScheme())
+                        "content".equals(item.uri.getScheme())
                 ));
             }
         }
-        pendingCustomExportUris.clear();
 
         if (requestItems.isEmpty()) {
             Toast.makeText(requireContext(), R.string.records_delete_error_invalid_item, Toast.LENGTH_SHORT).show();
@@ -4648,19 +4925,12 @@ public class RecordsFragment extends BaseFragment implements
 
         FLog.i(TAG, getString(R.string.delete_videos_log, itemsToDeleteUris.size()));
         exitSelectionMode();
-        List<VideoItem> itemsToDelete = new ArrayList<>();
-        for (Uri uri : itemsToDeleteUris) {
-            VideoItem item = findVideoItemByUri(new ArrayList<>(videoItems), uri);
-            if (item != null) {
-                itemsToDelete.add(item);
-            }
-        }
-        enqueueRecordsDeletion(itemsToDelete);
+        resolveSelectedItems(itemsToDeleteUris, this::enqueueRecordsDeletion);
     }
 
     private void confirmDeleteAll() {
         vibrate();
-        int totalVideoCount = videoItems.size();
+        int totalVideoCount = filteredViewCount();
         if (totalVideoCount == 0) {
             Toast.makeText(requireContext(), getString(R.string.records_no_videos_delete), Toast.LENGTH_SHORT).show();
             return;
@@ -4688,16 +4958,17 @@ public class RecordsFragment extends BaseFragment implements
 
     // Inside RecordsFragment.java
     private void deleteAllVideos() {
-        // Check if videoItems has content, if not show toast
-        if (videoItems.isEmpty()) {
-            if (getContext() != null)
-                Toast.makeText(requireContext(), getString(R.string.records_no_videos_trash), Toast.LENGTH_SHORT).show();
-            return;
-        }
+        // Everything the view matches, not just the loaded window
+        loadFilteredViewItems(itemsToTrash -> {
+            if (itemsToTrash.isEmpty()) {
+                if (getContext() != null)
+                    Toast.makeText(requireContext(), getString(R.string.records_no_videos_trash), Toast.LENGTH_SHORT).show();
+                return;
+            }
 
-        List<VideoItem> itemsToTrash = new ArrayList<>(videoItems);
-        FLog.i(TAG, "Queueing delete for all " + itemsToTrash.size() + " visible videos");
-        enqueueRecordsDeletion(itemsToTrash);
+            FLog.i(TAG, "Queueing delete for all " + itemsToTrash.size() + " visible videos");
+            enqueueRecordsDeletion(itemsToTrash);
+        });
     }
 
     // Helper to find VideoItem by URI from a list
@@ -4854,46 +5125,15 @@ public class RecordsFragment extends BaseFragment implements
         return SortOption.LATEST_FIRST;
     }
 
-    // Updated sorting logic to work with List<VideoItem>
+    // Sort change: re-query the index in the new order
     private void performVideoSort() {
-        if (videoItems == null || videoItems.isEmpty()) {
+        if (videoItems.isEmpty()) {
             FLog.w(TAG, "No items to sort.");
             return;
         }
-        sortItems(videoItems, currentSortOption);
-
-        // Update adapter on the main thread
-        if (getActivity() != null && recordsAdapter != null) {
-            getActivity().runOnUiThread(() -> {
-                recordsAdapter.updateRecords(videoItems); // Update with the sorted list
-                recyclerView.scrollToPosition(0); // Scroll to top after sorting
-                FLog.i(TAG, "Video list sorted by: " + currentSortOption);
-            });
-        }
-    }
-
-    // Centralized sorting logic
-    private void sortItems(List<VideoItem> items, SortOption sortOption) {
-        if (items == null)
-            return;
-        try {
-            switch (sortOption) {
-                case LATEST_FIRST:
-                    Collections.sort(items, (a, b) -> Long.compare(b.lastModified, a.lastModified));
-                    break;
-                case OLDEST_FIRST:
-                    Collections.sort(items, (a, b) -> Long.compare(a.lastModified, b.lastModified));
-                    break;
-                case SMALLEST_FILES:
-                    Collections.sort(items, Comparator.comparingLong(item -> item.size));
-                    break;
-                case LARGEST_FILES:
-                    Collections.sort(items, (a, b) -> Long.compare(b.size, a.size));
-                    break;
-            }
-        } catch (Exception e) {
-            FLog.e(TAG, "Error during sorting", e);
-        }
+        pendingScrollToTop = true;
+        applyActiveFilterToUi();
+        FLog.i(TAG, "Video list sorted by: " + currentSortOption);
     }
 
     // Enum for sort options
@@ -4901,6 +5141,20 @@ public class RecordsFragment extends BaseFragment implements
         LATEST_FIRST, OLDEST_FIRST, SMALLEST_FILES, LARGEST_FILES
     }
 
+    @NonNull
+    private static com.fadcam.data.RecordsQuery.Sort toQuerySort(@NonNull SortOption sortOption) {
+        switch (sortOption) {
+            case OLDEST_FIRST:
+                return com.fadcam.data.RecordsQuery.Sort.OLDEST_FIRST;
+            case SMALLEST_FILES:
+                return com.fadcam.data.RecordsQuery.Sort.SMALLEST_FILES;
+            case LARGEST_FILES:
+                return com.fadcam.data.RecordsQuery.Sort.LARGEST_FILES;
+            default:
+                return com.fadcam.data.RecordsQuery.Sort.LATEST_FIRST;
+        }
+    }
+
     // --- Utility ---
 
     private void vibrate() {
@@ -5075,8 +5329,7 @@ public class RecordsFragment extends BaseFragment implements
         // Clear video lists to free memory
         if (videoItems != null)
             videoItems.clear();
-        if (allLoadedItems != null)
-            allLoadedItems.clear();
+        recordsFacets = null;
         if (selectedUris != null)
             selectedUris.clear();
 
@@ -5116,25 +5369,6 @@ public class RecordsFragment extends BaseFragment implements
         }
     }
 
-    // Restore and optimize the getNextPage method
-    private List<VideoItem> getNextPage(int page) {
-        int startIndex = page * PAGE_SIZE;
-        if (startIndex >= allLoadedItems.size()) {
-            hasMoreItems = false;
-            return new ArrayList<>();
-        }
-
-        int endIndex = Math.min(startIndex + PAGE_SIZE, allLoadedItems.size());
-        List<VideoItem> pageItems = new ArrayList<>(allLoadedItems.subList(startIndex, endIndex));
-
-        // If this is the last page, set hasMoreItems to false
-        if (endIndex >= allLoadedItems.size()) {
-            hasMoreItems = false;
-        }
-
-        return pageItems;
-    }
-
     // Restore this important method
     private void updateUiVisibility() {
         if (getView() == null) {
@@ -5191,13 +5425,22 @@ public class RecordsFragment extends BaseFragment implements
 
     private void updateHeaderStats() {
         if (getContext() == null) return;
-        List<VideoItem> source = allLoadedItems == null || allLoadedItems.isEmpty() ? videoItems : allLoadedItems;
         int photos = 0;
         int videos = 0;
         long totalBytes = 0L;
-        if (source != null) {
-            for (VideoItem item : source) {
-                if (item == null) continue;
+        if (recordsFacets != null) {
+            for (com.fadcam.data.RecordsQuery.Facet facet : recordsFacets) {
+                if (facet.mediaType == VideoItem.MediaType.IMAGE) {
+                    photos += facet.count;
+                } else {
+                    videos += facet.count;
+                }
+                totalBytes += Math.max(0L, facet.totalSize);
+            }
+        } else if (videoItems != null) {
+            // Counts not queried yet: the loaded window is all there is to show
+            for (VideoItem item : videoItems) {
+                if (item == null || item.isSkeleton) continue;
                 if (item.mediaType == VideoItem.MediaType.IMAGE) {
                     photos++;
                 } else {
@@ -5381,6 +5624,13 @@ public class RecordsFragment extends BaseFragment implements
         }
     }
 
+    @Override
+    public void onDestroyView() {
+        // Enrichment only feeds this list; the next onViewCreated warm-up restarts it
+        com.fadcam.data.VideoIndexRepository.getInstance(requireContext()).cancelEnrichment();
+        super.onDestroyView();
+    }
+
     @Override
     public void onDestroy() {
         super.onDestroy();
@@ -5450,8 +5700,90 @@ public class RecordsFragment extends BaseFragment implements
      */
     @SuppressLint("NotifyDataSetChanged")
     private void requestRealtimeRefresh(@NonNull String reason) {
+        requestRealtimeRefresh(reason, null);
+    }
+
+    /**
+     * With a known change log, writes it ahead into the index's pending log, applies it as
+     * targeted updates and merges the resulting diff into the list; otherwise (or if the index
+     * can't sync incrementally) falls back to a full reload. While a load is running the log
+     * stays pending — that load's {@code syncIndex} applies it before reading.
+     */
+    private void requestRealtimeRefresh(@NonNull String reason, @Nullable com.fadcam.data.MediaChangeLog changes) {
         if (!isAdded()) return;
-        loadRecordsList(true);
+        if (changes == null || changes.isEmpty()) {
+            loadRecordsList(true);
+            return;
+        }
+        final com.fadcam.data.VideoIndexRepository repo =
+                com.fadcam.data.VideoIndexRepository.getInstance(requireContext());
+        repo.logChanges(changes);
+        if (isLoading || appliedIndexGeneration < 0) {
+            loadRecordsList(true);
+            return;
+        }
+        if (deltaExecutor == null || deltaExecutor.isShutdown()) {
+            deltaExecutor = Executors.newSingleThreadExecutor();
+        }
+        deltaExecutor.submit(() -> {
+            boolean synced;
+            try {
+                synced = repo.syncPendingChanges(sharedPreferencesManager);
+            } catch (Exception e) {
+                FLog.w(TAG, "Incremental sync failed (" + reason + "): " + e.getMessage());
+                synced = false;
+            }
+            final com.fadcam.data.VideoIndexRepository.IndexDelta delta =
+                    synced ? repo.getChangesSince(appliedIndexGeneration) : null;
+            new Handler(Looper.getMainLooper()).post(() -> {
+                if (!isAdded()) return;
+                if (delta == null || delta.fullReload) {
+                    loadRecordsList(true);
+                } else {
+                    applyIndexDeltaToUi(delta);
+                }
+            });
+        });
+    }
+
+    /** Main thread: apply an index diff to the view (selection, caches, then a re-query). */
+    private void applyIndexDeltaToUi(@NonNull com.fadcam.data.VideoIndexRepository.IndexDelta delta) {
+        if (delta.toGeneration <= appliedIndexGeneration) {
+            return;
+        }
+        appliedIndexGeneration = delta.toGeneration;
+        if (delta.isEmpty()) {
+            return;
+        }
+
+        List<Uri> removedUris = new ArrayList<>(delta.removedUris.size());
+        for (String uriString : delta.removedUris) {
+            removedUris.add(Uri.parse(uriString));
+        }
+        List<Uri> changedUris = new ArrayList<>(delta.upserted.size());
+        for (VideoItem item : delta.upserted) {
+            changedUris.add(item.uri);
+        }
+        // Persists the classification of new rows before the re-query below reads them
+        normalizeVideoCategories(delta.upserted);
+        HashSet<String> removedUriStrings = new HashSet<>(delta.removedUris);
+        videoItems.removeIf(item ->
+                item == null || item.uri == null || removedUriStrings.contains(item.uri.toString()));
+        selectedUris.removeIf(uri -> uri != null && removedUriStrings.contains(uri.toString()));
+
+        if (recordsAdapter != null) {
+            // Deleted files lose everything; changed files need fresh thumbnails/durations
+            // but keep their resume position
+            recordsAdapter.evictCachesForUris(removedUris);
+            recordsAdapter.evictChangedUris(changedUris);
+        }
+
+        com.fadcam.utils.VideoStatsCache.invalidateStats(sharedPreferencesManager);
+        com.fadcam.utils.VideoSessionCache.invalidateOnNextAccess();
+        reloadRecordsView();
+        updateUiVisibility();
+        FLog.d(TAG, "applyIndexDeltaToUi: gen " + delta.toGeneration + ", " + delta.upserted.size()
+                + " upserted, " + delta.removedUris.size() + " removed");
     }
 
     private void triggerRecordsDeltaScanWithDelay(long delayMs) {
@@ -5516,23 +5848,21 @@ public class RecordsFragment extends BaseFragment implements
                 deltaExecutor = Executors.newSingleThreadExecutor();
             }
             final ExecutorService currentDeltaExec = deltaExecutor;
-            final int expectedCount = totalItems;
             currentDeltaExec.submit(() -> {
                 try {
-                    List<VideoItem> deltaItems = repository.deltaScan(sharedPreferencesManager);
-                    if (deltaItems.size() != expectedCount) {
-                        List<VideoItem> deltaNormalized = normalizeVideoCategories(deltaItems);
-                        sortItems(deltaNormalized, currentSortOption);
-                        totalItems = deltaNormalized.size();
-                        FLog.i(TAG, "Delta scan detected changes: " + deltaNormalized.size() + " items");
-                        com.fadcam.utils.VideoSessionCache.updateSessionCache(deltaNormalized);
+                    final long generation = repository.getGeneration();
+                    int indexedCount = repository.deltaScan(sharedPreferencesManager);
+                    // Any change (not just a different count) bumps the generation
+                    if (repository.getGeneration() != generation) {
+                        normalizeUnclassifiedRecords(repository);
+                        FLog.i(TAG, "Delta scan detected changes: " + indexedCount + " items");
+                        com.fadcam.utils.VideoSessionCache.invalidateOnNextAccess();
                         new Handler(Looper.getMainLooper()).post(() -> {
                             if (!isAdded()) {
                                 return;
                             }
-                            allLoadedItems.clear();
-                            allLoadedItems.addAll(deltaNormalized);
-                            applyActiveFilterToUi();
+                            appliedIndexGeneration = generation;
+                            reloadRecordsView();
                         });
                     } else {
                         FLog.d(TAG, "Delta scan: no changes detected");
@@ -5605,20 +5935,14 @@ public class RecordsFragment extends BaseFragment implements
                 try {
                     long loadStart = System.currentTimeMillis();
 
-                    // DB read on background thread (Room requires this)
-                    List<VideoItem> items = repository.getVideos(sharedPreferencesManager);
-                    List<VideoItem> normalized = normalizeVideoCategories(items);
-                    sortItems(normalized, currentSortOption);
-                    totalItems = normalized.size();
+                    // Index sync on background thread (Room requires this); rows are
+                    // paged in by the view query, never loaded as a whole
+                    final long generation = repository.getGeneration();
+                    int indexedCount = repository.syncIndex(sharedPreferencesManager);
+                    normalizeUnclassifiedRecords(repository);
 
                     long loadElapsed = System.currentTimeMillis() - loadStart;
-                    FLog.i(TAG, "loadRecordsList: DB fast path — " + normalized.size() + " items in " + loadElapsed + "ms (no skeleton)");
-
-                    // Keep caches in sync
-                    com.fadcam.utils.VideoSessionCache.updateSessionCache(normalized);
-
-                    // Digital forensics indexing (non-blocking)
-                    DigitalForensicsIndexCoordinator.getInstance(requireContext()).enqueueIndex(normalized);
+                    FLog.i(TAG, "loadRecordsList: DB fast path — " + indexedCount + " items in " + loadElapsed + "ms (no skeleton)");
 
                     // Deliver directly to UI — no skeleton transition
                     new Handler(Looper.getMainLooper()).post(() -> {
@@ -5627,10 +5951,10 @@ public class RecordsFragment extends BaseFragment implements
                         if (recordsAdapter != null && recordsAdapter.isSkeletonMode()) {
                             recordsAdapter.setSkeletonMode(false);
                         }
-                        allLoadedItems.clear();
-                        allLoadedItems.addAll(normalized);
+                        dropSkeletonItems();
+                        appliedIndexGeneration = generation;
                         isLoading = false;
-                        applyActiveFilterToUi();
+                        reloadRecordsView();
                         updateUiVisibility();
                         isInitialLoad = false;
                         drainPendingRealtimeRefresh();
@@ -5643,6 +5967,9 @@ public class RecordsFragment extends BaseFragment implements
                         scheduleRecordsPostFirstPaintWork(repository);
                     });
 
+                    // Digital forensics indexing (non-blocking)
+                    indexRecordsForForensics(repository);
+
                 } catch (Exception e) {
                     FLog.e(TAG, "Error in loadRecordsList fast path", e);
                     new Handler(Looper.getMainLooper()).post(() -> handleLoadingError());
@@ -5679,26 +6006,25 @@ public class RecordsFragment extends BaseFragment implements
             try {
                 long loadStart = System.currentTimeMillis();
 
-                // Full scan — DB is empty so getVideos() will do a full SAF scan
-                List<VideoItem> items = repository.getVideos(sharedPreferencesManager);
-                List<VideoItem> normalized = normalizeVideoCategories(items);
-                sortItems(normalized, currentSortOption);
-                totalItems = normalized.size();
+                // Full scan — DB is empty so syncIndex() will do a full SAF scan
+                final long generation = repository.getGeneration();
+                int indexedCount = repository.syncIndex(sharedPreferencesManager, indexedSoFar ->
+                        // Partial results while deeper folders are still being listed
+                        new Handler(Looper.getMainLooper()).post(() -> showScanProgress(indexedSoFar)));
+                normalizeUnclassifiedRecords(repository);
 
                 long loadElapsed = System.currentTimeMillis() - loadStart;
-                FLog.i(TAG, "loadRecordsList: Cold start — " + normalized.size() + " items ready in " + loadElapsed + "ms");
-
-                // Digital forensics indexing (non-blocking)
-                DigitalForensicsIndexCoordinator.getInstance(requireContext()).enqueueIndex(normalized);
+                FLog.i(TAG, "loadRecordsList: Cold start — " + indexedCount + " items ready in " + loadElapsed + "ms");
 
                 // Deliver results to UI — replaces skeleton
                 new Handler(Looper.getMainLooper()).post(() -> {
-                    replaceSkeletonsWithData(normalized);
+                    appliedIndexGeneration = generation;
+                    replaceSkeletonsWithData(indexedCount);
                     scheduleRecordsPostFirstPaintWork(repository);
                 });
 
-                // Keep VideoSessionCache in sync
-                com.fadcam.utils.VideoSessionCache.updateSessionCache(normalized);
+                // Digital forensics indexing (non-blocking)
+                indexRecordsForForensics(repository);
 
             } catch (Exception e) {
                 FLog.e(TAG, "Error in loadRecordsList", e);
@@ -5707,6 +6033,23 @@ public class RecordsFragment extends BaseFragment implements
         });
     }
 
+    /**
+     * Background thread: persist the Records tab classification of rows that were never
+     * normalised (see {@link #normalizeVideoCategories}), one page at a time, so chip counts
+     * and SQL filters agree before the view is queried.
+     */
+    private void normalizeUnclassifiedRecords(@NonNull com.fadcam.data.VideoIndexRepository repository) {
+        repository.forEachUnclassifiedPage(this::normalizeVideoCategories);
+    }
+
+    /** Background thread: hand the index to digital forensics one page at a time, if enabled. */
+    private void indexRecordsForForensics(@NonNull com.fadcam.data.VideoIndexRepository repository) {
+        Context context = getContext();
+        if (context == null || !sharedPreferencesManager.isDigitalForensicsEnabled()) return;
+        DigitalForensicsIndexCoordinator coordinator = DigitalForensicsIndexCoordinator.getInstance(context);
+        repository.forEachIndexedPage(page -> coordinator.enqueueIndex(normalizeVideoCategories(page)));
+    }
+
     /**
      * Load primary videos with progressive updates to UI
      */
@@ -5766,53 +6109,6 @@ public class RecordsFragment extends BaseFragment implements
         }
     }
 
-    /**
-     * Updates the UI with a list of videos, either completely replacing the current
-     * list
-     * or appending to it.
-     * 
-     * @param newVideos The list of videos to display
-     * @param isPartial Whether this is a partial update (true) or complete update
-     *                  (false)
-     */
-    private void updateUiWithVideos(final List<VideoItem> newVideos, boolean isPartial) {
-        if (getActivity() == null)
-            return;
-
-        FLog.d(TAG, "updateUiWithVideos: Updating UI with " + newVideos.size() + " videos, isPartial=" + isPartial);
-
-        getActivity().runOnUiThread(() -> {
-            if (isPartial) {
-                // For partial updates (e.g., just temp videos), we want to show them right away
-                allLoadedItems.clear();
-                allLoadedItems.addAll(normalizeVideoCategories(newVideos));
-                applyActiveFilterToUi();
-                if (recyclerView != null) recyclerView.setVisibility(View.VISIBLE);
-                // Don't hide loading indicator yet for partial updates
-            } else {
-                // For complete updates, replace everything
-                allLoadedItems.clear();
-                allLoadedItems.addAll(normalizeVideoCategories(newVideos));
-                applyActiveFilterToUi();
-
-                updateUiVisibility();
-                if (loadingIndicator != null) {
-                    loadingIndicator.setVisibility(View.GONE);
-                }
-                if (swipeRefreshLayout != null) {
-                    swipeRefreshLayout.setRefreshing(false);
-                }
-                if (recyclerView != null) {
-                    recyclerView.setVisibility(View.VISIBLE);
-                }
-            }
-
-            isLoading = false;
-            isInitialLoad = false;
-            drainPendingRealtimeRefresh();
-        });
-    }
-
     private boolean isSupportedVideoFile(@Nullable String fileName) {
         return inferMediaTypeFromName(fileName) == VideoItem.MediaType.VIDEO;
     }
@@ -6289,8 +6585,14 @@ public class RecordsFragment extends BaseFragment implements
             recyclerView.smoothScrollToPosition(totalItemCount - 1);
             FLog.d(TAG, "Navigation FAB: Scrolling to bottom (user was scrolling down)");
         } else {
-            // FAB shows up arrow - scroll to top
-            recyclerView.smoothScrollToPosition(0);
+            // FAB shows up arrow - scroll to top, re-reading the first page if the window dropped it
+            if (windowFirstPage > 0) {
+                pendingScrollToTop = true;
+                recordsQueryToken++;
+                requestFirstRecordsPage();
+            } else {
+                recyclerView.smoothScrollToPosition(0);
+            }
             FLog.d(TAG, "Navigation FAB: Scrolling to top (user was scrolling up)");
         }
 
@@ -105,17 +105,11 @@ public class VideoPlayerActivity extends AppCompatActivity {
                         try {
                             filename = getFileName(cur);
                         } catch (Exception ignored) {}
-                        SharedPreferencesManager spmLoc =
-                            SharedPreferencesManager.getInstance(
-                                VideoPlayerActivity.this
-                            );
-                        if (cur != null) spmLoc.setSavedPlaybackPositionMs(
-                            cur.toString(),
-                            pos
-                        );
-                        if (
-                            filename != null && !filename.isEmpty()
-                        ) spmLoc.setSavedPlaybackPositionMsByFilename(
+                        // Shared store: a journal append, not a rewrite of the prefs XML every second
+                        com.fadcam.data.MediaAttributeStore.getInstance(
+                            VideoPlayerActivity.this
+                        ).putResumePosition(
+                            cur != null ? cur.toString() : null,
                             filename,
                             pos
                         );
@@ -1251,9 +1245,9 @@ public class VideoPlayerActivity extends AppCompatActivity {
             try {
                 String uriStr = videoUri.toString();
                 String filename = getFileName(videoUri);
-                long savedMs = SharedPreferencesManager.getInstance(
+                long savedMs = com.fadcam.data.MediaAttributeStore.getInstance(
                     this
-                ).getSavedPlaybackPositionMsWithFilenameFallback(
+                ).getResumePosition(
                     uriStr,
                     filename
                 );
@@ -1386,11 +1380,11 @@ public class VideoPlayerActivity extends AppCompatActivity {
                                                    " actual duration (" + actualDur + "ms)" +
                                                    " — resetting to start and clearing saved position");
                                         player.seekTo(0);
-                                        if (videoUri != null && spm != null) {
-                                            String uriStr = videoUri.toString();
-                                            String fname = getFileName(videoUri);
-                                            spm.setSavedPlaybackPositionMs(uriStr, 0);
-                                            spm.setSavedPlaybackPositionMsByFilename(fname, 0);
+                                        if (videoUri != null) {
+                                            com.fadcam.data.MediaAttributeStore.getInstance(
+                                                VideoPlayerActivity.this
+                                            ).putResumePosition(videoUri.toString(),
+                                                getFileName(videoUri), 0);
                                         }
                                     }
                                 } catch (Exception ex) {
@@ -1637,15 +1631,12 @@ public class VideoPlayerActivity extends AppCompatActivity {
             Uri cur = holder.getCurrentUri();
             if (cur != null) {
                 // Save both URI-keyed and filename-keyed fallback
-                SharedPreferencesManager spmLoc =
-                    SharedPreferencesManager.getInstance(this);
-                spmLoc.setSavedPlaybackPositionMs(cur.toString(), pos);
+                String fn = null;
                 try {
-                    String fn = getFileName(cur);
-                    if (
-                        fn != null && !fn.isEmpty()
-                    ) spmLoc.setSavedPlaybackPositionMsByFilename(fn, pos);
+                    fn = getFileName(cur);
                 } catch (Exception ignored) {}
+                com.fadcam.data.MediaAttributeStore.getInstance(this)
+                    .putResumePosition(cur.toString(), fn, pos);
                 // Broadcast update so UI components can refresh immediately
                 try {
                     android.content.Intent i = new android.content.Intent(
@@ -3433,6 +3424,8 @@ public class VideoPlayerActivity extends AppCompatActivity {
             if (player != null) player.pause();
         } catch (Exception ignored) {}
         player = null;
+        // Playback stops with this screen: end the fMP4 index scan and free its file handle
+        com.fadcam.playback.PlayerHolder.getInstance().releaseMediaIndexes();
         // Stop background playback service when activity is destroyed (if pref
         // disabled)
         try {
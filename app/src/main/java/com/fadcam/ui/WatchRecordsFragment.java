@@ -31,6 +31,7 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.fadcam.Constants;
 import com.fadcam.R;
+import com.fadcam.playback.FragmentIndexSidecar;
 import com.fadcam.ui.picker.OptionItem;
 import com.fadcam.ui.picker.PickerBottomSheetFragment;
 import com.fadcam.utils.TrashManager;
@@ -319,6 +320,7 @@ public class WatchRecordsFragment extends Fragment {
                 final File newFile = new File(entry.file.getParentFile(), sanitized + ext);
                 executor.execute(() -> {
                     final boolean ok = entry.file.renameTo(newFile);
+                    if (ok) FragmentIndexSidecar.rename(entry.file, newFile);
                     mainHandler.post(() -> {
                         if (!isAdded()) return;
                         if (!ok) Toast.makeText(requireContext(),
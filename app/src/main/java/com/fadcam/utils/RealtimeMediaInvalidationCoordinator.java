@@ -4,6 +4,7 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
+import android.net.Uri;
 import android.os.FileObserver;
 import android.os.Handler;
 import android.os.Looper;
@@ -13,40 +14,78 @@ import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
 
 import com.fadcam.Constants;
+import com.fadcam.data.MediaChangeLog;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Coalesces media/snapshot invalidations from broadcasts + file observers.
  * This keeps UI refreshes realtime without thrashing the main thread.
+ * <p>
+ * Besides the reason, each dispatch carries a {@link MediaChangeLog} of the paths that changed
+ * during the debounce window and how (created, written, moved in, deleted), so listeners can
+ * apply targeted index updates. The log is null when the change is not path-specific (storage
+ * moved, restore, a watched folder itself deleted, too many events).
+ * <p>
+ * Folders created or moved in while running are watched from then on, so a recording that
+ * opens a new folder keeps reporting per-path events. A watched folder that is deleted stops
+ * being watched, so it is picked up again if it is re-created.
  */
 public class RealtimeMediaInvalidationCoordinator {
 
     public interface Listener {
         void onInvalidated(@NonNull String reason);
+
+        /**
+         * @param changes Paths touched since the previous dispatch, coalesced per path, or null if unknown
+         */
+        default void onInvalidated(@NonNull String reason, @Nullable MediaChangeLog changes) {
+            onInvalidated(reason);
+        }
     }
 
     private static final long DEFAULT_DEBOUNCE_MS = 180L;
 
+    /** Beyond this many paths per window a full resync is cheaper than per-path work. */
+    private static final int MAX_TRACKED_PATHS = 256;
+
+    /** inotify's "subject is a directory" flag, passed through in FileObserver event masks. */
+    private static final int IN_ISDIR = 0x40000000;
+
     private final Context appContext;
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
     private final List<Listener> listeners = new CopyOnWriteArrayList<>();
-    private final List<FileObserver> fileObservers = new ArrayList<>();
+    // Main-thread only: watched directory → its observer
+    private final Map<File, FileObserver> fileObservers = new HashMap<>();
     private final long debounceMs;
     private final Runnable dispatchRunnable;
 
     @Nullable
     private String pendingReason;
+    // Main-thread only; null = unknown change set for the pending window
+    @Nullable
+    private MediaChangeLog pendingChanges = new MediaChangeLog();
     private boolean started;
 
     private final BroadcastReceiver receiver = new BroadcastReceiver() {
         @Override
         public void onReceive(Context context, Intent intent) {
             if (intent == null || intent.getAction() == null) return;
-            invalidate(intent.getAction());
+            File file = null;
+            String uriString = intent.getStringExtra(Constants.EXTRA_RECORDING_URI_STRING);
+            if (uriString == null) uriString = intent.getStringExtra(Constants.INTENT_EXTRA_FILE_URI);
+            if (uriString != null && uriString.startsWith("file:")) {
+                String path = Uri.parse(uriString).getPath();
+                if (path != null) file = new File(path);
+            }
+            // Completion broadcasts are sent once the file is closed
+            invalidate(intent.getAction(), file, MediaChangeLog.Change.WRITTEN);
         }
     };
 
@@ -59,9 +98,12 @@ public class RealtimeMediaInvalidationCoordinator {
         this.debounceMs = Math.max(60L, debounceMs);
         this.dispatchRunnable = () -> {
             String reason = pendingReason == null ? "unknown" : pendingReason;
+            MediaChangeLog changes = pendingChanges;
             pendingReason = null;
+            pendingChanges = new MediaChangeLog();
             for (Listener listener : listeners) {
-                listener.onInvalidated(reason);
+                // Each listener gets its own copy; they may hold on to it
+                listener.onInvalidated(reason, changes == null ? null : new MediaChangeLog(changes));
             }
         };
     }
@@ -91,10 +133,32 @@ public class RealtimeMediaInvalidationCoordinator {
         stopFileObservers();
         mainHandler.removeCallbacks(dispatchRunnable);
         pendingReason = null;
+        pendingChanges = new MediaChangeLog();
     }
 
+    /** Invalidation without a specific path: listeners get a null change log. */
     public void invalidate(@NonNull String reason) {
+        invalidate(reason, null, MediaChangeLog.Change.WRITTEN);
+    }
+
+    /**
+     * @param changedFile The file that changed, or null if the change is not path-specific
+     * @param change      What happened to {@code changedFile}
+     */
+    public void invalidate(@NonNull String reason, @Nullable File changedFile,
+                           @NonNull MediaChangeLog.Change change) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            // FileObserver events arrive on its own thread; pending state is main-thread only
+            mainHandler.post(() -> invalidate(reason, changedFile, change));
+            return;
+        }
         pendingReason = reason;
+        if (changedFile == null) {
+            pendingChanges = null;
+        } else if (pendingChanges != null) {
+            pendingChanges.record(changedFile, change);
+            if (pendingChanges.size() > MAX_TRACKED_PATHS) pendingChanges = null;
+        }
         mainHandler.removeCallbacks(dispatchRunnable);
         mainHandler.postDelayed(dispatchRunnable, debounceMs);
     }
@@ -122,29 +186,105 @@ public class RealtimeMediaInvalidationCoordinator {
 
         List<File> watchRoots = new ArrayList<>();
         collectAllDirectories(fadCamRoot, watchRoots);
-
         for (File dir : watchRoots) {
-            if (dir == null || !dir.exists() || !dir.isDirectory()) continue;
-            FileObserver observer = new FileObserver(
-                    dir.getAbsolutePath(),
-                    FileObserver.CREATE
-                            | FileObserver.CLOSE_WRITE
-                            | FileObserver.MOVED_TO
-                            | FileObserver.DELETE
-                            | FileObserver.DELETE_SELF
-            ) {
-                @Override
-                public void onEvent(int event, @Nullable String path) {
-                    invalidate("file:" + dir.getName());
+            watchDirectory(dir);
+        }
+    }
+
+    /** A folder created or moved in: watch it and everything below it (main thread). */
+    private void watchNewDirectory(@NonNull File dir) {
+        if (!started) return;
+        List<File> dirs = new ArrayList<>();
+        collectAllDirectories(dir, dirs);
+        for (File each : dirs) {
+            watchDirectory(each);
+        }
+    }
+
+    private void watchDirectory(@Nullable File dir) {
+        if (dir == null || !dir.exists() || !dir.isDirectory() || fileObservers.containsKey(dir)) return;
+        FileObserver observer = new FileObserver(
+                dir.getAbsolutePath(),
+                FileObserver.CREATE
+                        | FileObserver.CLOSE_WRITE
+                        | FileObserver.MOVED_TO
+                        | FileObserver.MOVED_FROM
+                        | FileObserver.DELETE
+                        | FileObserver.DELETE_SELF
+        ) {
+            @Override
+            public void onEvent(int event, @Nullable String path) {
+                // The mask may carry flag bits (e.g. IN_ISDIR) on top of the event
+                int kind = event & FileObserver.ALL_EVENTS;
+                if (kind == FileObserver.DELETE_SELF) {
+                    // inotify drops the watch; forget it so a re-created folder is watched again
+                    mainHandler.post(() -> unwatchDirectory(dir, this));
+                }
+                MediaChangeLog.Change change = toChange(kind);
+                boolean pathSpecific = path != null && change != null;
+                if (pathSpecific && (event & IN_ISDIR) != 0
+                        && (change == MediaChangeLog.Change.CREATED || change == MediaChangeLog.Change.MOVED_IN)) {
+                    File newDir = new File(dir, path);
+                    mainHandler.post(() -> watchNewDirectory(newDir));
+                } else if (pathSpecific && (event & IN_ISDIR) != 0 && kind == FileObserver.MOVED_FROM) {
+                    // inotify keeps following the moved folder; stop before it reports stale paths
+                    File oldDir = new File(dir, path);
+                    mainHandler.post(() -> unwatchTree(oldDir));
                 }
-            };
-            observer.startWatching();
-            fileObservers.add(observer);
+                invalidate("file:" + dir.getName(), pathSpecific ? new File(dir, path) : null,
+                        change != null ? change : MediaChangeLog.Change.WRITTEN);
+            }
+        };
+        observer.startWatching();
+        fileObservers.put(dir, observer);
+    }
+
+    /** A watched folder was deleted (main thread); a newer observer for the same path is kept. */
+    private void unwatchDirectory(@NonNull File dir, @NonNull FileObserver observer) {
+        if (fileObservers.get(dir) != observer) return;
+        fileObservers.remove(dir);
+        try {
+            observer.stopWatching();
+        } catch (Throwable ignored) {
+        }
+    }
+
+    /** A watched folder was moved out (main thread): drop its observer and those below it. */
+    private void unwatchTree(@NonNull File root) {
+        String prefix = root.getAbsolutePath() + File.separator;
+        Iterator<Map.Entry<File, FileObserver>> it = fileObservers.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<File, FileObserver> entry = it.next();
+            File watched = entry.getKey();
+            if (!watched.equals(root) && !watched.getAbsolutePath().startsWith(prefix)) continue;
+            it.remove();
+            try {
+                entry.getValue().stopWatching();
+            } catch (Throwable ignored) {
+            }
+        }
+    }
+
+    /** FileObserver event → change type; null for events that are not about one child path. */
+    @Nullable
+    private static MediaChangeLog.Change toChange(int event) {
+        switch (event) {
+            case FileObserver.CREATE:
+                return MediaChangeLog.Change.CREATED;
+            case FileObserver.CLOSE_WRITE:
+                return MediaChangeLog.Change.WRITTEN;
+            case FileObserver.MOVED_TO:
+                return MediaChangeLog.Change.MOVED_IN;
+            case FileObserver.DELETE:
+            case FileObserver.MOVED_FROM:
+                return MediaChangeLog.Change.DELETED;
+            default:
+                return null; // DELETE_SELF and anything unexpected
         }
     }
 
     private void stopFileObservers() {
-        for (FileObserver observer : fileObservers) {
+        for (FileObserver observer : fileObservers.values()) {
             try {
                 observer.stopWatching();
             } catch (Throwable ignored) {
@@ -0,0 +1,389 @@
+package com.fadcam.utils;
+
+import com.fadcam.FLog;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, memory-mapped pack file of encoded thumbnails — the disk tier of
+ * {@link ThumbnailStore}.
+ * <p>
+ * Architecture:
+ * <ul>
+ *   <li>One file of records: {@code [magic][keyHash][keyLen][dataLen][crc32][key][data]}.
+ *   A re-put appends a new record; the index points at the newest one and the old bytes
+ *   become dead space.</li>
+ *   <li>Reads come from a read-only mapping of the file, so a hit is one in-memory copy
+ *   with no read syscalls. Records appended after the mapping was made are read with a
+ *   positional {@link FileChannel#read}; the mapping is only extended once that unmapped
+ *   tail reaches {@value #REMAP_STEP_BYTES} bytes, so appends don't churn mappings.</li>
+ *   <li>Open scans record headers to rebuild the in-memory index (key hash → offset) and
+ *   truncates a torn tail left by a crash mid-append.</li>
+ *   <li>{@link #compact} rewrites live records into a fresh file, dropping the oldest
+ *   writes past the size budget. The copy runs without the lock (appended bytes never
+ *   change); only records appended meanwhile are copied under it before the swap.</li>
+ * </ul>
+ * Thread-safe. All methods do file I/O — call from a background thread.
+ */
+final class ThumbnailPack {
+
+    private static final String TAG = "ThumbnailPack";
+
+    private static final int MAGIC = 0x46544831; // "FTH1"
+    private static final int HEADER_BYTES = 4 + 8 + 4 + 4 + 4;
+    private static final int MAX_KEY_BYTES = 4096;
+    private static final int MAX_DATA_BYTES = 4 * 1024 * 1024;
+    private static final long REMAP_STEP_BYTES = 8L * 1024 * 1024;
+
+    private final File file;
+    private final long maxBytes;
+
+    private final Object lock = new Object();
+    // Guarded by lock
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    @Nullable
+    private MappedByteBuffer mapped;
+    private long size;
+    private long liveBytes;
+    private final Map<Long, long[]> index = new HashMap<>(); // keyHash → {offset, recordLength}
+    private int generation; // bumped by clear(); aborts a compaction in progress
+
+    ThumbnailPack(@NonNull File file, long maxBytes) throws IOException {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        openLocked();
+    }
+
+    // ── Public API ──────────────────────────────────────────────────────
+
+    /** Encoded bytes stored for {@code key}, or null (missing, hash collision, or corrupt). */
+    @Nullable
+    byte[] get(@NonNull String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long hash = hash64(keyBytes);
+        ByteBuffer view;
+        long offset;
+        int recordLength;
+        FileChannel source;
+        synchronized (lock) {
+            long[] entry = index.get(hash);
+            if (entry == null) return null;
+            offset = entry[0];
+            recordLength = (int) entry[1];
+            extendMappingIfDueLocked();
+            view = mapped != null && offset + recordLength <= mapped.capacity() ? mapped.duplicate() : null;
+            source = channel;
+        }
+        int pos = (int) offset;
+        if (view == null) {
+            // Appended after the mapping was made: one positional read
+            view = ByteBuffer.allocate(recordLength);
+            try {
+                readFully(source, view, offset);
+            } catch (IOException e) {
+                FLog.w(TAG, "Read failed at " + offset + ": " + e.getMessage());
+                return null;
+            }
+            pos = 0;
+        }
+        int keyLen = view.getInt(pos + 12);
+        int dataLen = view.getInt(pos + 16);
+        int crc = view.getInt(pos + 20);
+        if (keyLen != keyBytes.length) return null;
+        byte[] storedKey = new byte[keyLen];
+        view.position(pos + HEADER_BYTES);
+        view.get(storedKey);
+        if (!java.util.Arrays.equals(storedKey, keyBytes)) return null;
+        byte[] data = new byte[dataLen];
+        view.get(data);
+        CRC32 check = new CRC32();
+        check.update(data, 0, dataLen);
+        if ((int) check.getValue() != crc) {
+            FLog.w(TAG, "CRC mismatch at " + offset + ", dropping entry");
+            synchronized (lock) {
+                long[] current = index.get(hash);
+                if (current != null && current[0] == offset) {
+                    index.remove(hash);
+                    liveBytes -= current[1];
+                }
+            }
+            return null;
+        }
+        return data;
+    }
+
+    /** Appends {@code data} under {@code key}, superseding any previous record. */
+    void put(@NonNull String key, @NonNull byte[] data) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length > MAX_KEY_BYTES || data.length > MAX_DATA_BYTES) return;
+        long hash = hash64(keyBytes);
+        ByteBuffer record = encodeRecord(hash, keyBytes, data);
+        synchronized (lock) {
+            long offset = size;
+            while (record.hasRemaining()) {
+                channel.write(record, offset + record.position());
+            }
+            size += record.capacity();
+            long[] previous = index.put(hash, new long[]{offset, record.capacity()});
+            if (previous != null) liveBytes -= previous[1];
+            liveBytes += record.capacity();
+        }
+    }
+
+    boolean contains(@NonNull String key) {
+        synchronized (lock) {
+            return index.containsKey(hash64(key.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    /** True when dead space or total size makes a {@link #compact} worthwhile. */
+    boolean needsCompaction() {
+        synchronized (lock) {
+            long dead = size - liveBytes;
+            return size > maxBytes || (dead > 2L * 1024 * 1024 && dead > liveBytes);
+        }
+    }
+
+    /**
+     * Rewrites live records into a new file, keeping at most 3/4 of the size budget
+     * (newest writes win). Returns false if aborted by {@link #clear} or on I/O failure.
+     */
+    boolean compact() {
+        long snapshotSize;
+        int snapshotGeneration;
+        List<long[]> live;
+        @Nullable ByteBuffer source;
+        FileChannel sourceChannel;
+        synchronized (lock) {
+            snapshotSize = size;
+            snapshotGeneration = generation;
+            live = new ArrayList<>(index.values());
+            source = mapped;
+            sourceChannel = channel;
+        }
+        // Oldest first; drop the oldest writes until the rest fits the budget
+        live.sort((a, b) -> Long.compare(a[0], b[0]));
+        long budget = maxBytes * 3 / 4;
+        long total = 0;
+        for (long[] entry : live) total += entry[1];
+        int start = 0;
+        while (total > budget && start < live.size()) {
+            total -= live.get(start++)[1];
+        }
+
+        File tmp = new File(file.getPath() + ".tmp");
+        try (RandomAccessFile out = new RandomAccessFile(tmp, "rw")) {
+            out.setLength(0);
+            FileChannel outChannel = out.getChannel();
+            long written = 0;
+            for (int i = start; i < live.size(); i++) {
+                written += copyRecord(source, sourceChannel, live.get(i), outChannel, written);
+            }
+            synchronized (lock) {
+                if (generation != snapshotGeneration) return false;
+                // Records appended while we copied: bring them over in order
+                if (size > snapshotSize) {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                    long pos = snapshotSize;
+                    while (pos < size) {
+                        header.clear();
+                        readFully(channel, header, pos);
+                        int recordLength = HEADER_BYTES + header.getInt(12) + header.getInt(16);
+                        long hash = header.getLong(4);
+                        long[] current = index.get(hash);
+                        if (current != null && current[0] == pos) {
+                            written += copyRecord(mapped, channel, current, outChannel, written);
+                        }
+                        pos += recordLength;
+                    }
+                }
+                outChannel.force(false);
+                closeLocked();
+                if (!tmp.renameTo(file)) throw new IOException("rename failed");
+                long before = size;
+                // Re-reads the new file's headers to rebuild the index with new offsets
+                openLocked();
+                FLog.i(TAG, "Compacted " + before + " → " + size + " bytes, " + index.size() + " entries");
+            }
+            return true;
+        } catch (IOException e) {
+            FLog.w(TAG, "Compaction failed: " + e.getMessage());
+            //noinspection ResultOfMethodCallIgnored
+            tmp.delete();
+            synchronized (lock) {
+                try {
+                    if (channel == null || !channel.isOpen()) openLocked();
+                } catch (IOException reopen) {
+                    FLog.e(TAG, "Reopen after failed compaction failed", reopen);
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Drops every record. The file is replaced rather than truncated: readers may still
+     * hold views of the old mapping, and touching a truncated mapping faults.
+     */
+    void clear() throws IOException {
+        synchronized (lock) {
+            generation++;
+            closeLocked();
+            if (file.exists() && !file.delete()) throw new IOException("cannot delete " + file);
+            openLocked();
+        }
+    }
+
+    int entryCount() {
+        synchronized (lock) {
+            return index.size();
+        }
+    }
+
+    long sizeBytes() {
+        synchronized (lock) {
+            return size;
+        }
+    }
+
+    void close() {
+        synchronized (lock) {
+            closeLocked();
+        }
+    }
+
+    // ── Internals ───────────────────────────────────────────────────────
+
+    private void openLocked() throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists()) {
+            //noinspection ResultOfMethodCallIgnored
+            parent.mkdirs();
+        }
+        raf = new RandomAccessFile(file, "rw");
+        channel = raf.getChannel();
+        size = channel.size();
+        index.clear();
+        liveBytes = 0;
+        mapped = null;
+        if (size == 0) return;
+        remapLocked();
+        ByteBuffer view = mapped.duplicate();
+        long pos = 0;
+        while (pos + HEADER_BYTES <= size) {
+            int p = (int) pos;
+            if (view.getInt(p) != MAGIC) break;
+            long hash = view.getLong(p + 4);
+            int keyLen = view.getInt(p + 12);
+            int dataLen = view.getInt(p + 16);
+            if (keyLen < 0 || keyLen > MAX_KEY_BYTES || dataLen < 0 || dataLen > MAX_DATA_BYTES) break;
+            long recordLength = (long) HEADER_BYTES + keyLen + dataLen;
+            if (pos + recordLength > size) break;
+            long[] previous = index.put(hash, new long[]{pos, recordLength});
+            if (previous != null) liveBytes -= previous[1];
+            liveBytes += recordLength;
+            pos += recordLength;
+        }
+        if (pos < size) {
+            // Torn or corrupt tail (crash mid-append): cut it so appends stay aligned
+            FLog.w(TAG, "Truncating pack at " + pos + " (was " + size + ")");
+            channel.truncate(pos);
+            size = pos;
+            remapLocked();
+        }
+    }
+
+    /** Maps the whole file as it stands; the old mapping is released once no reader holds it. */
+    private void remapLocked() throws IOException {
+        mapped = size == 0 ? null : channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+
+    /** Extends the mapping once the unmapped tail is big enough; smaller tails are read positionally. */
+    private void extendMappingIfDueLocked() {
+        long mappedBytes = mapped == null ? 0 : mapped.capacity();
+        if (size - mappedBytes < REMAP_STEP_BYTES) return;
+        try {
+            remapLocked();
+        } catch (IOException e) {
+            FLog.w(TAG, "Remap failed, reading tail records directly: " + e.getMessage());
+        }
+    }
+
+    private void closeLocked() {
+        mapped = null;
+        try {
+            if (raf != null) raf.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Copies one record to {@code out} at {@code position}, from {@code mapping} if it covers
+     * the record and otherwise read from {@code source}; returns its length.
+     */
+    private static long copyRecord(@Nullable ByteBuffer mapping, @NonNull FileChannel source, @NonNull long[] entry,
+                                   @NonNull FileChannel out, long position) throws IOException {
+        ByteBuffer slice;
+        if (mapping != null && entry[0] + entry[1] <= mapping.capacity()) {
+            slice = mapping.duplicate();
+            slice.position((int) entry[0]);
+            slice.limit((int) (entry[0] + entry[1]));
+        } else {
+            slice = ByteBuffer.allocate((int) entry[1]);
+            readFully(source, slice, entry[0]);
+            slice.flip();
+        }
+        long at = position;
+        while (slice.hasRemaining()) {
+            at += out.write(slice, at);
+        }
+        return entry[1];
+    }
+
+    /** Fills {@code dst} from {@code source} starting at {@code position}, without moving the channel. */
+    private static void readFully(@NonNull FileChannel source, @NonNull ByteBuffer dst, long position)
+            throws IOException {
+        long at = position;
+        while (dst.hasRemaining()) {
+            int read = source.read(dst, at);
+            if (read < 0) throw new EOFException("pack ends at " + at);
+            at += read;
+        }
+    }
+
+    @NonNull
+    private static ByteBuffer encodeRecord(long hash, @NonNull byte[] key, @NonNull byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + key.length + data.length);
+        record.putInt(MAGIC).putLong(hash).putInt(key.length).putInt(data.length).putInt((int) crc.getValue());
+        record.put(key).put(data);
+        record.flip();
+        return record;
+    }
+
+    /** FNV-1a 64; the full key is stored in the record, so collisions only cause misses. */
+    private static long hash64(@NonNull byte[] bytes) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,221 @@
+package com.fadcam.utils;
+
+import com.fadcam.FLog;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Two-tier thumbnail cache for the Records tab, keyed by URI + lastModified + size so a
+ * re-recorded or edited file never shows a stale frame.
+ * <p>
+ * Architecture:
+ * <ul>
+ *   <li><b>Memory</b>: decoded {@link Bitmap}s in an {@link LruCache} bounded by bitmap
+ *   bytes. {@link #getFromMemory} is safe on the main thread.</li>
+ *   <li><b>Disk</b>: JPEG bytes in one append-only, memory-mapped {@link ThumbnailPack}
+ *   under the cache dir, so a cold start shows thumbnails without decoding a single video
+ *   frame. Compaction runs on the store's own thread once dead space builds up.</li>
+ * </ul>
+ * Replaces the URI-keyed byte[] LRU and per-file .thumb files previously kept by
+ * {@link VideoSessionCache}.
+ */
+public final class ThumbnailStore {
+
+    private static final String TAG = "ThumbnailStore";
+
+    private static final String PACK_FILE_NAME = "thumbnails.pack";
+    private static final String LEGACY_THUMBNAIL_DIR = "video_thumbnails";
+    private static final long MAX_PACK_BYTES = 48L * 1024 * 1024;
+    private static final int MAX_MEMORY_BYTES = 32 * 1024 * 1024;
+    private static final int JPEG_QUALITY = 85;
+
+    private static volatile ThumbnailStore instance;
+
+    private final File packFile;
+    private final File legacyDir;
+    private final LruCache<String, Bitmap> memory;
+    // Writes + compaction (serial, low priority) and reads (small pool) never queue behind each other
+    private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "ThumbnailStore");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private final ExecutorService readExecutor = Executors.newFixedThreadPool(2, r -> new Thread(r, "ThumbnailStore-read"));
+    private final AtomicBoolean compactionQueued = new AtomicBoolean(false);
+
+    private final Object packLock = new Object();
+    @Nullable
+    private ThumbnailPack pack; // opened lazily off the main thread
+    private boolean packOpenFailed;
+
+    private ThumbnailStore(@NonNull Context context) {
+        File cacheDir = context.getApplicationContext().getCacheDir();
+        this.packFile = new File(cacheDir, PACK_FILE_NAME);
+        this.legacyDir = new File(cacheDir, LEGACY_THUMBNAIL_DIR);
+        int memoryBytes = (int) Math.min(MAX_MEMORY_BYTES, Runtime.getRuntime().maxMemory() / 16);
+        this.memory = new LruCache<String, Bitmap>(memoryBytes) {
+            @Override
+            protected int sizeOf(@NonNull String key, @NonNull Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+        };
+        ioExecutor.execute(this::deleteLegacyThumbnails);
+    }
+
+    public static ThumbnailStore getInstance(@NonNull Context context) {
+        if (instance == null) {
+            synchronized (ThumbnailStore.class) {
+                if (instance == null) {
+                    instance = new ThumbnailStore(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /** The store if it has been created, else null — for hooks that must not create it. */
+    @Nullable
+    public static ThumbnailStore peekInstance() {
+        return instance;
+    }
+
+    /** Cache key: a changed file (new mtime or size) gets a new thumbnail. */
+    @NonNull
+    public static String keyFor(@NonNull String uriString, long lastModified, long sizeBytes) {
+        return uriString + '|' + lastModified + '|' + sizeBytes;
+    }
+
+    /** Memory tier only — safe to call on the main thread. */
+    @Nullable
+    public Bitmap getFromMemory(@NonNull String key) {
+        return memory.get(key);
+    }
+
+    /**
+     * Memory, then the disk pack (decoded and promoted to memory). Background thread only.
+     *
+     * @return null if this key has never been stored
+     */
+    @Nullable
+    public Bitmap load(@NonNull String key) {
+        Bitmap bitmap = memory.get(key);
+        if (bitmap != null) return bitmap;
+        ThumbnailPack disk = openPack();
+        if (disk == null) return null;
+        byte[] data = disk.get(key);
+        if (data == null) return null;
+        bitmap = BitmapFactory.decodeByteArray(data, 0, data.length);
+        if (bitmap != null) memory.put(key, bitmap);
+        return bitmap;
+    }
+
+    /** Receives the result of {@link #loadAsync} on a store thread; null if never stored. */
+    public interface LoadCallback {
+        void onLoaded(@Nullable Bitmap bitmap);
+    }
+
+    /** {@link #load} on the store's read threads. */
+    public void loadAsync(@NonNull String key, @NonNull LoadCallback callback) {
+        readExecutor.execute(() -> {
+            Bitmap bitmap = null;
+            try {
+                bitmap = load(key);
+            } catch (Exception e) {
+                FLog.w(TAG, "Thumbnail load failed: " + e.getMessage());
+            }
+            callback.onLoaded(bitmap);
+        });
+    }
+
+    /**
+     * Stores a freshly generated thumbnail: memory immediately, JPEG-encoded into the
+     * pack on the store's I/O thread. The bitmap must be owned by the caller (copy
+     * Glide-pooled bitmaps first) since the memory tier keeps it.
+     */
+    public void put(@NonNull String key, @NonNull Bitmap bitmap) {
+        memory.put(key, bitmap);
+        ioExecutor.execute(() -> {
+            ThumbnailPack disk = openPack();
+            if (disk == null || bitmap.isRecycled()) return;
+            try {
+                ByteArrayOutputStream encoded = new ByteArrayOutputStream(16 * 1024);
+                if (!bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, encoded)) return;
+                disk.put(key, encoded.toByteArray());
+            } catch (Exception e) {
+                FLog.w(TAG, "Failed to persist thumbnail: " + e.getMessage());
+                return;
+            }
+            scheduleCompactionIfNeeded(disk);
+        });
+    }
+
+    /** Drops both tiers (e.g. when the user clears caches). */
+    public void clear() {
+        memory.evictAll();
+        ioExecutor.execute(() -> {
+            ThumbnailPack disk = openPack();
+            if (disk == null) return;
+            try {
+                disk.clear();
+            } catch (Exception e) {
+                FLog.w(TAG, "Failed to clear thumbnail pack: " + e.getMessage());
+            }
+        });
+    }
+
+    /** Memory pressure: drop decoded bitmaps, keep the disk pack. */
+    public void trimMemory() {
+        memory.evictAll();
+    }
+
+    @Nullable
+    private ThumbnailPack openPack() {
+        synchronized (packLock) {
+            if (pack != null || packOpenFailed) return pack;
+            try {
+                pack = new ThumbnailPack(packFile, MAX_PACK_BYTES);
+                FLog.i(TAG, "Opened thumbnail pack: " + pack.entryCount() + " entries, "
+                        + pack.sizeBytes() / 1024 + " KB");
+            } catch (Exception e) {
+                FLog.e(TAG, "Failed to open thumbnail pack, disk tier disabled", e);
+                packOpenFailed = true;
+            }
+            return pack;
+        }
+    }
+
+    private void scheduleCompactionIfNeeded(@NonNull ThumbnailPack disk) {
+        if (!disk.needsCompaction() || !compactionQueued.compareAndSet(false, true)) return;
+        ioExecutor.execute(() -> {
+            try {
+                disk.compact();
+            } finally {
+                compactionQueued.set(false);
+            }
+        });
+    }
+
+    /** One-time cleanup of the per-file thumbnails the old session cache wrote. */
+    private void deleteLegacyThumbnails() {
+        File[] files = legacyDir.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+        //noinspection ResultOfMethodCallIgnored
+        legacyDir.delete();
+        FLog.d(TAG, "Removed " + files.length + " legacy thumbnail files");
+    }
+}
@@ -14,6 +14,7 @@ import androidx.documentfile.provider.DocumentFile;
 
 import com.fadcam.Constants;
 import com.fadcam.model.TrashItem;
+import com.fadcam.playback.FragmentIndexSidecar;
 import com.fadcam.Utils;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
@@ -327,6 +328,10 @@ public class TrashManager {
         }
 
         if (success) {
+            if (!isSafSource) {
+                // The seek index does not follow the video into the trash
+                FragmentIndexSidecar.delete(new File(videoUri.getPath()));
+            }
             if (!isSafSource && copiedBytes <= 0L) {
                 dispatchProgress(progressListener, sourceLengthForProgress(videoUri), sourceLengthForProgress(videoUri));
             } else {
@@ -5,15 +5,12 @@ import com.fadcam.FLog;
 import android.content.Context;
 import com.fadcam.ui.VideoItem;
 
-import androidx.annotation.NonNull;
-
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Intelligent session cache for video items that provides instant access and
@@ -29,24 +26,13 @@ public class VideoSessionCache {
     private static final String PREF_CACHE_INVALIDATED = "session_cache_invalidated";
     
     // Disk cache file names
-    private static final String CACHE_FILE_NAME = "video_cache.dat";
-    private static final String THUMBNAIL_CACHE_DIR = "video_thumbnails";
-    
-    // In-memory thumbnail cache (bounded LRU to prevent OOM)
-    private static final int MAX_THUMBNAIL_CACHE_BYTES = 20 * 1024 * 1024; // 20MB
-    private static android.util.LruCache<String, byte[]> sThumbnailCache;
+    private static final String CACHE_FILE_NAME = "video_cache.bin";
+    private static final String LEGACY_CACHE_FILE_NAME = "video_cache.dat"; // Java-serialized, pre-snapshot
 
-    private static synchronized android.util.LruCache<String, byte[]> getThumbnailCache() {
-        if (sThumbnailCache == null) {
-            sThumbnailCache = new android.util.LruCache<String, byte[]>(MAX_THUMBNAIL_CACHE_BYTES) {
-                @Override
-                protected int sizeOf(@NonNull String key, @NonNull byte[] thumbnailData) {
-                    return thumbnailData.length;
-                }
-            };
-        }
-        return sThumbnailCache;
-    }
+    // Snapshot writes: one thread, latest list wins (a burst of updates writes once)
+    private static final ExecutorService sSnapshotWriter = Executors.newSingleThreadExecutor(
+            r -> new Thread(r, "VideoSessionSnapshot"));
+    private static final AtomicReference<List<VideoItem>> sPendingSnapshot = new AtomicReference<>();
     
     // Session-level cache shared across all fragments
     private static List<VideoItem> sSessionCachedVideos = null;
@@ -176,187 +162,55 @@ public class VideoSessionCache {
      * Saves video cache to disk for persistence across app restarts
      */
     private static void saveCacheToDisk(List<VideoItem> videos, Context context) {
-        try {
-            // Use a background thread to avoid blocking UI
-            new Thread(() -> {
-                try {
-                    File cacheFile = new File(context.getCacheDir(), CACHE_FILE_NAME);
-                    
-                    // Create a serializable list (VideoItem needs to be Serializable)
-                    List<SerializableVideoItem> serializableVideos = new ArrayList<>();
-                    for (VideoItem video : videos) {
-                        if (video != null && video.uri != null) {
-                            serializableVideos.add(new SerializableVideoItem(video));
-                        }
-                    }
-                    
-                    try (FileOutputStream fos = new FileOutputStream(cacheFile);
-                         ObjectOutputStream oos = new ObjectOutputStream(fos)) {
-                        oos.writeObject(serializableVideos);
-                        oos.flush();
-                    }
-                } catch (Exception e) {
-                    FLog.e(TAG, "Error saving cache to disk", e);
-                }
-            }).start();
-        } catch (Exception e) {
-            FLog.e(TAG, "Error starting cache save thread", e);
+        File cacheDir = context.getCacheDir();
+        // Copy now: the caller keeps mutating its list
+        if (sPendingSnapshot.getAndSet(new ArrayList<>(videos)) != null) {
+            return; // A queued write will pick up this newer list
         }
+        sSnapshotWriter.execute(() -> {
+            List<VideoItem> latest = sPendingSnapshot.getAndSet(null);
+            if (latest == null) return;
+            try {
+                long start = System.nanoTime();
+                VideoSessionSnapshot.write(new File(cacheDir, CACHE_FILE_NAME), latest);
+                FLog.d(TAG, "Snapshot written: " + latest.size() + " videos in "
+                        + (System.nanoTime() - start) / 1_000_000 + " ms");
+                File legacy = new File(cacheDir, LEGACY_CACHE_FILE_NAME);
+                if (legacy.exists()) {
+                    //noinspection ResultOfMethodCallIgnored
+                    legacy.delete();
+                }
+            } catch (Exception e) {
+                FLog.e(TAG, "Error saving cache to disk", e);
+            }
+        });
     }
     
     /**
      * Loads video cache from disk
      */
-    @SuppressWarnings("unchecked")
     private static List<VideoItem> loadCacheFromDisk(Context context) {
-        try {
-            File cacheFile = new File(context.getCacheDir(), CACHE_FILE_NAME);
-            if (!cacheFile.exists()) {
-                return new ArrayList<>();
-            }
-            
-            try (FileInputStream fis = new FileInputStream(cacheFile);
-                 ObjectInputStream ois = new ObjectInputStream(fis)) {
-                
-                List<SerializableVideoItem> serializableVideos = (List<SerializableVideoItem>) ois.readObject();
-                List<VideoItem> videos = new ArrayList<>();
-                
-                for (SerializableVideoItem item : serializableVideos) {
-                    videos.add(item.toVideoItem());
-                }
-                
-                return videos;
-            }
-        } catch (Exception e) {
-            FLog.e(TAG, "Error loading cache from disk", e);
+        long start = System.nanoTime();
+        List<VideoItem> videos = VideoSessionSnapshot.read(new File(context.getCacheDir(), CACHE_FILE_NAME));
+        if (videos == null) {
             return new ArrayList<>();
         }
+        FLog.d(TAG, "Snapshot loaded: " + videos.size() + " videos in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return videos;
     }
     
     /**
-     * Serializable wrapper for VideoItem to enable disk caching with thumbnails
-     */
-    private static class SerializableVideoItem implements java.io.Serializable {
-        private static final long serialVersionUID = 4L;
-        
-        public final String uriString;
-        public final String displayName;
-        public final long size;
-        public final long lastModified;
-        public final boolean isNew;
-        public final String category;
-        public final String mediaType;
-        public final String shotSubtype;
-        public final String cameraSubtype;
-        public final String faditorSubtype;
-        public final byte[] thumbnailData; // Cached thumbnail as byte array
-        
-        public SerializableVideoItem(VideoItem videoItem) {
-            this.uriString = videoItem.uri.toString();
-            this.displayName = videoItem.displayName;
-            this.size = videoItem.size;
-            this.lastModified = videoItem.lastModified;
-            this.isNew = videoItem.isNew;
-            this.category = videoItem.category != null ? videoItem.category.name() : null;
-            this.mediaType = videoItem.mediaType != null ? videoItem.mediaType.name() : null;
-            this.shotSubtype = videoItem.shotSubtype != null ? videoItem.shotSubtype.name() : null;
-            this.cameraSubtype = videoItem.cameraSubtype != null ? videoItem.cameraSubtype.name() : null;
-            this.faditorSubtype = videoItem.faditorSubtype != null ? videoItem.faditorSubtype.name() : null;
-            this.thumbnailData = null; // Will be set separately for existing items
-        }
-        
-        public SerializableVideoItem(VideoItem videoItem, byte[] thumbnailData) {
-            this.uriString = videoItem.uri.toString();
-            this.displayName = videoItem.displayName;
-            this.size = videoItem.size;
-            this.lastModified = videoItem.lastModified;
-            this.isNew = videoItem.isNew;
-            this.category = videoItem.category != null ? videoItem.category.name() : null;
-            this.mediaType = videoItem.mediaType != null ? videoItem.mediaType.name() : null;
-            this.shotSubtype = videoItem.shotSubtype != null ? videoItem.shotSubtype.name() : null;
-            this.cameraSubtype = videoItem.cameraSubtype != null ? videoItem.cameraSubtype.name() : null;
-            this.faditorSubtype = videoItem.faditorSubtype != null ? videoItem.faditorSubtype.name() : null;
-            this.thumbnailData = thumbnailData;
-        }
-        
-        public VideoItem toVideoItem() {
-            VideoItem item = new VideoItem(
-                android.net.Uri.parse(uriString),
-                displayName,
-                size,
-                lastModified,
-                parseCategory(category),
-                parseMediaType(mediaType, displayName),
-                parseShotSubtype(shotSubtype),
-                parseCameraSubtype(cameraSubtype),
-                parseFaditorSubtype(faditorSubtype)
-            );
-            item.isNew = isNew;
-            return item;
-        }
-
-        private static VideoItem.Category parseCategory(String raw) {
-            if (raw == null) return VideoItem.Category.UNKNOWN;
-            try {
-                return VideoItem.Category.valueOf(raw);
-            } catch (Exception ignored) {
-                return VideoItem.Category.UNKNOWN;
-            }
-        }
-
-        private static VideoItem.MediaType parseMediaType(String raw, String displayName) {
-            if (raw != null) {
-                try {
-                    return VideoItem.MediaType.valueOf(raw);
-                } catch (Exception ignored) {
-                }
-            }
-            if (displayName != null) {
-                String lower = displayName.toLowerCase();
-                if (lower.endsWith(".jpg") || lower.endsWith(".jpeg")
-                        || lower.endsWith(".png") || lower.endsWith(".webp")) {
-                    return VideoItem.MediaType.IMAGE;
-                }
-            }
-            return VideoItem.MediaType.VIDEO;
-        }
-
-        private static VideoItem.ShotSubtype parseShotSubtype(String raw) {
-            if (raw == null) return VideoItem.ShotSubtype.UNKNOWN;
-            try {
-                return VideoItem.ShotSubtype.valueOf(raw);
-            } catch (Exception ignored) {
-                return VideoItem.ShotSubtype.UNKNOWN;
-            }
-        }
-
-        private static VideoItem.CameraSubtype parseCameraSubtype(String raw) {
-            if (raw == null) return VideoItem.CameraSubtype.UNKNOWN;
-            try {
-                return VideoItem.CameraSubtype.valueOf(raw);
-            } catch (Exception ignored) {
-                return VideoItem.CameraSubtype.UNKNOWN;
-            }
-        }
-
-        private static VideoItem.FaditorSubtype parseFaditorSubtype(String raw) {
-            if (raw == null) return VideoItem.FaditorSubtype.UNKNOWN;
-            try {
-                return VideoItem.FaditorSubtype.valueOf(raw);
-            } catch (Exception ignored) {
-                return VideoItem.FaditorSubtype.UNKNOWN;
-            }
-        }
-    }
-    
-    /**
-     * Clears the session cache, forcing next access to reload from storage.
+     * Clears the session cache and both thumbnail tiers, forcing next access to reload from storage.
      */
     public static synchronized void clearSessionCache() {
         sSessionCachedVideos = null;
         sSessionCacheTimestamp = 0;
         sForceRefreshOnNextAccess = false;
-        clearThumbnailCache();
+        ThumbnailStore thumbnails = ThumbnailStore.peekInstance();
+        if (thumbnails != null) {
+            thumbnails.clear();
+        }
     }
     
     /**
@@ -439,104 +293,4 @@ public class VideoSessionCache {
             FLog.e(TAG, "Error persisting cached video count", e);
         }
     }
-    
-    // -------------- Thumbnail Caching Methods --------------
-    
-    /**
-     * Caches a thumbnail for a video URI
-     */
-    public static void cacheThumbnail(String uriString, byte[] thumbnailData) {
-        if (uriString == null || thumbnailData == null) return;
-        
-        getThumbnailCache().put(uriString, thumbnailData);
-    }
-    
-    /**
-     * Gets cached thumbnail for a video URI
-     */
-    public static byte[] getCachedThumbnail(String uriString) {
-        if (uriString == null) return null;
-        return getThumbnailCache().get(uriString);
-    }
-    
-    /**
-     * Clears the in-memory thumbnail cache.
-     */
-    public static void clearThumbnailCache() {
-        getThumbnailCache().evictAll();
-    }
-    
-    /**
-     * Saves thumbnail to disk cache
-     */
-    public static void saveThumbnailToDisk(Context context, String uriString, byte[] thumbnailData) {
-        if (context == null || uriString == null || thumbnailData == null) return;
-        
-        new Thread(() -> {
-            try {
-                File thumbnailDir = new File(context.getCacheDir(), THUMBNAIL_CACHE_DIR);
-                if (!thumbnailDir.exists()) {
-                    thumbnailDir.mkdirs();
-                }
-                
-                // Use hash of URI as filename to avoid filesystem issues
-                String filename = String.valueOf(uriString.hashCode()) + ".thumb";
-                File thumbnailFile = new File(thumbnailDir, filename);
-                
-                try (FileOutputStream fos = new FileOutputStream(thumbnailFile)) {
-                    fos.write(thumbnailData);
-                    fos.flush();
-                }
-            } catch (Exception e) {
-                FLog.e(TAG, "Error saving thumbnail to disk", e);
-            }
-        }).start();
-    }
-    
-    /**
-     * Loads thumbnail from disk cache
-     */
-    public static byte[] loadThumbnailFromDisk(Context context, String uriString) {
-        if (context == null || uriString == null) return null;
-        
-        try {
-            File thumbnailDir = new File(context.getCacheDir(), THUMBNAIL_CACHE_DIR);
-            String filename = String.valueOf(uriString.hashCode()) + ".thumb";
-            File thumbnailFile = new File(thumbnailDir, filename);
-            
-            if (!thumbnailFile.exists()) {
-                return null;
-            }
-            
-            try (FileInputStream fis = new FileInputStream(thumbnailFile)) {
-                byte[] data = new byte[(int) thumbnailFile.length()];
-                fis.read(data);
-                return data;
-            }
-        } catch (Exception e) {
-            FLog.e(TAG, "Error loading thumbnail from disk", e);
-            return null;
-        }
-    }
-    
-    /**
-     * Gets thumbnail with disk fallback
-     */
-    public static byte[] getThumbnailWithFallback(Context context, String uriString) {
-        // Try memory cache first
-        byte[] thumbnail = getCachedThumbnail(uriString);
-        if (thumbnail != null) {
-            return thumbnail;
-        }
-        
-        // Try disk cache
-        thumbnail = loadThumbnailFromDisk(context, uriString);
-        if (thumbnail != null) {
-            // Cache in memory for next time
-            cacheThumbnail(uriString, thumbnail);
-            return thumbnail;
-        }
-        
-        return null;
-    }
 }
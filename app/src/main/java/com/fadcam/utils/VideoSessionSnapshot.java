@@ -0,0 +1,269 @@
+package com.fadcam.utils;
+
+import com.fadcam.FLog;
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.fadcam.ui.VideoItem;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned binary snapshot of the Records list — the on-disk half of {@link VideoSessionCache}.
+ * <p>
+ * Architecture:
+ * <ul>
+ *   <li>Layout: {@code [magic][version][bodyLength][crc32(body)]} then the body:
+ *   a string table followed by {@code count} fixed-order records.</li>
+ *   <li>Repeated strings — enum names for category / media type / subtypes and the URI prefix
+ *   up to the last '/' — live once in the string table; records refer to them by index.
+ *   Enum names (not ordinals) are stored, so reordering an enum never misreads a snapshot.</li>
+ *   <li>Strings are length-prefixed UTF-8 (-1 = null); numbers are big-endian.</li>
+ *   <li>Read: one read-only {@link FileChannel} map, CRC check, then a single pass over the
+ *   records. Any mismatch (magic, version, length, CRC) returns null and the caller rescans.</li>
+ *   <li>Write: encode in memory, write to a temp file, fsync, rename over the old snapshot,
+ *   so a crash mid-write leaves the previous snapshot intact.</li>
+ * </ul>
+ */
+final class VideoSessionSnapshot {
+
+    private static final String TAG = "VideoSessionSnapshot";
+
+    private static final int MAGIC = 0x46565331; // "FVS1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 4;
+    private static final int FLAG_IS_NEW = 1;
+    private static final int SCRATCH_BYTES = 64 * 1024;
+
+    private VideoSessionSnapshot() {
+    }
+
+    // ── Write ───────────────────────────────────────────────────────────
+
+    /** Atomically replaces {@code file} with a snapshot of {@code videos}. */
+    static void write(@NonNull File file, @NonNull List<VideoItem> videos) throws IOException {
+        StringTable strings = new StringTable();
+        // Enum names first so their indices always fit the records' short fields
+        for (Enum<?>[] names : new Enum<?>[][]{VideoItem.Category.values(), VideoItem.MediaType.values(),
+                VideoItem.ShotSubtype.values(), VideoItem.CameraSubtype.values(), VideoItem.FaditorSubtype.values()}) {
+            for (Enum<?> name : names) strings.indexOf(name.name());
+        }
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(videos.size() * 96 + 64);
+        DataOutputStream records = new DataOutputStream(recordBytes);
+        int count = 0;
+        for (VideoItem video : videos) {
+            if (video == null || video.uri == null || video.isSkeleton) continue;
+            String uri = video.uri.toString();
+            int split = uri.lastIndexOf('/') + 1;
+            records.writeInt(strings.indexOf(uri.substring(0, split)));
+            writeString(records, uri.substring(split));
+            writeString(records, video.displayName);
+            records.writeLong(video.size);
+            records.writeLong(video.lastModified);
+            records.writeByte(video.isNew ? FLAG_IS_NEW : 0);
+            records.writeShort(strings.indexOf(video.category.name()));
+            records.writeShort(strings.indexOf(video.mediaType.name()));
+            records.writeShort(strings.indexOf(video.shotSubtype.name()));
+            records.writeShort(strings.indexOf(video.cameraSubtype.name()));
+            records.writeShort(strings.indexOf(video.faditorSubtype.name()));
+            count++;
+        }
+        records.flush();
+
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream(recordBytes.size() + 1024);
+        DataOutputStream body = new DataOutputStream(bodyBytes);
+        body.writeInt(strings.values.size());
+        for (String value : strings.values) writeString(body, value);
+        body.writeInt(count);
+        recordBytes.writeTo(body);
+        body.flush();
+        byte[] payload = bodyBytes.toByteArray();
+
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putInt(payload.length).putInt((int) crc.getValue());
+        header.flip();
+
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            FileChannel channel = out.getChannel();
+            ByteBuffer bodyBuffer = ByteBuffer.wrap(payload);
+            while (header.hasRemaining()) channel.write(header);
+            while (bodyBuffer.hasRemaining()) channel.write(bodyBuffer);
+            channel.force(false);
+        } catch (IOException e) {
+            //noinspection ResultOfMethodCallIgnored
+            tmp.delete();
+            throw e;
+        }
+        if (!tmp.renameTo(file)) {
+            //noinspection ResultOfMethodCallIgnored
+            tmp.delete();
+            throw new IOException("rename failed: " + tmp + " → " + file);
+        }
+    }
+
+    // ── Read ────────────────────────────────────────────────────────────
+
+    /** Decoded snapshot, or null when missing, from another format version, or corrupt. */
+    @Nullable
+    static List<VideoItem> read(@NonNull File file) {
+        if (!file.exists()) return null;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES || fileSize > Integer.MAX_VALUE) return null;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                FLog.w(TAG, "Snapshot has an unknown format, ignoring");
+                return null;
+            }
+            int bodyLength = buffer.getInt();
+            int expectedCrc = buffer.getInt();
+            if (bodyLength != fileSize - HEADER_BYTES) {
+                FLog.w(TAG, "Snapshot truncated (" + fileSize + " bytes), ignoring");
+                return null;
+            }
+            byte[] scratch = new byte[SCRATCH_BYTES];
+            if (crcOf(buffer.duplicate(), scratch) != expectedCrc) {
+                FLog.w(TAG, "Snapshot CRC mismatch, ignoring");
+                return null;
+            }
+            return decodeBody(buffer, scratch);
+        } catch (Exception e) {
+            FLog.w(TAG, "Failed to read snapshot: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @NonNull
+    private static List<VideoItem> decodeBody(@NonNull ByteBuffer buffer, @NonNull byte[] scratch) {
+        int stringCount = buffer.getInt();
+        String[] strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            strings[i] = readString(buffer, scratch);
+        }
+        // Resolve each interned name once instead of once per record
+        VideoItem.Category[] categories = new VideoItem.Category[stringCount];
+        VideoItem.MediaType[] mediaTypes = new VideoItem.MediaType[stringCount];
+        VideoItem.ShotSubtype[] shotSubtypes = new VideoItem.ShotSubtype[stringCount];
+        VideoItem.CameraSubtype[] cameraSubtypes = new VideoItem.CameraSubtype[stringCount];
+        VideoItem.FaditorSubtype[] faditorSubtypes = new VideoItem.FaditorSubtype[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            categories[i] = enumOrNull(VideoItem.Category.class, strings[i]);
+            mediaTypes[i] = enumOrNull(VideoItem.MediaType.class, strings[i]);
+            shotSubtypes[i] = enumOrNull(VideoItem.ShotSubtype.class, strings[i]);
+            cameraSubtypes[i] = enumOrNull(VideoItem.CameraSubtype.class, strings[i]);
+            faditorSubtypes[i] = enumOrNull(VideoItem.FaditorSubtype.class, strings[i]);
+        }
+
+        int count = buffer.getInt();
+        List<VideoItem> videos = new ArrayList<>(count);
+        StringBuilder uri = new StringBuilder(256);
+        for (int i = 0; i < count; i++) {
+            String uriPrefix = strings[buffer.getInt()];
+            String uriSuffix = readString(buffer, scratch);
+            String displayName = readString(buffer, scratch);
+            long size = buffer.getLong();
+            long lastModified = buffer.getLong();
+            byte flags = buffer.get();
+            int category = buffer.getShort();
+            int mediaType = buffer.getShort();
+            int shotSubtype = buffer.getShort();
+            int cameraSubtype = buffer.getShort();
+            int faditorSubtype = buffer.getShort();
+            uri.setLength(0);
+            uri.append(uriPrefix).append(uriSuffix);
+            // VideoItem's constructor maps null enums to UNKNOWN / VIDEO defaults
+            VideoItem item = new VideoItem(
+                    Uri.parse(uri.toString()),
+                    displayName,
+                    size,
+                    lastModified,
+                    categories[category],
+                    mediaTypes[mediaType],
+                    shotSubtypes[shotSubtype],
+                    cameraSubtypes[cameraSubtype],
+                    faditorSubtypes[faditorSubtype]);
+            item.isNew = (flags & FLAG_IS_NEW) != 0;
+            videos.add(item);
+        }
+        return videos;
+    }
+
+    // ── Encoding helpers ────────────────────────────────────────────────
+
+    /** Insertion-ordered string table for interning repeated values. */
+    private static final class StringTable {
+        final List<String> values = new ArrayList<>();
+        final Map<String, Integer> indices = new HashMap<>();
+
+        int indexOf(@NonNull String value) {
+            Integer index = indices.get(value);
+            if (index == null) {
+                index = values.size();
+                values.add(value);
+                indices.put(value, index);
+            }
+            return index;
+        }
+    }
+
+    private static void writeString(@NonNull DataOutputStream out, @Nullable String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /** Reads a length-prefixed string, decoding through {@code scratch} when it fits. */
+    @Nullable
+    private static String readString(@NonNull ByteBuffer buffer, @NonNull byte[] scratch) {
+        int length = buffer.getInt();
+        if (length < 0) return null;
+        byte[] target = length <= scratch.length ? scratch : new byte[length];
+        buffer.get(target, 0, length);
+        return new String(target, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /** CRC32 of the remaining bytes; copies through {@code scratch} (CRC32.update(ByteBuffer) is API 26+). */
+    private static int crcOf(@NonNull ByteBuffer buffer, @NonNull byte[] scratch) {
+        CRC32 crc = new CRC32();
+        while (buffer.hasRemaining()) {
+            int chunk = Math.min(scratch.length, buffer.remaining());
+            buffer.get(scratch, 0, chunk);
+            crc.update(scratch, 0, chunk);
+        }
+        return (int) crc.getValue();
+    }
+
+    @Nullable
+    private static <E extends Enum<E>> E enumOrNull(@NonNull Class<E> type, @Nullable String name) {
+        if (name == null) return null;
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException ignored) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.fadcam.media;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PreEventSampleBufferTest {
+
+    private static final int VIDEO = PreEventSampleBuffer.TRACK_VIDEO;
+    private static final int AUDIO = PreEventSampleBuffer.TRACK_AUDIO;
+    private static final long FRAME_US = 33_333L;
+
+    /** Sample payload whose bytes encode its PTS, so drained content can be checked. */
+    private static ByteBuffer payload(long pts, int size) {
+        ByteBuffer buffer = ByteBuffer.allocate(size + 8);
+        buffer.position(8);
+        for (int i = 0; i < size; i++) {
+            buffer.put((byte) (pts + i));
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static boolean add(PreEventSampleBuffer ring, int track, long pts, int size, boolean keyframe) {
+        return ring.add(track, payload(pts, size), 8, size, pts, keyframe ? 1 : 0, keyframe);
+    }
+
+    /** Feeds {@code frames} video frames with one audio frame each; a keyframe every {@code gop}. */
+    private static void feed(PreEventSampleBuffer ring, int frames, int gop, int videoSize) {
+        for (int f = 0; f < frames; f++) {
+            long pts = f * FRAME_US;
+            add(ring, VIDEO, pts, videoSize * (f % gop == 0 ? 4 : 1), f % gop == 0);
+            add(ring, AUDIO, pts + 1, 200, false);
+        }
+    }
+
+    private static List<long[]> drain(PreEventSampleBuffer ring) {
+        List<long[]> out = new ArrayList<>();
+        ring.drainTo((track, data, ptsUs, flags) -> {
+            for (int i = 0; i < data.remaining(); i++) {
+                assertEquals((byte) (ptsUs + i), data.get(data.position() + i));
+            }
+            out.add(new long[]{track, ptsUs, flags, data.remaining()});
+        });
+        return out;
+    }
+
+    @Test
+    public void startsAtKeyframe() {
+        PreEventSampleBuffer ring = new PreEventSampleBuffer(64 * 1024, 2_000_000L);
+
+        assertFalse(add(ring, AUDIO, 0, 100, false));
+        assertFalse(add(ring, VIDEO, 10, 100, false));
+        assertTrue(add(ring, VIDEO, 20, 100, true));
+        assertTrue(add(ring, AUDIO, 21, 100, false));
+
+        assertEquals(20, ring.getFirstPtsUs());
+        List<long[]> samples = drain(ring);
+        assertEquals(2, samples.size());
+        assertEquals(VIDEO, samples.get(0)[0]);
+        assertEquals(1, samples.get(0)[2]);
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    public void keepsWindowFromLastCoveringKeyframe() {
+        PreEventSampleBuffer ring = new PreEventSampleBuffer(8 * 1024 * 1024, 2_000_000L);
+        feed(ring, 300, 30, 1000); // 10 s, 1 s GOPs
+
+        long newest = 299 * FRAME_US;
+        long first = ring.getFirstPtsUs();
+        assertEquals(0, first % (30 * FRAME_US));
+        assertTrue(newest - first >= 2_000_000L);
+        assertTrue(newest - first < 3_000_000L);
+        assertEquals(7, ring.getEvictedGopCount());
+    }
+
+    @Test
+    public void byteCapEvictsWholeGopsAndKeepsContentIntact() {
+        int capacity = 100 * 1024;
+        PreEventSampleBuffer ring = new PreEventSampleBuffer(capacity, 60_000_000L);
+        feed(ring, 500, 30, 1500);
+
+        assertTrue(ring.getBufferedBytes() <= capacity);
+        assertTrue(ring.getEvictedGopCount() > 0);
+        List<long[]> samples = drain(ring);
+        assertEquals(VIDEO, samples.get(0)[0]);
+        assertEquals(1, samples.get(0)[2]);
+        long previousVideoPts = -1;
+        for (long[] sample : samples) {
+            if (sample[0] == VIDEO) {
+                assertTrue(sample[1] > previousVideoPts);
+                previousVideoPts = sample[1];
+            }
+        }
+        assertEquals(499 * FRAME_US, previousVideoPts);
+    }
+
+    @Test
+    public void gopLargerThanCapRestartsAtNextKeyframe() {
+        PreEventSampleBuffer ring = new PreEventSampleBuffer(10 * 1024, 60_000_000L);
+        assertTrue(add(ring, VIDEO, 0, 4000, true));
+        assertTrue(add(ring, VIDEO, 1, 4000, false));
+        assertFalse(add(ring, VIDEO, 2, 4000, false));
+        assertTrue(ring.isEmpty());
+        assertFalse(add(ring, AUDIO, 3, 100, false));
+        assertTrue(add(ring, VIDEO, 4, 4000, true));
+        assertEquals(4, ring.getFirstPtsUs());
+        assertFalse(add(ring, VIDEO, 5, 20 * 1024, true));
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    public void arenaIsReusedAfterDrain() {
+        PreEventSampleBuffer ring = new PreEventSampleBuffer(64 * 1024, 1_000_000L);
+        for (int round = 0; round < 3; round++) {
+            feed(ring, 90, 30, 500);
+            assertFalse(drain(ring).isEmpty());
+            assertEquals(0, ring.getBufferedBytes());
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.fadcam.motion.domain.detector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Parity between {@link FrameDiffMotionDetector} and the float, allocate-per-frame
+ * implementation it replaced ({@link LegacyFrameDiff}, kept verbatim below).
+ */
+public class FrameDiffMotionDetectorTest {
+
+    private static final float SCORE_TOLERANCE = 0.01f;
+    private static final float RATIO_TOLERANCE = 0.005f;
+
+    @Test
+    public void quietNoisySceneMatchesLegacy() {
+        assertParity(new SceneGenerator(320, 240, 0, 1).noise(4), 60);
+    }
+
+    @Test
+    public void movingObjectMatchesLegacy() {
+        ParityRun run = assertParity(new SceneGenerator(640, 360, 32, 2).noise(3).movingSquare(90, 30), 80);
+        assertTrue("scene should score as motion", run.maxScore > 0.05f);
+    }
+
+    @Test
+    public void gradualLightingChangeMatchesLegacy() {
+        assertParity(new SceneGenerator(640, 360, 0, 3).noise(3).brightnessRamp(1), 80);
+    }
+
+    @Test
+    public void cameraShakeIsSuppressedLikeLegacy() {
+        ParityRun run = assertParity(new SceneGenerator(320, 180, 16, 4).noise(2).checkerboard(60).shakeEvery(7, 12), 60);
+        assertTrue("shake frames should hit global suppression", run.suppressedFrames > 0);
+    }
+
+    @Test
+    public void interleavedChromaStrideMatchesLegacy() {
+        // pixelStride 2 as on semi-planar HALs, plus a frame larger than the sample grid
+        ParityRun run = assertParity(new SceneGenerator(1280, 720, 64, 5).pixelStride(2).noise(3).movingSquare(120, 25), 40);
+        assertTrue("scene should score as motion", run.maxScore > 0.05f);
+    }
+
+    @Test
+    public void buffersAreReusedAcrossFrames() {
+        SceneGenerator scene = new SceneGenerator(640, 360, 0, 6).noise(3).movingSquare(60, 9);
+        FrameDiffMotionDetector detector = new FrameDiffMotionDetector();
+        ByteBuffer frame = scene.frame(0);
+        int position = frame.position();
+        detector.detectScore(frame, scene.width, scene.height, scene.rowStride, scene.pixelStride);
+        for (int f = 1; f < 10; f++) {
+            frame = scene.frame(f);
+            detector.detectScore(frame, scene.width, scene.height, scene.rowStride, scene.pixelStride);
+            assertEquals("buffer position must be restored", position, frame.position());
+        }
+    }
+
+    @Test
+    public void regionOfInterestIgnoresMaskedMotion() {
+        // Square moves only through the left half; analysing only the right half sees nothing
+        SceneGenerator scene = new SceneGenerator(640, 360, 0, 7).noise(3).movingSquare(80, 20);
+        byte[] rightHalf = new byte[4 * 2];
+        rightHalf[2] = 1;
+        rightHalf[3] = 1;
+        rightHalf[6] = 1;
+        rightHalf[7] = 1;
+
+        FrameDiffMotionDetector unmasked = new FrameDiffMotionDetector();
+        FrameDiffMotionDetector masked = new FrameDiffMotionDetector();
+        masked.setRegionOfInterest(rightHalf, 4, 2);
+        float unmaskedMax = 0f;
+        float maskedMax = 0f;
+        for (int f = 0; f < 30; f++) {
+            unmaskedMax = Math.max(unmaskedMax, detect(unmasked, scene, f));
+            maskedMax = Math.max(maskedMax, detect(masked, scene, f));
+        }
+        assertTrue("unmasked detector should see the square", unmaskedMax > 0.05f);
+        assertEquals(0f, maskedMax, 0f);
+
+        masked.setRegionOfInterest(null, 0, 0);
+        float clearedMax = 0f;
+        for (int f = 30; f < 45; f++) {
+            clearedMax = Math.max(clearedMax, detect(masked, scene, f));
+        }
+        assertTrue("clearing the ROI analyses the whole frame again", clearedMax > 0.05f);
+    }
+
+    private static float detect(FrameDiffMotionDetector detector, SceneGenerator scene, int f) {
+        return detector.detectScore(scene.frame(f), scene.width, scene.height, scene.rowStride, scene.pixelStride);
+    }
+
+    /** What the legacy detector saw, so scenarios can check they exercise the intended path. */
+    private static final class ParityRun {
+        float maxScore;
+        int suppressedFrames;
+    }
+
+    private static ParityRun assertParity(SceneGenerator scene, int frames) {
+        ParityRun run = new ParityRun();
+        FrameDiffMotionDetector detector = new FrameDiffMotionDetector();
+        LegacyFrameDiff legacy = new LegacyFrameDiff();
+        for (int f = 0; f < frames; f++) {
+            ByteBuffer frame = scene.frame(f);
+            float expected = legacy.detectScore(frame.duplicate(), scene.width, scene.height, scene.rowStride, scene.pixelStride);
+            float actual = detector.detectScore(frame, scene.width, scene.height, scene.rowStride, scene.pixelStride);
+            String at = "frame " + f;
+            assertEquals(at + " score", expected, actual, SCORE_TOLERANCE);
+            assertEquals(at + " changed area", legacy.changedAreaRatio, detector.getLastChangedAreaRatio(), RATIO_TOLERANCE);
+            assertEquals(at + " strong area", legacy.strongAreaRatio, detector.getLastStrongAreaRatio(), RATIO_TOLERANCE);
+            assertEquals(at + " mean delta", legacy.meanDelta, detector.getLastMeanDelta(), RATIO_TOLERANCE);
+            assertEquals(at + " bg delta", legacy.backgroundDelta, detector.getLastBackgroundDelta(), RATIO_TOLERANCE);
+            assertEquals(at + " global suppression", legacy.globalSuppressed, detector.isLastGlobalMotionSuppressed());
+            run.maxScore = Math.max(run.maxScore, expected);
+            if (legacy.globalSuppressed) {
+                run.suppressedFrames++;
+            }
+        }
+        return run;
+    }
+
+    /** Deterministic synthetic luma frames. */
+    private static final class SceneGenerator {
+        final int width;
+        final int height;
+        final int rowStride;
+        int pixelStride = 1;
+        private final long seed;
+        private int noise;
+        private int squareSize;
+        private int squareStep;
+        private int rampPerFrame;
+        private int shakePeriod;
+        private int shakePixels;
+        private int checkerContrast;
+
+        SceneGenerator(int width, int height, int rowPadding, long seed) {
+            this.width = width;
+            this.height = height;
+            this.rowStride = width + rowPadding;
+            this.seed = seed;
+        }
+
+        SceneGenerator pixelStride(int stride) {
+            pixelStride = stride;
+            return this;
+        }
+
+        SceneGenerator noise(int amplitude) {
+            noise = amplitude;
+            return this;
+        }
+
+        SceneGenerator movingSquare(int size, int step) {
+            squareSize = size;
+            squareStep = step;
+            return this;
+        }
+
+        SceneGenerator brightnessRamp(int perFrame) {
+            rampPerFrame = perFrame;
+            return this;
+        }
+
+        SceneGenerator checkerboard(int contrast) {
+            checkerContrast = contrast;
+            return this;
+        }
+
+        SceneGenerator shakeEvery(int period, int pixels) {
+            shakePeriod = period;
+            shakePixels = pixels;
+            return this;
+        }
+
+        ByteBuffer frame(int f) {
+            Random random = new Random(seed * 1_000_003L + f);
+            int stride = rowStride * pixelStride;
+            byte[] luma = new byte[stride * height];
+            int shift = shakePeriod > 0 && f % shakePeriod == shakePeriod - 1 ? shakePixels : 0;
+            int squareX = squareSize > 0 ? (f * squareStep) % Math.max(1, width / 2 - squareSize) : -1;
+            int squareY = height / 3;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int sx = Math.min(width - 1, x + shift);
+                    int value = 40 + (sx * 120 / width) + ((y * 37 / height) & 15) + f * rampPerFrame;
+                    if (checkerContrast > 0 && (((sx >> 3) + (y >> 3)) & 1) == 1) {
+                        value += checkerContrast;
+                    }
+                    if (noise > 0) {
+                        value += random.nextInt(noise * 2 + 1) - noise;
+                    }
+                    if (squareX >= 0 && x >= squareX && x < squareX + squareSize
+                            && y >= squareY && y < squareY + squareSize) {
+                        value = 230;
+                    }
+                    luma[y * stride + x * pixelStride] = (byte) Math.max(0, Math.min(255, value));
+                }
+            }
+            return ByteBuffer.wrap(luma);
+        }
+    }
+
+    /** The previous FrameDiffMotionDetector scoring, unchanged apart from taking the plane directly. */
+    private static final class LegacyFrameDiff {
+        private static final int SAMPLE_GRID_W = 160;
+        private static final int SAMPLE_GRID_H = 90;
+        private static final int PIXEL_DELTA_THRESHOLD = 8;
+        private static final int STRONG_PIXEL_DELTA_THRESHOLD = 18;
+        private static final int BACKGROUND_FREEZE_DELTA = 22;
+        private static final float BACKGROUND_LEARNING_RATE = 0.03f;
+        private static final float MIN_CHANGED_AREA_RATIO = 0.0012f;
+        private static final float MIN_ACTIVE_AREA_RATIO = 0.02f;
+        private static final float MIN_ACTIVE_MEAN_DELTA = 0.015f;
+        private static final float MIN_ACTIVE_BG_DELTA = 0.012f;
+        private static final float STRONG_SPIKE_AREA_RATIO = 0.04f;
+        private static final float GLOBAL_MOTION_RATIO_THRESHOLD = 0.72f;
+        private static final float GLOBAL_MOTION_MEAN_THRESHOLD = 0.10f;
+        private static final float GLOBAL_MOTION_HARD_AREA_THRESHOLD = 0.85f;
+        private static final float GLOBAL_MOTION_STRONG_AREA_THRESHOLD = 0.45f;
+        private static final float GLOBAL_ADAPT_LEARNING_RATE = 0.22f;
+        private byte[] previous;
+        private float[] background;
+
+        float changedAreaRatio;
+        float strongAreaRatio;
+        float meanDelta;
+        float backgroundDelta;
+        boolean globalSuppressed;
+
+        float detectScore(ByteBuffer buffer, int width, int height, int rowStride, int pixelStride) {
+            int gridW = Math.min(SAMPLE_GRID_W, Math.max(8, width));
+            int gridH = Math.min(SAMPLE_GRID_H, Math.max(8, height));
+            byte[] current = new byte[gridW * gridH];
+            int index = 0;
+            for (int gy = 0; gy < gridH; gy++) {
+                int y = gy * (height - 1) / Math.max(1, gridH - 1);
+                int rowStart = y * rowStride;
+                for (int gx = 0; gx < gridW; gx++) {
+                    int x = gx * (width - 1) / Math.max(1, gridW - 1);
+                    int offset = rowStart + x * pixelStride;
+                    current[index++] = offset >= 0 && offset < buffer.limit() ? buffer.get(offset) : 0;
+                }
+            }
+
+            if (previous == null || previous.length != current.length) {
+                previous = current;
+                background = new float[current.length];
+                for (int i = 0; i < current.length; i++) {
+                    background[i] = current[i] & 0xFF;
+                }
+                changedAreaRatio = 0f;
+                strongAreaRatio = 0f;
+                meanDelta = 0f;
+                backgroundDelta = 0f;
+                globalSuppressed = false;
+                return 0f;
+            }
+
+            long sumCur = 0L;
+            long sumPrev = 0L;
+            long sumBgLevel = 0L;
+            for (int i = 0; i < current.length; i++) {
+                sumCur += current[i] & 0xFF;
+                sumPrev += previous[i] & 0xFF;
+                sumBgLevel += Math.round(background[i]);
+            }
+            float globalShiftPrev = (sumCur / (float) current.length) - (sumPrev / (float) current.length);
+            float globalShiftBg = (sumCur / (float) current.length) - (sumBgLevel / (float) current.length);
+
+            long sum = 0L;
+            long sumBg = 0L;
+            int changedPixels = 0;
+            int strongPixels = 0;
+            int maxDelta = 0;
+            for (int i = 0; i < current.length; i++) {
+                int cur = current[i] & 0xFF;
+                int prev = previous[i] & 0xFF;
+                int bg = Math.round(background[i]);
+                int frameDelta = Math.min(255, Math.abs(Math.round((cur - prev) - globalShiftPrev)));
+                int bgDelta = Math.min(255, Math.abs(Math.round((cur - bg) - globalShiftBg)));
+                int delta = Math.max(frameDelta, bgDelta);
+                sum += delta;
+                sumBg += bgDelta;
+                maxDelta = Math.max(maxDelta, delta);
+                if (delta >= PIXEL_DELTA_THRESHOLD) {
+                    changedPixels++;
+                }
+                if (delta >= STRONG_PIXEL_DELTA_THRESHOLD) {
+                    strongPixels++;
+                }
+                if (bgDelta <= BACKGROUND_FREEZE_DELTA) {
+                    background[i] = (background[i] * (1f - BACKGROUND_LEARNING_RATE))
+                        + (cur * BACKGROUND_LEARNING_RATE);
+                }
+            }
+            previous = current;
+
+            changedAreaRatio = changedPixels / (float) current.length;
+            strongAreaRatio = strongPixels / (float) current.length;
+            meanDelta = (sum / (float) current.length) / 255f;
+            backgroundDelta = (sumBg / (float) current.length) / 255f;
+            float maxDeltaNorm = maxDelta / 255f;
+            globalSuppressed = false;
+
+            if (changedAreaRatio < MIN_CHANGED_AREA_RATIO && strongPixels < 3) {
+                return 0f;
+            }
+            if (changedAreaRatio < MIN_ACTIVE_AREA_RATIO
+                    && meanDelta < MIN_ACTIVE_MEAN_DELTA
+                    && backgroundDelta < MIN_ACTIVE_BG_DELTA) {
+                return 0f;
+            }
+            float score = (meanDelta * 0.45f) + (backgroundDelta * 0.35f) + (maxDeltaNorm * 0.20f);
+            score *= Math.min(1f, changedAreaRatio * 2.2f);
+            if (strongAreaRatio >= STRONG_SPIKE_AREA_RATIO && maxDeltaNorm >= 0.22f) {
+                score = Math.max(score, 0.08f + (maxDeltaNorm * 0.25f));
+            }
+            boolean globalMotionLikely =
+                changedAreaRatio >= GLOBAL_MOTION_HARD_AREA_THRESHOLD
+                    || strongAreaRatio >= GLOBAL_MOTION_STRONG_AREA_THRESHOLD
+                    || (changedAreaRatio >= GLOBAL_MOTION_RATIO_THRESHOLD
+                        && meanDelta >= GLOBAL_MOTION_MEAN_THRESHOLD);
+            if (globalMotionLikely) {
+                for (int i = 0; i < current.length; i++) {
+                    background[i] = (background[i] * (1f - GLOBAL_ADAPT_LEARNING_RATE))
+                        + ((current[i] & 0xFF) * GLOBAL_ADAPT_LEARNING_RATE);
+                }
+                globalSuppressed = true;
+                return 0f;
+            }
+            return Math.min(1f, Math.max(0f, score));
+        }
+    }
+}
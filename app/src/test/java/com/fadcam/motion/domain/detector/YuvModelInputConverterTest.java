@@ -0,0 +1,150 @@
+package com.fadcam.motion.domain.detector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+public class YuvModelInputConverterTest {
+
+    /** YUV_420_888 frame with independent planes of the given strides. */
+    private static final class Frame {
+        final int width;
+        final int height;
+        final int yRowStride;
+        final int uvRowStride;
+        final int uvPixelStride;
+        final byte[] y;
+        final byte[] u;
+        final byte[] v;
+
+        Frame(int width, int height, int rowPadding, int uvPixelStride, long seed) {
+            this.width = width;
+            this.height = height;
+            this.yRowStride = width + rowPadding;
+            this.uvPixelStride = uvPixelStride;
+            this.uvRowStride = (width / 2) * uvPixelStride + rowPadding;
+            this.y = new byte[yRowStride * height];
+            this.u = new byte[uvRowStride * (height / 2)];
+            this.v = new byte[uvRowStride * (height / 2)];
+            Random random = new Random(seed);
+            random.nextBytes(y);
+            random.nextBytes(u);
+            random.nextBytes(v);
+        }
+
+        ByteBuffer convert(YuvModelInputConverter converter) {
+            return converter.convert(y, u, v, width, height, yRowStride, 1, uvRowStride, uvPixelStride);
+        }
+
+        /** RGB of source pixel (x, y) with exact BT.601 full-range math, rounded. */
+        int[] expectedRgb(int x, int row) {
+            int yValue = y[row * yRowStride + x] & 0xFF;
+            int uvIndex = (row / 2) * uvRowStride + (x / 2) * uvPixelStride;
+            int uValue = u[uvIndex] & 0xFF;
+            int vValue = v[uvIndex] & 0xFF;
+            return new int[]{
+                    clamp((int) Math.round(yValue + 1.402 * (vValue - 128))),
+                    clamp((int) Math.round(yValue - 0.344136 * (uValue - 128) - 0.714136 * (vValue - 128))),
+                    clamp((int) Math.round(yValue + 1.772 * (uValue - 128)))
+            };
+        }
+
+        private static int clamp(int value) {
+            return Math.max(0, Math.min(255, value));
+        }
+    }
+
+    private static int channel(ByteBuffer input, int inputWidth, int x, int y, int c) {
+        return input.get((y * inputWidth + x) * 3 + c) & 0xFF;
+    }
+
+    @Test
+    public void letterboxesLandscapeFrameWithExactColours() {
+        Frame frame = new Frame(640, 480, 16, 1, 1L);
+        YuvModelInputConverter converter = new YuvModelInputConverter(384, 384);
+        ByteBuffer input = frame.convert(converter);
+
+        assertEquals(384 * 384 * 3, input.remaining());
+        assertEquals(0, converter.getContentLeft());
+        assertEquals(48, converter.getContentTop());
+        assertEquals(384, converter.getContentWidth());
+        assertEquals(288, converter.getContentHeight());
+
+        // Padding bands are black
+        for (int x = 0; x < 384; x += 7) {
+            for (int c = 0; c < 3; c++) {
+                assertEquals(0, channel(input, 384, x, 0, c));
+                assertEquals(0, channel(input, 384, x, 383, c));
+            }
+        }
+
+        int maxError = 0;
+        for (int row = 0; row < 288; row++) {
+            int sourceRow = (row * 480) / 288;
+            for (int column = 0; column < 384; column++) {
+                int sourceColumn = (column * 640) / 384;
+                int[] expected = frame.expectedRgb(sourceColumn, sourceRow);
+                for (int c = 0; c < 3; c++) {
+                    int error = Math.abs(expected[c] - channel(input, 384, column, row + 48, c));
+                    maxError = Math.max(maxError, error);
+                }
+            }
+        }
+        assertTrue("max channel error " + maxError, maxError <= 1);
+    }
+
+    @Test
+    public void interleavedChromaAndPortraitFrame() {
+        Frame frame = new Frame(480, 640, 0, 2, 2L);
+        YuvModelInputConverter converter = new YuvModelInputConverter(384, 384);
+        ByteBuffer input = frame.convert(converter);
+
+        assertEquals(48, converter.getContentLeft());
+        assertEquals(0, converter.getContentTop());
+        int[] expected = frame.expectedRgb((100 * 480) / 288, (200 * 640) / 384);
+        for (int c = 0; c < 3; c++) {
+            assertTrue(Math.abs(expected[c] - channel(input, 384, 100 + 48, 200, c)) <= 1);
+        }
+    }
+
+    @Test
+    public void mapsModelBoxesBackToFrameCoordinates() {
+        Frame frame = new Frame(640, 480, 0, 1, 3L);
+        YuvModelInputConverter converter = new YuvModelInputConverter(384, 384);
+        frame.convert(converter);
+
+        assertEquals(0f, converter.toFrameY(48f / 384f), 1e-5f);
+        assertEquals(1f, converter.toFrameY(336f / 384f), 1e-5f);
+        assertEquals(0.5f, converter.toFrameX(0.5f), 1e-5f);
+        assertEquals(0.5f, converter.toFrameY(0.5f), 1e-5f);
+    }
+
+    @Test
+    public void truncatedPlanesReadAsBlackWithoutThrowing() {
+        Frame frame = new Frame(320, 240, 32, 2, 4L);
+        byte[] shortY = new byte[frame.y.length - 200];
+        System.arraycopy(frame.y, 0, shortY, 0, shortY.length);
+        byte[] shortU = new byte[frame.u.length - 100];
+        System.arraycopy(frame.u, 0, shortU, 0, shortU.length);
+        YuvModelInputConverter converter = new YuvModelInputConverter(320, 320);
+
+        ByteBuffer input = converter.convert(shortY, shortU, frame.v, 320, 240,
+                frame.yRowStride, 1, frame.uvRowStride, 2);
+
+        assertEquals(320 * 320 * 3, input.remaining());
+    }
+
+    @Test
+    public void reusesInputBufferAcrossFrames() {
+        YuvModelInputConverter converter = new YuvModelInputConverter(384, 384);
+        ByteBuffer first = new Frame(640, 480, 0, 1, 5L).convert(converter);
+        ByteBuffer second = new Frame(640, 480, 0, 1, 6L).convert(converter);
+        assertTrue(first == second);
+        assertTrue(second.isDirect());
+        assertEquals(0, second.position());
+    }
+}
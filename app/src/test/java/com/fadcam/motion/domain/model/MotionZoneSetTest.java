@@ -0,0 +1,105 @@
+package com.fadcam.motion.domain.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class MotionZoneSetTest {
+
+    private static final float EPSILON = 1e-6f;
+
+    private static MotionZone trigger(float left, float top, float right, float bottom, float threshold) {
+        return new MotionZone("trigger", left, top, right, bottom, threshold, false);
+    }
+
+    private static MotionZone ignored(float left, float top, float right, float bottom) {
+        return new MotionZone("ignored", left, top, right, bottom, 0f, true);
+    }
+
+    /** Default 8x6 grid with every tile in columns [fromColumn, toColumn) set to {@code value}. */
+    private static MotionTileGrid columns(int fromColumn, int toColumn, float value) {
+        MotionTileGrid grid = new MotionTileGrid();
+        for (int row = 0; row < grid.getRows(); row++) {
+            for (int column = fromColumn; column < toColumn; column++) {
+                grid.setActivity(row * grid.getColumns() + column, value);
+            }
+        }
+        return grid;
+    }
+
+    @Test
+    public void zoneTriggersOnceMeanActivityReachesThreshold() {
+        // Left half covers columns 0..3; half of it at 0.5 means 0.25
+        MotionZoneSet zones = new MotionZoneSet(Collections.singletonList(trigger(0f, 0f, 0.5f, 1f, 0.25f)));
+
+        assertEquals(0, zones.findTriggeredZone(columns(0, 2, 0.5f), 1f));
+        assertEquals(-1, zones.findTriggeredZone(columns(0, 1, 0.5f), 1f));
+        assertEquals(0.25f, zones.getZoneActivity(columns(0, 2, 0.5f), 0), EPSILON);
+    }
+
+    @Test
+    public void thresholdScaleRelaxesTrigger() {
+        MotionZoneSet zones = new MotionZoneSet(Collections.singletonList(trigger(0f, 0f, 0.5f, 1f, 0.25f)));
+
+        // Mean 0.125: below the threshold, at it once scaled by 0.5
+        assertEquals(-1, zones.findTriggeredZone(columns(0, 1, 0.5f), 1f));
+        assertEquals(0, zones.findTriggeredZone(columns(0, 1, 0.5f), 0.5f));
+    }
+
+    @Test
+    public void returnsFirstZoneThatTriggers() {
+        MotionZoneSet zones = new MotionZoneSet(Arrays.asList(
+                trigger(0f, 0f, 0.5f, 1f, 0.2f),
+                trigger(0.5f, 0f, 1f, 1f, 0.2f)));
+
+        assertEquals(1, zones.findTriggeredZone(columns(4, 8, 1f), 1f));
+        assertEquals(0, zones.findTriggeredZone(columns(0, 8, 1f), 1f));
+        assertEquals(-1, zones.findTriggeredZone(new MotionTileGrid(), 1f));
+    }
+
+    @Test
+    public void ignoredZoneTilesNeverCountTowardsTriggerZones() {
+        MotionZoneSet zones = new MotionZoneSet(Arrays.asList(
+                trigger(0f, 0f, 1f, 1f, 0.1f),
+                ignored(0.5f, 0f, 1f, 1f)));
+
+        MotionTileGrid rightHalfMoving = columns(4, 8, 1f);
+        assertEquals(-1, zones.findTriggeredZone(rightHalfMoving, 1f));
+        assertEquals(0f, zones.getZoneActivity(rightHalfMoving, 0), EPSILON);
+        assertEquals(0f, zones.getZoneActivity(rightHalfMoving, 1), EPSILON);
+        assertEquals(0, zones.findTriggeredZone(columns(0, 1, 1f), 1f));
+    }
+
+    @Test
+    public void zoneSmallerThanATileUsesTileUnderItsCentre() {
+        MotionZoneSet zones = new MotionZoneSet(Collections.singletonList(trigger(0.01f, 0.01f, 0.02f, 0.02f, 0.2f)));
+        MotionTileGrid grid = new MotionTileGrid();
+        grid.setActivity(0, 0.3f);
+
+        assertEquals(0, zones.findTriggeredZone(grid, 1f));
+    }
+
+    @Test
+    public void ignoredOnlySetHasNoTriggerZonesButMasksAnalysis() {
+        MotionZoneSet zones = new MotionZoneSet(Collections.singletonList(ignored(0.5f, 0f, 1f, 1f)));
+
+        assertFalse(zones.hasTriggerZones());
+        assertTrue(zones.hasIgnoredZones());
+        assertEquals(-1, zones.findTriggeredZone(columns(0, 8, 1f), 1f));
+        assertArrayEquals(new byte[]{1, 1, 0, 0, 1, 1, 0, 0}, zones.buildAnalysisMask(4, 2));
+    }
+
+    @Test
+    public void noIgnoredZonesMeansNoAnalysisMask() {
+        assertNull(MotionZoneSet.EMPTY.buildAnalysisMask(4, 2));
+        assertNull(new MotionZoneSet(Collections.singletonList(trigger(0f, 0f, 1f, 1f, 0.1f)))
+                .buildAnalysisMask(4, 2));
+    }
+}
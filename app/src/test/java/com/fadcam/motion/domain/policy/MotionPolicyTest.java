@@ -0,0 +1,109 @@
+package com.fadcam.motion.domain.policy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.fadcam.motion.domain.model.MotionSettings;
+import com.fadcam.motion.domain.model.MotionSignal;
+import com.fadcam.motion.domain.model.MotionTileGrid;
+import com.fadcam.motion.domain.model.MotionTriggerMode;
+import com.fadcam.motion.domain.model.MotionZone;
+import com.fadcam.motion.domain.model.MotionZoneSet;
+import com.fadcam.motion.domain.state.MotionSessionState;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+public class MotionPolicyTest {
+
+    // Sensitivity 50: start threshold 0.43, stop threshold 0.38
+    private static final int SENSITIVITY = 50;
+
+    private final MotionPolicy policy = new MotionPolicy();
+
+    private static MotionSettings settings(MotionTriggerMode mode, MotionZoneSet zones) {
+        return new MotionSettings(true, mode, SENSITIVITY, 5, 500, 3000, 0, false, zones);
+    }
+
+    private static MotionZoneSet leftHalfZone(boolean ignored) {
+        return new MotionZoneSet(Collections.singletonList(
+                new MotionZone("left", 0f, 0f, 0.5f, 1f, 0.4f, ignored)));
+    }
+
+    /** Default 8x6 grid with the left half (columns 0..3) at {@code value}. */
+    private static MotionTileGrid leftHalf(float value) {
+        MotionTileGrid grid = new MotionTileGrid();
+        for (int row = 0; row < grid.getRows(); row++) {
+            for (int column = 0; column < grid.getColumns() / 2; column++) {
+                grid.setActivity(row * grid.getColumns() + column, value);
+            }
+        }
+        return grid;
+    }
+
+    @Test
+    public void wholeFrameScoreUsesStartThresholdThenStopThresholdWhileHolding() {
+        MotionSettings settings = settings(MotionTriggerMode.ANY_MOTION, MotionZoneSet.EMPTY);
+
+        assertTrue(policy.isTriggerSatisfied(settings, new MotionSignal(0L, 0.45f, false), MotionSessionState.IDLE));
+        assertFalse(policy.isTriggerSatisfied(settings, new MotionSignal(0L, 0.40f, false), MotionSessionState.IDLE));
+        assertTrue(policy.isTriggerSatisfied(settings, new MotionSignal(0L, 0.40f, false), MotionSessionState.RECORDING));
+        assertFalse(policy.isTriggerSatisfied(settings, new MotionSignal(0L, 0.30f, false), MotionSessionState.POST_ROLL));
+    }
+
+    @Test
+    public void personModeRequiresPerson() {
+        MotionSettings settings = settings(MotionTriggerMode.PERSON_CONFIRMED, MotionZoneSet.EMPTY);
+
+        assertFalse(policy.isTriggerSatisfied(settings, new MotionSignal(0L, 0.9f, false), MotionSessionState.IDLE));
+        assertTrue(policy.isTriggerSatisfied(settings, new MotionSignal(0L, 0.9f, true), MotionSessionState.IDLE));
+    }
+
+    @Test
+    public void triggerZoneReplacesWholeFrameScore() {
+        MotionSettings settings = settings(MotionTriggerMode.ANY_MOTION, leftHalfZone(false));
+
+        MotionSignal loudButOutsideZone = new MotionSignal(0L, 0.9f, false, new MotionTileGrid());
+        assertTrue(policy.usesZones(settings, loudButOutsideZone));
+        assertFalse(policy.isTriggerSatisfied(settings, loudButOutsideZone, MotionSessionState.IDLE));
+
+        MotionSignal quietButInZone = new MotionSignal(0L, 0f, false, leftHalf(0.5f));
+        assertTrue(policy.isTriggerSatisfied(settings, quietButInZone, MotionSessionState.IDLE));
+        assertEquals(0, policy.findTriggeredZone(settings, quietButInZone, MotionSessionState.IDLE));
+    }
+
+    @Test
+    public void zoneThresholdRelaxesWhileHolding() {
+        MotionSettings settings = settings(MotionTriggerMode.ANY_MOTION, leftHalfZone(false));
+        // 0.35 is below the 0.4 zone threshold but above 0.75 of it
+        MotionSignal signal = new MotionSignal(0L, 0f, false, leftHalf(0.35f));
+
+        assertFalse(policy.isTriggerSatisfied(settings, signal, MotionSessionState.IDLE));
+        assertTrue(policy.isTriggerSatisfied(settings, signal, MotionSessionState.RECORDING));
+        assertTrue(policy.isTriggerSatisfied(settings, signal, MotionSessionState.PENDING));
+    }
+
+    @Test
+    public void zonesNeedTileActivity() {
+        MotionSettings settings = settings(MotionTriggerMode.ANY_MOTION, leftHalfZone(false));
+        MotionSignal noTiles = new MotionSignal(0L, 0.9f, false);
+
+        assertFalse(policy.usesZones(settings, noTiles));
+        assertEquals(-1, policy.findTriggeredZone(settings, noTiles, MotionSessionState.IDLE));
+        assertTrue(policy.isTriggerSatisfied(settings, noTiles, MotionSessionState.IDLE));
+    }
+
+    @Test
+    public void ignoredOnlyZonesLeaveTheDecisionToTheMaskedScore() {
+        // Ignored areas are masked out by the detector, so the policy scores the whole frame
+        MotionSettings settings = settings(MotionTriggerMode.ANY_MOTION, leftHalfZone(true));
+
+        MotionSignal signal = new MotionSignal(0L, 0.2f, false, leftHalf(1f));
+        assertFalse(policy.usesZones(settings, signal));
+        assertFalse(policy.isTriggerSatisfied(settings, signal, MotionSessionState.IDLE));
+        assertTrue(policy.isTriggerSatisfied(settings, new MotionSignal(0L, 0.5f, false, leftHalf(0f)),
+                MotionSessionState.IDLE));
+    }
+}
@@ -0,0 +1,98 @@
+package com.fadcam.streaming;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import com.fadcam.streaming.buffer.FragmentSlabPool;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+public class FragmentRingTest {
+
+    private final FragmentSlabPool pool = new FragmentSlabPool(1024, 64);
+
+    private FragmentData fragment(int sequence) {
+        return new FragmentData(
+                sequence, pool.copyOf(ByteBuffer.allocate(100)), 2000L);
+    }
+
+    @Test
+    public void keepsOnlyRetentionWindowAndReleasesEvicted() {
+        FragmentRing ring = new FragmentRing(15);
+        assertEquals(16, ring.getCapacity());
+
+        for (int seq = 1; seq <= 40; seq++) {
+            ring.publish(fragment(seq));
+        }
+
+        assertEquals(26, ring.getOldestSequence());
+        assertEquals(40, ring.getLatestSequence());
+        assertEquals(15, ring.size());
+        assertEquals(15 * 100L, ring.getBufferedBytes());
+        assertEquals(15L * pool.getSlabSize(), pool.getInUseBytes());
+
+        assertNull(ring.acquire(25));
+        assertNull(ring.acquire(41));
+        FragmentData latest = ring.acquire(40);
+        assertNotNull(latest);
+        latest.release();
+    }
+
+    @Test
+    public void snapshotReturnsNewestInSequenceOrder() {
+        FragmentRing ring = new FragmentRing(15);
+        for (int seq = 1; seq <= 20; seq++) {
+            ring.publish(fragment(seq));
+        }
+
+        FragmentData[] out = new FragmentData[8];
+        assertEquals(8, ring.snapshot(out));
+        assertEquals(13, out[0].sequenceNumber);
+        assertEquals(20, out[7].sequenceNumber);
+    }
+
+    @Test
+    public void sequenceRestartClearsRing() {
+        FragmentRing ring = new FragmentRing(8);
+        for (int seq = 1; seq <= 10; seq++) {
+            ring.publish(fragment(seq));
+        }
+
+        ring.publish(fragment(1));
+
+        assertEquals(1, ring.getOldestSequence());
+        assertEquals(1, ring.getLatestSequence());
+        assertEquals(1, ring.size());
+        assertEquals(pool.getSlabSize(), pool.getInUseBytes());
+    }
+
+    @Test
+    public void clearReleasesEverything() {
+        FragmentRing ring = new FragmentRing(8);
+        for (int seq = 1; seq <= 5; seq++) {
+            ring.publish(fragment(seq));
+        }
+
+        ring.clear();
+
+        assertEquals(0, ring.size());
+        assertNull(ring.acquire(5));
+        assertEquals(0L, pool.getInUseBytes());
+    }
+
+    @Test
+    public void publishAfterCloseReleasesFragment() {
+        FragmentRing ring = new FragmentRing(8);
+        ring.publish(fragment(1));
+
+        ring.close();
+        ring.publish(fragment(2));
+
+        assertEquals(0, ring.size());
+        assertNull(ring.acquire(2));
+        assertEquals(0L, pool.getInUseBytes());
+    }
+}
@@ -0,0 +1,57 @@
+package com.fadcam.streaming;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.fadcam.streaming.buffer.FragmentSlabPool;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+public class LowLatencyPartStoreTest {
+
+    private final FragmentSlabPool pool = new FragmentSlabPool(1024, 64);
+
+    private void publish(LowLatencyPartStore store, int msn, int index) {
+        store.publish(msn, index, 500_000L, index == 0, pool.copyOf(ByteBuffer.allocate(64)));
+    }
+
+    @Test
+    public void segmentIsCompleteOnlyOnceTheNextOneStarts() {
+        LowLatencyPartStore store = new LowLatencyPartStore(4);
+        for (int index = 0; index < 4; index++) {
+            publish(store, 1, index);
+        }
+        assertFalse(store.isSegmentComplete(1, 4));
+
+        publish(store, 2, 0);
+        assertTrue(store.isSegmentComplete(1, 4));
+        assertFalse(store.isSegmentComplete(1, 3));
+        assertFalse(store.isSegmentComplete(1, 5));
+    }
+
+    @Test
+    public void resyncedSegmentIsNeverComplete() throws InterruptedException {
+        LowLatencyPartStore store = new LowLatencyPartStore(4);
+        publish(store, 1, 0);
+        publish(store, 1, 1);
+        store.invalidateFrom(1);
+        publish(store, 2, 0);
+
+        assertNull(store.awaitPart(1, 2, 10));
+        assertFalse(store.isSegmentComplete(1, 2));
+    }
+
+    @Test
+    public void evictedSegmentCannotBeVerified() {
+        LowLatencyPartStore store = new LowLatencyPartStore(2);
+        publish(store, 1, 0);
+        publish(store, 2, 0);
+        publish(store, 3, 0);
+
+        assertFalse(store.isSegmentComplete(1, 1));
+        assertTrue(store.isSegmentComplete(2, 1));
+    }
+}
@@ -0,0 +1,72 @@
+// JVM-only JMH benchmarks for the hot paths of :app that have no Android dependencies
+// beyond logging and android.media.Image. Those are shadowed in src/shadow/java, and the
+// app sources under test are compiled in directly, so nothing here needs an emulator.
+//
+// Run:  ./gradlew :benchmarks:jmh
+//       ./gradlew :benchmarks:jmh -PjmhIncludes=FragmentRing
+plugins {
+    `java`
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
+
+// The app sources carry non-ASCII comments; don't depend on the host's default charset
+tasks.withType<JavaCompile> {
+    options.encoding = "UTF-8"
+}
+
+val appSources = layout.projectDirectory.dir("../app/src/main/java")
+
+// Copy (rather than reference) the app sources so the source set only sees these files
+val syncAppSources by tasks.registering(Sync::class) {
+    from(appSources) {
+        include(
+            "com/fadcam/FLog.java",
+            "com/fadcam/playback/FragmentedMp4IndexBuilder.java",
+            "com/fadcam/playback/FragmentIndexSidecar.java",
+            "com/fadcam/media/MoofRunParser.java",
+            "com/fadcam/streaming/FragmentData.java",
+            "com/fadcam/streaming/FragmentRing.java",
+            "com/fadcam/streaming/HlsPlaylistCache.java",
+            "com/fadcam/streaming/LowLatencyPartStore.java",
+            "com/fadcam/streaming/buffer/**",
+            "com/fadcam/streaming/util/JsonEscaper.java",
+            "com/fadcam/motion/domain/detector/MotionDetector.java",
+            "com/fadcam/motion/domain/detector/MotionDebugInfoProvider.java",
+            "com/fadcam/motion/domain/detector/FrameDiffMotionDetector.java",
+            "com/fadcam/motion/domain/detector/MotionTileActivityProvider.java",
+            "com/fadcam/motion/domain/detector/YuvModelInputConverter.java",
+            "com/fadcam/motion/domain/model/MotionTileGrid.java",
+            "com/fadcam/data/IndexDiff.java",
+            "com/fadcam/data/dao/VideoIndexDao.java",
+            "com/fadcam/data/entity/VideoIndexEntity.java",
+        )
+    }
+    into(layout.buildDirectory.dir("generated/app-sources"))
+}
+
+sourceSets {
+    main {
+        java.srcDir(syncAppSources)
+        java.srcDir("src/shadow/java")
+    }
+}
+
+dependencies {
+    // Annotation-only: @NonNull/@Nullable and the Room annotations on the DAO and entity
+    compileOnly(libs.annotation)
+    compileOnly(libs.room.common)
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh.get()
+    warmupIterations = 3
+    iterations = 5
+    fork = 1
+    resultFormat = "JSON"
+    providers.gradleProperty("jmhIncludes").orNull?.let { includes = listOf(it) }
+}
@@ -0,0 +1,81 @@
+package com.fadcam.benchmark;
+
+import com.fadcam.playback.FragmentIndexSidecar;
+import com.fadcam.playback.FragmentedMp4IndexBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seek-index construction for long recordings: a full box walk versus a sidecar hit.
+ * The file is sparse (headers only), so this measures parsing and syscalls, not disk
+ * bandwidth — the same work the player does on a warm page cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class Fmp4IndexBenchmark {
+
+    private static final int MDAT_BYTES = 2 * 1024 * 1024; // ~2 s of 8 Mbit/s video
+
+    /** Recording size; 4096 MB is about 68 minutes at 8 Mbit/s. */
+    @Param({"512", "4096"})
+    public int fileSizeMb;
+
+    private final FragmentedMp4IndexBuilder builder = new FragmentedMp4IndexBuilder();
+    private File dir;
+    private File video;
+
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException {
+        dir = Files.createTempDirectory("fmp4-bench").toFile();
+        video = new File(dir, "recording.mp4");
+        int fragments = (int) ((long) fileSizeMb * 1024 * 1024 / MDAT_BYTES);
+        SyntheticFmp4.writeSparseFile(video, fragments, MDAT_BYTES);
+        FragmentedMp4IndexBuilder.FragmentIndex index = builder.buildIndex(video); // writes the sidecar
+        if (index.fragments.size() != fragments) {
+            throw new IllegalStateException("indexed " + index.fragments.size() + " of " + fragments);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() {
+        FragmentIndexSidecar.delete(video);
+        //noinspection ResultOfMethodCallIgnored
+        video.delete();
+        //noinspection ResultOfMethodCallIgnored
+        dir.delete();
+    }
+
+    @Benchmark
+    public FragmentedMp4IndexBuilder.FragmentIndex fullScan() throws IOException {
+        try (FragmentedMp4IndexBuilder.IncrementalScan scan = builder.openIncremental(video)) {
+            return scan.scanToEnd();
+        }
+    }
+
+    @Benchmark
+    public FragmentedMp4IndexBuilder.FragmentIndex firstFragments() throws IOException {
+        try (FragmentedMp4IndexBuilder.IncrementalScan scan = builder.openIncremental(video)) {
+            return scan.scan(8);
+        }
+    }
+
+    @Benchmark
+    public FragmentedMp4IndexBuilder.FragmentIndex sidecarLoad() {
+        return builder.buildIndex(video);
+    }
+}
@@ -0,0 +1,50 @@
+package com.fadcam.benchmark;
+
+import com.fadcam.media.MoofRunParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-fragment moof parsing the muxer does for hybrid finalization (sample counts and
+ * trun data offsets for stco/stsc). Runs once per fragment on the writer thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FragmentFinalizationBenchmark {
+
+    private byte[] fragment;
+    private int trafOffset;
+    private int trafLength;
+    private final int[] runs = new int[4];
+
+    @Setup
+    public void buildFragment() {
+        ByteBuffer moof = SyntheticFmp4.moof(42, 42L * 180_000);
+        fragment = new byte[moof.remaining() + 8];
+        moof.get(fragment, 0, moof.remaining());
+        // First traf follows the 8-byte moof header and the 16-byte mfhd
+        trafOffset = 8 + 16 + 8;
+        trafLength = ByteBuffer.wrap(fragment).getInt(8 + 16) - 8;
+    }
+
+    @Benchmark
+    public int[] parseFragment() {
+        MoofRunParser.parse(fragment, SyntheticFmp4.VIDEO_TRACK_ID, SyntheticFmp4.AUDIO_TRACK_ID, runs);
+        return runs;
+    }
+
+    @Benchmark
+    public int[] findTrun() {
+        return MoofRunParser.findTrun(fragment, trafOffset, trafLength);
+    }
+}
@@ -0,0 +1,94 @@
+package com.fadcam.benchmark;
+
+import com.fadcam.streaming.FragmentData;
+import com.fadcam.streaming.FragmentRing;
+import com.fadcam.streaming.buffer.FragmentSlabPool;
+import com.fadcam.streaming.buffer.PooledFragment;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The live-stream fragment ring under the server's access pattern: one muxer thread
+ * publishing while HTTP threads fetch recent segments and snapshot the window for
+ * playlists. Sized like RemoteStreamManager's ring (playlist window + hold-back).
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FragmentRingBenchmark {
+
+    private static final int RETENTION = 15; // DEFAULT_PLAYLIST_WINDOW + HOLD_BACK_FRAGMENTS
+    private static final int FRAGMENT_BYTES = 64 * 1024;
+
+    private FragmentSlabPool pool;
+    private FragmentRing ring;
+    private byte[] payload;
+    private int nextSequence; // publisher thread only
+
+    @Setup
+    public void fill() {
+        pool = new FragmentSlabPool(FragmentSlabPool.DEFAULT_SLAB_SIZE, 64);
+        ring = new FragmentRing(RETENTION);
+        payload = new byte[FRAGMENT_BYTES];
+        ThreadLocalRandom.current().nextBytes(payload);
+        nextSequence = 1;
+        for (int i = 0; i < RETENTION; i++) {
+            publish();
+        }
+    }
+
+    @TearDown
+    public void clear() {
+        ring.clear();
+    }
+
+    @Benchmark
+    @Group("ring")
+    @GroupThreads(1)
+    public void publish() {
+        PooledFragment bytes = pool.copyOf(payload, 0, payload.length);
+        ring.publish(new FragmentData(nextSequence++, bytes, 2000));
+    }
+
+    @Benchmark
+    @Group("ring")
+    @GroupThreads(3)
+    public int acquire() {
+        // Clients trail the live edge by a few segments
+        int sequence = ring.getLatestSequence() - ThreadLocalRandom.current().nextInt(4);
+        FragmentData fragment = ring.acquire(sequence);
+        if (fragment == null) {
+            return 0;
+        }
+        try {
+            return fragment.sizeBytes;
+        } finally {
+            fragment.release();
+        }
+    }
+
+    @Benchmark
+    @Group("ring")
+    @GroupThreads(1)
+    public int snapshot(ThreadSnapshot state) {
+        return ring.snapshot(state.window);
+    }
+
+    /** Per-reader scratch, as each playlist request would have. */
+    @State(Scope.Thread)
+    public static class ThreadSnapshot {
+        final FragmentData[] window = new FragmentData[RETENTION];
+    }
+}
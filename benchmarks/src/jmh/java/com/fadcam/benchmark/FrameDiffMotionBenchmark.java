@@ -0,0 +1,138 @@
+package com.fadcam.benchmark;
+
+import android.media.Image;
+
+import com.fadcam.motion.domain.detector.FrameDiffMotionDetector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Motion scoring per analysed camera frame. Synthetic luma planes: sensor-like noise on
+ * a gradient, with a bright square that moves between frames so the detector takes its
+ * full changed-area path instead of the idle one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FrameDiffMotionBenchmark {
+
+    private static final int FRAME_COUNT = 8;
+
+    @Param({"640x480", "1280x720", "1920x1080"})
+    public String resolution;
+
+    /** Row padding the camera HAL adds beyond the width. */
+    @Param({"0", "64"})
+    public int rowPadding;
+
+    private LumaImage[] frames;
+    private FrameDiffMotionDetector detector;
+    private int next;
+
+    @Setup
+    public void buildFrames() {
+        String[] size = resolution.split("x");
+        int width = Integer.parseInt(size[0]);
+        int height = Integer.parseInt(size[1]);
+        int rowStride = width + rowPadding;
+        Random random = new Random(7);
+        frames = new LumaImage[FRAME_COUNT];
+        int square = height / 6;
+        for (int f = 0; f < FRAME_COUNT; f++) {
+            byte[] luma = new byte[rowStride * height];
+            int squareX = (f * width / FRAME_COUNT) % (width - square);
+            int squareY = height / 3;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int value = 40 + (x * 120 / width) + random.nextInt(5);
+                    if (x >= squareX && x < squareX + square && y >= squareY && y < squareY + square) {
+                        value = 230;
+                    }
+                    luma[y * rowStride + x] = (byte) value;
+                }
+            }
+            frames[f] = new LumaImage(width, height, rowStride, luma);
+        }
+        detector = new FrameDiffMotionDetector();
+        for (LumaImage frame : frames) {
+            detector.detectScore(frame); // settle the background model
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public float detectScore() {
+        LumaImage frame = frames[next];
+        next = (next + 1) % FRAME_COUNT;
+        return detector.detectScore(frame);
+    }
+
+    /** Y-only YUV_420_888 image over a heap buffer. */
+    static final class LumaImage extends Image {
+        private final int width;
+        private final int height;
+        private final Plane[] planes;
+
+        LumaImage(int width, int height, int rowStride, byte[] luma) {
+            this.width = width;
+            this.height = height;
+            ByteBuffer buffer = ByteBuffer.wrap(luma).asReadOnlyBuffer();
+            this.planes = new Plane[]{new Plane() {
+                @Override
+                public int getRowStride() {
+                    return rowStride;
+                }
+
+                @Override
+                public int getPixelStride() {
+                    return 1;
+                }
+
+                @Override
+                public ByteBuffer getBuffer() {
+                    return buffer;
+                }
+            }};
+        }
+
+        @Override
+        public int getFormat() {
+            return 0x23; // ImageFormat.YUV_420_888
+        }
+
+        @Override
+        public int getWidth() {
+            return width;
+        }
+
+        @Override
+        public int getHeight() {
+            return height;
+        }
+
+        @Override
+        public long getTimestamp() {
+            return 0;
+        }
+
+        @Override
+        public Plane[] getPlanes() {
+            return planes;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.fadcam.benchmark;
+
+import com.fadcam.data.IndexDiff;
+import com.fadcam.data.dao.VideoIndexDao;
+import com.fadcam.data.entity.VideoIndexEntity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-memory diff of a delta scan: disk scan versus indexed rows, with a realistic
+ * trickle of changes (about 1% rewritten, 0.5% new, 0.5% deleted).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IndexDiffBenchmark {
+
+    @Param({"1000", "20000"})
+    public int librarySize;
+
+    private List<VideoIndexEntity> disk;
+    private List<VideoIndexDao.DeltaCheckRow> indexed;
+
+    @Setup
+    public void buildLibrary() {
+        disk = new ArrayList<>(librarySize);
+        indexed = new ArrayList<>(librarySize);
+        long base = 1_700_000_000_000L;
+        for (int i = 0; i < librarySize; i++) {
+            String uri = "file:///storage/emulated/0/Download/FadCam/FadCam_2025" + String.format("%06d", i) + ".mp4";
+            long modified = base + i * 60_000L;
+            long size = 50_000_000L + i * 1024L;
+            boolean deleted = i % 200 == 1;
+            boolean added = i % 200 == 2;
+            if (!added) {
+                VideoIndexDao.DeltaCheckRow row = new VideoIndexDao.DeltaCheckRow();
+                row.uri_string = uri;
+                row.last_modified = modified;
+                row.file_size = size;
+                indexed.add(row);
+            }
+            if (!deleted) {
+                VideoIndexEntity entity = new VideoIndexEntity();
+                entity.uriString = uri;
+                entity.displayName = uri.substring(uri.lastIndexOf('/') + 1);
+                entity.lastModified = i % 100 == 3 ? modified + 5_000 : modified;
+                entity.fileSize = size;
+                disk.add(entity);
+            }
+        }
+    }
+
+    @Benchmark
+    public IndexDiff compute() {
+        return IndexDiff.compute(disk, indexed);
+    }
+}
@@ -0,0 +1,46 @@
+package com.fadcam.benchmark;
+
+import com.fadcam.streaming.util.JsonEscaper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON escaping on the status endpoint: mostly plain file names, sometimes user text
+ * with quotes, control characters and non-ASCII.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JsonEscaperBenchmark {
+
+    @Param({"plain", "mixed"})
+    public String input;
+
+    private String value;
+
+    @Setup
+    public void pickInput() {
+        value = "plain".equals(input)
+                ? "FadCam_20250101_120000_front_1080p_30fps.mp4"
+                : "Front door \"cam\" \\ night\tmode\n— été 夜間 \u0001 recording.mp4";
+    }
+
+    @Benchmark
+    public String escape() {
+        return JsonEscaper.escape(value);
+    }
+
+    @Benchmark
+    public String escapeToJsonString() {
+        return JsonEscaper.escapeToJsonString(value);
+    }
+}
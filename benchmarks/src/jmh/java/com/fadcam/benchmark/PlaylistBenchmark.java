@@ -0,0 +1,65 @@
+package com.fadcam.benchmark;
+
+import com.fadcam.streaming.FragmentData;
+import com.fadcam.streaming.HlsPlaylistCache;
+import com.fadcam.streaming.buffer.FragmentSlabPool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HLS media playlist generation: rendering the text once per new fragment, and the
+ * cached publish the server does so that polling clients get the prebuilt bytes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PlaylistBenchmark {
+
+    /** Segments listed: the default live window, and a long DVR-style window. */
+    @Param({"8", "60"})
+    public int windowSize;
+
+    private FragmentData[] fragments;
+    private final StringBuilder out = new StringBuilder(4096);
+    private final HlsPlaylistCache cache = new HlsPlaylistCache();
+
+    @Setup
+    public void buildWindow() {
+        FragmentSlabPool pool = new FragmentSlabPool(4096, 0);
+        byte[] bytes = new byte[1024];
+        fragments = new FragmentData[windowSize];
+        for (int i = 0; i < windowSize; i++) {
+            fragments[i] = new FragmentData(1000 + i, pool.copyOf(bytes, 0, bytes.length), 1900 + (i % 5) * 40);
+        }
+    }
+
+    @TearDown
+    public void releaseWindow() {
+        for (FragmentData fragment : fragments) {
+            fragment.release();
+        }
+    }
+
+    @Benchmark
+    public StringBuilder render() {
+        out.setLength(0);
+        HlsPlaylistCache.render(out, fragments, windowSize, "/", true);
+        return out;
+    }
+
+    @Benchmark
+    public HlsPlaylistCache.Snapshot publishAndGet() {
+        cache.publish(fragments, windowSize, null, 0, 0);
+        return cache.get();
+    }
+}
@@ -0,0 +1,142 @@
+package com.fadcam.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds fragmented MP4 box structures shaped like the muxer's output: ftyp + moov with
+ * video (track 1) and audio (track 2), then moof + mdat pairs. Only box headers are
+ * written into files — the mdat payloads are left as sparse holes, so a multi-GB
+ * recording costs a few MB of real disk.
+ */
+final class SyntheticFmp4 {
+
+    static final int VIDEO_TRACK_ID = 1;
+    static final int AUDIO_TRACK_ID = 2;
+    static final int VIDEO_TIMESCALE = 90_000;
+    static final int VIDEO_SAMPLES_PER_FRAGMENT = 60;   // 2 s at 30 fps
+    static final int AUDIO_SAMPLES_PER_FRAGMENT = 94;   // 2 s of 1024-sample AAC at 48 kHz
+
+    private SyntheticFmp4() {
+    }
+
+    /**
+     * Writes a sparse fMP4 file of {@code fragmentCount} fragments whose mdats are
+     * {@code mdatBytes} each.
+     */
+    static void writeSparseFile(File file, int fragmentCount, int mdatBytes) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(0);
+            FileChannel channel = raf.getChannel();
+            long position = 0;
+            position += writeFully(channel, position, initSegment());
+            for (int i = 0; i < fragmentCount; i++) {
+                position += writeFully(channel, position, moof(i, (long) i * VIDEO_SAMPLES_PER_FRAGMENT * 3000));
+                ByteBuffer mdat = ByteBuffer.allocate(8).putInt(8 + mdatBytes).put(type("mdat"));
+                mdat.flip();
+                writeFully(channel, position, mdat);
+                position += 8L + mdatBytes;
+            }
+            raf.setLength(position);
+        }
+    }
+
+    /** ftyp + moov (mvhd, video trak, audio trak). */
+    static ByteBuffer initSegment() {
+        ByteBuffer out = ByteBuffer.allocate(1024);
+        int ftyp = begin(out, "ftyp");
+        out.put(type("isom")).putInt(0x200).put(type("isom")).put(type("iso6"));
+        end(out, ftyp);
+
+        int moov = begin(out, "moov");
+        int mvhd = begin(out, "mvhd");
+        out.putInt(0).putInt(0).putInt(0).putInt(1000).putInt(0);
+        out.put(new byte[80]);
+        end(out, mvhd);
+        trak(out, VIDEO_TIMESCALE, "vide");
+        trak(out, 48_000, "soun");
+        end(out, moov);
+        out.flip();
+        return out;
+    }
+
+    /**
+     * One moof with a video and an audio traf, each carrying a trun with data offset and
+     * per-sample durations (flags 0x000101), like the muxer writes.
+     */
+    static ByteBuffer moof(int sequence, long baseDecodeTime) {
+        ByteBuffer out = ByteBuffer.allocate(8 + 16
+                + 2 * (8 + 16 + 20 + 20) + 4 * (VIDEO_SAMPLES_PER_FRAGMENT + AUDIO_SAMPLES_PER_FRAGMENT));
+        int moof = begin(out, "moof");
+        int mfhd = begin(out, "mfhd");
+        out.putInt(0).putInt(sequence);
+        end(out, mfhd);
+        int videoTrunOffset = traf(out, VIDEO_TRACK_ID, baseDecodeTime, VIDEO_SAMPLES_PER_FRAGMENT, 3000);
+        int audioTrunOffset = traf(out, AUDIO_TRACK_ID, baseDecodeTime / 90 * 48, AUDIO_SAMPLES_PER_FRAGMENT, 1024);
+        end(out, moof);
+        // data_offset is relative to the moof start; video first, audio after it in the mdat
+        int moofSize = out.position();
+        out.putInt(videoTrunOffset, moofSize + 8);
+        out.putInt(audioTrunOffset, moofSize + 8 + 1_500_000);
+        out.flip();
+        return out;
+    }
+
+    private static void trak(ByteBuffer out, int timescale, String handler) {
+        int trak = begin(out, "trak");
+        int mdia = begin(out, "mdia");
+        int mdhd = begin(out, "mdhd");
+        out.putInt(0).putInt(0).putInt(0).putInt(timescale).putInt(0).putInt(0);
+        end(out, mdhd);
+        int hdlr = begin(out, "hdlr");
+        out.putInt(0).putInt(0).put(type(handler)).put(new byte[12]).put((byte) 0);
+        end(out, hdlr);
+        end(out, mdia);
+        end(out, trak);
+    }
+
+    /** @return Position of the trun's data_offset field, patched once the moof size is known. */
+    private static int traf(ByteBuffer out, int trackId, long baseDecodeTime, int samples, int sampleDuration) {
+        int traf = begin(out, "traf");
+        int tfhd = begin(out, "tfhd");
+        out.putInt(0x020000).putInt(trackId); // default-base-is-moof
+        end(out, tfhd);
+        int tfdt = begin(out, "tfdt");
+        out.putInt(0x01000000).putLong(baseDecodeTime);
+        end(out, tfdt);
+        int trun = begin(out, "trun");
+        out.putInt(0x000101).putInt(samples);
+        int dataOffset = out.position();
+        out.putInt(0);
+        for (int i = 0; i < samples; i++) out.putInt(sampleDuration);
+        end(out, trun);
+        end(out, traf);
+        return dataOffset;
+    }
+
+    private static int begin(ByteBuffer out, String type) {
+        int start = out.position();
+        out.putInt(0).put(type(type));
+        return start;
+    }
+
+    private static void end(ByteBuffer out, int start) {
+        out.putInt(start, out.position() - start);
+    }
+
+    private static byte[] type(String fourCc) {
+        return fourCc.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static int writeFully(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+        int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + length - buffer.remaining());
+        }
+        return length;
+    }
+}
@@ -0,0 +1,99 @@
+package com.fadcam.benchmark;
+
+import com.fadcam.motion.domain.detector.YuvModelInputConverter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EfficientDet input preparation per analysed frame: the former per-pixel float YUV→ARGB
+ * loop into a fresh {@code int[]} (the Bitmap and TensorImage copies it fed are not
+ * included) against the direct letterboxed resample into the reused input buffer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class YuvModelInputBenchmark {
+
+    private static final int MODEL_SIZE = 384;
+
+    @Param({"640x480", "1280x720"})
+    public String resolution;
+
+    /** 1 = planar (I420), 2 = semi-planar (NV12/NV21) chroma. */
+    @Param({"1", "2"})
+    public int uvPixelStride;
+
+    private int width;
+    private int height;
+    private int yRowStride;
+    private int uvRowStride;
+    private byte[] y;
+    private byte[] u;
+    private byte[] v;
+    private YuvModelInputConverter converter;
+
+    @Setup
+    public void buildFrame() {
+        String[] size = resolution.split("x");
+        width = Integer.parseInt(size[0]);
+        height = Integer.parseInt(size[1]);
+        yRowStride = width;
+        uvRowStride = (width / 2) * uvPixelStride;
+        y = new byte[yRowStride * height];
+        u = new byte[uvRowStride * (height / 2)];
+        v = new byte[uvRowStride * (height / 2)];
+        Random random = new Random(7);
+        random.nextBytes(y);
+        random.nextBytes(u);
+        random.nextBytes(v);
+        converter = new YuvModelInputConverter(MODEL_SIZE, MODEL_SIZE);
+    }
+
+    @Benchmark
+    public int[] legacyScaledArgb() {
+        float scale = Math.min(1f, Math.min((float) MODEL_SIZE / width, (float) MODEL_SIZE / height));
+        int dstW = Math.max(1, Math.round(width * scale));
+        int dstH = Math.max(1, Math.round(height * scale));
+        int[] pixels = new int[dstW * dstH];
+        int index = 0;
+        for (int yDst = 0; yDst < dstH; yDst++) {
+            int ySrc = (yDst * height) / dstH;
+            int yRowStart = ySrc * yRowStride;
+            int uvRowStart = (ySrc / 2) * uvRowStride;
+            for (int xDst = 0; xDst < dstW; xDst++) {
+                int xSrc = (xDst * width) / dstW;
+                int yIndex = yRowStart + xSrc;
+                int uvIndex = uvRowStart + ((xSrc / 2) * uvPixelStride);
+                int yValue = (yIndex >= 0 && yIndex < y.length) ? (y[yIndex] & 0xFF) : 0;
+                int uValue = (uvIndex >= 0 && uvIndex < u.length) ? (u[uvIndex] & 0xFF) : 128;
+                int vValue = (uvIndex >= 0 && uvIndex < v.length) ? (v[uvIndex] & 0xFF) : 128;
+
+                int r = clampByte(yValue + (int) (1.402f * (vValue - 128)));
+                int g = clampByte(yValue - (int) (0.344136f * (uValue - 128)) - (int) (0.714136f * (vValue - 128)));
+                int b = clampByte(yValue + (int) (1.772f * (uValue - 128)));
+                pixels[index++] = 0xFF000000 | (r << 16) | (g << 8) | b;
+            }
+        }
+        return pixels;
+    }
+
+    @Benchmark
+    public ByteBuffer directModelInput() {
+        return converter.convert(y, u, v, width, height, yRowStride, 1, uvRowStride, uvPixelStride);
+    }
+
+    private static int clampByte(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+}
@@ -0,0 +1,38 @@
+package android.media;
+
+import java.nio.ByteBuffer;
+
+/**
+ * JVM stand-in for the camera image API surface the motion detectors read: size, format
+ * and the planes. Benchmarks subclass it over plain byte buffers.
+ */
+public abstract class Image implements AutoCloseable {
+
+    protected Image() {
+    }
+
+    public abstract int getFormat();
+
+    public abstract int getWidth();
+
+    public abstract int getHeight();
+
+    public abstract long getTimestamp();
+
+    public abstract Plane[] getPlanes();
+
+    @Override
+    public abstract void close();
+
+    public abstract static class Plane {
+
+        protected Plane() {
+        }
+
+        public abstract int getRowStride();
+
+        public abstract int getPixelStride();
+
+        public abstract ByteBuffer getBuffer();
+    }
+}
@@ -0,0 +1,11 @@
+package androidx.sqlite.db;
+
+/**
+ * Compile-time stand-in so the video index DAO interface can be compiled for the delta
+ * diff benchmark; no query is ever run.
+ */
+public interface SupportSQLiteQuery {
+    String getSql();
+
+    int getArgCount();
+}
@@ -0,0 +1,22 @@
+package com.fadcam;
+
+/**
+ * JVM stand-in for the in-app HTML log. The real one needs a Context and a HandlerThread;
+ * benchmarks only need FLog to have somewhere to write.
+ */
+public class Log {
+    public static void d(String tag, String message) {
+    }
+
+    public static void i(String tag, String message) {
+    }
+
+    public static void w(String tag, String message) {
+    }
+
+    public static void e(String tag, String message) {
+    }
+
+    public static void v(String tag, String message) {
+    }
+}